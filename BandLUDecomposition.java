@@ -0,0 +1,228 @@
+import java.util.Arrays;
+
+/**
+ * 帯行列の部分ピボット選択付きのLU分解を表すクラスです。<br>
+ * 下側の帯幅kl，上側の帯幅kuの帯行列AをPA = LUの形に分解します。
+ * 行の入れ替えによって，Uの上側の帯幅はkl + kuに広がりますが，Lの各列の0以外の成分はkl個以下のままです。
+ * そのため，分解の計算量はn * kl(kl + ku)に，求解の計算量はn(2kl + ku)に比例します。
+ *
+ * <pre>{@code
+ * BandMatrix a = BandMatrix.of(DoubleMatrix.of(3, 3, 1, 2, 0, 3, 4, 5, 0, 6, 7), 1, 1);
+ * BandLUDecomposition lu = a.lu();
+ * DoubleMatrix x = lu.solve(DoubleMatrix.createColumnVector(3, 12, 13)); // x = (1, 1, 1)
+ * }</pre>
+ *
+ * @author mpp
+ * @see BandMatrix#lu()
+ * @see LUDecomposition
+ */
+public final class BandLUDecomposition {
+
+  /**
+   * 帯行列をLU分解します。
+   *
+   * @param matrix 分解する帯行列
+   * @return 帯LU分解
+   * @throws ArithmeticException matrixが正則でない場合
+   */
+  public static BandLUDecomposition of(BandMatrix matrix) {
+    return (new BandLUDecomposition(matrix));
+  }
+
+  /** 係数行列の次数を表します。 */
+  private final int n;
+
+  /** 係数行列の下側の帯幅を表します。 */
+  private final int kl;
+
+  /** Uの上側の帯幅(kl + ku)を表します。 */
+  private final int kuu;
+
+  /** 上三角行列Uの各行を保持する配列です。(i, j)成分はu[i][j - i]に格納されます(0 &lt;= j - i &lt;= kuu)。 */
+  private final double[][] u;
+
+  /** 第k段の消去に使用した乗数です。l[k][t]は第k + 1 + t行に対する乗数です。 */
+  private final double[][] l;
+
+  /** 第k段で第k行と入れ替えた行の番号です。 */
+  private final int[] pivot;
+
+  /** 行の入れ替えの回数の偶奇を表す符号です。 */
+  private final int sign;
+
+  /**
+   * 帯行列をLU分解します。
+   *
+   * @param matrix 分解する帯行列
+   * @throws ArithmeticException matrixが正則でない場合
+   */
+  private BandLUDecomposition(BandMatrix matrix) {
+    this.n = matrix.order();
+    this.kl = matrix.lowerBandwidth();
+    this.kuu = Math.min(this.kl + matrix.upperBandwidth(), this.n - 1);
+    this.pivot = new int[this.n];
+    this.l = new double[this.n][];
+
+    // 作業用の形: 第i行の(i, j)成分をw[i][j - i + kl]に置く(j <= i + kl + ku)
+    final int kl = this.kl;
+    final int width = kl + this.kuu + 1;
+    final double[][] source = matrix.band();
+    double[][] w = new double[this.n][width];
+    for (int i = 0; i < this.n; i++) {
+      final int from = matrix.firstColumn(i);
+      System.arraycopy(
+          source[i], from - i + kl, w[i], from - i + kl, matrix.lastColumn(i) - from);
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("bandLu");
+    int sign = 1;
+    for (int k = 0; k < this.n; k++) {
+      final int lastRow = Math.min(this.n - 1, k + kl);
+      final int lastColumn = Math.min(this.n - 1, k + this.kuu);
+
+      int p = k;
+      for (int i = k + 1; i <= lastRow; i++) {
+        if (Math.abs(w[i][k - i + kl]) > Math.abs(w[p][k - p + kl])) {
+          p = i;
+        }
+      }
+      if (w[p][k - p + kl] == 0) {
+        throw (new ArithmeticException("行列が正則ではないため，LU分解できません"));
+      }
+      this.pivot[k] = p;
+      if (p != k) {
+        // 第k列以降の帯の内側の成分を入れ替える(2つの行では，同じ列の格納位置がp - kだけずれている)
+        final double[] rowK = w[k];
+        final double[] rowP = w[p];
+        for (int j = k; j <= lastColumn; j++) {
+          double tmp = rowK[j - k + kl];
+          rowK[j - k + kl] = rowP[j - p + kl];
+          rowP[j - p + kl] = tmp;
+        }
+        sign = -sign;
+      }
+
+      final double[] rowK = w[k];
+      final double pivotValue = rowK[kl];
+      double[] multipliers = new double[lastRow - k];
+      for (int i = k + 1; i <= lastRow; i++) {
+        final double[] rowI = w[i];
+        final double m = rowI[k - i + kl] / pivotValue;
+        multipliers[i - k - 1] = m;
+        rowI[k - i + kl] = 0;
+        if (m == 0) {
+          continue;
+        }
+        for (int j = k + 1; j <= lastColumn; j++) {
+          rowI[j - i + kl] -= m * rowK[j - k + kl];
+        }
+      }
+      this.l[k] = multipliers;
+    }
+    this.sign = sign;
+
+    // Uの各行を対角成分から始まる形に詰め直す
+    this.u = new double[this.n][];
+    for (int i = 0; i < this.n; i++) {
+      this.u[i] = Arrays.copyOfRange(w[i], kl, width);
+    }
+    DoubleMatrixMetrics.end(
+        probe, this.n, this.n, 0, (long) this.n * width * Double.BYTES, 2L * this.n * kl * width);
+  }
+
+  /**
+   * 係数行列の次数を返します。
+   *
+   * @return 次数
+   */
+  public int order() {
+    return this.n;
+  }
+
+  /**
+   * 係数行列の行列式を返します。
+   *
+   * @return 行列式
+   */
+  public double determinant() {
+    double result = this.sign;
+    for (int i = 0; i < this.n; i++) {
+      result *= this.u[i][0];
+    }
+    return result;
+  }
+
+  /**
+   * 連立一次方程式AX = Bを解き，Xを返します。<br>
+   * Bの全ての列を行単位でまとめて処理するため，列方向へのアクセスは発生しません。
+   *
+   * @param b 右辺の行列
+   * @return 解X
+   * @throws ArithmeticException bの行数が係数行列の次数と異なる場合
+   */
+  public DoubleMatrix solve(DoubleMatrix b) {
+    if (b.rows() != this.n) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, b.rows())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("bandLuSolve");
+    final int columns = b.columns();
+    final double[][] y = b.array();
+    double[][] x = new double[this.n][];
+    for (int i = 0; i < this.n; i++) {
+      x[i] = y[i].clone();
+    }
+
+    // 前進代入: 各段の行の入れ替えと消去を順に適用する
+    for (int k = 0; k < this.n; k++) {
+      final int p = this.pivot[k];
+      if (p != k) {
+        double[] tmp = x[k];
+        x[k] = x[p];
+        x[p] = tmp;
+      }
+      final double[] xk = x[k];
+      final double[] multipliers = this.l[k];
+      for (int t = 0; t < multipliers.length; t++) {
+        final double m = multipliers[t];
+        if (m == 0) {
+          continue;
+        }
+        final double[] xi = x[k + 1 + t];
+        for (int c = 0; c < columns; c++) {
+          xi[c] -= m * xk[c];
+        }
+      }
+    }
+
+    // 後退代入
+    for (int i = this.n - 1; i >= 0; i--) {
+      final double[] ui = this.u[i];
+      final double[] xi = x[i];
+      final int last = Math.min(this.n - 1, i + this.kuu);
+      for (int j = i + 1; j <= last; j++) {
+        final double uij = ui[j - i];
+        if (uij == 0) {
+          continue;
+        }
+        final double[] xj = x[j];
+        for (int c = 0; c < columns; c++) {
+          xi[c] -= uij * xj[c];
+        }
+      }
+      for (int c = 0; c < columns; c++) {
+        xi[c] /= ui[0];
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        columns,
+        this.n,
+        (long) this.n * columns * Double.BYTES,
+        2L * this.n * (this.kl + this.kuu + 1) * columns);
+
+    return DoubleMatrix.wrapArray(x);
+  }
+}
@@ -0,0 +1,424 @@
+/**
+ * 帯行列(対角から離れた成分が0の正方行列)を，帯の内側の成分だけを保持して表すクラスです。<br>
+ * 下側の帯幅をkl，上側の帯幅をkuとすると，(i, j)成分はi - kl &lt;= j &lt;= i + kuの範囲だけが0以外の値を持ちます。
+ * 各行の帯の内側の成分をkl + ku + 1個ずつ保持するため，記憶領域と積の計算量はn(kl + ku + 1)に比例します。<br>
+ * 対角優位な三重対角行列(kl = ku = 1)の連立一次方程式はThomas法で，それ以外は部分ピボット選択付きの帯LU分解で，
+ * いずれも次数に比例する計算量で解きます。
+ *
+ * <pre>{@code
+ * // 1次元のポアソン方程式の差分化で得られる三重対角行列
+ * int n = 1000;
+ * double[] off = new double[n - 1];
+ * double[] diag = new double[n];
+ * java.util.Arrays.fill(off, -1);
+ * java.util.Arrays.fill(diag, 2);
+ * BandMatrix a = BandMatrix.tridiagonal(off, diag, off);
+ * DoubleMatrix u = a.solve(f);
+ * }</pre>
+ *
+ * @author mpp
+ * @see BandLUDecomposition
+ */
+public final class BandMatrix {
+
+  /**
+   * 正方行列から，指定された帯幅の帯の内側の成分を取り出した帯行列を生成します。帯の外側の成分は無視します。<br>
+   * 次数を超える帯幅は，createZeroMatrixと同様に次数 - 1に切り詰めます。
+   *
+   * @param matrix 正方行列
+   * @param lowerBandwidth 下側の帯幅
+   * @param upperBandwidth 上側の帯幅
+   * @return 帯行列
+   * @throws IllegalArgumentException matrixが正方行列でない場合，または帯幅が負の場合
+   */
+  public static BandMatrix of(DoubleMatrix matrix, int lowerBandwidth, int upperBandwidth) {
+    if (matrix.rows() != matrix.columns()) {
+      throw (new IllegalArgumentException(
+          String.format("正方行列ではありません: (%d,%d)", matrix.rows(), matrix.columns())));
+    }
+
+    BandMatrix result = createZeroMatrix(matrix.rows(), lowerBandwidth, upperBandwidth);
+    final double[][] entries = matrix.array();
+    for (int i = 0; i < result.n; i++) {
+      final int from = result.firstColumn(i);
+      System.arraycopy(
+          entries[i], from, result.band[i], from - i + result.kl, result.lastColumn(i) - from);
+    }
+    return result;
+  }
+
+  /**
+   * 正方行列から，0以外の成分を全て含む最小の帯幅の帯行列を生成します。
+   *
+   * @param matrix 正方行列
+   * @return 帯行列
+   * @throws IllegalArgumentException matrixが正方行列でない場合
+   */
+  public static BandMatrix of(DoubleMatrix matrix) {
+    if (matrix.rows() != matrix.columns()) {
+      throw (new IllegalArgumentException(
+          String.format("正方行列ではありません: (%d,%d)", matrix.rows(), matrix.columns())));
+    }
+
+    final double[][] entries = matrix.array();
+    int lower = 0;
+    int upper = 0;
+    for (int i = 0; i < entries.length; i++) {
+      for (int j = 0; j < entries.length; j++) {
+        if (entries[i][j] != 0) {
+          lower = Math.max(lower, i - j);
+          upper = Math.max(upper, j - i);
+        }
+      }
+    }
+    return of(matrix, lower, upper);
+  }
+
+  /**
+   * 対角成分，下側と上側の副対角成分を指定して三重対角行列を生成します。
+   *
+   * @param lower 下側の副対角成分((i + 1, i)成分，長さn - 1)
+   * @param diagonal 対角成分(長さn)
+   * @param upper 上側の副対角成分((i, i + 1)成分，長さn - 1)
+   * @return 三重対角行列
+   * @throws IllegalArgumentException 配列の長さが揃っていない場合
+   */
+  public static BandMatrix tridiagonal(double[] lower, double[] diagonal, double[] upper) {
+    final int n = diagonal.length;
+    if (lower.length != n - 1 || upper.length != n - 1) {
+      throw (new IllegalArgumentException(
+          String.format(
+              "副対角成分の長さが不正です: %d, %d (対角成分の長さ: %d)", lower.length, upper.length, n)));
+    }
+
+    BandMatrix result = createZeroMatrix(n, 1, 1);
+    for (int i = 0; i < n; i++) {
+      result.band[i][1] = diagonal[i];
+      if (i > 0) {
+        result.band[i][0] = lower[i - 1];
+      }
+      if (i < n - 1) {
+        result.band[i][2] = upper[i];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 成分が全て0のn次の帯行列を生成します。
+   *
+   * @param n 次数
+   * @param lowerBandwidth 下側の帯幅
+   * @param upperBandwidth 上側の帯幅
+   * @return 成分が全て0の帯行列
+   * @throws IllegalArgumentException nが正でない場合，または帯幅が負の場合
+   */
+  public static BandMatrix createZeroMatrix(int n, int lowerBandwidth, int upperBandwidth) {
+    if (n <= 0) {
+      throw (new IllegalArgumentException("次数が不正です: " + n));
+    }
+    if (lowerBandwidth < 0 || upperBandwidth < 0) {
+      throw (new IllegalArgumentException(
+          String.format("帯幅が不正です: (%d,%d)", lowerBandwidth, upperBandwidth)));
+    }
+
+    // 次数を超える帯幅は意味を持たないため，次数 - 1に切り詰める
+    final int kl = Math.min(lowerBandwidth, n - 1);
+    final int ku = Math.min(upperBandwidth, n - 1);
+    return (new BandMatrix(n, kl, ku, new double[n][kl + ku + 1]));
+  }
+
+  /** 次数を表します。 */
+  private final int n;
+
+  /** 下側の帯幅を表します。 */
+  private final int kl;
+
+  /** 上側の帯幅を表します。 */
+  private final int ku;
+
+  /** 各行の帯の内側の成分を保持する配列です。(i, j)成分はband[i][j - i + kl]に格納されます。 */
+  private final double[][] band;
+
+  /**
+   * 帯行列を生成します。
+   *
+   * @param n 次数
+   * @param kl 下側の帯幅
+   * @param ku 上側の帯幅
+   * @param band 各行の帯の内側の成分を保持する配列
+   */
+  private BandMatrix(int n, int kl, int ku, double[][] band) {
+    this.n = n;
+    this.kl = kl;
+    this.ku = ku;
+    this.band = band;
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int order() {
+    return this.n;
+  }
+
+  /**
+   * 下側の帯幅を返します。
+   *
+   * @return 下側の帯幅
+   */
+  public int lowerBandwidth() {
+    return this.kl;
+  }
+
+  /**
+   * 上側の帯幅を返します。
+   *
+   * @return 上側の帯幅
+   */
+  public int upperBandwidth() {
+    return this.ku;
+  }
+
+  /**
+   * 各行の帯の内側の成分を保持する配列への参照を返します。(i, j)成分はband[i][j - i + lowerBandwidth()]です。
+   *
+   * @return 帯の内側の成分を保持する配列
+   */
+  double[][] band() {
+    return this.band;
+  }
+
+  /**
+   * 第i行の帯の内側の列の範囲の先頭を返します。
+   *
+   * @param i 行番号
+   * @return 範囲の先頭の列番号(この値を含む)
+   */
+  int firstColumn(int i) {
+    return Math.max(0, i - this.kl);
+  }
+
+  /**
+   * 第i行の帯の内側の列の範囲の末尾を返します。
+   *
+   * @param i 行番号
+   * @return 範囲の末尾の列番号(この値を含まない)
+   */
+  int lastColumn(int i) {
+    return Math.min(this.n, i + this.ku + 1);
+  }
+
+  /**
+   * 行列の(i, j)成分を取得します。帯の外側の成分は0です。
+   *
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public double get(int i, int j) {
+    this.checkIndex(i, j);
+    if (j < this.firstColumn(i) || j >= this.lastColumn(i)) {
+      return 0;
+    }
+    return this.band[i][j - i + this.kl];
+  }
+
+  /**
+   * 行列の(i, j)成分を指定された値に置き換えます。
+   *
+   * @param i i
+   * @param j j
+   * @param entry 格納される値
+   * @return this
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   * @throws IllegalArgumentException (i, j)成分が帯の外側にある場合
+   */
+  public BandMatrix set(int i, int j, double entry) {
+    this.checkIndex(i, j);
+    if (j < this.firstColumn(i) || j >= this.lastColumn(i)) {
+      throw (new IllegalArgumentException(
+          String.format("帯の外側の成分は変更できません: (%d,%d)", i, j)));
+    }
+    this.band[i][j - i + this.kl] = entry;
+    return this;
+  }
+
+  /**
+   * 添え字が範囲内かどうか検証します。
+   *
+   * @param i i
+   * @param j j
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  private void checkIndex(int i, int j) {
+    if (i < 0 || i >= this.n || j < 0 || j >= this.n) {
+      throw (new IndexOutOfBoundsException(
+          String.format("添え字が範囲外です: (%d,%d) (次数: %d)", i, j, this.n)));
+    }
+  }
+
+  /**
+   * this * thatを計算し，結果の行列を返します。<br>
+   * 結果の第i行は，帯の内側の成分a(i, j)とthatの第j行の積の和として計算するため，計算量はn(kl + ku + 1)に比例します。
+   *
+   * @param that この行列に乗算する行列
+   * @return this * that
+   * @throws ArithmeticException thisの列数とthatの行数が異なり，計算を実行できない場合
+   */
+  public DoubleMatrix times(DoubleMatrix that) {
+    if (this.n != that.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, that.rows())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("bandTimes");
+    final int columns = that.columns();
+    final double[][] b = that.array();
+    double[][] result = DoubleMatrixWorkspace.allocateZeros(this.n, columns);
+    for (int i = 0; i < this.n; i++) {
+      final double[] ai = this.band[i];
+      final double[] ci = result[i];
+      for (int j = this.firstColumn(i); j < this.lastColumn(i); j++) {
+        final double aij = ai[j - i + this.kl];
+        final double[] bj = b[j];
+        for (int k = 0; k < columns; k++) {
+          ci[k] += aij * bj[k];
+        }
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        columns,
+        this.n,
+        (long) this.n * columns * Double.BYTES,
+        2L * this.n * (this.kl + this.ku + 1) * columns);
+
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * この行列を帯LU分解します。
+   *
+   * @return 帯LU分解
+   * @throws ArithmeticException この行列が正則でない場合
+   */
+  public BandLUDecomposition lu() {
+    return BandLUDecomposition.of(this);
+  }
+
+  /**
+   * 連立一次方程式this * X = bを解き，Xを返します。<br>
+   * 行または列について対角優位な三重対角行列の場合は，ピボット選択を行わないThomas法で解きます。
+   * それ以外の場合は，ピボットが0でなくても非常に小さくなり誤差が拡大することがあるため，部分ピボット選択付きの帯LU分解で解きます。
+   * Thomas法の途中で0のピボットが現れた場合も，帯LU分解で解きます。
+   *
+   * @param b 右辺の行列
+   * @return 解X
+   * @throws ArithmeticException bの行数がthisの次数と異なる場合，またはthisが正則でない場合
+   */
+  public DoubleMatrix solve(DoubleMatrix b) {
+    if (this.n != b.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, b.rows())));
+    }
+
+    if (this.kl == 1 && this.ku == 1 && this.isDiagonallyDominant()) {
+      DoubleMatrix x = this.solveTridiagonal(b);
+      if (x != null) {
+        return x;
+      }
+    }
+    return this.lu().solve(b);
+  }
+
+  /**
+   * 三重対角行列が，行または列について対角優位かどうかを返します。<br>
+   * 対角優位とは，全ての対角成分の絶対値が，同じ行(または同じ列)の他の成分の絶対値の和以上であることです。
+   * この場合，ピボット選択を行わないThomas法でも誤差は拡大しません。
+   *
+   * @return 行または列について対角優位ならtrue
+   */
+  private boolean isDiagonallyDominant() {
+    boolean byRows = true;
+    boolean byColumns = true;
+    for (int i = 0; i < this.n && (byRows || byColumns); i++) {
+      final double diagonal = Math.abs(this.band[i][1]);
+      final double left = (i > 0) ? Math.abs(this.band[i][0]) : 0;
+      final double right = (i < this.n - 1) ? Math.abs(this.band[i][2]) : 0;
+      final double above = (i > 0) ? Math.abs(this.band[i - 1][2]) : 0;
+      final double below = (i < this.n - 1) ? Math.abs(this.band[i + 1][0]) : 0;
+      byRows &= diagonal >= left + right;
+      byColumns &= diagonal >= above + below;
+    }
+    return byRows || byColumns;
+  }
+
+  /**
+   * 三重対角行列の連立一次方程式をThomas法で解きます。bの全ての列を行単位でまとめて処理します。
+   *
+   * @param b 右辺の行列
+   * @return 解X(0のピボットが現れた場合はnull)
+   */
+  private DoubleMatrix solveTridiagonal(DoubleMatrix b) {
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("thomas");
+    final int columns = b.columns();
+    final double[][] y = b.array();
+    double[] upper = new double[this.n];
+    double[][] x = new double[this.n][];
+
+    // 前進消去: 第i行を(0, ..., 1, upper[i], ..., 0 | x[i])の形にする
+    for (int i = 0; i < this.n; i++) {
+      final double[] ai = this.band[i];
+      final double[] xi = y[i].clone();
+      double pivot = ai[1];
+      if (i > 0) {
+        pivot -= ai[0] * upper[i - 1];
+        final double[] previous = x[i - 1];
+        for (int k = 0; k < columns; k++) {
+          xi[k] -= ai[0] * previous[k];
+        }
+      }
+      if (pivot == 0) {
+        return null;
+      }
+      upper[i] = ai[2] / pivot;
+      for (int k = 0; k < columns; k++) {
+        xi[k] /= pivot;
+      }
+      x[i] = xi;
+    }
+
+    // 後退代入
+    for (int i = this.n - 2; i >= 0; i--) {
+      final double[] xi = x[i];
+      final double[] next = x[i + 1];
+      for (int k = 0; k < columns; k++) {
+        xi[k] -= upper[i] * next[k];
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe, this.n, columns, 0, (long) this.n * columns * Double.BYTES, 8L * this.n * columns);
+
+    return DoubleMatrix.wrapArray(x);
+  }
+
+  /**
+   * この行列と同じ成分を持つDoubleMatrixを生成します。
+   *
+   * @return 同じ成分を持つDoubleMatrix
+   */
+  public DoubleMatrix toDoubleMatrix() {
+    double[][] result = new double[this.n][this.n];
+    for (int i = 0; i < this.n; i++) {
+      final int from = this.firstColumn(i);
+      System.arraycopy(
+          this.band[i], from - i + this.kl, result[i], from, this.lastColumn(i) - from);
+    }
+    return DoubleMatrix.wrapArray(result);
+  }
+}
@@ -0,0 +1,159 @@
+// Usage: java -ea BandMatrixTest
+public class BandMatrixTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  private static DoubleMatrix randomBandMatrix(
+      java.util.Random random, int n, int lower, int upper) {
+    DoubleMatrix result = DoubleMatrix.createZeroMatrix(n, n);
+    for (int i = 0; i < n; i++) {
+      for (int j = Math.max(0, i - lower); j <= Math.min(n - 1, i + upper); j++) {
+        result.set(i, j, random.nextInt(19) - 9);
+      }
+    }
+    return result;
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+    java.util.Random random = new java.util.Random(43);
+
+    { // 生成と成分の取得の動作確認
+      DoubleMatrix a = DoubleMatrix.of(4, 4, 1, 2, 0, 0, 3, 4, 5, 0, 0, 6, 7, 8, 9, 0, 10, 11);
+      BandMatrix b = BandMatrix.of(a);
+      assert b.order() == 4;
+      assert b.lowerBandwidth() == 3 && b.upperBandwidth() == 1;
+      assert b.toDoubleMatrix().isEqual(a);
+
+      BandMatrix t = BandMatrix.of(a, 1, 1);
+      assert t.get(3, 0) == 0 && t.get(2, 3) == 8 && t.get(0, 3) == 0;
+      assert t.toDoubleMatrix()
+          .isEqual(DoubleMatrix.of(4, 4, 1, 2, 0, 0, 3, 4, 5, 0, 0, 6, 7, 8, 0, 0, 10, 11));
+      assert t.set(3, 2, -1) == t;
+      assert t.get(3, 2) == -1;
+
+      BandMatrix d =
+          BandMatrix.tridiagonal(
+              new double[] {3, 6, 10}, new double[] {1, 4, 7, 11}, new double[] {2, 5, 8});
+      assert d.toDoubleMatrix().isEqual(BandMatrix.of(a, 1, 1).toDoubleMatrix());
+
+      // 次数を超える帯幅は切り詰められる
+      assert BandMatrix.createZeroMatrix(3, 5, 0).lowerBandwidth() == 2;
+      BandMatrix wide = BandMatrix.of(a, 7, 4);
+      assert wide.lowerBandwidth() == 3 && wide.upperBandwidth() == 3;
+      assert wide.toDoubleMatrix().isEqual(a);
+      DoubleMatrix identity = DoubleMatrix.createIdentityMatrix(5);
+      assert BandMatrix.of(identity, 7, 0).toDoubleMatrix().isEqual(identity);
+      assert BandMatrix.of(identity, 5, 1).toDoubleMatrix().isEqual(identity);
+
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class, "t.set(3, 0, 1)", () -> t.set(3, 0, 1));
+      DoubleMatrixTest.Test.assertThrows(
+          IndexOutOfBoundsException.class, "t.get(4, 0)", () -> t.get(4, 0));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "BandMatrix.of(a, -1, 0)",
+          () -> BandMatrix.of(a, -1, 0));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "BandMatrix.of(DoubleMatrix.createZeroMatrix(2, 3))",
+          () -> BandMatrix.of(DoubleMatrix.createZeroMatrix(2, 3)));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "BandMatrix.tridiagonal(new double[2], new double[2], new double[1])",
+          () -> BandMatrix.tridiagonal(new double[2], new double[2], new double[1]));
+    }
+
+    { // 積の動作確認
+      for (int[] widths : new int[][] {{0, 0}, {1, 1}, {2, 3}, {4, 0}, {0, 5}}) {
+        DoubleMatrix a = randomBandMatrix(random, 23, widths[0], widths[1]);
+        BandMatrix b = BandMatrix.of(a, widths[0], widths[1]);
+        DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(random, 23, 3);
+        assert b.times(x).isEqual(a.times(x));
+      }
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "BandMatrix.createZeroMatrix(3, 1, 1).times(DoubleMatrix.createZeroMatrix(2, 2))",
+          () -> BandMatrix.createZeroMatrix(3, 1, 1).times(DoubleMatrix.createZeroMatrix(2, 2)));
+    }
+
+    { // Thomas法の動作確認
+      final int n = 200;
+      double[] off = new double[n - 1];
+      double[] diag = new double[n];
+      java.util.Arrays.fill(off, -1);
+      java.util.Arrays.fill(diag, 2);
+      BandMatrix a = BandMatrix.tridiagonal(off, diag, off);
+      DoubleMatrix f = DoubleMatrixTest.Test.randomMatrix(random, n, 2);
+      DoubleMatrix u = a.solve(f);
+      assert a.times(u).minus(f).normInf() < 1e-8;
+      assert u.minus(a.toDoubleMatrix().solve(f)).normInf() < 1e-8;
+
+      // 第0行のピボットが0の場合は帯LU分解で解く
+      BandMatrix z =
+          BandMatrix.tridiagonal(new double[] {1, 1}, new double[] {0, 1, 1}, new double[] {1, 1});
+      DoubleMatrix g = DoubleMatrix.createColumnVector(1, 2, 3);
+      assert z.times(z.solve(g)).minus(g).normInf() < 1e-12;
+
+      // 対角優位でない場合は，ピボットが0でなくても帯LU分解で解く(Thomas法では(0, 1)となる)
+      BandMatrix tiny =
+          BandMatrix.tridiagonal(new double[] {1}, new double[] {1e-20, 1}, new double[] {1});
+      DoubleMatrix h = DoubleMatrix.createColumnVector(1, 2);
+      DoubleMatrixMetrics.reset();
+      DoubleMatrixMetrics.enable();
+      try {
+        DoubleMatrix v = tiny.solve(h);
+        assert Math.abs(v.get(0, 0) - 1) < 1e-12 && Math.abs(v.get(1, 0) - 1) < 1e-12;
+        assert tiny.times(v).minus(h).normInf() < 1e-12;
+        assert !DoubleMatrixMetrics.snapshot().containsKey("thomas");
+
+        // 行について対角優位でなくても，列について対角優位ならThomas法で解く
+        BandMatrix columnDominant =
+            BandMatrix.tridiagonal(
+                new double[] {1, 3}, new double[] {2, 6, 2}, new double[] {3, 1});
+        DoubleMatrix w = columnDominant.solve(g);
+        assert w.minus(columnDominant.toDoubleMatrix().solve(g)).normInf() < 1e-12;
+        assert DoubleMatrixMetrics.snapshot().get("thomas").calls() == 1;
+      } finally {
+        DoubleMatrixMetrics.disable();
+        DoubleMatrixMetrics.reset();
+      }
+    }
+
+    { // 帯LU分解の動作確認
+      for (int[] widths : new int[][] {{1, 1}, {2, 1}, {1, 3}, {3, 2}, {0, 2}, {2, 0}}) {
+        DoubleMatrix a = randomBandMatrix(random, 31, widths[0], widths[1]);
+        for (int i = 0; i < 31; i++) {
+          if (a.get(i, i) == 0) {
+            a.set(i, i, 1); // 三角行列が特異にならないようにする
+          }
+        }
+        BandMatrix b = BandMatrix.of(a, widths[0], widths[1]);
+        BandLUDecomposition lu = b.lu();
+        assert lu.order() == 31;
+        DoubleMatrix y = DoubleMatrixTest.Test.randomMatrix(random, 31, 3);
+        DoubleMatrix x = lu.solve(y);
+        assert x.minus(a.solve(y)).normInf() < 1e-8 * (1 + x.normInf());
+        double det = a.lu().determinant();
+        assert Math.abs(lu.determinant() - det) <= 1e-9 * Math.abs(det);
+      }
+
+      BandMatrix singular = BandMatrix.of(DoubleMatrix.of(3, 3, 1, 2, 0, 2, 4, 0, 0, 0, 1), 1, 1);
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class, "singular.lu()", () -> singular.lu());
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "singular.solve(DoubleMatrix.createColumnVector(1, 1, 1))",
+          () -> singular.solve(DoubleMatrix.createColumnVector(1, 1, 1)));
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class BandMatrixTest
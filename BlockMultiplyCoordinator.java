@@ -0,0 +1,560 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 行列の積を2次元のブロックに分割し，複数のワーカー(BlockMultiplyWorker)に分散して計算するクラスです。<br>
+ * <br>
+ * 積A * Bの結果をblockSize * blockSizeのブロックに分割し，各ブロックの計算に必要なAの行の帯とBの列の帯を
+ * ソケットでワーカーに送ります。各ワーカーとの接続ごとにスレッドを1つ使用し，
+ * 空いたワーカーから順に未計算のブロックを割り当て，返ってきたブロックを結果の行列に組み立てます。<br>
+ * ワーカーとの通信に失敗したブロックは，再接続したワーカーまたは他のワーカーで再試行されます。<br>
+ * <br>
+ * ワーカーは，別のマシンで起動したもの(connect)，このマシンで別のプロセスとして起動したもの(launchLocal)，
+ * このプロセス内で起動したもの(inProcess)のいずれも使用できます。<br>
+ * 1つのブロックの成分数がBlockMultiplyWorker.MAX_BLOCK_ENTRIESを超えないように，必要ならブロックを設定より小さくします。<br>
+ * <br>
+ * ワーカーとの接続は計算の間で共有するため，times(DoubleMatrix, DoubleMatrix)と設定を変更するメソッドは同期しています。
+ * 複数のスレッドから同時に呼び出した場合，計算は1つずつ順に実行されます。
+ *
+ * <pre>{@code
+ * try (BlockMultiplyCoordinator coordinator = BlockMultiplyCoordinator.launchLocal(4)) {
+ *   DoubleMatrix c = coordinator.blockSize(512).times(a, b);
+ * }
+ * }</pre>
+ *
+ * @author mpp
+ * @see BlockMultiplyWorker
+ */
+public final class BlockMultiplyCoordinator implements AutoCloseable {
+
+  /** ブロックの1辺の長さの既定値です。 */
+  public static final int DEFAULT_BLOCK_SIZE = 256;
+
+  /** 1つのブロックを再試行する回数の上限の既定値です。 */
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  /** ワーカーの応答を待つ時間の上限(ミリ秒)です。 */
+  private static final int READ_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+  /**
+   * 既に起動しているワーカーに接続するコーディネータを生成します。
+   *
+   * @param workers ワーカーのアドレス
+   * @return コーディネータ
+   * @throws IOException いずれかのワーカーに接続できない場合
+   * @throws IllegalArgumentException ワーカーが指定されていない場合
+   */
+  public static BlockMultiplyCoordinator connect(InetSocketAddress... workers)
+      throws IOException {
+    return (new BlockMultiplyCoordinator(workers, new ArrayList<>(), new ArrayList<>()));
+  }
+
+  /**
+   * このマシンでワーカーを別のプロセスとしてworkerCount個起動し，それらに接続するコーディネータを生成します。<br>
+   * ワーカーのプロセスは，このプロセスと同じjavaコマンドとクラスパスで起動され，close()を呼び出すと終了します。
+   *
+   * @param workerCount 起動するワーカーの個数
+   * @return コーディネータ
+   * @throws IOException ワーカーを起動できない場合，または接続できない場合
+   * @throws IllegalArgumentException workerCountが正の値でない場合
+   */
+  public static BlockMultiplyCoordinator launchLocal(int workerCount) throws IOException {
+    checkWorkerCount(workerCount);
+
+    final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    final String classpath = System.getProperty("java.class.path");
+    List<Process> processes = new ArrayList<>();
+    InetSocketAddress[] addresses = new InetSocketAddress[workerCount];
+    try {
+      for (int w = 0; w < workerCount; w++) {
+        Process process =
+            new ProcessBuilder(java, "-cp", classpath, "BlockMultiplyWorker", "0")
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        processes.add(process);
+
+        BufferedReader reader =
+            new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+        String line = reader.readLine();
+        if (line == null || !line.startsWith("PORT ")) {
+          throw (new IOException("ワーカーを起動できませんでした: " + line));
+        }
+        addresses[w] =
+            new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), Integer.parseInt(line.substring(5).trim()));
+      }
+      return (new BlockMultiplyCoordinator(addresses, processes, new ArrayList<>()));
+    } catch (IOException | RuntimeException e) {
+      processes.forEach(Process::destroy);
+      throw e;
+    }
+  }
+
+  /**
+   * このプロセス内でワーカーをworkerCount個起動し，ループバックアドレスで接続するコーディネータを生成します。<br>
+   * 別のプロセスを起動せずに，分散計算と同じ経路(ソケットとブロックの符号化)を使用します。
+   *
+   * @param workerCount 起動するワーカーの個数
+   * @return コーディネータ
+   * @throws IOException ワーカーを起動できない場合，または接続できない場合
+   * @throws IllegalArgumentException workerCountが正の値でない場合
+   */
+  public static BlockMultiplyCoordinator inProcess(int workerCount) throws IOException {
+    checkWorkerCount(workerCount);
+
+    List<BlockMultiplyWorker> workers = new ArrayList<>();
+    InetSocketAddress[] addresses = new InetSocketAddress[workerCount];
+    try {
+      for (int w = 0; w < workerCount; w++) {
+        workers.add(BlockMultiplyWorker.start(0));
+        addresses[w] = workers.get(w).address();
+      }
+      return (new BlockMultiplyCoordinator(addresses, new ArrayList<>(), workers));
+    } catch (IOException | RuntimeException e) {
+      for (BlockMultiplyWorker worker : workers) {
+        worker.close();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * ワーカーの個数を検証します。
+   *
+   * @param workerCount ワーカーの個数
+   * @throws IllegalArgumentException workerCountが正の値でない場合
+   */
+  private static void checkWorkerCount(int workerCount) {
+    if (workerCount <= 0) {
+      throw (new IllegalArgumentException("ワーカーの個数が正の値ではありません: " + workerCount));
+    }
+  }
+
+  /** 結果の行列の1つのブロックの計算を表すクラスです。 */
+  private static final class Task {
+
+    /** タスク番号です。 */
+    private final int id;
+
+    /** ブロックの先頭の行番号です。 */
+    private final int r0;
+
+    /** ブロックの末尾の行番号(この値を含まない)です。 */
+    private final int r1;
+
+    /** ブロックの先頭の列番号です。 */
+    private final int c0;
+
+    /** ブロックの末尾の列番号(この値を含まない)です。 */
+    private final int c1;
+
+    /** 失敗した回数です。 */
+    private int failures;
+
+    /**
+     * タスクを生成します。
+     *
+     * @param id タスク番号
+     * @param r0 ブロックの先頭の行番号
+     * @param r1 ブロックの末尾の行番号(この値を含まない)
+     * @param c0 ブロックの先頭の列番号
+     * @param c1 ブロックの末尾の列番号(この値を含まない)
+     */
+    private Task(int id, int r0, int r1, int c0, int c1) {
+      this.id = id;
+      this.r0 = r0;
+      this.r1 = r1;
+      this.c0 = c0;
+      this.c1 = c1;
+    }
+  }
+
+  /** 1つのワーカーとの接続を表すクラスです。 */
+  private static final class Connection {
+
+    /** ワーカーのアドレスです。 */
+    private final InetSocketAddress address;
+
+    /** ソケットです(接続していない場合はnull)。 */
+    private Socket socket;
+
+    /** 受信に使用するストリームです。 */
+    private DataInputStream in;
+
+    /** 送信に使用するストリームです。 */
+    private DataOutputStream out;
+
+    /** ブロックの符号化に使用する作業領域です。 */
+    private final byte[][] scratch = {new byte[8192]};
+
+    /**
+     * 接続を表すオブジェクトを生成します。
+     *
+     * @param address ワーカーのアドレス
+     */
+    private Connection(InetSocketAddress address) {
+      this.address = address;
+    }
+
+    /**
+     * ワーカーに接続します。既に接続している場合は何も行いません。
+     *
+     * @throws IOException 接続できない場合
+     */
+    private void open() throws IOException {
+      if (this.socket != null) {
+        return;
+      }
+      Socket socket = new Socket();
+      try {
+        socket.connect(this.address);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.socket = socket;
+      } catch (IOException ioe) {
+        socket.close();
+        throw ioe;
+      }
+    }
+
+    /**
+     * タスクをワーカーに送り，計算結果のブロックを返します。
+     *
+     * @param task タスク
+     * @param a 左側の行列を表す配列
+     * @param b 右側の行列を表す配列
+     * @return 計算結果のブロック
+     * @throws IOException 通信に失敗した場合
+     */
+    private double[][] multiply(Task task, double[][] a, double[][] b) throws IOException {
+      this.open();
+      this.out.writeInt(BlockMultiplyWorker.OP_MULTIPLY);
+      this.out.writeInt(task.id);
+      BlockMultiplyWorker.writeBlock(
+          this.out, a, task.r0, task.r1, 0, a[0].length, this.scratch);
+      BlockMultiplyWorker.writeBlock(
+          this.out, b, 0, b.length, task.c0, task.c1, this.scratch);
+      this.out.flush();
+
+      final int id = this.in.readInt();
+      if (id != task.id) {
+        throw (new IOException(String.format("タスク番号が一致しません: %d != %d", id, task.id)));
+      }
+      double[][] result = BlockMultiplyWorker.readBlock(this.in, this.scratch);
+      if (result.length != task.r1 - task.r0 || result[0].length != task.c1 - task.c0) {
+        throw (new IOException("ワーカーから受け取ったブロックの型が不正です"));
+      }
+      return result;
+    }
+
+    /** 接続を切断します。 */
+    private void disconnect() {
+      if (this.socket == null) {
+        return;
+      }
+      try {
+        this.socket.close();
+      } catch (IOException ioe) {
+        // 切断時のエラーは無視する
+      }
+      this.socket = null;
+      this.in = null;
+      this.out = null;
+    }
+
+    /** 終了の命令を送って接続を切断します。 */
+    private void quit() {
+      if (this.socket != null) {
+        try {
+          this.out.writeInt(BlockMultiplyWorker.OP_QUIT);
+          this.out.flush();
+        } catch (IOException ioe) {
+          // 切断時のエラーは無視する
+        }
+      }
+      this.disconnect();
+    }
+  }
+
+  /** ワーカーとの接続です。 */
+  private final Connection[] connections;
+
+  /** このコーディネータが起動したワーカーのプロセスです。 */
+  private final List<Process> processes;
+
+  /** このコーディネータがこのプロセス内で起動したワーカーです。 */
+  private final List<BlockMultiplyWorker> workers;
+
+  /** ワーカーとの通信に使用するスレッドです。 */
+  private final ExecutorService executor;
+
+  /** ブロックの1辺の長さです。 */
+  private int blockSize = DEFAULT_BLOCK_SIZE;
+
+  /** 1つのブロックを再試行する回数の上限です。 */
+  private int maxRetries = DEFAULT_MAX_RETRIES;
+
+  /**
+   * コーディネータを生成し，すべてのワーカーに接続します。
+   *
+   * @param addresses ワーカーのアドレス
+   * @param processes このコーディネータが起動したワーカーのプロセス
+   * @param workers このコーディネータがこのプロセス内で起動したワーカー
+   * @throws IOException いずれかのワーカーに接続できない場合
+   * @throws IllegalArgumentException ワーカーが指定されていない場合
+   */
+  private BlockMultiplyCoordinator(
+      InetSocketAddress[] addresses, List<Process> processes, List<BlockMultiplyWorker> workers)
+      throws IOException {
+    checkWorkerCount(addresses.length);
+
+    this.connections = new Connection[addresses.length];
+    this.processes = processes;
+    this.workers = workers;
+    for (int w = 0; w < addresses.length; w++) {
+      this.connections[w] = new Connection(addresses[w]);
+    }
+    this.executor =
+        Executors.newFixedThreadPool(
+            addresses.length,
+            runnable -> {
+              Thread thread = new Thread(runnable, "BlockMultiplyCoordinator");
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    try {
+      for (Connection connection : this.connections) {
+        connection.open();
+      }
+    } catch (IOException ioe) {
+      this.close();
+      throw ioe;
+    }
+  }
+
+  /**
+   * ワーカーの個数を返します。
+   *
+   * @return ワーカーの個数
+   */
+  public int workerCount() {
+    return this.connections.length;
+  }
+
+  /**
+   * 結果の行列を分割するブロックの1辺の長さを設定します。
+   *
+   * @param blockSize ブロックの1辺の長さ
+   * @return このコーディネータ
+   * @throws IllegalArgumentException blockSizeが正の値でない場合
+   */
+  public synchronized BlockMultiplyCoordinator blockSize(int blockSize) {
+    if (blockSize <= 0) {
+      throw (new IllegalArgumentException("ブロックの大きさが正の値ではありません: " + blockSize));
+    }
+    this.blockSize = blockSize;
+    return this;
+  }
+
+  /**
+   * 1つのブロックの計算を再試行する回数の上限を設定します。
+   *
+   * @param maxRetries 再試行する回数の上限
+   * @return このコーディネータ
+   * @throws IllegalArgumentException maxRetriesが負の値の場合
+   */
+  public synchronized BlockMultiplyCoordinator maxRetries(int maxRetries) {
+    if (maxRetries < 0) {
+      throw (new IllegalArgumentException("再試行の回数の上限が負の値です: " + maxRetries));
+    }
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /**
+   * a * bをワーカーに分散して計算し，その結果を返します。<br>
+   * ワーカーとの接続を共有するため，他のスレッドが計算中の場合は，その計算が終わるまで待ちます。
+   *
+   * @param a 左側の行列
+   * @param b 右側の行列
+   * @return a * b
+   * @throws ArithmeticException aの列数とbの行数が異なる場合，またはaの列数が大きく1行のブロックでも成分数の上限を超える場合
+   * @throws IOException 再試行の回数の上限を超えてブロックの計算に失敗した場合，またはすべてのワーカーとの接続が失われた場合
+   */
+  public synchronized DoubleMatrix times(DoubleMatrix a, DoubleMatrix b) throws IOException {
+    if (a.columns() != b.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", a.columns(), b.rows())));
+    }
+    // 送るブロック(blockSize * a.columns()，a.columns() * blockSize)と受け取るブロックがワーカーの上限に収まる大きさ
+    final int blockSize =
+        Math.min(
+            this.blockSize,
+            Math.min(
+                BlockMultiplyWorker.MAX_BLOCK_ENTRIES / a.columns(),
+                (int) Math.sqrt(BlockMultiplyWorker.MAX_BLOCK_ENTRIES)));
+    if (blockSize == 0) {
+      throw (new ArithmeticException(
+          String.format("列数が大きすぎるため，ブロックに分割できません: %d", a.columns())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("distributedTimes");
+    final double[][] left = a.array();
+    final double[][] right = b.array();
+    final double[][] result = new double[a.rows()][b.columns()];
+
+    LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    int id = 0;
+    for (int r0 = 0; r0 < a.rows(); r0 += blockSize) {
+      for (int c0 = 0; c0 < b.columns(); c0 += blockSize) {
+        queue.add(
+            new Task(
+                id++,
+                r0,
+                Math.min(r0 + blockSize, a.rows()),
+                c0,
+                Math.min(c0 + blockSize, b.columns())));
+      }
+    }
+    final AtomicInteger remaining = new AtomicInteger(id);
+    final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (Connection connection : this.connections) {
+      futures.add(
+          this.executor.submit(
+              () -> this.run(connection, queue, left, right, result, remaining, failure)));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw (new IOException("計算が中断されました", ie));
+      } catch (ExecutionException ee) {
+        throw (new IOException("ブロックの計算に失敗しました", ee.getCause()));
+      }
+    }
+
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+    if (remaining.get() > 0) {
+      throw (new IOException("すべてのワーカーとの接続が失われました"));
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        a.rows(),
+        b.columns(),
+        a.columns(),
+        (long) a.rows() * b.columns() * Double.BYTES,
+        2L * a.rows() * b.columns() * a.columns());
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * 1つのワーカーに，未計算のブロックがなくなるまでタスクを割り当てます。<br>
+   * 通信に失敗した場合はタスクを戻して再接続を試み，再接続できない場合はこのワーカーの使用をやめます。
+   *
+   * @param connection ワーカーとの接続
+   * @param queue 未計算のタスク
+   * @param a 左側の行列を表す配列
+   * @param b 右側の行列を表す配列
+   * @param result 結果を格納する配列
+   * @param remaining 計算が終わっていないタスクの個数
+   * @param failure 再試行の回数の上限を超えた場合のエラー
+   */
+  private void run(
+      Connection connection,
+      LinkedBlockingQueue<Task> queue,
+      double[][] a,
+      double[][] b,
+      double[][] result,
+      AtomicInteger remaining,
+      AtomicReference<IOException> failure) {
+    while (remaining.get() > 0 && failure.get() == null) {
+      Task task;
+      try {
+        // 他のワーカーが計算中のタスクが失敗して戻される場合に備えて，少しずつ待つ
+        task = queue.poll(10, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ie) {
+        return;
+      }
+      if (task == null) {
+        continue;
+      }
+
+      try {
+        double[][] block = connection.multiply(task, a, b);
+        for (int i = 0; i < block.length; i++) {
+          System.arraycopy(block[i], 0, result[task.r0 + i], task.c0, block[i].length);
+        }
+        remaining.decrementAndGet();
+      } catch (IOException ioe) {
+        connection.disconnect();
+        if (++task.failures > this.maxRetries) {
+          failure.compareAndSet(
+              null,
+              new IOException(
+                  String.format(
+                      "ブロック(%d,%d)の計算に%d回失敗しました", task.r0, task.c0, task.failures),
+                  ioe));
+          return;
+        }
+        queue.add(task);
+        try {
+          connection.open();
+        } catch (IOException reconnect) {
+          // このワーカーは使用できないため，残りのタスクは他のワーカーに任せる
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * ワーカーとの接続を終了し，このコーディネータが起動したワーカーを終了します。
+   *
+   * @throws IOException ワーカーの終了時に入出力エラーが発生した場合
+   */
+  @Override
+  public void close() throws IOException {
+    this.executor.shutdownNow();
+    for (Connection connection : this.connections) {
+      if (connection != null) {
+        connection.quit();
+      }
+    }
+    for (Process process : this.processes) {
+      process.getOutputStream().close();
+      process.destroy();
+    }
+    for (BlockMultiplyWorker worker : this.workers) {
+      worker.close();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+// Usage: java -ea BlockMultiplyCoordinatorTest
+public class BlockMultiplyCoordinatorTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) throws java.io.IOException {
+    checkEnableAssertions();
+
+    java.util.Random random = new java.util.Random(37);
+    DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, 45, 31);
+    DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, 31, 27);
+    DoubleMatrix expected = a.times(b);
+
+    { // このプロセス内のワーカーによる積の動作確認
+      try (BlockMultiplyCoordinator coordinator = BlockMultiplyCoordinator.inProcess(3)) {
+        assert coordinator.workerCount() == 3;
+        assert coordinator.blockSize(8) == coordinator;
+        assert coordinator.times(a, b).isEqual(expected);
+        assert coordinator.blockSize(100).times(a, b).isEqual(expected);
+        assert coordinator.blockSize(1).times(a, b).isEqual(expected);
+
+        DoubleMatrixTest.Test.assertThrows(
+            ArithmeticException.class, "coordinator.times(a, a)", () -> coordinator.times(a, a));
+        DoubleMatrixTest.Test.assertThrows(
+            IllegalArgumentException.class,
+            "coordinator.blockSize(0)",
+            () -> coordinator.blockSize(0));
+        DoubleMatrixTest.Test.assertThrows(
+            IllegalArgumentException.class,
+            "coordinator.maxRetries(-1)",
+            () -> coordinator.maxRetries(-1));
+      }
+
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "BlockMultiplyCoordinator.inProcess(0)",
+          () -> BlockMultiplyCoordinator.inProcess(0));
+    } // end of block
+
+    { // 失敗したブロックの再試行の動作確認
+      BlockMultiplyWorker flaky = BlockMultiplyWorker.start(0, 5);
+      BlockMultiplyWorker stable = BlockMultiplyWorker.start(0);
+      try (BlockMultiplyCoordinator coordinator =
+          BlockMultiplyCoordinator.connect(flaky.address(), stable.address())) {
+        assert coordinator.blockSize(8).times(a, b).isEqual(expected);
+      } finally {
+        flaky.close();
+        stable.close();
+      }
+
+      // 再試行しない場合は失敗する
+      BlockMultiplyWorker broken = BlockMultiplyWorker.start(0, 0);
+      try (BlockMultiplyCoordinator coordinator =
+          BlockMultiplyCoordinator.connect(broken.address()).maxRetries(0)) {
+        DoubleMatrixTest.Test.assertThrows(
+            java.io.IOException.class, "coordinator.times(a, b)", () -> coordinator.times(a, b));
+      } finally {
+        broken.close();
+      }
+
+      // 接続できるワーカーがなくなった場合は失敗する
+      BlockMultiplyWorker closing = BlockMultiplyWorker.start(0, 0);
+      try (BlockMultiplyCoordinator coordinator =
+          BlockMultiplyCoordinator.connect(closing.address())) {
+        closing.close();
+        DoubleMatrixTest.Test.assertThrows(
+            java.io.IOException.class, "coordinator.times(a, b)", () -> coordinator.times(a, b));
+      }
+    } // end of block
+
+    { // 複数のスレッドから同時に計算した場合の動作確認
+      try (BlockMultiplyCoordinator coordinator = BlockMultiplyCoordinator.inProcess(2)) {
+        coordinator.blockSize(4);
+        java.util.concurrent.ExecutorService executor =
+            java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+          java.util.List<java.util.concurrent.Future<DoubleMatrix>> futures =
+              new java.util.ArrayList<>();
+          for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> coordinator.times(a, b)));
+          }
+          for (java.util.concurrent.Future<DoubleMatrix> future : futures) {
+            assert future.get().isEqual(expected);
+          }
+        } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+          throw (new AssertionError(e));
+        } finally {
+          executor.shutdown();
+        }
+      }
+    } // end of block
+
+    { // 成分数が上限を超えるブロックは，配列を確保する前に拒否することを確認
+      java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+      java.io.DataOutputStream header = new java.io.DataOutputStream(bytes);
+      header.writeInt(1 << 20); // 上限がなければ8TiBの配列を確保しようとする
+      header.writeInt(1 << 20);
+      header.flush();
+      java.io.DataInputStream in =
+          new java.io.DataInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray()));
+      DoubleMatrixTest.Test.assertThrows(
+          java.io.IOException.class,
+          "BlockMultiplyWorker.readBlock(in, new byte[][] {new byte[8]})",
+          () -> BlockMultiplyWorker.readBlock(in, new byte[][] {new byte[8]}));
+    } // end of block
+
+    { // 別のプロセスのワーカーによる積の動作確認
+      try (BlockMultiplyCoordinator coordinator = BlockMultiplyCoordinator.launchLocal(2)) {
+        assert coordinator.workerCount() == 2;
+        assert coordinator.blockSize(16).times(a, b).isEqual(expected);
+      }
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class BlockMultiplyCoordinatorTest
@@ -0,0 +1,282 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BlockMultiplyCoordinatorから送られた行列のブロックの積を計算するワーカーです。<br>
+ * <br>
+ * ワーカーはソケットで接続を待ち受け，接続ごとに次の要求を繰り返し処理します。
+ *
+ * <pre>
+ * 要求 : 命令 (int，1: 積，0: 終了)，タスク番号 (int)，ブロックA，ブロックB
+ * 応答 : タスク番号 (int)，ブロックA * B
+ * ブロック : 行数 (int)，列数 (int)，行優先で並べた成分 (double * 行数 * 列数)
+ * </pre>
+ *
+ * 別のプロセスとして起動する場合は，待ち受けるポート番号(0の場合は空いているポート)と，
+ * 必要なら待ち受けるアドレスを引数に指定します。アドレスを省略した場合はループバックアドレスで待ち受けます。
+ * 待ち受けを開始すると，標準出力に"PORT ポート番号"を1行出力し，標準入力が閉じられるまで動作します。
+ *
+ * <pre>
+ * java BlockMultiplyWorker 9000             # このマシンからの接続だけを受け付ける
+ * java BlockMultiplyWorker 9000 192.168.0.5 # 指定したアドレスで待ち受ける
+ * </pre>
+ *
+ * 通信は認証も暗号化も行わないため，ループバック以外のアドレスで待ち受けるのは信頼できるネットワークの中だけにしてください。
+ * 受け取るブロックの成分数はMAX_BLOCK_ENTRIES以下に制限し，ヘッダの値だけで大きな配列を確保しないようにしています。
+ *
+ * @author mpp
+ * @see BlockMultiplyCoordinator
+ */
+public final class BlockMultiplyWorker implements AutoCloseable {
+
+  /** ブロックの積を計算する命令です。 */
+  static final int OP_MULTIPLY = 1;
+
+  /** 接続を終了する命令です。 */
+  static final int OP_QUIT = 0;
+
+  /** 1つのブロックの成分数の上限です(1ブロックは128MiB以下になります)。 */
+  static final int MAX_BLOCK_ENTRIES = 1 << 24;
+
+  /** ブロックの1行をまとめて読み書きする際の作業領域の大きさの初期値(バイト)です。 */
+  private static final int INITIAL_ROW_BYTES = 8192;
+
+  /**
+   * ワーカーを別のプロセスとして起動します。
+   *
+   * @param args 待ち受けるポート番号(省略した場合は空いているポート)と，待ち受けるアドレス(省略した場合はループバックアドレス)
+   * @throws IOException 待ち受けを開始できない場合，またはアドレスを解決できない場合
+   */
+  public static void main(String[] args) throws IOException {
+    final int port = (args.length > 0) ? Integer.parseInt(args[0]) : 0;
+    final InetAddress address =
+        (args.length > 1) ? InetAddress.getByName(args[1]) : InetAddress.getLoopbackAddress();
+    BlockMultiplyWorker worker = launch(new InetSocketAddress(address, port), -1);
+    System.out.println("PORT " + worker.port());
+    System.out.flush();
+
+    // 起動したプロセスが終了して標準入力が閉じられたら，ワーカーも終了する
+    while (System.in.read() >= 0) {
+      continue;
+    }
+    worker.close();
+  }
+
+  /**
+   * このプロセス内でワーカーを起動します。ワーカーはループバックアドレスで待ち受け，デーモンスレッドで動作します。
+   *
+   * @param port 待ち受けるポート番号(0の場合は空いているポート)
+   * @return ワーカー
+   * @throws IOException 待ち受けを開始できない場合
+   */
+  public static BlockMultiplyWorker start(int port) throws IOException {
+    return start(port, -1);
+  }
+
+  /**
+   * このプロセス内でワーカーを起動します。<br>
+   * failAfterが0以上の場合は，ワーカー全体でその個数のタスクを処理した後，次のタスクだけ応答を返さずに接続を切断します(再試行の検証用)。
+   *
+   * @param port 待ち受けるポート番号(0の場合は空いているポート)
+   * @param failAfter 切断するまでに処理するタスクの個数(負の値の場合は切断しない)
+   * @return ワーカー
+   * @throws IOException 待ち受けを開始できない場合
+   */
+  static BlockMultiplyWorker start(int port, int failAfter) throws IOException {
+    return launch(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), failAfter);
+  }
+
+  /**
+   * 指定されたアドレスで待ち受けるワーカーを起動します。
+   *
+   * @param bindAddress 待ち受けるアドレス
+   * @param failAfter 切断するまでに処理するタスクの個数(負の値の場合は切断しない)
+   * @return ワーカー
+   * @throws IOException 待ち受けを開始できない場合
+   */
+  private static BlockMultiplyWorker launch(InetSocketAddress bindAddress, int failAfter)
+      throws IOException {
+    ServerSocket server = new ServerSocket();
+    server.bind(bindAddress);
+    BlockMultiplyWorker worker = new BlockMultiplyWorker(server, failAfter);
+    Thread thread = new Thread(worker::acceptLoop, "BlockMultiplyWorker-" + worker.port());
+    thread.setDaemon(true);
+    thread.start();
+    return worker;
+  }
+
+  /** 接続を待ち受けるソケットです。 */
+  private final ServerSocket server;
+
+  /** 切断するまでに処理するタスクの残りの個数です(負の値の場合は切断しない)。 */
+  private final AtomicInteger remainingBeforeFailure;
+
+  /**
+   * ワーカーを生成します。
+   *
+   * @param server 接続を待ち受けるソケット
+   * @param failAfter 切断するまでに処理するタスクの個数(負の値の場合は切断しない)
+   */
+  private BlockMultiplyWorker(ServerSocket server, int failAfter) {
+    this.server = server;
+    this.remainingBeforeFailure = new AtomicInteger(failAfter);
+  }
+
+  /**
+   * 待ち受けているポート番号を返します。
+   *
+   * @return ポート番号
+   */
+  public int port() {
+    return this.server.getLocalPort();
+  }
+
+  /**
+   * 待ち受けているアドレスを返します。
+   *
+   * @return アドレス
+   */
+  public InetSocketAddress address() {
+    return (new InetSocketAddress(this.server.getInetAddress(), this.port()));
+  }
+
+  /**
+   * 待ち受けを終了します。処理中の接続は，その接続の要求がなくなった時点で終了します。
+   *
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  @Override
+  public void close() throws IOException {
+    this.server.close();
+  }
+
+  /** 接続を待ち受け，接続ごとにスレッドを起動して要求を処理します。 */
+  private void acceptLoop() {
+    while (!this.server.isClosed()) {
+      try {
+        Socket socket = this.server.accept();
+        Thread thread = new Thread(() -> this.serve(socket), "BlockMultiplyWorker-connection");
+        thread.setDaemon(true);
+        thread.start();
+      } catch (IOException ioe) {
+        // 待ち受けを終了した
+        return;
+      }
+    }
+  }
+
+  /**
+   * 1つの接続の要求を，終了の命令を受け取るか接続が切断されるまで処理します。
+   *
+   * @param socket 接続
+   */
+  private void serve(Socket socket) {
+    try (socket) {
+      socket.setTcpNoDelay(true);
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      byte[][] scratch = {new byte[INITIAL_ROW_BYTES]};
+
+      while (true) {
+        final int op;
+        try {
+          op = in.readInt();
+        } catch (EOFException eofe) {
+          return;
+        }
+        if (op == OP_QUIT) {
+          return;
+        }
+        if (op != OP_MULTIPLY) {
+          throw (new IOException("不正な命令です: " + op));
+        }
+
+        final int task = in.readInt();
+        DoubleMatrix a = DoubleMatrix.wrapArray(readBlock(in, scratch));
+        DoubleMatrix b = DoubleMatrix.wrapArray(readBlock(in, scratch));
+        if (this.remainingBeforeFailure.get() >= 0
+            && this.remainingBeforeFailure.getAndDecrement() == 0) {
+          return;
+        }
+        double[][] c = a.times(b).array();
+        out.writeInt(task);
+        writeBlock(out, c, 0, c.length, 0, (c.length == 0) ? 0 : c[0].length, scratch);
+        out.flush();
+      }
+    } catch (IOException | RuntimeException e) {
+      // 接続を切断し，コーディネータに再試行させる
+    }
+  }
+
+  /**
+   * 配列の範囲[r0, r1) * [c0, c1)をブロックとして書き込みます。
+   *
+   * @param out 書き込み先
+   * @param entries 行列を表す配列
+   * @param r0 範囲の先頭の行番号(この値を含む)
+   * @param r1 範囲の末尾の行番号(この値を含まない)
+   * @param c0 範囲の先頭の列番号(この値を含む)
+   * @param c1 範囲の末尾の列番号(この値を含まない)
+   * @param scratch 作業領域(scratch[0]が足りない場合は生成し直します)
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  static void writeBlock(
+      DataOutputStream out, double[][] entries, int r0, int r1, int c0, int c1, byte[][] scratch)
+      throws IOException {
+    final int width = c1 - c0;
+    out.writeInt(r1 - r0);
+    out.writeInt(width);
+
+    final int rowBytes = width * Double.BYTES;
+    if (scratch[0].length < rowBytes) {
+      scratch[0] = new byte[rowBytes];
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(scratch[0]);
+    for (int i = r0; i < r1; i++) {
+      buffer.clear();
+      buffer.asDoubleBuffer().put(entries[i], c0, width);
+      out.write(scratch[0], 0, rowBytes);
+    }
+  }
+
+  /**
+   * ブロックを読み込みます。
+   *
+   * @param in 読み込み元
+   * @param scratch 作業領域(scratch[0]が足りない場合は生成し直します)
+   * @return ブロックを表す配列
+   * @throws IOException 入出力エラーが発生した場合，またはブロックの型が不正な場合(成分数がMAX_BLOCK_ENTRIESを超える場合を含む)
+   */
+  static double[][] readBlock(DataInputStream in, byte[][] scratch) throws IOException {
+    final int rows = in.readInt();
+    final int columns = in.readInt();
+    // 配列を確保する前に成分数を検証し，相手が送ってきたヘッダの値だけで大きな配列を確保しない
+    if (rows <= 0 || columns <= 0 || (long) rows * columns > MAX_BLOCK_ENTRIES) {
+      throw (new IOException(String.format("ブロックの型が不正です: (%d,%d)", rows, columns)));
+    }
+
+    final int rowBytes = columns * Double.BYTES;
+    if (scratch[0].length < rowBytes) {
+      scratch[0] = new byte[rowBytes];
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(scratch[0]);
+    double[][] result = new double[rows][columns];
+    for (int i = 0; i < rows; i++) {
+      in.readFully(scratch[0], 0, rowBytes);
+      buffer.clear();
+      buffer.asDoubleBuffer().get(result[i]);
+    }
+    return result;
+  }
+}
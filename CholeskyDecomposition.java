@@ -0,0 +1,256 @@
+/**
+ * 対称正定値行列のCholesky分解を表すクラスです。<br>
+ * 対称正定値行列AをA = LL^tの形に分解して保持し，連立一次方程式AX = Bの解や行列式を求めるために使用します。<br>
+ * LU分解に比べて計算量と記憶領域が約半分で済み，ピボット選択も必要ありません。
+ *
+ * <pre>{@code
+ * DoubleMatrix a = DoubleMatrix.of(2, 2, 4, 2, 2, 3);
+ * CholeskyDecomposition chol = CholeskyDecomposition.of(a);
+ * DoubleMatrix x = chol.solve(DoubleMatrix.createColumnVector(8, 7)); // x = (1.25, 1.5)
+ * }</pre>
+ *
+ * @author mpp
+ * @see DoubleMatrix#cholesky()
+ */
+public class CholeskyDecomposition {
+
+  /**
+   * 対称正定値行列をCholesky分解します。
+   *
+   * @param matrix 分解する対称正定値行列
+   * @return Cholesky分解
+   * @throws ArithmeticException matrixが対称行列でない場合，または正定値でない場合
+   */
+  public static CholeskyDecomposition of(DoubleMatrix matrix) {
+    return (new CholeskyDecomposition(matrix));
+  }
+
+  /** 下三角行列Lの成分を保持する配列です。l[i]の長さはi + 1です。 */
+  private final double[][] l;
+
+  /** 係数行列の次数を表します。 */
+  private final int n;
+
+  /**
+   * 対称正定値行列をCholesky分解します。
+   *
+   * @param matrix 分解する対称正定値行列
+   * @throws ArithmeticException matrixが対称行列でない場合，または正定値でない場合
+   */
+  private CholeskyDecomposition(DoubleMatrix matrix) {
+    if (!matrix.isSymmetric()) {
+      throw (new ArithmeticException("対称行列ではないため，Cholesky分解できません"));
+    }
+
+    this.n = matrix.rows();
+    this.l = new double[this.n][];
+    for (int i = 0; i < this.n; i++) {
+      final double[] li = new double[i + 1];
+      for (int j = 0; j <= i; j++) {
+        final double[] lj = this.l[j] == null ? li : this.l[j];
+        double sum = matrix.get(i, j);
+        for (int k = 0; k < j; k++) {
+          sum -= li[k] * lj[k];
+        }
+        if (i == j) {
+          if (!(sum > 0)) {
+            throw (new ArithmeticException("正定値行列ではないため，Cholesky分解できません"));
+          }
+          li[i] = Math.sqrt(sum);
+        } else {
+          li[j] = sum / lj[j];
+        }
+      }
+      this.l[i] = li;
+    }
+  }
+
+  /**
+   * 計算済みの下三角行列LからCholesky分解を生成します。
+   *
+   * @param l 下三角行列Lの成分を保持する配列(l[i]の長さはi + 1)
+   */
+  private CholeskyDecomposition(double[][] l) {
+    this.n = l.length;
+    this.l = l;
+  }
+
+  /**
+   * 係数行列の次数を返します。
+   *
+   * @return 次数
+   */
+  public int order() {
+    return this.n;
+  }
+
+  /**
+   * 下三角行列Lを返します。
+   *
+   * @return 下三角行列L(A = LL^t)
+   */
+  public DoubleMatrix lower() {
+    DoubleMatrix result = DoubleMatrix.createZeroMatrix(this.n, this.n);
+    for (int i = 0; i < this.n; i++) {
+      for (int j = 0; j <= i; j++) {
+        result.set(i, j, this.l[i][j]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 下三角行列Lを，成分を詰めて保持する形で返します。DoubleMatrixに変換する場合の約半分の記憶領域で済みます。
+   *
+   * @return 成分を詰めて保持する下三角行列L(A = LL^t)
+   * @see PackedTriangularMatrix
+   */
+  public PackedTriangularMatrix packedLower() {
+    double[] packed = new double[PackedSymmetricMatrix.packedLength(this.n)];
+    for (int i = 0, p = 0; i < this.n; i++) {
+      System.arraycopy(this.l[i], 0, packed, p, i + 1);
+      p += i + 1;
+    }
+    return PackedTriangularMatrix.wrapLower(this.n, packed);
+  }
+
+  /**
+   * A + xx^tのCholesky分解を返します(ランク1更新)。この分解は変更しません。<br>
+   * 分解をやり直すと計算量はn^3 / 3に比例しますが，Lの各列に回転を順に適用して更新するため，計算量はn^2に比例します。
+   *
+   * <pre>{@code
+   * CholeskyDecomposition chol = a.cholesky();
+   * chol = chol.update(x); // a + x * x^t の分解
+   * }</pre>
+   *
+   * @param x 列ベクトル(長さは係数行列の次数)
+   * @return A + xx^tのCholesky分解
+   * @throws ArithmeticException xの型が不正で，計算を実行できない場合
+   */
+  public CholeskyDecomposition update(DoubleMatrix x) {
+    return this.rank1(x, 1);
+  }
+
+  /**
+   * A - xx^tのCholesky分解を返します(ランク1の逆更新)。この分解は変更しません。<br>
+   * 計算量はn^2に比例します。A - xx^tが正定値でなくなる場合は，例外をスローします。
+   *
+   * @param x 列ベクトル(長さは係数行列の次数)
+   * @return A - xx^tのCholesky分解
+   * @throws ArithmeticException xの型が不正で計算を実行できない場合，またはA - xx^tが正定値でない場合
+   */
+  public CholeskyDecomposition downdate(DoubleMatrix x) {
+    return this.rank1(x, -1);
+  }
+
+  /**
+   * A + sign * xx^tのCholesky分解を計算します。<br>
+   * 第k列では，L(k, k)とx(k)から cos = r / L(k, k)，sin = x(k) / L(k, k) (r^2 = L(k, k)^2 + sign * x(k)^2)を求め，
+   * 第k列の残りの成分とxの残りの成分を同時に更新します。
+   *
+   * @param x 列ベクトル(長さは係数行列の次数)
+   * @param sign 更新なら1，逆更新なら-1
+   * @return A + sign * xx^tのCholesky分解
+   * @throws ArithmeticException xの型が不正で計算を実行できない場合，または結果が正定値でない場合
+   */
+  private CholeskyDecomposition rank1(DoubleMatrix x, int sign) {
+    if (x.rows() != this.n || x.columns() != 1) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              x.rows(), x.columns(), this.n, 1)));
+    }
+
+    DoubleMatrixMetrics.Probe probe =
+        DoubleMatrixMetrics.begin(sign > 0 ? "choleskyUpdate" : "choleskyDowndate");
+    double[][] l = new double[this.n][];
+    for (int i = 0; i < this.n; i++) {
+      l[i] = this.l[i].clone();
+    }
+    double[] w = new double[this.n];
+    for (int i = 0; i < this.n; i++) {
+      w[i] = x.get(i, 0);
+    }
+
+    for (int k = 0; k < this.n; k++) {
+      final double lkk = l[k][k];
+      final double squared = lkk * lkk + sign * w[k] * w[k];
+      if (!(squared > 0)) {
+        throw (new ArithmeticException("正定値行列ではなくなるため，Cholesky分解を更新できません"));
+      }
+      final double r = Math.sqrt(squared);
+      final double c = r / lkk;
+      final double s = w[k] / lkk;
+      l[k][k] = r;
+      if (s == 0) {
+        continue;
+      }
+      for (int i = k + 1; i < this.n; i++) {
+        final double[] li = l[i];
+        li[k] = (li[k] + sign * s * w[i]) / c;
+        w[i] = c * w[i] - s * li[k];
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        this.n,
+        1,
+        (long) this.n * (this.n + 1) / 2 * Double.BYTES,
+        4L * this.n * this.n);
+
+    return (new CholeskyDecomposition(l));
+  }
+
+  /**
+   * 係数行列の行列式を返します。
+   *
+   * @return 行列式
+   */
+  public double determinant() {
+    double result = 1;
+    for (int i = 0; i < this.n; i++) {
+      result *= this.l[i][i];
+    }
+    return result * result;
+  }
+
+  /**
+   * 連立一次方程式AX = Bを解き，Xを返します。
+   *
+   * @param b 右辺の行列
+   * @return 解X
+   * @throws ArithmeticException bの行数が係数行列の次数と異なる場合
+   */
+  public DoubleMatrix solve(DoubleMatrix b) {
+    if (b.rows() != this.n) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, b.rows())));
+    }
+
+    DoubleMatrix result = DoubleMatrix.createZeroMatrix(this.n, b.columns());
+    double[] x = new double[this.n];
+    for (int col = 0; col < b.columns(); col++) {
+      for (int i = 0; i < this.n; i++) {
+        double sum = b.get(i, col);
+        final double[] li = this.l[i];
+        for (int k = 0; k < i; k++) {
+          sum -= li[k] * x[k];
+        }
+        x[i] = sum / li[i];
+      }
+      for (int i = this.n - 1; i >= 0; i--) {
+        double sum = x[i];
+        for (int k = i + 1; k < this.n; k++) {
+          sum -= this.l[k][i] * x[k];
+        }
+        x[i] = sum / this.l[i][i];
+      }
+      for (int i = 0; i < this.n; i++) {
+        result.set(i, col, x[i]);
+      }
+    }
+
+    return result;
+  }
+}
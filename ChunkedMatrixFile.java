@@ -0,0 +1,446 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 行列を行のまとまり(チャンク)ごとにバイナリ形式で保存したファイルを表すクラスです。<br>
+ * <br>
+ * DoubleMatrix.readFromFile(String)はファイル全体を読み込む必要がありますが，
+ * この形式ではファイルの末尾に各チャンクの位置を記録した索引を置くため，
+ * 必要な行を含むチャンクだけを直接読み込むことができます。<br>
+ * 各チャンクにはCRC32によるチェックサムを付けることができ，読み込んだチャンクの破損を検出します。<br>
+ * <br>
+ * ファイルの構成は次の通りです(数値はすべてビッグエンディアン)。
+ *
+ * <pre>
+ * ヘッダ   : "JMCA" (int)，形式の版 (int)，行数 (int)，列数 (int)，1チャンクの行数 (int)，フラグ (int)
+ * チャンク : 行優先で並べた成分 (double * 列数 * チャンクの行数) をチャンクの個数だけ
+ * 索引     : 各チャンクの位置 (long) とチェックサム (int) をチャンクの個数だけ
+ * 末尾     : 索引の位置 (long)，チャンクの個数 (int)，"JMCE" (int)
+ * </pre>
+ *
+ * <pre>{@code
+ * ChunkedMatrixFile.write(a, "mat.bin");
+ * try (ChunkedMatrixFile file = ChunkedMatrixFile.open("mat.bin")) {
+ *   DoubleMatrix slice = file.read(1000, 2000, 0, 5, 7); // 1000～1999行目の第0，5，7列
+ * }
+ * }</pre>
+ *
+ * このクラスのインスタンスは読み込み用の作業領域を保持するため，複数のスレッドから同時に使用してはいけません。
+ *
+ * @author mpp
+ */
+public final class ChunkedMatrixFile implements AutoCloseable {
+
+  /** ヘッダの先頭に書き込む値("JMCA")です。 */
+  private static final int HEADER_MAGIC = 0x4a4d4341;
+
+  /** 末尾の最後に書き込む値("JMCE")です。 */
+  private static final int TRAILER_MAGIC = 0x4a4d4345;
+
+  /** ファイル形式の版です。 */
+  private static final int FORMAT_VERSION = 1;
+
+  /** 各チャンクにチェックサムが付いていることを表すフラグです。 */
+  private static final int FLAG_CHECKSUM = 1;
+
+  /** ヘッダの大きさ(バイト)です。 */
+  private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+  /** 索引の1項目の大きさ(バイト)です。 */
+  private static final int INDEX_ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+
+  /** 末尾の大きさ(バイト)です。 */
+  private static final int TRAILER_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+  /** 1チャンクの大きさの目安(1MiB)です。 */
+  private static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+  /**
+   * 行列を，1チャンクがおよそ1MiBになる行数で区切り，チェックサムを付けてファイルに書き込みます。
+   *
+   * @param matrix 行列
+   * @param filename ファイル名
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public static void write(DoubleMatrix matrix, String filename) throws IOException {
+    final long rowBytes = (long) matrix.columns() * Double.BYTES;
+    final int rowsPerChunk =
+        (int) Math.max(1, Math.min(matrix.rows(), DEFAULT_CHUNK_BYTES / rowBytes));
+    write(matrix, filename, rowsPerChunk, true);
+  }
+
+  /**
+   * 行列を指定された行数ごとのチャンクに区切ってファイルに書き込みます。
+   *
+   * @param matrix 行列
+   * @param filename ファイル名
+   * @param rowsPerChunk 1チャンクの行数
+   * @param checksum 各チャンクにチェックサムを付ける場合はtrue
+   * @throws IOException 入出力エラーが発生した場合
+   * @throws IllegalArgumentException rowsPerChunkが正の値でない場合，または1チャンクが2GiB以上になる場合
+   */
+  public static void write(
+      DoubleMatrix matrix, String filename, int rowsPerChunk, boolean checksum)
+      throws IOException {
+    if (rowsPerChunk <= 0) {
+      throw (new IllegalArgumentException("チャンクの行数が正の値ではありません: " + rowsPerChunk));
+    }
+    if ((long) rowsPerChunk * matrix.columns() * Double.BYTES > Integer.MAX_VALUE) {
+      throw (new IllegalArgumentException("チャンクが大きすぎます: " + rowsPerChunk));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("writeChunkedFile");
+    final double[][] entries = matrix.array();
+    final int rows = matrix.rows();
+    final int columns = matrix.columns();
+    final int chunks = (rows + rowsPerChunk - 1) / rowsPerChunk;
+    final long[] offsets = new long[chunks];
+    final int[] crcs = new int[chunks];
+
+    try (FileChannel channel =
+        FileChannel.open(
+            Paths.get(filename),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      header
+          .putInt(HEADER_MAGIC)
+          .putInt(FORMAT_VERSION)
+          .putInt(rows)
+          .putInt(columns)
+          .putInt(rowsPerChunk)
+          .putInt(checksum ? FLAG_CHECKSUM : 0)
+          .flip();
+      writeFully(channel, header);
+
+      ByteBuffer buffer =
+          ByteBuffer.allocate(Math.min(rows, rowsPerChunk) * columns * Double.BYTES);
+      CRC32 crc = new CRC32();
+      for (int c = 0; c < chunks; c++) {
+        final int from = c * rowsPerChunk;
+        final int to = Math.min(from + rowsPerChunk, rows);
+        buffer.clear();
+        DoubleBuffer doubles = buffer.asDoubleBuffer();
+        for (int i = from; i < to; i++) {
+          doubles.put(entries[i]);
+        }
+        buffer.limit((to - from) * columns * Double.BYTES);
+
+        if (checksum) {
+          crc.reset();
+          crc.update(buffer);
+          buffer.rewind();
+          crcs[c] = (int) crc.getValue();
+        }
+        offsets[c] = channel.position();
+        writeFully(channel, buffer);
+      }
+
+      final long indexOffset = channel.position();
+      ByteBuffer footer = ByteBuffer.allocate(chunks * INDEX_ENTRY_BYTES + TRAILER_BYTES);
+      for (int c = 0; c < chunks; c++) {
+        footer.putLong(offsets[c]).putInt(crcs[c]);
+      }
+      footer.putLong(indexOffset).putInt(chunks).putInt(TRAILER_MAGIC).flip();
+      writeFully(channel, footer);
+    }
+    DoubleMatrixMetrics.end(probe, rows, columns, 0, 0, 0);
+  }
+
+  /**
+   * ファイルを開き，ヘッダと索引を読み込みます。
+   *
+   * @param filename ファイル名
+   * @return 開いたファイル
+   * @throws IOException 入出力エラーが発生した場合，またはファイルの形式が正しくない場合
+   */
+  public static ChunkedMatrixFile open(String filename) throws IOException {
+    FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    try {
+      return (new ChunkedMatrixFile(filename, channel));
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** ファイル名です。 */
+  private final String filename;
+
+  /** 読み込みに使用するチャネルです。 */
+  private final FileChannel channel;
+
+  /** 行列の行数です。 */
+  private final int rows;
+
+  /** 行列の列数です。 */
+  private final int columns;
+
+  /** 1チャンクの行数です。 */
+  private final int rowsPerChunk;
+
+  /** 各チャンクにチェックサムが付いている場合はtrueです。 */
+  private final boolean checksum;
+
+  /** 各チャンクの位置です。 */
+  private final long[] offsets;
+
+  /** 各チャンクのチェックサムです。 */
+  private final int[] crcs;
+
+  /** チャンクを読み込む作業領域です。 */
+  private final ByteBuffer buffer;
+
+  /** チェックサムの計算に使用するオブジェクトです。 */
+  private final CRC32 crc = new CRC32();
+
+  /**
+   * ファイルのヘッダと索引を読み込みます。
+   *
+   * @param filename ファイル名
+   * @param channel 読み込みに使用するチャネル
+   * @throws IOException 入出力エラーが発生した場合，またはファイルの形式が正しくない場合
+   */
+  private ChunkedMatrixFile(String filename, FileChannel channel) throws IOException {
+    this.filename = filename;
+    this.channel = channel;
+
+    final long fileSize = channel.size();
+    if (fileSize < HEADER_BYTES + TRAILER_BYTES) {
+      throw (new IOException(filename + ": ファイルが短すぎます"));
+    }
+    ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+    if (header.getInt() != HEADER_MAGIC) {
+      throw (new IOException(filename + ": チャンク形式のファイルではありません"));
+    }
+    final int version = header.getInt();
+    if (version != FORMAT_VERSION) {
+      throw (new IOException(filename + ": 対応していない形式の版です: " + version));
+    }
+    this.rows = header.getInt();
+    this.columns = header.getInt();
+    this.rowsPerChunk = header.getInt();
+    this.checksum = (header.getInt() & FLAG_CHECKSUM) != 0;
+    if (this.rows <= 0 || this.columns <= 0 || this.rowsPerChunk <= 0) {
+      throw (new IOException(filename + ": ヘッダが壊れています"));
+    }
+
+    ByteBuffer trailer = readFully(channel, fileSize - TRAILER_BYTES, TRAILER_BYTES);
+    final long indexOffset = trailer.getLong();
+    final int chunks = trailer.getInt();
+    if (trailer.getInt() != TRAILER_MAGIC
+        || chunks != (this.rows + this.rowsPerChunk - 1) / this.rowsPerChunk
+        || indexOffset + (long) chunks * INDEX_ENTRY_BYTES != fileSize - TRAILER_BYTES) {
+      throw (new IOException(filename + ": 索引が壊れています"));
+    }
+
+    ByteBuffer index = readFully(channel, indexOffset, chunks * INDEX_ENTRY_BYTES);
+    this.offsets = new long[chunks];
+    this.crcs = new int[chunks];
+    for (int c = 0; c < chunks; c++) {
+      this.offsets[c] = index.getLong();
+      this.crcs[c] = index.getInt();
+    }
+
+    this.buffer = ByteBuffer.allocate(
+        Math.min(this.rows, this.rowsPerChunk) * this.columns * Double.BYTES);
+  }
+
+  /**
+   * 行列の行数を返します。
+   *
+   * @return 行数
+   */
+  public int rows() {
+    return this.rows;
+  }
+
+  /**
+   * 行列の列数を返します。
+   *
+   * @return 列数
+   */
+  public int columns() {
+    return this.columns;
+  }
+
+  /**
+   * 1チャンクの行数を返します。
+   *
+   * @return 1チャンクの行数
+   */
+  public int rowsPerChunk() {
+    return this.rowsPerChunk;
+  }
+
+  /**
+   * 各チャンクにチェックサムが付いているかどうかを返します。
+   *
+   * @return チェックサムが付いている場合はtrue
+   */
+  public boolean hasChecksum() {
+    return this.checksum;
+  }
+
+  /**
+   * 行列全体を読み込みます。
+   *
+   * @return 行列
+   * @throws IOException 入出力エラーが発生した場合，またはチェックサムが一致しない場合
+   */
+  public DoubleMatrix readAll() throws IOException {
+    return this.readRows(0, this.rows);
+  }
+
+  /**
+   * 範囲[from, to)の行を読み込みます。範囲を含むチャンクだけを読み込みます。
+   *
+   * @param from 範囲の先頭の行番号(この値を含む)
+   * @param to 範囲の末尾の行番号(この値を含まない)
+   * @return 読み込んだ行からなる行列
+   * @throws IOException 入出力エラーが発生した場合，またはチェックサムが一致しない場合
+   * @throws IllegalArgumentException 範囲が不正な場合
+   */
+  public DoubleMatrix readRows(int from, int to) throws IOException {
+    return this.read(from, to, null);
+  }
+
+  /**
+   * 範囲[from, to)の行のうち，指定された列だけを読み込みます。範囲を含むチャンクだけを読み込みます。
+   *
+   * @param from 範囲の先頭の行番号(この値を含む)
+   * @param to 範囲の末尾の行番号(この値を含まない)
+   * @param columns 読み込む列番号(この順に並べた行列を返します)
+   * @return 読み込んだ成分からなる行列
+   * @throws IOException 入出力エラーが発生した場合，またはチェックサムが一致しない場合
+   * @throws IllegalArgumentException 範囲や列番号が不正な場合
+   */
+  public DoubleMatrix read(int from, int to, int... columns) throws IOException {
+    if (from < 0 || to > this.rows || from >= to) {
+      throw (new IllegalArgumentException(
+          String.format("行の範囲が不正です: [%d, %d) (行数: %d)", from, to, this.rows)));
+    }
+    if (columns != null) {
+      if (columns.length == 0) {
+        throw (new IllegalArgumentException("読み込む列が指定されていません"));
+      }
+      for (int j : columns) {
+        if (j < 0 || j >= this.columns) {
+          throw (new IllegalArgumentException(
+              String.format("列番号が不正です: %d (列数: %d)", j, this.columns)));
+        }
+      }
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("readChunkedFile");
+    final int width = (columns == null) ? this.columns : columns.length;
+    final double[][] result = new double[to - from][width];
+    final int firstChunk = from / this.rowsPerChunk;
+    final int lastChunk = (to - 1) / this.rowsPerChunk;
+
+    for (int c = firstChunk; c <= lastChunk; c++) {
+      final int chunkFrom = c * this.rowsPerChunk;
+      final int chunkTo = Math.min(chunkFrom + this.rowsPerChunk, this.rows);
+      DoubleBuffer doubles = this.readChunk(c, chunkTo - chunkFrom);
+
+      for (int i = Math.max(from, chunkFrom); i < Math.min(to, chunkTo); i++) {
+        final int base = (i - chunkFrom) * this.columns;
+        final double[] row = result[i - from];
+        if (columns == null) {
+          doubles.get(base, row);
+        } else {
+          for (int k = 0; k < width; k++) {
+            row[k] = doubles.get(base + columns[k]);
+          }
+        }
+      }
+    }
+
+    DoubleMatrix matrix = DoubleMatrix.wrapArray(result);
+    DoubleMatrixMetrics.end(
+        probe, to - from, width, 0, (long) (to - from) * width * Double.BYTES, 0);
+    return matrix;
+  }
+
+  /**
+   * ファイルを閉じます。
+   *
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  /**
+   * c番目のチャンクを作業領域に読み込み，チェックサムを検証します。
+   *
+   * @param c チャンクの番号
+   * @param chunkRows チャンクの行数
+   * @return 作業領域をdouble型の値として参照するバッファ
+   * @throws IOException 入出力エラーが発生した場合，またはチェックサムが一致しない場合
+   */
+  private DoubleBuffer readChunk(int c, int chunkRows) throws IOException {
+    this.buffer.clear();
+    this.buffer.limit(chunkRows * this.columns * Double.BYTES);
+    long position = this.offsets[c];
+    while (this.buffer.hasRemaining()) {
+      final int n = this.channel.read(this.buffer, position);
+      if (n < 0) {
+        throw (new IOException(this.filename + ": チャンクの途中でファイルが終わっています: " + c));
+      }
+      position += n;
+    }
+    this.buffer.flip();
+
+    if (this.checksum) {
+      this.crc.reset();
+      this.crc.update(this.buffer);
+      this.buffer.rewind();
+      if ((int) this.crc.getValue() != this.crcs[c]) {
+        throw (new IOException(this.filename + ": チェックサムが一致しません: チャンク " + c));
+      }
+    }
+    return this.buffer.asDoubleBuffer();
+  }
+
+  /**
+   * バッファの内容をすべてチャネルに書き込みます。
+   *
+   * @param channel チャネル
+   * @param buffer バッファ
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * チャネルの指定された位置からlengthバイトを読み込みます。
+   *
+   * @param channel チャネル
+   * @param position 読み込みを開始する位置
+   * @param length 読み込むバイト数
+   * @return 読み込んだ内容を保持するバッファ
+   * @throws IOException 入出力エラーが発生した場合，またはファイルが途中で終わっている場合
+   */
+  private static ByteBuffer readFully(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer result = ByteBuffer.allocate(length);
+    while (result.hasRemaining()) {
+      final int n = channel.read(result, position + result.position());
+      if (n < 0) {
+        throw (new IOException("ファイルが途中で終わっています"));
+      }
+    }
+    return result.flip();
+  }
+}
@@ -0,0 +1,115 @@
+// Usage: java -ea ChunkedMatrixFileTest
+public class ChunkedMatrixFileTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) throws java.io.IOException {
+    checkEnableAssertions();
+
+    { // 書き込みと読み込みの動作確認
+      java.util.Random random = new java.util.Random(35);
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random::nextGaussian, 103, 7);
+
+      ChunkedMatrixFile.write(a, "tmp/chunked1.bin", 10, true);
+      try (ChunkedMatrixFile file = ChunkedMatrixFile.open("tmp/chunked1.bin")) {
+        assert file.rows() == 103;
+        assert file.columns() == 7;
+        assert file.rowsPerChunk() == 10;
+        assert file.hasChecksum();
+        assert file.readAll().isEqual(a);
+
+        for (int t = 0; t < 50; t++) {
+          int from = random.nextInt(103);
+          int to = from + 1 + random.nextInt(103 - from);
+          DoubleMatrix rows = file.readRows(from, to);
+          assert rows.rows() == to - from;
+          for (int i = from; i < to; i++) {
+            for (int j = 0; j < 7; j++) {
+              assert rows.get(i - from, j) == a.get(i, j);
+            }
+          }
+        }
+
+        DoubleMatrix slice = file.read(15, 31, 6, 0, 3, 3);
+        assert slice.rows() == 16;
+        assert slice.columns() == 4;
+        for (int i = 15; i < 31; i++) {
+          assert slice.get(i - 15, 0) == a.get(i, 6);
+          assert slice.get(i - 15, 1) == a.get(i, 0);
+          assert slice.get(i - 15, 2) == a.get(i, 3);
+          assert slice.get(i - 15, 3) == a.get(i, 3);
+        }
+
+        DoubleMatrixTest.Test.assertThrows(
+            IllegalArgumentException.class, "file.readRows(5, 5)", () -> file.readRows(5, 5));
+        DoubleMatrixTest.Test.assertThrows(
+            IllegalArgumentException.class, "file.readRows(0, 104)", () -> file.readRows(0, 104));
+        DoubleMatrixTest.Test.assertThrows(
+            IllegalArgumentException.class, "file.read(0, 1, 7)", () -> file.read(0, 1, 7));
+      }
+
+      ChunkedMatrixFile.write(a, "tmp/chunked2.bin");
+      try (ChunkedMatrixFile file = ChunkedMatrixFile.open("tmp/chunked2.bin")) {
+        assert file.rowsPerChunk() == 103;
+        assert file.readAll().isEqual(a);
+      }
+
+      ChunkedMatrixFile.write(a, "tmp/chunked3.bin", 1, false);
+      try (ChunkedMatrixFile file = ChunkedMatrixFile.open("tmp/chunked3.bin")) {
+        assert !file.hasChecksum();
+        assert file.readRows(102, 103).isEqual(DoubleMatrix.createRowVector(rowOf(a, 102)));
+      }
+
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "ChunkedMatrixFile.write(a, \"tmp/chunked4.bin\", 0, true)",
+          () -> ChunkedMatrixFile.write(a, "tmp/chunked4.bin", 0, true));
+    } // end of block
+
+    { // 破損したファイルの検出の動作確認
+      DoubleMatrix a = DoubleMatrix.createIdentityMatrix(20);
+      ChunkedMatrixFile.write(a, "tmp/chunked5.bin", 4, true);
+
+      // 2番目のチャンク(4～7行目)の成分を書き換える
+      try (java.io.RandomAccessFile raf = new java.io.RandomAccessFile("tmp/chunked5.bin", "rw")) {
+        raf.seek(24 + 4 * 20 * 8 + 8);
+        raf.writeDouble(42);
+      }
+      try (ChunkedMatrixFile file = ChunkedMatrixFile.open("tmp/chunked5.bin")) {
+        DoubleMatrix first = file.readRows(0, 4);
+        for (int i = 0; i < 4; i++) {
+          for (int j = 0; j < 20; j++) {
+            assert first.get(i, j) == ((i == j) ? 1 : 0);
+          }
+        }
+        DoubleMatrixTest.Test.assertThrows(
+            java.io.IOException.class, "file.readRows(0, 5)", () -> file.readRows(0, 5));
+        assert file.readRows(8, 20).rows() == 12;
+      }
+
+      java.nio.file.Files.write(
+          java.nio.file.Paths.get("tmp/chunked6.bin"), "1.0 2.0\n3.0 4.0\n".getBytes());
+      DoubleMatrixTest.Test.assertThrows(
+          java.io.IOException.class,
+          "ChunkedMatrixFile.open(\"tmp/chunked6.bin\")",
+          () -> ChunkedMatrixFile.open("tmp/chunked6.bin"));
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+
+  private static double[] rowOf(DoubleMatrix a, int i) {
+    double[] result = new double[a.columns()];
+    for (int j = 0; j < result.length; j++) {
+      result[j] = a.get(i, j);
+    }
+    return result;
+  }
+} // end of class ChunkedMatrixFileTest
@@ -0,0 +1,302 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 複数のスレッドから同時に成分の加算や代入を行える行列を表すクラスです。<br>
+ * 行を連続したブロック(ストライプ)に分け，ストライプごとに別のロックで保護します。
+ * そのため，異なるストライプに属する行への書き込みは互いに待ち合わせず，行列全体を1つのロックで保護する場合に比べて競合が少なくなります。<br>
+ * 行列全体を加算するadd(DoubleMatrix)は，ストライプを1つずつロックして加算し，
+ * スレッドごとに異なるストライプから始めることで，同時に加算するスレッドが同じロックを待ち続けないようにします。
+ *
+ * <pre>{@code
+ * ConcurrentDoubleMatrix sum = ConcurrentDoubleMatrix.createZeroMatrix(n, n);
+ * parts.parallelStream().forEach(part -> sum.add(part.compute())); // 部分和を各スレッドから加算する
+ * DoubleMatrix total = sum.snapshot();
+ * }</pre>
+ *
+ * get，set，add(int, int, double)は，対象の行のストライプのロックだけを取得し，行列全体で共有するロックは取得しません。<br>
+ * snapshot()は全てのストライプのロックを順に取得してからコピーするため，1つの成分に対する操作が途中で反映された状態を返すことはありません。
+ * また，add(DoubleMatrix)は呼び出しごとに1回だけ共有ロックを取得し，snapshot()は排他ロックを取得するため，
+ * snapshot()が途中まで加算された状態の行列を返すこともありません。
+ *
+ * @author mpp
+ * @see DoubleMatrix#add(DoubleMatrix)
+ */
+public final class ConcurrentDoubleMatrix {
+
+  /** ストライプの数の上限です。 */
+  private static final int MAX_STRIPES = 64;
+
+  /**
+   * 型がrows * columnsで成分の値が全て0dの行列を生成します。
+   *
+   * @param rows 行列の行数
+   * @param columns 行列の列数
+   * @return 零行列
+   * @throws IllegalArgumentException rowsまたはcolumnsが正でない場合
+   */
+  public static ConcurrentDoubleMatrix createZeroMatrix(int rows, int columns) {
+    if (rows <= 0 || columns <= 0) {
+      throw (new IllegalArgumentException(
+          String.format("行列の型が不正です: (%d,%d)", rows, columns)));
+    }
+    return (new ConcurrentDoubleMatrix(new double[rows][columns]));
+  }
+
+  /**
+   * 行列の成分をコピーして，同じ成分を持つ行列を生成します。
+   *
+   * @param matrix コピー元の行列
+   * @return 行列
+   */
+  public static ConcurrentDoubleMatrix from(DoubleMatrix matrix) {
+    final double[][] source = matrix.array();
+    double[][] entries = new double[source.length][];
+    for (int i = 0; i < source.length; i++) {
+      entries[i] = source[i].clone();
+    }
+    return (new ConcurrentDoubleMatrix(entries));
+  }
+
+  /** 行列の成分を保持する配列です。第i行は，ストライプi / rowsPerStripeのロックで保護されます。 */
+  private final double[][] matrix;
+
+  /** この行列の行数を表します。 */
+  private final int rows;
+
+  /** この行列の列数を表します。 */
+  private final int columns;
+
+  /** 1つのストライプに属する行数です。 */
+  private final int rowsPerStripe;
+
+  /** ストライプごとのロックです。 */
+  private final ReentrantLock[] locks;
+
+  /**
+   * add(DoubleMatrix)が共有ロックを，成分をコピーする操作が排他ロックを取得するロックです。<br>
+   * 1つの成分に対する操作はこのロックを取得しません。
+   */
+  private final ReentrantReadWriteLock phase = new ReentrantReadWriteLock();
+
+  /**
+   * 配列への参照をそのまま保持する行列を生成します。
+   *
+   * @param matrix 行列の成分を保持する配列
+   */
+  private ConcurrentDoubleMatrix(double[][] matrix) {
+    this.matrix = matrix;
+    this.rows = matrix.length;
+    this.columns = matrix[0].length;
+    final int stripes = Math.min(this.rows, MAX_STRIPES);
+    this.rowsPerStripe = (this.rows + stripes - 1) / stripes;
+    this.locks = new ReentrantLock[(this.rows + this.rowsPerStripe - 1) / this.rowsPerStripe];
+    for (int s = 0; s < this.locks.length; s++) {
+      this.locks[s] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * この行列の行数を返します。
+   *
+   * @return 行数
+   */
+  public int rows() {
+    return this.rows;
+  }
+
+  /**
+   * この行列の列数を返します。
+   *
+   * @return 列数
+   */
+  public int columns() {
+    return this.columns;
+  }
+
+  /**
+   * 行を保護するストライプの数を返します。
+   *
+   * @return ストライプの数
+   */
+  public int stripes() {
+    return this.locks.length;
+  }
+
+  /**
+   * 行列の(i, j)成分を返します。
+   *
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public double get(int i, int j) {
+    final ReentrantLock lock = this.lockOf(i);
+    lock.lock();
+    try {
+      return this.matrix[i][j];
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 行列の(i, j)成分を指定された値に置き換えます。
+   *
+   * @param i i
+   * @param j j
+   * @param entry 格納される値
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public ConcurrentDoubleMatrix set(int i, int j, double entry) {
+    final ReentrantLock lock = this.lockOf(i);
+    lock.lock();
+    try {
+      this.matrix[i][j] = entry;
+    } finally {
+      lock.unlock();
+    }
+    return this;
+  }
+
+  /**
+   * 行列の(i, j)成分に指定された値を加算します。
+   *
+   * @param i i
+   * @param j j
+   * @param entry 加算する値
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public ConcurrentDoubleMatrix add(int i, int j, double entry) {
+    final ReentrantLock lock = this.lockOf(i);
+    lock.lock();
+    try {
+      this.matrix[i][j] += entry;
+    } finally {
+      lock.unlock();
+    }
+    return this;
+  }
+
+  /**
+   * this += thatを計算し，thisを返します。<br>
+   * ストライプを1つずつロックして加算します。同時に複数のストライプのロックを保持することはありません。
+   * 加算を始めるストライプは呼び出したスレッドごとに異なります。
+   *
+   * @param that この行列に加算する行列
+   * @return this
+   * @throws ArithmeticException thisとthatの型が異なり，計算を実行できない場合
+   */
+  public ConcurrentDoubleMatrix add(DoubleMatrix that) {
+    if (that.rows() != this.rows || that.columns() != this.columns) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows(), that.columns())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("concurrentAdd");
+    final double[][] source = that.array();
+    final int stripes = this.locks.length;
+    final int first = (int) (Thread.currentThread().getId() % stripes);
+    final Lock shared = this.phase.readLock();
+    shared.lock();
+    try {
+      for (int k = 0; k < stripes; k++) {
+        final int s = (first + k) % stripes;
+        final int from = s * this.rowsPerStripe;
+        final int to = Math.min(this.rows, from + this.rowsPerStripe);
+        final ReentrantLock lock = this.locks[s];
+        lock.lock();
+        try {
+          for (int i = from; i < to; i++) {
+            final double[] target = this.matrix[i];
+            final double[] row = source[i];
+            for (int j = 0; j < this.columns; j++) {
+              target[j] += row[j];
+            }
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+    } finally {
+      shared.unlock();
+    }
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, 0, (long) this.rows * this.columns);
+
+    return this;
+  }
+
+  /**
+   * 現在の成分をコピーしたDoubleMatrixを返します。<br>
+   * 実行中の書き込みが完了するのを待ってからコピーするため，結果には各add(DoubleMatrix)の全体が含まれるか，全く含まれないかのどちらかです。
+   * コピーしている間は，全てのストライプへの書き込みを待たせます。
+   *
+   * @return 現在の成分を持つ行列
+   */
+  public DoubleMatrix snapshot() {
+    return this.copy(false);
+  }
+
+  /**
+   * 現在の成分をコピーしたDoubleMatrixを返し，この行列の成分を全て0dにします。<br>
+   * snapshot()と同様に実行中の書き込みが完了するのを待ってから実行するため，加算された値が失われることはありません。
+   *
+   * @return リセットする前の成分を持つ行列
+   */
+  public DoubleMatrix snapshotAndReset() {
+    return this.copy(true);
+  }
+
+  /**
+   * 排他ロックと全てのストライプのロックを取得して，成分をコピーします。<br>
+   * ストライプのロックは常に番号の昇順に取得し，他の操作は同時に1つのストライプのロックしか保持しないため，デッドロックしません。
+   *
+   * @param reset trueならコピーした後に成分を0dにします。
+   * @return 成分をコピーした行列
+   */
+  private DoubleMatrix copy(boolean reset) {
+    double[][] result = new double[this.rows][];
+    final Lock exclusive = this.phase.writeLock();
+    exclusive.lock();
+    int locked = 0;
+    try {
+      for (; locked < this.locks.length; locked++) {
+        this.locks[locked].lock();
+      }
+      for (int i = 0; i < this.rows; i++) {
+        result[i] = this.matrix[i].clone();
+        if (reset) {
+          Arrays.fill(this.matrix[i], 0);
+        }
+      }
+    } finally {
+      while (locked > 0) {
+        this.locks[--locked].unlock();
+      }
+      exclusive.unlock();
+    }
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * 第i行を保護するロックを返します。
+   *
+   * @param i 行番号
+   * @return ロック
+   * @throws ArrayIndexOutOfBoundsException iの値が不正な添え字の場合
+   */
+  private ReentrantLock lockOf(int i) {
+    if (i < 0 || i >= this.rows) {
+      throw (new ArrayIndexOutOfBoundsException(
+          String.format("行番号が範囲外です: %d (行数: %d)", i, this.rows)));
+    }
+    return this.locks[i / this.rowsPerStripe];
+  }
+}
@@ -0,0 +1,137 @@
+// Usage: java -ea ConcurrentDoubleMatrixTest
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrentDoubleMatrixTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    checkEnableAssertions();
+
+    { // 単一スレッドでの動作確認
+      ConcurrentDoubleMatrix a = ConcurrentDoubleMatrix.createZeroMatrix(3, 2);
+      assert a.rows() == 3 && a.columns() == 2;
+      assert a.stripes() == 3;
+      assert a.set(0, 1, 5) == a;
+      assert a.add(0, 1, 2) == a;
+      assert a.get(0, 1) == 7;
+      assert a.add(DoubleMatrix.of(3, 2, 1, 1, 1, 1, 1, 1)) == a;
+      assert a.snapshot().isEqual(DoubleMatrix.of(3, 2, 1, 8, 1, 1, 1, 1));
+
+      DoubleMatrix s = a.snapshotAndReset();
+      assert s.isEqual(DoubleMatrix.of(3, 2, 1, 8, 1, 1, 1, 1));
+      assert a.snapshot().isEqual(DoubleMatrix.createZeroMatrix(3, 2));
+
+      DoubleMatrix source = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      ConcurrentDoubleMatrix b = ConcurrentDoubleMatrix.from(source);
+      b.add(1, 1, 1);
+      assert source.get(1, 1) == 4 && b.get(1, 1) == 5;
+      assert ConcurrentDoubleMatrix.createZeroMatrix(1000, 3).stripes() == 63;
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "a.add(DoubleMatrix.createZeroMatrix(2, 3))",
+          () -> a.add(DoubleMatrix.createZeroMatrix(2, 3)));
+      DoubleMatrixTest.Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class, "a.get(3, 0)", () -> a.get(3, 0));
+      DoubleMatrixTest.Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class, "a.set(-1, 0, 1)", () -> a.set(-1, 0, 1));
+      DoubleMatrixTest.Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class, "a.add(0, 2, 1)", () -> a.add(0, 2, 1));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "ConcurrentDoubleMatrix.createZeroMatrix(0, 1)",
+          () -> ConcurrentDoubleMatrix.createZeroMatrix(0, 1));
+    }
+
+    { // 複数のスレッドから加算しても，加算が失われないことを確認
+      final int n = 100;
+      final int threads = 8;
+      final int repeats = 50;
+      ConcurrentDoubleMatrix sum = ConcurrentDoubleMatrix.createZeroMatrix(n, n);
+      DoubleMatrix one = DoubleMatrix.createZeroMatrix(n, n).apply(x -> 1);
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+          final int id = t;
+          futures.add(
+              executor.submit(
+                  () -> {
+                    for (int r = 0; r < repeats; r++) {
+                      sum.add(one);
+                      sum.add(id, id, 1);
+                      // 途中の状態は，全ての成分が同じ回数だけ加算されたもの
+                      DoubleMatrix s = sum.snapshot();
+                      assert s.get(n - 1, 0) == s.get(0, n - 1);
+                    }
+                  }));
+        }
+        for (Future<?> f : futures) {
+          f.get();
+        }
+      } finally {
+        executor.shutdown();
+      }
+
+      DoubleMatrix total = sum.snapshot();
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          final double expected = threads * repeats + ((i == j && i < threads) ? repeats : 0);
+          assert total.get(i, j) == expected : i + "," + j;
+        }
+      }
+    }
+
+    { // 成分ごとの加算と並行してスナップショットを取得しても，加算が失われず，合計が減らないことを確認
+      final int n = 256;
+      final int threads = 8;
+      final int repeats = 20000;
+      ConcurrentDoubleMatrix sum = ConcurrentDoubleMatrix.createZeroMatrix(n, 4);
+      ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+          final int id = t;
+          futures.add(
+              executor.submit(
+                  () -> {
+                    for (int r = 0; r < repeats; r++) {
+                      sum.add((id * 31 + r * 7) % n, r % 4, 1);
+                    }
+                  }));
+        }
+        Future<?> reader =
+            executor.submit(
+                () -> {
+                  double previous = 0;
+                  for (int r = 0; r < 200; r++) {
+                    final double current = sum.snapshot().sum();
+                    assert current >= previous;
+                    previous = current;
+                  }
+                });
+        for (Future<?> f : futures) {
+          f.get();
+        }
+        reader.get();
+      } finally {
+        executor.shutdown();
+      }
+      assert sum.snapshot().sum() == threads * repeats;
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class ConcurrentDoubleMatrixTest
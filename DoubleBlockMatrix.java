@@ -0,0 +1,364 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * DoubleMatrixを格子状に並べたブロック行列を，各ブロックをコピーせずに参照するクラスです。<br>
+ * <br>
+ * DoubleMatrix.combineHorizontally(DoubleMatrix...)などで連結すると全成分がコピーされますが，
+ * このクラスはブロックへの参照だけを保持するため，生成にかかる時間と記憶領域はブロックの個数にしか依存しません。<br>
+ * 成分の取得と行列の積はブロックを直接参照して計算し，DoubleMatrixが必要になった時点でmaterialize()により一括コピーします。<br>
+ * <br>
+ * ブロックはコピーされないため，ブロックを変更するとこのブロック行列にも反映されます。
+ *
+ * <pre>{@code
+ * DoubleBlockMatrix x = DoubleBlockMatrix.horizontal(features1, features2, features3);
+ * DoubleMatrix y = x.times(weights);  // 連結した行列を生成せずに積を計算する
+ * DoubleMatrix z = x.materialize();   // 必要な場合だけ連結した行列を生成する
+ * }</pre>
+ *
+ * @author mpp
+ * @see DoubleMatrix#combineHorizontally(DoubleMatrix...)
+ * @see DoubleMatrix#combineVertically(DoubleMatrix...)
+ */
+public class DoubleBlockMatrix {
+
+  /** この値以上の浮動小数点演算を要する積は，ブロック行ごとに並列に計算します。 */
+  private static final long PARALLEL_THRESHOLD = 1 << 16;
+
+  /** 並列に計算する際に，1つのタスクが担当する行数の上限です。 */
+  private static final int PARALLEL_ROW_CHUNK = 64;
+
+  /**
+   * ブロックを格子状に並べたブロック行列を生成します。<br>
+   * blocks[p][q]が上からp番目，左からq番目のブロックになります。配列はコピーされますが，各ブロックはコピーされません。
+   *
+   * @param blocks ブロックを並べた2次元配列
+   * @return ブロック行列
+   * @throws IllegalArgumentException ブロックがない場合，各行のブロックの個数が異なる場合，
+   *     または同じブロック行の行数や同じブロック列の列数が揃っていない場合
+   */
+  public static DoubleBlockMatrix of(DoubleMatrix[][] blocks) {
+    return (new DoubleBlockMatrix(blocks));
+  }
+
+  /**
+   * 任意の個数の行列を水平方向に並べたブロック行列を生成します。
+   *
+   * @param matrices 任意の個数の行列
+   * @return ブロック行列
+   * @throws IllegalArgumentException 行列がない場合，または行列の行数が揃っていない場合
+   * @see DoubleMatrix#combineHorizontally(DoubleMatrix...)
+   */
+  public static DoubleBlockMatrix horizontal(DoubleMatrix... matrices) {
+    return (new DoubleBlockMatrix(new DoubleMatrix[][] {matrices}));
+  }
+
+  /**
+   * 任意の個数の行列を垂直方向に並べたブロック行列を生成します。
+   *
+   * @param matrices 任意の個数の行列
+   * @return ブロック行列
+   * @throws IllegalArgumentException 行列がない場合，または行列の列数が揃っていない場合
+   * @see DoubleMatrix#combineVertically(DoubleMatrix...)
+   */
+  public static DoubleBlockMatrix vertical(DoubleMatrix... matrices) {
+    DoubleMatrix[][] blocks = new DoubleMatrix[matrices.length][];
+    for (int p = 0; p < matrices.length; p++) {
+      blocks[p] = new DoubleMatrix[] {matrices[p]};
+    }
+    return (new DoubleBlockMatrix(blocks));
+  }
+
+  /** ブロックを並べた2次元配列です。 */
+  private final DoubleMatrix[][] blocks;
+
+  /** 各ブロック行の先頭の行番号です。最後の要素は行数と等しくなります。 */
+  private final int[] rowOffsets;
+
+  /** 各ブロック列の先頭の列番号です。最後の要素は列数と等しくなります。 */
+  private final int[] columnOffsets;
+
+  /** ブロック行列全体の行数を表します。 */
+  private final int rows;
+
+  /** ブロック行列全体の列数を表します。 */
+  private final int columns;
+
+  /**
+   * ブロックを格子状に並べたブロック行列を生成します。
+   *
+   * @param blocks ブロックを並べた2次元配列
+   * @throws IllegalArgumentException ブロックがない場合，各行のブロックの個数が異なる場合，
+   *     または同じブロック行の行数や同じブロック列の列数が揃っていない場合
+   */
+  private DoubleBlockMatrix(DoubleMatrix[][] blocks) {
+    if (blocks.length == 0 || blocks[0].length == 0) {
+      throw (new IllegalArgumentException("ブロックがありません"));
+    }
+
+    final int blockRows = blocks.length;
+    final int blockColumns = blocks[0].length;
+    this.blocks = new DoubleMatrix[blockRows][];
+    this.rowOffsets = new int[blockRows + 1];
+    this.columnOffsets = new int[blockColumns + 1];
+
+    for (int q = 0; q < blockColumns; q++) {
+      this.columnOffsets[q + 1] = this.columnOffsets[q] + blocks[0][q].columns();
+    }
+    for (int p = 0; p < blockRows; p++) {
+      if (blocks[p].length != blockColumns) {
+        throw (new IllegalArgumentException(
+            String.format(
+                "ブロックの個数が揃っていません: %d != %d (%d行目)", blocks[p].length, blockColumns, p)));
+      }
+
+      final int height = blocks[p][0].rows();
+      for (int q = 0; q < blockColumns; q++) {
+        if (blocks[p][q].rows() != height) {
+          throw (new IllegalArgumentException(
+              String.format("ブロックの行数が揃っていません: (%d,%d)", p, q)));
+        }
+        if (blocks[p][q].columns() != this.columnOffsets[q + 1] - this.columnOffsets[q]) {
+          throw (new IllegalArgumentException(
+              String.format("ブロックの列数が揃っていません: (%d,%d)", p, q)));
+        }
+      }
+      this.blocks[p] = blocks[p].clone();
+      this.rowOffsets[p + 1] = this.rowOffsets[p] + height;
+    }
+
+    this.rows = this.rowOffsets[blockRows];
+    this.columns = this.columnOffsets[blockColumns];
+  }
+
+  /**
+   * ブロック行列全体の行数を返します。
+   *
+   * @return 行数
+   */
+  public int rows() {
+    return this.rows;
+  }
+
+  /**
+   * ブロック行列全体の列数を返します。
+   *
+   * @return 列数
+   */
+  public int columns() {
+    return this.columns;
+  }
+
+  /**
+   * 縦方向に並んだブロックの個数を返します。
+   *
+   * @return ブロック行の個数
+   */
+  public int blockRows() {
+    return this.blocks.length;
+  }
+
+  /**
+   * 横方向に並んだブロックの個数を返します。
+   *
+   * @return ブロック列の個数
+   */
+  public int blockColumns() {
+    return this.blocks[0].length;
+  }
+
+  /**
+   * 上からp番目，左からq番目のブロックを返します。ブロックはコピーされません。
+   *
+   * @param p ブロック行の番号
+   * @param q ブロック列の番号
+   * @return ブロック
+   */
+  public DoubleMatrix block(int p, int q) {
+    return this.blocks[p][q];
+  }
+
+  /**
+   * (i, j)成分を返します。
+   *
+   * @param i 行番号
+   * @param j 列番号
+   * @return (i, j)成分
+   * @throws IndexOutOfBoundsException iまたはjが範囲外の場合
+   */
+  public double get(int i, int j) {
+    if (i < 0 || i >= this.rows || j < 0 || j >= this.columns) {
+      throw (new IndexOutOfBoundsException(
+          String.format("範囲外の成分です: (%d,%d) (型: (%d,%d))", i, j, this.rows, this.columns)));
+    }
+
+    final int p = blockIndex(this.rowOffsets, i);
+    final int q = blockIndex(this.columnOffsets, j);
+    return this.blocks[p][q].get(i - this.rowOffsets[p], j - this.columnOffsets[q]);
+  }
+
+  /**
+   * this * thatを計算し，その結果を返します。<br>
+   * 連結した行列を生成せずに，各ブロックとthatの対応する行の範囲との積を足し合わせます。<br>
+   * 計算量が大きい場合は，ブロック行(とその中の行の範囲)ごとに並列に計算します。
+   *
+   * @param that 右側の行列
+   * @return this * that
+   * @throws ArithmeticException thisの列数とthatの行数が異なる場合
+   */
+  public DoubleMatrix times(DoubleMatrix that) {
+    if (this.columns != that.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.columns, that.rows())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("blockTimes");
+    final double[][] x = that.array();
+    // 保留されている列の並べ替えは並列に計算する前に反映し，各タスクは反映済みの配列だけを読む
+    final double[][][][] arrays = new double[this.blocks.length][][][];
+    for (int p = 0; p < this.blocks.length; p++) {
+      arrays[p] = new double[this.blocks[p].length][][];
+      for (int q = 0; q < this.blocks[p].length; q++) {
+        arrays[p][q] = this.blocks[p][q].array();
+      }
+    }
+    final double[][] result = DoubleMatrixWorkspace.allocateZeros(this.rows, that.columns());
+    final long flops = 2L * this.rows * this.columns * that.columns();
+
+    if (flops < PARALLEL_THRESHOLD) {
+      for (int p = 0; p < this.blocks.length; p++) {
+        this.multiplyBlockRow(
+            arrays[p], p, 0, this.rowOffsets[p + 1] - this.rowOffsets[p], x, result);
+      }
+    } else {
+      ArrayList<int[]> tasks = new ArrayList<>();
+      for (int p = 0; p < this.blocks.length; p++) {
+        final int height = this.rowOffsets[p + 1] - this.rowOffsets[p];
+        for (int from = 0; from < height; from += PARALLEL_ROW_CHUNK) {
+          tasks.add(new int[] {p, from, Math.min(from + PARALLEL_ROW_CHUNK, height)});
+        }
+      }
+      tasks
+          .parallelStream()
+          .forEach(
+              task -> this.multiplyBlockRow(arrays[task[0]], task[0], task[1], task[2], x, result));
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.rows,
+        that.columns(),
+        this.columns,
+        (long) this.rows * that.columns() * Double.BYTES,
+        flops);
+
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * ブロック行列の転置を返します。<br>
+   * ブロックの並びを転置し，各ブロックをDoubleMatrix.transposed()で転置します。
+   * 各ブロックの転置行列はブロックが変更されるまで再利用されるため，繰り返し呼び出してもブロックの転置は1度しか計算されません。<br>
+   * 返されるブロック行列は，呼び出した時点のブロックの転置を参照します。
+   *
+   * @return t^this
+   * @see DoubleMatrix#transposed()
+   */
+  public DoubleBlockMatrix trs() {
+    final int blockRows = this.blocks.length;
+    final int blockColumns = this.blocks[0].length;
+    DoubleMatrix[][] transposed = new DoubleMatrix[blockColumns][blockRows];
+    for (int p = 0; p < blockRows; p++) {
+      for (int q = 0; q < blockColumns; q++) {
+        transposed[q][p] = this.blocks[p][q].transposed();
+      }
+    }
+    return (new DoubleBlockMatrix(transposed));
+  }
+
+  /**
+   * ブロックを連結した行列を生成し，それを返します。<br>
+   * 各ブロックの行をSystem.arraycopyで一括コピーします。
+   *
+   * @return ブロックを連結した行列
+   */
+  public DoubleMatrix materialize() {
+    double[][] result = new double[this.rows][this.columns];
+    for (int p = 0; p < this.blocks.length; p++) {
+      for (int q = 0; q < this.blocks[p].length; q++) {
+        final double[][] block = this.blocks[p][q].array();
+        final int width = this.columnOffsets[q + 1] - this.columnOffsets[q];
+        for (int i = 0; i < block.length; i++) {
+          System.arraycopy(
+              block[i], 0, result[this.rowOffsets[p] + i], this.columnOffsets[q], width);
+        }
+      }
+    }
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * ブロック行列の文字列表現を返します。
+   *
+   * @return ブロック行列の型とブロックの個数を表す文字列
+   */
+  @Override
+  public String toString() {
+    return String.format(
+        "DoubleBlockMatrix(%d,%d) [blocks: %d * %d, rows: %s, columns: %s]",
+        this.rows,
+        this.columns,
+        this.blocks.length,
+        this.blocks[0].length,
+        Arrays.toString(this.rowOffsets),
+        Arrays.toString(this.columnOffsets));
+  }
+
+  /**
+   * p番目のブロック行のうち，ブロック内の行番号が範囲[from, to)の行とxの積をresultに格納します。
+   *
+   * @param blockRow p番目のブロック行の各ブロックを表す配列
+   * @param p ブロック行の番号
+   * @param from 範囲の先頭(この値を含む)
+   * @param to 範囲の末尾(この値を含まない)
+   * @param x 右側の行列を表す配列
+   * @param result 結果を格納する配列
+   */
+  private void multiplyBlockRow(
+      double[][][] blockRow, int p, int from, int to, double[][] x, double[][] result) {
+    final int rowOffset = this.rowOffsets[p];
+    for (int q = 0; q < blockRow.length; q++) {
+      final double[][] a = blockRow[q];
+      final int columnOffset = this.columnOffsets[q];
+      for (int i = from; i < to; i++) {
+        final double[] ai = a[i];
+        final double[] ci = result[rowOffset + i];
+        for (int k = 0; k < ai.length; k++) {
+          final double aik = ai[k];
+          final double[] xk = x[columnOffset + k];
+          for (int j = 0; j < ci.length; j++) {
+            ci[j] += aik * xk[j];
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * 先頭の番号の配列から，indexを含むブロックの番号を返します。
+   *
+   * @param offsets 各ブロックの先頭の番号(昇順)
+   * @param index 行番号または列番号
+   * @return indexを含むブロックの番号
+   */
+  private static int blockIndex(int[] offsets, int index) {
+    int k = Arrays.binarySearch(offsets, index);
+    if (k < 0) {
+      return -k - 2;
+    }
+    // 大きさ0のブロックが続く場合は，その最後のブロックを返す
+    while (k + 1 < offsets.length - 1 && offsets[k + 1] == index) {
+      k++;
+    }
+    return k;
+  }
+}
@@ -0,0 +1,129 @@
+// Usage: java -ea DoubleBlockMatrixTest
+public class DoubleBlockMatrixTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+
+    { // 生成と成分の取得の動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 2, 5, 6);
+      DoubleMatrix b = DoubleMatrix.of(2, 1, 3, 7);
+      DoubleMatrix c = DoubleMatrix.of(1, 2, 9, 10);
+      DoubleMatrix d = DoubleMatrix.of(1, 1, 11);
+
+      DoubleBlockMatrix x = DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, b}, {c, d}});
+      assert x.rows() == 3;
+      assert x.columns() == 3;
+      assert x.blockRows() == 2;
+      assert x.blockColumns() == 2;
+      assert x.block(1, 0) == c;
+      assert x.get(0, 0) == 1;
+      assert x.get(1, 2) == 7;
+      assert x.get(2, 1) == 10;
+      assert x.get(2, 2) == 11;
+      assert x.materialize().isEqual(DoubleMatrix.of(3, 3, 1, 2, 3, 5, 6, 7, 9, 10, 11));
+
+      // ブロックはコピーされない
+      a.set(0, 0, -1);
+      assert x.get(0, 0) == -1;
+
+      DoubleMatrixTest.Test.assertThrows(
+          IndexOutOfBoundsException.class, "x.get(3, 0)", () -> x.get(3, 0));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, c}})",
+          () -> DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, c}}));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, b}, {d, c}})",
+          () -> DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, b}, {d, c}}));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, b}, {c}})",
+          () -> DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, b}, {c}}));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "DoubleBlockMatrix.vertical(a, b)",
+          () -> DoubleBlockMatrix.vertical(a, b));
+    } // end of block
+
+    { // horizontal()，vertical() と combineHorizontally()，combineVertically() の比較
+      java.util.Random random = new java.util.Random(33);
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, 4, 3);
+      DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, 4, 1);
+      DoubleMatrix c = DoubleMatrixTest.Test.randomMatrix(random, 4, 5);
+      DoubleMatrix d = DoubleMatrixTest.Test.randomMatrix(random, 2, 3);
+
+      DoubleBlockMatrix h = DoubleBlockMatrix.horizontal(a, b, c);
+      assert h.materialize().isEqual(DoubleMatrix.combineHorizontally(a, b, c));
+      DoubleBlockMatrix v = DoubleBlockMatrix.vertical(a, d);
+      assert v.materialize().isEqual(DoubleMatrix.combineVertically(a, d));
+
+      for (int i = 0; i < h.rows(); i++) {
+        for (int j = 0; j < h.columns(); j++) {
+          assert h.get(i, j) == DoubleMatrix.combineHorizontally(a, b, c).get(i, j);
+        }
+      }
+    } // end of block
+
+    { // times() と trs() の動作確認
+      java.util.Random random = new java.util.Random(330);
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, 3, 4);
+      DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, 3, 2);
+      DoubleMatrix c = DoubleMatrixTest.Test.randomMatrix(random, 5, 4);
+      DoubleMatrix d = DoubleMatrixTest.Test.randomMatrix(random, 5, 2);
+      DoubleBlockMatrix x = DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, b}, {c, d}});
+      DoubleMatrix m = x.materialize();
+
+      DoubleMatrix y = DoubleMatrixTest.Test.randomMatrix(random, 6, 3);
+      assert x.times(y).isEqual(m.times(y));
+
+      DoubleBlockMatrix t = x.trs();
+      assert t.rows() == 6;
+      assert t.columns() == 8;
+      assert t.materialize().isEqual(m.trs());
+      assert t.block(1, 0) == b.transposed();
+      DoubleMatrix z = DoubleMatrixTest.Test.randomMatrix(random, 8, 2);
+      assert t.times(z).isEqual(m.trs().times(z));
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class, "x.times(m)", () -> x.times(m));
+    } // end of block
+
+    { // 並列に計算される大きさの times() の動作確認
+      java.util.Random random = new java.util.Random(3300);
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, 150, 70);
+      DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, 150, 90);
+      DoubleMatrix c = DoubleMatrixTest.Test.randomMatrix(random, 130, 70);
+      DoubleMatrix d = DoubleMatrixTest.Test.randomMatrix(random, 130, 90);
+      DoubleBlockMatrix x = DoubleBlockMatrix.of(new DoubleMatrix[][] {{a, b}, {c, d}});
+
+      DoubleMatrix y = DoubleMatrixTest.Test.randomMatrix(random, 160, 40);
+      assert x.times(y).isEqual(x.materialize().times(y));
+      assert x.trs().times(DoubleMatrixTest.Test.randomMatrix(random, 280, 3)).rows() == 160;
+    } // end of block
+
+    { // 列の並べ替えが保留されたブロックの並列な積で，並べ替えが失われないことを確認
+      java.util.Random random = new java.util.Random(41);
+      DoubleMatrix identity = DoubleMatrix.createIdentityMatrix(40);
+      for (int trial = 0; trial < 8; trial++) {
+        DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, 1500, 40);
+        DoubleMatrix expected = DoubleMatrix.from(a).swapColumns(0, 1);
+        expected.sum(); // 並べ替えを反映させておく
+        a.swapColumns(0, 1);
+        assert DoubleBlockMatrix.horizontal(a).times(identity).isEqual(expected);
+        assert a.isEqual(expected);
+      }
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class DoubleBlockMatrixTest
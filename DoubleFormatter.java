@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * double型の値を文字列に変換するクラスです。<br>
+ * <br>
+ * 行列を文字列やファイルに書き出す際に，成分ごとにStringやStringBuilderの内部配列を生成しないよう，
+ * 変換結果をこのクラスが保持するchar型配列に書き込み，そこから一括でStringBuilderやWriterへ書き出します。<br>
+ * <br>
+ * 変換には次の2つの形式があります。
+ *
+ * <ul>
+ *   <li>shortest(): Double.toString(double)と同じ形式で，元の値に戻すことのできる最短の10進表現を出力します。
+ *   <li>fixed(int): 小数点以下の桁数を固定した形式で，String.format("%.nf", v)と同じ文字列を出力します。
+ * </ul>
+ *
+ * 成分の多くは有限の桁数の10進小数(測定値や整数など)であることを利用し，値をm / 10^kと正確に表せる整数mを探すことで，
+ * Double.toString(double)を呼び出さずに最短の表現を求めます。そのような整数が見つからない値の場合だけ，
+ * Double.toString(double)の結果を使用します。<br>
+ * <br>
+ * このクラスのインスタンスは作業用の配列を保持するため，複数のスレッドから同時に使用してはいけません。
+ *
+ * <pre>{@code
+ * DoubleFormatter f = DoubleFormatter.fixed(3);
+ * StringBuilder sb = new StringBuilder();
+ * f.appendTo(sb, Math.PI); // "3.142"
+ * }</pre>
+ *
+ * @author mpp
+ * @see DoubleMatrix#toString(String, DoubleFormatter)
+ */
+public final class DoubleFormatter {
+
+  /** 10の累乗の値です。10^22までは倍精度浮動小数点数で正確に表せます。 */
+  private static final double[] POW10 = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+  };
+
+  /** 10の累乗の値です。 */
+  private static final long[] LONG_POW10 = {
+    1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+    10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+    1000000000000000L, 10000000000000000L,
+  };
+
+  /** 高速に変換する値の有効数字の上限(10^15)です。この範囲では隣接するdouble型の値の間隔が10^-k未満になりません。 */
+  private static final double MAX_SIGNIFICAND = 1e15;
+
+  /** Double.toString(double)が指数表記を使用しない範囲の下限です。 */
+  private static final double PLAIN_MIN = 1e-3;
+
+  /** Double.toString(double)が指数表記を使用しない範囲の上限(この値を含まない)です。 */
+  private static final double PLAIN_MAX = 1e7;
+
+  /**
+   * Double.toString(double)と同じ形式で変換するインスタンスを生成します。
+   *
+   * @return 最短の10進表現を出力するインスタンス
+   */
+  public static DoubleFormatter shortest() {
+    return (new DoubleFormatter(-1));
+  }
+
+  /**
+   * 小数点以下の桁数を固定して変換するインスタンスを生成します。<br>
+   * 出力はString.format("%.nf", v)(nはfractionDigits)と同じで，最短の10進表現を四捨五入した値になります。
+   *
+   * @param fractionDigits 小数点以下の桁数
+   * @return 小数点以下の桁数を固定して出力するインスタンス
+   * @throws IllegalArgumentException fractionDigitsが負の値の場合
+   */
+  public static DoubleFormatter fixed(int fractionDigits) {
+    if (fractionDigits < 0) {
+      throw (new IllegalArgumentException("小数点以下の桁数が負の値です: " + fractionDigits));
+    }
+    return (new DoubleFormatter(fractionDigits));
+  }
+
+  /** 小数点以下の桁数です。shortest()で生成した場合は-1です。 */
+  private final int fractionDigits;
+
+  /** 変換結果を書き込む配列です。 */
+  private char[] buffer = new char[32];
+
+  /** 整数の各桁を逆順に書き込む作業用の配列です。 */
+  private final char[] digits = new char[20];
+
+  /** 直前のsearch(double)で求めた整数mです。 */
+  private long significand;
+
+  /** 直前のsearch(double)で求めた小数点以下の桁数kです。 */
+  private int scale;
+
+  /**
+   * インスタンスを生成します。
+   *
+   * @param fractionDigits 小数点以下の桁数(最短の表現の場合は-1)
+   */
+  private DoubleFormatter(int fractionDigits) {
+    this.fractionDigits = fractionDigits;
+  }
+
+  /**
+   * 小数点以下の桁数が固定されているかどうかを返します。
+   *
+   * @return fixed(int)で生成した場合はtrue
+   */
+  public boolean isFixed() {
+    return this.fractionDigits >= 0;
+  }
+
+  /**
+   * 値を文字列に変換し，それを返します。
+   *
+   * @param value 値
+   * @return 値の文字列表現
+   */
+  public String format(double value) {
+    final int length = this.convert(value);
+    return new String(this.buffer, 0, length);
+  }
+
+  /**
+   * 値を文字列に変換し，sbの末尾に追加します。
+   *
+   * @param sb 追加先
+   * @param value 値
+   * @return sb
+   */
+  public StringBuilder appendTo(StringBuilder sb, double value) {
+    final int length = this.convert(value);
+    return sb.append(this.buffer, 0, length);
+  }
+
+  /**
+   * 値を文字列に変換し，outに書き込みます。
+   *
+   * @param out 書き込み先
+   * @param value 値
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public void writeTo(Writer out, double value) throws IOException {
+    final int length = this.convert(value);
+    out.write(this.buffer, 0, length);
+  }
+
+  /**
+   * 値を文字列に変換してbufferの先頭から書き込み，その長さを返します。
+   *
+   * @param value 値
+   * @return 書き込んだ文字数
+   */
+  private int convert(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return this.copy(0, Double.toString(value));
+    }
+
+    int pos = 0;
+    if (Math.copySign(1.0, value) < 0) {
+      this.buffer[pos++] = '-';
+    }
+    final double a = Math.abs(value);
+
+    if (this.fractionDigits < 0) {
+      if (a == 0) {
+        return this.emit(pos, 0, 0, 1);
+      }
+      if (a >= PLAIN_MIN && a < PLAIN_MAX && this.search(a)) {
+        return this.emit(pos, this.significand, this.scale, 1);
+      }
+      return this.copy(pos, Double.toString(a));
+    }
+
+    if (a == 0) {
+      return this.emit(pos, 0, 0, this.fractionDigits);
+    }
+    if (this.search(a)) {
+      long m = this.significand;
+      int k = this.scale;
+      if (k > this.fractionDigits) {
+        // 最短の表現の桁を四捨五入する
+        final int drop = k - this.fractionDigits;
+        if (drop < LONG_POW10.length) {
+          m = (m + LONG_POW10[drop] / 2) / LONG_POW10[drop];
+        } else {
+          m = 0;
+        }
+        k = this.fractionDigits;
+      }
+      return this.emit(pos, m, k, this.fractionDigits);
+    }
+    String s =
+        new BigDecimal(Double.toString(a))
+            .setScale(this.fractionDigits, RoundingMode.HALF_UP)
+            .toPlainString();
+    return this.copy(pos, s);
+  }
+
+  /**
+   * a = m / 10^kを満たし，かつmの桁数が15以下の整数mと，最小のkを探します。<br>
+   * 見つかった場合は，mとkをsignificandとscaleに格納します。<br>
+   * mとkが見つかれば，m * 10^-kはaに戻すことのできる小数点以下の桁数が最小の10進表現です。
+   * また，mの桁数が15以下の範囲では，同じkでaに戻る整数は他に存在しません。
+   *
+   * @param a 正の値
+   * @return 見つかった場合はtrue
+   */
+  private boolean search(double a) {
+    for (int k = 0; k < POW10.length; k++) {
+      final double scaled = a * POW10[k];
+      if (scaled >= MAX_SIGNIFICAND) {
+        return false;
+      }
+      final long m = Math.round(scaled);
+      if (m / POW10[k] == a) {
+        this.significand = m;
+        this.scale = k;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * m * 10^-kを小数点以下fractionDigits桁(kがそれ以下の場合は0で埋める)の10進表記でbufferに書き込みます。
+   *
+   * @param pos 書き込みを開始する位置
+   * @param m 0以上の整数
+   * @param k 小数点以下の桁数(fractionDigits以下)
+   * @param fractionDigits 出力する小数点以下の桁数
+   * @return 書き込みを終えた位置
+   */
+  private int emit(int pos, long m, int k, int fractionDigits) {
+    int n = 0;
+    do {
+      this.digits[n++] = (char) ('0' + m % 10);
+      m /= 10;
+    } while (m != 0);
+
+    final int width = Math.max(n, k + 1);
+    this.ensureCapacity(pos + width + fractionDigits + 1);
+    for (int idx = width - 1; idx >= 0; idx--) {
+      if (idx == k - 1) {
+        this.buffer[pos++] = '.';
+      }
+      this.buffer[pos++] = (idx < n) ? this.digits[idx] : '0';
+    }
+    if (fractionDigits > k) {
+      if (k == 0) {
+        this.buffer[pos++] = '.';
+      }
+      for (int idx = k; idx < fractionDigits; idx++) {
+        this.buffer[pos++] = '0';
+      }
+    }
+    return pos;
+  }
+
+  /**
+   * 文字列をbufferに書き込みます。
+   *
+   * @param pos 書き込みを開始する位置
+   * @param s 文字列
+   * @return 書き込みを終えた位置
+   */
+  private int copy(int pos, String s) {
+    this.ensureCapacity(pos + s.length());
+    s.getChars(0, s.length(), this.buffer, pos);
+    return pos + s.length();
+  }
+
+  /**
+   * bufferの長さがcapacity以上になるように，必要に応じて配列を生成し直します。
+   *
+   * @param capacity 必要な長さ
+   */
+  private void ensureCapacity(int capacity) {
+    if (this.buffer.length < capacity) {
+      char[] newBuffer = new char[Math.max(capacity, this.buffer.length * 2)];
+      System.arraycopy(this.buffer, 0, newBuffer, 0, this.buffer.length);
+      this.buffer = newBuffer;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+// Usage: java -ea DoubleFormatterTest
+public class DoubleFormatterTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+
+    { // shortest() と Double.toString() の比較
+      DoubleFormatter f = DoubleFormatter.shortest();
+      assert !f.isFixed();
+
+      double[] values = {
+        0, -0.0, 1, -1, 0.5, 0.1, 0.2, 0.3, 1.0 / 3, 2.0 / 3, 100, 1234567.0, 9999999.999,
+        1e7, 1e-3, 9.99e-4, 0.001, 0.0123, 123.456, 1e22, 1e-300, Double.MIN_VALUE,
+        Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        Math.PI, -Math.E, 4.35, 2.675, 0.1 + 0.2,
+      };
+      for (double v : values) {
+        assert f.format(v).equals(Double.toString(v)) : v;
+      }
+
+      java.util.Random random = new java.util.Random(34);
+      for (int t = 0; t < 100000; t++) {
+        double v;
+        switch (t % 4) {
+          case 0:
+            v = random.nextInt(2000001) - 1000000;
+            break;
+          case 1:
+            v = (random.nextInt(2000001) - 1000000) / 100.0;
+            break;
+          case 2:
+            v = random.nextLong() / Math.pow(10, random.nextInt(25));
+            break;
+          default:
+            v = Double.longBitsToDouble(random.nextLong());
+            break;
+        }
+        assert f.format(v).equals(Double.toString(v)) : v;
+        assert Double.parseDouble(f.format(v)) == v || Double.isNaN(v) : v;
+      }
+
+      StringBuilder sb = new StringBuilder("x=");
+      assert f.appendTo(sb, 2.5) == sb;
+      assert sb.toString().equals("x=2.5");
+    } // end of block
+
+    { // fixed() と String.format() の比較
+      for (int digits = 0; digits <= 6; digits++) {
+        DoubleFormatter f = DoubleFormatter.fixed(digits);
+        assert f.isFixed();
+        String pattern = "%." + digits + "f";
+
+        double[] values = {
+          0, -0.0, 1, -1, 0.5, 1.5, 2.5, -2.5, 0.15, 0.25, 0.35, 2.675, 1.005, 1.0 / 3,
+          1e-10, -1e-10, 123456789.123, 1e20, 1e-300, Double.MAX_VALUE, Math.PI,
+          Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        };
+        for (double v : values) {
+          String expected = String.format(java.util.Locale.ROOT, pattern, v);
+          assert f.format(v).equals(expected) : v + " " + f.format(v) + " " + expected;
+        }
+
+        java.util.Random random = new java.util.Random(340 + digits);
+        for (int t = 0; t < 20000; t++) {
+          double v =
+              (t % 2 == 0)
+                  ? random.nextLong() / Math.pow(10, random.nextInt(20))
+                  : random.nextGaussian() * 1000;
+          String expected = String.format(java.util.Locale.ROOT, pattern, v);
+          assert f.format(v).equals(expected) : v + " " + f.format(v) + " " + expected;
+        }
+      }
+
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "DoubleFormatter.fixed(-1)",
+          () -> DoubleFormatter.fixed(-1));
+    } // end of block
+
+    { // 行列の文字列表現とファイルへの書き込みの動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 3, 1, 0.5, -2, 1.0 / 3, 1e-5, 1e10);
+      String n = System.lineSeparator();
+      assert a.toString().equals("1.0 0.5 -2.0" + n + "0.3333333333333333 1.0E-5 1.0E10");
+      assert a.toString(",").equals("1.0,0.5,-2.0" + n + "0.3333333333333333,1.0E-5,1.0E10");
+      assert a.toString(", ", DoubleFormatter.fixed(2))
+          .equals("1.00, 0.50, -2.00" + n + "0.33, 0.00, 10000000000.00");
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "a.toString(\"1\", DoubleFormatter.fixed(2))",
+          () -> a.toString("1", DoubleFormatter.fixed(2)));
+
+      try {
+        DoubleMatrix.writeToFile(a, "tmp/formatter.csv", ",");
+        assert DoubleMatrix.readFromFile("tmp/formatter.csv", ",").isEqual(a);
+
+        DoubleMatrix.writeToFile(a, "tmp/formatter.csv", ",", DoubleFormatter.fixed(1));
+        assert DoubleMatrix.readFromFile("tmp/formatter.csv", ",")
+            .isEqual(DoubleMatrix.of(2, 3, 1, 0.5, -2, 0.3, 0, 1e10));
+      } catch (java.io.IOException ioe) {
+        throw new AssertionError(ioe);
+      }
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class DoubleFormatterTest
@@ -1,10 +1,24 @@
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * double型2次元配列をラップし，行列として扱えるようにするクラスです。<br>
@@ -12,7 +26,15 @@ import java.util.Objects;
  * 2次元配列の全ての要素数に等しいことが保証されます。<br>
  * <br>
  * また，このクラスはラップ元のdouble型2次元配列の完全なコピーを内部に保持するという仕様のため，<br>
- * ラップ元配列の値に変更があっても，その影響を受けません。
+ * ラップ元配列の値に変更があっても，その影響を受けません。<br>
+ * ただし，wrap(double[][])で生成した行列は，コピーせずにラップ元の配列をそのまま使用します。<br>
+ * <br>
+ * 成分を変更しない操作(get，times，transposedなど)は，同じ行列に対して複数のスレッドから同時に呼び出すことができます。
+ * swapColumnsなどで列の並べ替えが保留されている場合も，並べ替えを配列に反映する処理は行列ごとにロックして1回だけ行います。
+ * 成分を変更する操作は，他の操作と同時に呼び出してはいけません。<br>
+ * 内部の配列を置き換えるフィールドと計算結果のキャッシュはvolatileにしてあり，置き換えや計算は他のスレッドに安全に公開されます。
+ * ただし，行列そのものを別のスレッドに渡す場合は，他の可変なオブジェクトと同様に，
+ * ExecutorServiceへの投入やvolatileフィールド，並行コレクションなどを介して安全に公開してください。
  *
  * @author mpp
  */
@@ -27,6 +49,21 @@ public class DoubleMatrix {
    */
   private static final String DEFAULT_DELIM = " ";
 
+  /**
+   * 行列とベクトルの積を複数のスレッドで並列に計算するかどうかを決める閾値です。<br>
+   * 行列の成分数がこの値以上の場合に，行(または列)を分割して並列に計算します。
+   */
+  private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /** 行ベクトルと行列の積を並列に計算する際に，1つのタスクが担当する列数です。 */
+  private static final int PARALLEL_COLUMN_CHUNK = 256;
+
+  /**
+   * 総和などを集計する際に，1つのブロックが担当する成分数の目安です。<br>
+   * ブロックの分け方は行列の型だけで決まるため，並列に計算しても加算の順序は変わりません。
+   */
+  private static final int REDUCTION_BLOCK_ENTRIES = 1 << 12;
+
   /**
    * 行列の文字列表現を指定された区切り文字を使用してファイルに書き込みます。<br>
    * 以下は，行列をCSVファイルとして書き出す例です。
@@ -49,12 +86,49 @@ public class DoubleMatrix {
    */
   public static void writeToFile(DoubleMatrix matrix, String filename, String delim)
       throws IOException {
+    writeToFile(matrix, filename, delim, DoubleFormatter.shortest());
+  }
+
+  /**
+   * 行列の文字列表現を指定された区切り文字と変換形式を使用してファイルに書き込みます。<br>
+   * 行列全体の文字列を生成せずに，各行をファイルへ順に書き込みます。<br>
+   * 以下は，小数点以下3桁に揃えてCSVファイルとして書き出す例です。
+   *
+   * <pre>{@code
+   * DoubleMatrix.writeToFile(a, "mat.csv", ",", DoubleFormatter.fixed(3));
+   * }</pre>
+   *
+   * @param matrix 行列
+   * @param filename ファイル名
+   * @param delim 各要素間の区切り文字
+   * @param formatter 各成分を文字列に変換する形式
+   * @throws IOException 入出力エラーが発生した場合
+   * @throws IllegalArgumentException 区切り文字が不正な場合
+   * @see #toString(String, DoubleFormatter)
+   */
+  public static void writeToFile(
+      DoubleMatrix matrix, String filename, String delim, DoubleFormatter formatter)
+      throws IOException {
+    checkDelimiter(delim);
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("writeToFile");
     try (BufferedWriter file = Files.newBufferedWriter(Paths.get(filename))) {
-      file.write(matrix.toString(delim));
+      for (int i = 0; i < matrix.rows; i++) {
+        final double[] row = matrix.storage()[i];
+        formatter.writeTo(file, row[0]);
+        for (int j = 1; j < matrix.columns; j++) {
+          file.write(delim);
+          formatter.writeTo(file, row[j]);
+        }
+        if (i < matrix.rows - 1) {
+          file.write(System.lineSeparator());
+        }
+      }
       file.flush();
     } catch (IOException ioe) {
       throw ioe;
     }
+    DoubleMatrixMetrics.end(probe, matrix.rows, matrix.columns, 0, 0, 0);
   }
 
   /**
@@ -88,6 +162,7 @@ public class DoubleMatrix {
    * @throws IllegalArgumentException ファイルの内容を行列として解釈できない場合
    */
   public static DoubleMatrix readFromFile(String filename, String regex) throws IOException {
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("readFromFile");
     ArrayList<double[]> rows = new ArrayList<double[]>();
     String line = null;
 
@@ -110,7 +185,9 @@ public class DoubleMatrix {
     }
 
     double[][] result = rows.toArray(new double[rows.size()][]);
-    return (new DoubleMatrix(result, true, false));
+    DoubleMatrix matrix = new DoubleMatrix(result, true, false);
+    DoubleMatrixMetrics.end(probe, matrix.rows, matrix.columns, 0, matrix.bytes(), 0);
+    return matrix;
   }
 
   /**
@@ -141,6 +218,7 @@ public class DoubleMatrix {
    * @return 連結結果の行列
    * @throws IllegalArgumentException 行列の連結が出来ない(行数が異なっている)場合
    * @see #createColumnVector(double...)
+   * @see DoubleBlockMatrix#horizontal(DoubleMatrix...)
    */
   public static DoubleMatrix combineHorizontally(DoubleMatrix... matrices) {
     final int rows = matrices[0].rows;
@@ -157,9 +235,7 @@ public class DoubleMatrix {
     int pos = 0;
     for (int k = 0; k < matrices.length; k++) {
       for (int i = 0; i < rows; i++) {
-        for (int j = 0; j < matrices[k].columns; j++) {
-          result[i][j + pos] = matrices[k].get(i, j);
-        }
+        System.arraycopy(matrices[k].storage()[i], 0, result[i], pos, matrices[k].columns);
       }
       pos += matrices[k].columns;
     }
@@ -182,6 +258,7 @@ public class DoubleMatrix {
    * @return 連結結果の行列
    * @throws IllegalArgumentException 行列の連結が出来ない(列数が異なっている)場合
    * @see #createRowVector(double...)
+   * @see DoubleBlockMatrix#vertical(DoubleMatrix...)
    */
   public static DoubleMatrix combineVertically(DoubleMatrix... matrices) {
     int rows = matrices[0].rows;
@@ -198,9 +275,7 @@ public class DoubleMatrix {
     int pos = 0;
     for (int k = 0; k < matrices.length; k++) {
       for (int i = 0; i < matrices[k].rows; i++) {
-        for (int j = 0; j < columns; j++) {
-          result[i + pos][j] = matrices[k].get(i, j);
-        }
+        System.arraycopy(matrices[k].storage()[i], 0, result[i + pos], 0, columns);
       }
       pos += matrices[k].rows;
     }
@@ -279,13 +354,96 @@ public class DoubleMatrix {
   }
 
   /**
-   * 行列のコピーを生成します。
+   * 引数で渡されたdouble型2次元配列を，コピーせずにそのまま使用する行列を生成します。<br>
+   * from(double[][])と異なり成分をコピーしないため，配列の大きさによらず計算量は行数に比例し，追加の記憶領域も必要ありません。<br>
+   * 行列と配列は同じ成分を参照するため，行列を変更すると配列に，配列を変更すると行列に反映されます。
+   * ただし，swapRowsなどで行を並べ替えた場合，並べ替えはこの行列が保持する配列(matrix自身)に対して行われます。<br>
+   * 呼び出し側が配列を変更する可能性があるため，この行列をfrom(DoubleMatrix)やsnapshot()でコピーする場合は，
+   * 配列を共有せずに成分をコピーします。<br>
+   * また，配列への直接の書き込みは検出できないため，この行列は転置，対称性，分解，ノルムの結果をキャッシュせず，
+   * swapColumnsなどによる列の並べ替えも保留せずに配列へ直ちに反映します。
+   *
+   * <pre>{@code
+   * double[][] buffer = receive();
+   * DoubleMatrix a = DoubleMatrix.wrap(buffer); // コピーしない
+   * a.mul(2); // bufferの成分も2倍になる
+   * }</pre>
+   *
+   * @param matrix 行列を表すdouble型2次元配列
+   * @return 配列をそのまま使用する行列
+   * @throws IllegalArgumentException matrixを行列として解釈できない場合
+   * @see #unwrap()
+   */
+  public static DoubleMatrix wrap(double[][] matrix) {
+    DoubleMatrix result = new DoubleMatrix(matrix, true, false);
+    result.aliased = true;
+    return result;
+  }
+
+  /**
+   * バッファの現在位置から，行優先で並べたrows * columns個の成分を読み込んで行列を生成します。
+   * バッファの位置は読み込んだ成分の数だけ進みます。<br>
+   * この行列は各行を別の配列に保持するため，バッファの内容を共有することはできませんが，
+   * 成分は1行ずつDoubleBuffer.get(double[])でまとめてコピーし，途中で作業用の配列は確保しません。
+   * 直接バッファ(ByteBuffer.allocateDirect)のビューからも同様に読み込めます。
+   *
+   * @param buffer 成分を読み込むバッファ
+   * @param rows 行列の行数
+   * @param columns 行列の列数
+   * @return 行列
+   * @throws IllegalArgumentException バッファの残りの成分がrows * columns個より少ない場合
+   * @see #writeTo(DoubleBuffer)
+   */
+  public static DoubleMatrix from(DoubleBuffer buffer, int rows, int columns) {
+    if (buffer.remaining() < (long) rows * columns) {
+      throw (new IllegalArgumentException(
+          String.format(
+              "バッファの成分の数が少なすぎます: %d < %d", buffer.remaining(), (long) rows * columns)));
+    }
+    double[][] result = new double[rows][columns];
+    for (double[] row : result) {
+      buffer.get(row);
+    }
+    return (new DoubleMatrix(result, false, false));
+  }
+
+  /**
+   * 行列のコピーを生成します。<br>
+   * 成分はコピーせずに配列を共有し，コピー元とコピーのどちらかが成分を変更する時点で，変更する行だけをコピーします(コピーオンライト)。
+   * そのため，行列の大きさによらず，コピーの計算量は定数です。<br>
+   * ただし，作業領域(DoubleMatrixWorkspace)から借りた配列を使用している行列は，作業領域を閉じると配列が再利用されるため，
+   * 従来どおり全ての成分をコピーします。wrap(double[][])で生成した行列や，unwrap()で配列を渡した行列も，
+   * 呼び出し側が配列を変更する可能性があるため，全ての成分をコピーします。<br>
+   * コピーを生成する操作はコピー元の状態を更新するため，コピー元を変更する操作と並行して呼び出してはいけません。
    *
    * @param matrix コピー元の行列
    * @return コピーされた行列
+   * @see #snapshot()
    */
   public static DoubleMatrix from(DoubleMatrix matrix) {
-    return (new DoubleMatrix(matrix));
+    final double[][] storage = matrix.storage();
+    if (matrix.aliased || DoubleMatrixWorkspace.isBorrowed(storage)) {
+      return (new DoubleMatrix(matrix));
+    }
+    return matrix.share();
+  }
+
+  /**
+   * 単精度の行列を倍精度に変換した行列を生成します。<br>
+   * float型からdouble型への変換は正確なため，情報は失われません。
+   *
+   * @param matrix 変換元の単精度の行列
+   * @return 変換された行列
+   * @see FloatMatrix#from(DoubleMatrix)
+   */
+  public static DoubleMatrix from(FloatMatrix matrix) {
+    double[][] result = new double[matrix.rows()][matrix.columns()];
+    for (int i = 0; i < result.length; i++) {
+      for (int j = 0; j < result[i].length; j++) {
+        result[i][j] = matrix.get(i, j);
+      }
+    }
+    return (new DoubleMatrix(result, false, false));
   }
 
   /**
@@ -301,8 +459,31 @@ public class DoubleMatrix {
     return (new DoubleMatrix(rows, columns, entries));
   }
 
-  /** 行列を表すdouble型2次元配列です。 */
-  private final double[][] matrix;
+  /**
+   * 行列を表すdouble型2次元配列です。<br>
+   * 他の行列やスナップショットと共有している場合があるため，成分を変更する前にwritableStorage()などで共有を解消します。<br>
+   * 共有を解消するときや，share()で行の並びをそろえるときは，新しい配列に置き換えます。
+   * share()は成分を読み取る操作と同時に実行されることがあるため，volatileにして，
+   * 置き換えた配列(コピーした行の並び)を他のスレッドが中途半端な状態で読まないようにします。
+   * 置き換え前後の配列は同じ行を参照するため，どちらを読んでも成分は同じです。
+   * volatileの読み取りを減らすため，成分ごとのループの中ではこのフィールドを読まず，行ごとかそれより外側で読みます。
+   */
+  private volatile double[][] matrix;
+
+  /** trueなら，配列matrix(行の並びと各行の成分)を他の行列やスナップショットと共有しています。 */
+  private boolean shared;
+
+  /**
+   * trueなら，配列matrixを呼び出し側も参照しています(wrapで生成した場合，またはunwrapで配列を渡した場合)。<br>
+   * 呼び出し側が配列を変更する可能性があるため，from(DoubleMatrix)は配列を共有せずにコピーします。
+   */
+  private boolean aliased;
+
+  /**
+   * 行の並びだけを自身で保持し，一部の行を共有している場合に，共有している行を表します。<br>
+   * sharedRows[i]がtrueなら，第i行の配列を他の行列やスナップショットと共有しています。共有している行がない場合はnullです。
+   */
+  private boolean[] sharedRows;
 
   /** この行列の行数を表します。 */
   private final int rows;
@@ -313,6 +494,74 @@ public class DoubleMatrix {
   /** この行列のサイズ(rows * columnsの計算結果)を表します。 */
   private final int size;
 
+  /**
+   * まだ配列に反映していない列の並べ替えを表します。第j列の成分は，配列のcolumnMap[j]番目に格納されています。<br>
+   * 並べ替えがない場合はnullです。swapColumnsやpermuteColumnsは，配列を変更せずにこの対応だけを更新します。
+   * get，setはこの対応に従って成分を読み書きし，配列全体を走査する演算は，
+   * 開始時にstorage()で並べ替えを1回だけ配列に反映してから計算します。<br>
+   * 複数のスレッドから読み取る操作が並べ替えを反映中の配列を読まないように，反映はこの行列のロックを取得して行い，
+   * 反映を終えた時点でnullを書き込みます。
+   */
+  private volatile int[] columnMap;
+
+  /**
+   * この行列の変更回数を表します。<br>
+   * set，add，sub，mul，swapRows，swapColumns，permuteRows，permuteColumnsなど，この行列の成分を変更する操作のたびに加算されます。
+   */
+  private int version;
+
+  /**
+   * この行列から計算した結果(転置，対称性，分解，ノルム)のキャッシュです。未計算の場合はnullです。<br>
+   * 成分を変更しない操作は複数のスレッドから同時に呼び出せるため，volatileにして生成したキャッシュを安全に公開します。
+   */
+  private volatile Derived derived;
+
+  /**
+   * 行列から計算した結果を，計算した時点の変更回数とともに保持するクラスです。<br>
+   * 行列の変更回数が計算した時点から変わっていれば，保持している結果はすべて無効です。<br>
+   * 結果は複数のスレッドから同時に計算・参照されるため，各フィールドはvolatileにして，
+   * 計算が完了したオブジェクトだけが他のスレッドから見えるようにします。
+   * 同じ結果を複数のスレッドが計算することはありますが，どれも同じ値になるため，どれが残っても構いません。
+   */
+  private static final class Derived {
+
+    /** 結果を計算した時点の行列の変更回数です。 */
+    private final int version;
+
+    /** 転置行列です。 */
+    private volatile DoubleMatrix transpose;
+
+    /** 転置行列を生成した時点の，転置行列自身の変更回数です。 */
+    private volatile int transposeVersion;
+
+    /** 対称行列かどうかの判定結果です。 */
+    private volatile Boolean symmetric;
+
+    /** LU分解です。 */
+    private volatile LUDecomposition lu;
+
+    /** Cholesky分解です。 */
+    private volatile CholeskyDecomposition cholesky;
+
+    /** 1ノルムです(未計算の場合はNaN)。 */
+    private volatile double norm1 = Double.NaN;
+
+    /** 最大値ノルムです(未計算の場合はNaN)。 */
+    private volatile double normInf = Double.NaN;
+
+    /** フロベニウスノルムです(未計算の場合はNaN)。 */
+    private volatile double normFrobenius = Double.NaN;
+
+    /**
+     * キャッシュを生成します。
+     *
+     * @param version 行列の現在の変更回数
+     */
+    private Derived(int version) {
+      this.version = version;
+    }
+  }
+
   /**
    * このクラスのコードを直接触るプログラマのために用意された，privateなコンストラクタです。<br>
    * ラップ元のmatrixを行列として解釈してもよいかどうか検証する機能や，matrixの完全なコピーを取る機能を提供します。<br>
@@ -384,9 +633,10 @@ public class DoubleMatrix {
       throw (new IllegalArgumentException("第3引数以降の成分の数が少なすぎます"));
     }
 
+    final double[][] matrix = this.matrix;
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
-        this.matrix[i][j] = entries[i * this.columns + j];
+        matrix[i][j] = entries[i * this.columns + j];
       }
     }
   }
@@ -397,7 +647,158 @@ public class DoubleMatrix {
    * @param matrix コピー元の行列
    */
   private DoubleMatrix(DoubleMatrix matrix) {
-    this(matrix.matrix, false, true);
+    this(matrix.storage(), false, true);
+  }
+
+  /**
+   * 配列への参照をそのまま保持する行列を生成します(検証もコピーも行いません)。<br>
+   * 同じパッケージのクラスが，自身で確保した配列を行列として返すために使用します。
+   *
+   * @param matrix 行列を表すdouble型2次元配列
+   * @return 行列
+   */
+  static DoubleMatrix wrapArray(double[][] matrix) {
+    return (new DoubleMatrix(matrix, false, false));
+  }
+
+  /**
+   * この行列を表すdouble型2次元配列への参照を返します。<br>
+   * 同じパッケージのクラスが，成分を直接読み取るために使用します。
+   * 配列は他の行列やスナップショットと共有している場合があるため，この配列に書き込んではいけません。
+   *
+   * @return 行列を表すdouble型2次元配列
+   */
+  double[][] array() {
+    return this.storage();
+  }
+
+  /**
+   * 列の並べ替えを配列に反映してから，この行列を表すdouble型2次元配列への参照を返します。<br>
+   * 配列全体を走査する演算は，成分を読み取る前にこのメソッドを呼び出します。
+   * 成分を変更する演算は，代わりにwritableStorage()を呼び出します。<br>
+   * 並べ替えは1行ずつ作業用の配列を使用して反映するため，各行は連続して1回だけ走査されます。
+   * 共有している行は，並べ替えた結果を新しい配列に書き込み，共有を解消します。
+   * 行列の値は変わらないため，変更回数は加算しません。<br>
+   * 読み取る操作から同時に呼び出される場合があるため，並べ替えの反映はapplyColumnMap()でロックを取得して行います。
+   *
+   * @return 行列を表すdouble型2次元配列
+   */
+  private double[][] storage() {
+    if (this.columnMap != null) {
+      this.applyColumnMap();
+    }
+    return this.matrix;
+  }
+
+  /**
+   * 保留されている列の並べ替えを配列に反映します。<br>
+   * 他のスレッドが先に反映した場合は何も行いません。
+   */
+  private synchronized void applyColumnMap() {
+    final int[] map = this.columnMap;
+    if (map != null) {
+      final double[][] rows = this.writableRowReferences();
+      double[] buffer = new double[this.columns];
+      for (int i = 0; i < this.rows; i++) {
+        final double[] row = rows[i];
+        if (this.sharedRows != null && this.sharedRows[i]) {
+          double[] copy = new double[this.columns];
+          for (int j = 0; j < this.columns; j++) {
+            copy[j] = row[map[j]];
+          }
+          rows[i] = copy;
+        } else {
+          for (int j = 0; j < this.columns; j++) {
+            buffer[j] = row[map[j]];
+          }
+          System.arraycopy(buffer, 0, row, 0, this.columns);
+        }
+      }
+      this.sharedRows = null;
+      this.columnMap = null;
+    }
+  }
+
+  /**
+   * 共有している行をすべてコピーしてから，この行列を表すdouble型2次元配列への参照を返します。<br>
+   * 配列全体の成分を変更する演算は，成分を書き込む前にこのメソッドを呼び出します。
+   *
+   * @return 行列を表すdouble型2次元配列(他の行列やスナップショットと共有していない)
+   */
+  private double[][] writableStorage() {
+    this.storage();
+    if (this.shared || this.sharedRows != null) {
+      final double[][] rows = this.writableRowReferences();
+      for (int i = 0; i < this.rows; i++) {
+        if (this.sharedRows[i]) {
+          rows[i] = rows[i].clone();
+        }
+      }
+      this.sharedRows = null;
+    }
+    return this.matrix;
+  }
+
+  /**
+   * 第i行が共有されている場合はその行だけをコピーしてから，第i行の配列への参照を返します。<br>
+   * 1つの成分だけを変更する操作に使用します。列の並べ替えは反映しません。
+   *
+   * @param i 行番号
+   * @return 第i行の配列(他の行列やスナップショットと共有していない)
+   * @throws ArrayIndexOutOfBoundsException iの値が不正な添え字の場合
+   */
+  private double[] writableRow(int i) {
+    final double[][] rows = this.writableRowReferences();
+    if (this.sharedRows != null && this.sharedRows[i]) {
+      rows[i] = rows[i].clone();
+      this.sharedRows[i] = false;
+    }
+    return rows[i];
+  }
+
+  /**
+   * 行の並びを表す配列を共有している場合は，その配列だけをコピーしてから参照を返します。<br>
+   * 各行の配列は共有したままにし，sharedRowsに記録します。行を入れ替える操作に使用します。
+   *
+   * @return 行の並びを表す配列(他の行列やスナップショットと共有していない)
+   */
+  private double[][] writableRowReferences() {
+    if (this.shared) {
+      this.matrix = this.matrix.clone();
+      this.sharedRows = new boolean[this.rows];
+      Arrays.fill(this.sharedRows, true);
+      this.shared = false;
+    }
+    return this.matrix;
+  }
+
+  /**
+   * この行列と配列を共有する行列を生成します。両方の行列を，以後の変更の前に行をコピーする状態にします。
+   *
+   * @return 配列を共有する行列
+   */
+  private synchronized DoubleMatrix share() {
+    final double[][] storage = this.storage();
+    if (this.sharedRows != null) {
+      // 行の並びを新しい配列にして，すべての行を共有する状態にそろえる
+      this.matrix = storage.clone();
+      this.sharedRows = null;
+    }
+    if (!this.shared) {
+      this.shared = true;
+    }
+    DoubleMatrix result = new DoubleMatrix(this.matrix, false, false);
+    result.shared = true;
+    return result;
+  }
+
+  /**
+   * この行列の成分を格納するのに必要な大きさ(バイト)を返します。計測値の記録に使用します。
+   *
+   * @return rows * columns * Double.BYTES
+   */
+  private long bytes() {
+    return (long) this.size * Double.BYTES;
   }
 
   /**
@@ -473,6 +874,14 @@ public class DoubleMatrix {
       return false;
     }
 
+    // 前回の判定から変更されていなければ，その結果を返す
+    Derived derived = this.derived();
+    Boolean symmetric = derived.symmetric;
+    if (symmetric != null) {
+      return symmetric;
+    }
+
+    // 判定が終わるまで結果を書き込まない(他のスレッドが途中の結果を読まないようにする)
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
         if (i == j) {
@@ -480,167 +889,976 @@ public class DoubleMatrix {
         }
 
         if (this.get(i, j) != this.get(j, i)) {
+          derived.symmetric = Boolean.FALSE;
           return false;
         }
       }
     }
 
+    derived.symmetric = Boolean.TRUE;
     return true;
   }
 
   /**
-   * この行列の文字列表現を返します。<br>
-   * <br>
-   * 実行例
-   *
-   * <pre>{@code
-   * DoubleMatrix a = DoubleMatrix.createZeroMatrix(3, 4);
-   * System.out.print(a);
-   * }</pre>
-   *
-   * 実行結果
-   *
-   * <pre>{@code
-   * 0.0 0.0 0.0 0.0
-   * 0.0 0.0 0.0 0.0
-   * 0.0 0.0 0.0 0.0
-   * }</pre>
+   * この行列の変更回数を返します。<br>
+   * set，add，sub，mul，swapRows，swapColumnsなど，成分を変更する操作のたびに値が変わります。<br>
+   * 値が等しい間は，この行列の成分が変更されていないことが保証されます。
+   * ただし，wrap(double[][])やunwrap()で呼び出し側と共有している配列への直接の書き込みは，変更回数に反映されません。
    *
-   * @return この行列の文字列表現
-   * @see #createZeroMatrix(int, int)
+   * @return 変更回数
    */
-  @Override
-  public String toString() {
-    StringBuilder result = new StringBuilder();
+  public int version() {
+    return this.version;
+  }
 
-    for (int i = 0; i < this.rows; i++) {
-      result.append(this.matrix[i][0]);
-      for (int j = 1; j < this.columns; j++) {
-        result.append(DEFAULT_DELIM);
-        result.append(this.matrix[i][j]);
-      }
-      if (i < this.rows - 1) {
-        result.append(System.lineSeparator());
-      }
+  /**
+   * この行列の転置行列を返します。<br>
+   * trs()と異なり，この行列が変更されていない間は同じインスタンスを返します
+   * (wrap(double[][])やunwrap()で配列を共有している行列は，呼び出しのたびに計算します)。<br>
+   * 返された行列は他の呼び出し元と共有されるため，変更してはいけません。変更が必要な場合はtrs()を使用してください。<br>
+   * なお，返された行列が変更されたことを検出した場合は，転置行列を計算し直します。<br>
+   * 転置行列は作業領域(DoubleMatrixWorkspace)が開いていても新たに確保した配列に格納するため，作業領域を閉じた後も有効です。
+   *
+   * @return t^this(共有されるインスタンス)
+   * @see #trs()
+   */
+  public DoubleMatrix transposed() {
+    Derived derived = this.derived();
+    DoubleMatrix transpose = derived.transpose;
+    if (transpose == null || transpose.version != derived.transposeVersion) {
+      // キャッシュは作業領域を閉じた後も使用するため，作業領域の配列を使用しない
+      transpose = DoubleMatrixWorkspace.unpooled(this::trs);
+      derived.transposeVersion = transpose.version;
+      derived.transpose = transpose;
     }
-
-    return result.toString();
+    return transpose;
   }
 
   /**
-   * この行列の文字列表現を指定された区切り文字を使用して生成し，それを返します。<br>
-   * <br>
-   * 実行例
-   *
-   * <pre>{@code
-   * DoubleMatrix a = DoubleMatrix.createZeroMatrix(3, 4);
-   * System.out.print(a.toString("|"));
-   * }</pre>
-   *
-   * 実行結果
+   * この行列の現在の成分を保持する，変更できないスナップショットを返します。<br>
+   * 成分はコピーせずに配列を共有するため，計算量は行列の大きさによりません。
+   * この行列を後から変更しても，変更する行だけがコピーされるため，スナップショットの成分は変わりません。<br>
+   * スナップショットは変更できないため，同期せずに複数のスレッドから参照できます。
    *
    * <pre>{@code
-   * 0.0|0.0|0.0|0.0
-   * 0.0|0.0|0.0|0.0
-   * 0.0|0.0|0.0|0.0
+   * DoubleMatrixSnapshot s = a.snapshot();
+   * executor.submit(() -> s.toDoubleMatrix().times(b)); // aをコピーせずに別のスレッドに渡す
+   * a.set(0, 0, 1); // sには影響しない
    * }</pre>
    *
-   * @param delim 各要素間の区切り文字
-   * @return この行列の文字列表現
+   * @return この行列のスナップショット
+   * @see DoubleMatrixSnapshot
    */
-  public String toString(String delim) {
-    if (delim.isEmpty() || delim.contains(".") || delim.matches(".*\\d.*")) {
-      throw (new IllegalArgumentException("区切り文字が不正です: " + delim));
-    }
-
-    String result = this.toString();
-    if (!DEFAULT_DELIM.equals(delim)) {
-      result = result.replace(DEFAULT_DELIM, delim);
-    }
-
-    return result;
+  public DoubleMatrixSnapshot snapshot() {
+    DoubleMatrix copy = DoubleMatrix.from(this);
+    // 作業領域の配列からコピーした場合も共有中として扱い，スナップショットから変換する際に状態を書き換えないようにする
+    copy.shared = true;
+    return (new DoubleMatrixSnapshot(copy));
   }
 
   /**
-   * 行列の(i, j)成分を取得します。
+   * この行列のLU分解を返します。<br>
+   * この行列が変更されていない間は，前回の分解結果を再利用します。
    *
-   * @param i i
-   * @param j j
-   * @return (i, j)成分の値
-   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   * @return LU分解
+   * @throws ArithmeticException この行列が正方行列でない場合，または正則でない場合
+   * @see LUDecomposition
    */
-  public double get(int i, int j) {
-    return this.matrix[i][j];
+  public LUDecomposition lu() {
+    Derived derived = this.derived();
+    LUDecomposition lu = derived.lu;
+    if (lu == null) {
+      // 分解が完了してからvolatileフィールドに書き込むため，他のスレッドが分解の途中の状態を見ることはない
+      lu = LUDecomposition.of(this);
+      derived.lu = lu;
+    }
+    return lu;
   }
 
   /**
-   * 行列の(i, j)成分を指定された値に置き換えます。
+   * この行列のCholesky分解を返します。<br>
+   * この行列が変更されていない間は，前回の分解結果を再利用します。
    *
-   * @param i i
-   * @param j j
-   * @param entry 格納される値
-   * @return this
-   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   * @return Cholesky分解
+   * @throws ArithmeticException この行列が対称行列でない場合，または正定値でない場合
+   * @see CholeskyDecomposition
    */
-  public DoubleMatrix set(int i, int j, double entry) {
-    this.matrix[i][j] = entry;
-    return this;
+  public CholeskyDecomposition cholesky() {
+    Derived derived = this.derived();
+    CholeskyDecomposition cholesky = derived.cholesky;
+    if (cholesky == null) {
+      cholesky = CholeskyDecomposition.of(this);
+      derived.cholesky = cholesky;
+    }
+    return cholesky;
   }
 
   /**
-   * 行の入れ替えを行います。ただし，i1 == i2なら何も行いません。<br>
-   * なお，i1 == i2 でも，i1またはi2の値が行列の添え字の範囲を逸脱している場合は例外をスローします。
+   * この行列の1ノルム(列ごとの成分の絶対値の和の最大値)を返します。<br>
+   * この行列が変更されていない間は，前回の計算結果を再利用します。
    *
-   * @param i1 任意の行番号
-   * @param i2 任意の行番号
-   * @return this
-   * @throws ArrayIndexOutOfBoundsException i1またはi2の値が不正な添え字の場合
+   * @return 1ノルム
    */
-  public DoubleMatrix swapRows(int i1, int i2) {
-    // 引数が同じなら交換処理を行う必要がないので何もせずreturnする
-    if (i1 == i2) {
-      // ただし，引数が配列の添え字範囲を逸脱していない場合に限る
-      // 逸脱している場合はそのまま交換処理を実行させ，例外を発生させる
-      if ((0 <= i1 && i1 < this.rows) && (0 <= i2 && i2 < this.rows)) {
-        return this;
+  public double norm1() {
+    Derived derived = this.derived();
+    double norm = derived.norm1;
+    if (Double.isNaN(norm)) {
+      norm = 0;
+      for (double sum : this.columnSums(true)) {
+        norm = Math.max(norm, sum);
       }
+      derived.norm1 = norm;
     }
-
-    double[] tmp = this.matrix[i1];
-    this.matrix[i1] = this.matrix[i2];
-    this.matrix[i2] = tmp;
-
-    return this;
+    return norm;
   }
 
   /**
-   * 列の入れ替えを行います。ただし，j1 == j2なら何も行いません。<br>
-   * なお，j1 == j2 でも，j1またはj2の値が行列の添え字の範囲を逸脱している場合は例外をスローします。
+   * この行列の最大値ノルム(行ごとの成分の絶対値の和の最大値)を返します。<br>
+   * この行列が変更されていない間は，前回の計算結果を再利用します。
    *
-   * @param j1 任意の列番号
-   * @param j2 任意の列番号
-   * @return this
-   * @throws ArrayIndexOutOfBoundsException j1またはj2の値が不正な添え字の場合
+   * @return 最大値ノルム
    */
-  public DoubleMatrix swapColumns(int j1, int j2) {
-    // 引数が同じなら交換処理を行う必要がないので何もせずreturnする
-    if (j1 == j2) {
-      // ただし，引数が配列の添え字範囲を逸脱していない場合に限る
-      // 逸脱している場合はそのまま交換処理を実行させ，例外を発生させる
-      if ((0 <= j1 && j1 < this.columns) && (0 <= j2 && j2 < this.columns)) {
-        return this;
+  public double normInf() {
+    Derived derived = this.derived();
+    double norm = derived.normInf;
+    if (Double.isNaN(norm)) {
+      norm = 0;
+      for (double sum : this.rowSums(true)) {
+        norm = Math.max(norm, sum);
       }
+      derived.normInf = norm;
     }
+    return norm;
+  }
 
+  /**
+   * この行列のフロベニウスノルム(全成分の2乗の和の平方根)を返します。<br>
+   * この行列が変更されていない間は，前回の計算結果を再利用します。
+   *
+   * @return フロベニウスノルム
+   */
+  public double normFrobenius() {
+    Derived derived = this.derived();
+    double norm = derived.normFrobenius;
+    if (Double.isNaN(norm)) {
+      double[] partials =
+          this.reduceRowBlocks(
+              (from, to) -> {
+                double sum = 0;
+                for (int i = from; i < to; i++) {
+                  for (double entry : this.matrix[i]) {
+                    sum += entry * entry;
+                  }
+                }
+                return sum;
+              });
+      norm = Math.sqrt(sum(partials, false));
+      derived.normFrobenius = norm;
+    }
+    return norm;
+  }
+
+  /**
+   * この行列の全成分の和を返します。<br>
+   * 成分を行優先の順序で一定の大きさのブロックに分けて，ブロックごとの和を求めた後，それらをブロックの順に加算します。
+   * ブロックの分け方は行列の型だけで決まるため，並列に計算した場合でも結果は常に同じです。
+   *
+   * @return 全成分の和
+   * @see #sum(boolean)
+   */
+  public double sum() {
+    return this.sum(false);
+  }
+
+  /**
+   * この行列の全成分の和を返します。<br>
+   * compensatedがtrueの場合は，補償付き(Kahan-Babuška)の加算を行い，丸め誤差の蓄積を抑えます。
+   * 加算の順序はsum()と同じで，並列に計算した場合でも結果は常に同じです。
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.createRowVector(1e100, 1, -1e100);
+   * a.sum(false); // 0.0
+   * a.sum(true); // 1.0
+   * }</pre>
+   *
+   * @param compensated trueなら補償付きの加算を行います。
+   * @return 全成分の和
+   */
+  public double sum(boolean compensated) {
+    double[] partials =
+        this.reduceRowBlocks(
+            compensated
+                ? (from, to) -> {
+                  double sum = 0;
+                  double compensation = 0;
+                  for (int i = from; i < to; i++) {
+                    for (double entry : this.matrix[i]) {
+                      final double t = sum + entry;
+                      compensation +=
+                          (Math.abs(sum) >= Math.abs(entry))
+                              ? (sum - t) + entry
+                              : (entry - t) + sum;
+                      sum = t;
+                    }
+                  }
+                  return sum + compensation;
+                }
+                : (from, to) -> {
+                  double sum = 0;
+                  for (int i = from; i < to; i++) {
+                    for (double entry : this.matrix[i]) {
+                      sum += entry;
+                    }
+                  }
+                  return sum;
+                });
+    return sum(partials, compensated);
+  }
+
+  /**
+   * この行列の成分の最小値を返します。ただし，成分にNaNが含まれる場合はNaNを返します。
+   *
+   * @return 成分の最小値
+   */
+  public double min() {
+    double[] partials =
+        this.reduceRowBlocks(
+            (from, to) -> {
+              double min = Double.POSITIVE_INFINITY;
+              for (int i = from; i < to; i++) {
+                for (double entry : this.matrix[i]) {
+                  min = Math.min(min, entry);
+                }
+              }
+              return min;
+            });
+    double min = Double.POSITIVE_INFINITY;
+    for (double partial : partials) {
+      min = Math.min(min, partial);
+    }
+    return min;
+  }
+
+  /**
+   * この行列の成分の最大値を返します。ただし，成分にNaNが含まれる場合はNaNを返します。
+   *
+   * @return 成分の最大値
+   */
+  public double max() {
+    double[] partials =
+        this.reduceRowBlocks(
+            (from, to) -> {
+              double max = Double.NEGATIVE_INFINITY;
+              for (int i = from; i < to; i++) {
+                for (double entry : this.matrix[i]) {
+                  max = Math.max(max, entry);
+                }
+              }
+              return max;
+            });
+    double max = Double.NEGATIVE_INFINITY;
+    for (double partial : partials) {
+      max = Math.max(max, partial);
+    }
+    return max;
+  }
+
+  /**
+   * 各行の成分の和を並べた列ベクトルを返します。
+   *
+   * @return 各行の成分の和を並べた列ベクトル
+   */
+  public DoubleMatrix rowSums() {
+    return createColumnVector(this.rowSums(false));
+  }
+
+  /**
+   * 各列の成分の和を並べた行ベクトルを返します。
+   *
+   * @return 各列の成分の和を並べた行ベクトル
+   */
+  public DoubleMatrix columnSums() {
+    return createRowVector(this.columnSums(false));
+  }
+
+  /**
+   * 各行の成分の平均を並べた列ベクトルを返します。
+   *
+   * @return 各行の成分の平均を並べた列ベクトル
+   */
+  public DoubleMatrix rowMeans() {
+    double[] sums = this.rowSums(false);
+    for (int i = 0; i < sums.length; i++) {
+      sums[i] /= this.columns;
+    }
+    return createColumnVector(sums);
+  }
+
+  /**
+   * 各列の成分の平均を並べた行ベクトルを返します。
+   *
+   * @return 各列の成分の平均を並べた行ベクトル
+   */
+  public DoubleMatrix columnMeans() {
+    double[] sums = this.columnSums(false);
+    for (int j = 0; j < sums.length; j++) {
+      sums[j] /= this.rows;
+    }
+    return createRowVector(sums);
+  }
+
+  /**
+   * 各行の成分(absoluteがtrueなら成分の絶対値)の和を求めます。<br>
+   * 成分数が閾値以上なら，行単位で並列に計算します。
+   *
+   * @param absolute trueなら成分の絶対値の和を求めます。
+   * @return 各行の和を並べた配列
+   */
+  private double[] rowSums(boolean absolute) {
+    double[] sums = new double[this.rows];
+    this.forEachRowIndex(
+        i -> {
+          double sum = 0;
+          for (double entry : this.matrix[i]) {
+            sum += absolute ? Math.abs(entry) : entry;
+          }
+          sums[i] = sum;
+        });
+    return sums;
+  }
+
+  /**
+   * 各列の成分(absoluteがtrueなら成分の絶対値)の和を求めます。<br>
+   * 行を順に走査して加算するため，列方向へのアクセスは発生しません。
+   * 成分数が閾値以上なら，列を分割して並列に計算します(各列の加算の順序は変わりません)。
+   *
+   * @param absolute trueなら成分の絶対値の和を求めます。
+   * @return 各列の和を並べた配列
+   */
+  private double[] columnSums(boolean absolute) {
+    final double[][] matrix = this.storage();
+    double[] sums = new double[this.columns];
+    IntStream chunks =
+        IntStream.range(0, (this.columns + PARALLEL_COLUMN_CHUNK - 1) / PARALLEL_COLUMN_CHUNK);
+    if (this.size >= PARALLEL_THRESHOLD && this.columns > PARALLEL_COLUMN_CHUNK) {
+      chunks = chunks.parallel();
+    }
+    chunks.forEach(
+        c -> {
+          final int from = c * PARALLEL_COLUMN_CHUNK;
+          final int to = Math.min(from + PARALLEL_COLUMN_CHUNK, this.columns);
+          for (double[] row : matrix) {
+            for (int j = from; j < to; j++) {
+              sums[j] += absolute ? Math.abs(row[j]) : row[j];
+            }
+          }
+        });
+    return sums;
+  }
+
+  /**
+   * 行番号の範囲[from, to)の成分を集計する関数を表すインタフェースです。
+   */
+  @FunctionalInterface
+  private interface RowRangeReducer {
+
+    /**
+     * 行番号の範囲[from, to)の成分を集計します。
+     *
+     * @param from 範囲の先頭の行番号(この値を含む)
+     * @param to 範囲の末尾の行番号(この値を含まない)
+     * @return 集計結果
+     */
+    double reduce(int from, int to);
+  }
+
+  /**
+   * 行を連続した行番号のブロックに分け，ブロックごとにreducerで集計した結果を，ブロックの順に並べて返します。<br>
+   * 1つのブロックの成分数はおよそREDUCTION_BLOCK_ENTRIESで，ブロックの分け方は行列の型だけで決まります。
+   * 成分数が閾値以上なら，ブロック単位で並列に計算します。
+   *
+   * @param reducer 集計する関数
+   * @return ブロックごとの集計結果
+   */
+  private double[] reduceRowBlocks(RowRangeReducer reducer) {
+    this.storage();
+    final int blockRows = Math.max(1, REDUCTION_BLOCK_ENTRIES / this.columns);
+    final int blocks = (this.rows + blockRows - 1) / blockRows;
+    double[] partials = new double[blocks];
+    IntStream range = IntStream.range(0, blocks);
+    if (this.size >= PARALLEL_THRESHOLD) {
+      range = range.parallel();
+    }
+    range.forEach(
+        b -> partials[b] = reducer.reduce(b * blockRows, Math.min((b + 1) * blockRows, this.rows)));
+    return partials;
+  }
+
+  /**
+   * 行番号ごとにactionを実行します。成分数が閾値以上なら，行単位で並列に実行します。
+   *
+   * @param action 行番号を受け取る処理
+   */
+  private void forEachRowIndex(IntConsumer action) {
+    this.storage();
+    if (this.size >= PARALLEL_THRESHOLD) {
+      IntStream.range(0, this.rows).parallel().forEach(action);
+    } else {
+      for (int i = 0; i < this.rows; i++) {
+        action.accept(i);
+      }
+    }
+  }
+
+  /**
+   * 配列の値を先頭から順に加算した結果を返します。compensatedがtrueなら補償付きの加算を行います。
+   *
+   * @param values 加算する値
+   * @param compensated trueなら補償付きの加算を行います。
+   * @return 和
+   */
+  private static double sum(double[] values, boolean compensated) {
+    double sum = 0;
+    double compensation = 0;
+    for (double value : values) {
+      final double t = sum + value;
+      if (compensated) {
+        compensation += (Math.abs(sum) >= Math.abs(value)) ? (sum - t) + value : (value - t) + sum;
+      }
+      sum = t;
+    }
+    return sum + compensation;
+  }
+
+  /**
+   * この行列の現在の変更回数に対応するキャッシュを返します。<br>
+   * 前回のキャッシュの生成後にこの行列が変更されている場合は，古いキャッシュを破棄して新しいキャッシュを生成します。
+   *
+   * @return キャッシュ
+   */
+  private Derived derived() {
+    if (this.aliased) {
+      // 呼び出し側が配列に直接書き込んでも変更回数は変わらないため，結果をキャッシュしない
+      return new Derived(this.version);
+    }
+    Derived derived = this.derived;
+    if (derived == null || derived.version != this.version) {
+      derived = new Derived(this.version);
+      this.derived = derived;
+    }
+    return derived;
+  }
+
+  /** この行列の成分が変更されたことを記録し，キャッシュを無効にします。 */
+  private void modified() {
+    this.version++;
+    this.derived = null;
+  }
+
+  /**
+   * この行列の文字列表現を返します。<br>
+   * <br>
+   * 実行例
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.createZeroMatrix(3, 4);
+   * System.out.print(a);
+   * }</pre>
+   *
+   * 実行結果
+   *
+   * <pre>{@code
+   * 0.0 0.0 0.0 0.0
+   * 0.0 0.0 0.0 0.0
+   * 0.0 0.0 0.0 0.0
+   * }</pre>
+   *
+   * @return この行列の文字列表現
+   * @see #createZeroMatrix(int, int)
+   */
+  @Override
+  public String toString() {
+    return this.toString(DEFAULT_DELIM, DoubleFormatter.shortest());
+  }
+
+  /**
+   * この行列の文字列表現を指定された区切り文字を使用して生成し，それを返します。<br>
+   * <br>
+   * 実行例
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.createZeroMatrix(3, 4);
+   * System.out.print(a.toString("|"));
+   * }</pre>
+   *
+   * 実行結果
+   *
+   * <pre>{@code
+   * 0.0|0.0|0.0|0.0
+   * 0.0|0.0|0.0|0.0
+   * 0.0|0.0|0.0|0.0
+   * }</pre>
+   *
+   * @param delim 各要素間の区切り文字
+   * @return この行列の文字列表現
+   */
+  public String toString(String delim) {
+    return this.toString(delim, DoubleFormatter.shortest());
+  }
+
+  /**
+   * この行列の文字列表現を指定された区切り文字と変換形式を使用して生成し，それを返します。<br>
+   * <br>
+   * 実行例
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 0.5, -2, 1.0 / 3);
+   * System.out.print(a.toString(",", DoubleFormatter.fixed(2)));
+   * }</pre>
+   *
+   * 実行結果
+   *
+   * <pre>{@code
+   * 1.00,0.50
+   * -2.00,0.33
+   * }</pre>
+   *
+   * @param delim 各要素間の区切り文字
+   * @param formatter 各成分を文字列に変換する形式
+   * @return この行列の文字列表現
+   * @throws IllegalArgumentException 区切り文字が不正な場合
+   * @see DoubleFormatter
+   */
+  public String toString(String delim, DoubleFormatter formatter) {
+    checkDelimiter(delim);
+
+    // 各成分は多くの場合20文字未満で表現されるため，あらかじめ容量を確保しておく
+    StringBuilder result =
+        new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, 20L * this.size));
+    final double[][] matrix = this.storage();
+    for (int i = 0; i < this.rows; i++) {
+      final double[] row = matrix[i];
+      formatter.appendTo(result, row[0]);
+      for (int j = 1; j < this.columns; j++) {
+        result.append(delim);
+        formatter.appendTo(result, row[j]);
+      }
+      if (i < this.rows - 1) {
+        result.append(System.lineSeparator());
+      }
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * 区切り文字が数値の表現と区別できるかどうか検証します。
+   *
+   * @param delim 区切り文字
+   * @throws IllegalArgumentException 区切り文字が空文字列の場合，または'.'や数字を含む場合
+   */
+  private static void checkDelimiter(String delim) {
+    if (delim.isEmpty() || delim.contains(".") || delim.matches(".*\\d.*")) {
+      throw (new IllegalArgumentException("区切り文字が不正です: " + delim));
+    }
+  }
+
+  /**
+   * 行列の(i, j)成分を取得します。
+   *
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public double get(int i, int j) {
+    if (this.columnMap == null) {
+      return this.matrix[i][j];
+    }
+    // 他のスレッドが並べ替えを反映している途中の配列を読まないように，ロックを取得して読み取る
+    synchronized (this) {
+      final int[] map = this.columnMap;
+      return this.matrix[i][(map == null) ? j : map[j]];
+    }
+  }
+
+  /**
+   * 行列の全ての成分を，行優先の順序で並べたDoubleStreamを返します。<br>
+   * 並列ストリームとして使用した場合は，できるだけ行の境界で分割するため，各タスクは連続した行の範囲を担当します。
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+   * a.entries().sum(); // 10.0
+   * a.entries().parallel().map(Math::abs).max(); // OptionalDouble[4.0]
+   * }</pre>
+   *
+   * ストリームは終端操作の実行時に行列の成分を読み込むため，終端操作が完了するまで行列を変更しないでください。
+   *
+   * @return 成分のDoubleStream
+   */
+  public DoubleStream entries() {
+    return StreamSupport.doubleStream(
+        new EntrySpliterator(this.storage(), this.columns, 0, this.size), false);
+  }
+
+  /**
+   * 行列の各行をコピーしたdouble型配列を，行番号の順に並べたStreamを返します。<br>
+   * 並列ストリームとして使用した場合は，行番号の範囲で分割します。
+   *
+   * @return 各行の成分をコピーした配列のStream
+   */
+  public Stream<double[]> rowArrays() {
+    final double[][] matrix = this.storage();
+    return IntStream.range(0, this.rows).mapToObj(i -> matrix[i].clone());
+  }
+
+  /**
+   * 行列の第i行の成分を，列番号の順に並べたDoubleStreamを返します。
+   *
+   * @param i 行番号
+   * @return 第i行の成分のDoubleStream
+   * @throws ArrayIndexOutOfBoundsException iの値が不正な添え字の場合
+   */
+  public DoubleStream row(int i) {
+    return Arrays.stream(this.storage()[i]);
+  }
+
+  /**
+   * 行列の第j列の成分を，行番号の順に並べたDoubleStreamを返します。<br>
+   * 並列ストリームとして使用した場合は，行番号の範囲で分割します。
+   *
+   * @param j 列番号
+   * @return 第j列の成分のDoubleStream
+   * @throws ArrayIndexOutOfBoundsException jの値が不正な添え字の場合
+   */
+  public DoubleStream column(int j) {
+    if (j < 0 || j >= this.columns) {
+      throw (new ArrayIndexOutOfBoundsException(
+          String.format("列番号が範囲外です: %d (列数: %d)", j, this.columns)));
+    }
+    final double[][] matrix = this.storage();
+    return IntStream.range(0, this.rows).mapToDouble(i -> matrix[i][j]);
+  }
+
+  /**
+   * この行列が成分を保持しているdouble型2次元配列への参照を，コピーせずに返します。<br>
+   * 返された配列と行列は同じ成分を参照するため，配列を変更すると行列に，行列を変更すると配列に反映されます。
+   * 列の並べ替えが未反映の場合や，他の行列と配列を共有している場合は，配列を返す前に反映と共有の解消を行います。<br>
+   * 配列を渡した後は，この行列をfrom(DoubleMatrix)やsnapshot()でコピーする場合に，配列を共有せずに成分をコピーします。
+   * また，wrap(double[][])で生成した行列と同様に，計算結果のキャッシュと列の並べ替えの保留を行わなくなります。
+   *
+   * @return 成分を保持するdouble型2次元配列
+   * @see #wrap(double[][])
+   */
+  public double[][] unwrap() {
+    final double[][] matrix = this.writableStorage();
+    this.aliased = true;
+    this.derived = null;
+    return matrix;
+  }
+
+  /**
+   * バッファの現在位置から，この行列の成分を行優先で書き込みます。バッファの位置は書き込んだ成分の数だけ進みます。<br>
+   * 成分は1行ずつDoubleBuffer.put(double[])でまとめて書き込み，途中で作業用の配列は確保しません。
+   *
+   * @param buffer 成分を書き込むバッファ
+   * @throws BufferOverflowException バッファの残りがこの行列のサイズより少ない場合
+   * @throws java.nio.ReadOnlyBufferException バッファが読み取り専用の場合
+   * @see #from(DoubleBuffer, int, int)
+   */
+  public void writeTo(DoubleBuffer buffer) {
+    if (buffer.remaining() < this.size) {
+      throw (new BufferOverflowException());
+    }
+    for (double[] row : this.storage()) {
+      buffer.put(row);
+    }
+  }
+
+  /**
+   * この行列の成分を行優先で並べた，ネイティブのバイト順の直接バッファを返します。<br>
+   * 直接バッファはJavaのヒープの外に確保されるため，チャネルへの書き込みやネイティブコードへの受け渡しで再度コピーされません。
+   * 返されるバッファの位置は0，リミットはsize() * Double.BYTESです。
+   *
+   * <pre>{@code
+   * channel.write(a.toByteBuffer()); // ソケットなどにそのまま書き込む
+   * }</pre>
+   *
+   * @return 成分を格納した直接バッファ
+   * @throws ArithmeticException 成分の大きさの合計がintの範囲を超える場合
+   * @see #from(DoubleBuffer, int, int)
+   */
+  public ByteBuffer toByteBuffer() {
+    ByteBuffer result = ByteBuffer.allocateDirect(Math.multiplyExact(this.size, Double.BYTES));
+    result.order(ByteOrder.nativeOrder());
+    this.writeTo(result.asDoubleBuffer());
+    return result;
+  }
+
+  /**
+   * 行優先で並べた成分の範囲[origin, fence)を走査するSpliteratorです。<br>
+   * 分割する際は，範囲が複数の行にまたがる場合は中央に最も近い行の境界で，そうでない場合は中央で分割します。
+   */
+  private static final class EntrySpliterator implements Spliterator.OfDouble {
+
+    /** 成分の配列です。 */
+    private final double[][] matrix;
+
+    /** 行列の列数です。 */
+    private final int columns;
+
+    /** 次に走査する成分の行優先の通し番号です。 */
+    private int origin;
+
+    /** 走査する範囲の末尾の通し番号です(この値を含みません)。 */
+    private final int fence;
+
+    /**
+     * Spliteratorを生成します。
+     *
+     * @param matrix 成分の配列
+     * @param columns 行列の列数
+     * @param origin 範囲の先頭の通し番号(この値を含む)
+     * @param fence 範囲の末尾の通し番号(この値を含まない)
+     */
+    EntrySpliterator(double[][] matrix, int columns, int origin, int fence) {
+      this.matrix = matrix;
+      this.columns = columns;
+      this.origin = origin;
+      this.fence = fence;
+    }
+
+    @Override
+    public Spliterator.OfDouble trySplit() {
+      final int remaining = this.fence - this.origin;
+      if (remaining < 2) {
+        return null;
+      }
+
+      int middle = this.origin + remaining / 2;
+      final int firstRow = this.origin / this.columns;
+      final int lastRow = (this.fence - 1) / this.columns;
+      if (firstRow < lastRow) {
+        // 範囲内の行の境界のうち，中央に最も近いもので分割する
+        final int row = (middle + this.columns / 2) / this.columns;
+        middle = Math.min(Math.max(row, firstRow + 1), lastRow) * this.columns;
+      }
+
+      EntrySpliterator prefix =
+          new EntrySpliterator(this.matrix, this.columns, this.origin, middle);
+      this.origin = middle;
+      return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(DoubleConsumer action) {
+      if (this.origin >= this.fence) {
+        return false;
+      }
+      action.accept(this.matrix[this.origin / this.columns][this.origin % this.columns]);
+      this.origin++;
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(DoubleConsumer action) {
+      int i = this.origin / this.columns;
+      int j = this.origin % this.columns;
+      for (int k = this.origin; k < this.fence; i++, j = 0) {
+        final double[] row = this.matrix[i];
+        final int end = Math.min(this.columns, j + (this.fence - k));
+        for (; j < end; j++, k++) {
+          action.accept(row[j]);
+        }
+      }
+      this.origin = this.fence;
+    }
+
+    @Override
+    public long estimateSize() {
+      return (this.fence - this.origin);
+    }
+
+    @Override
+    public int characteristics() {
+      return (Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL);
+    }
+  }
+
+  /**
+   * 行列の(i, j)成分を指定された値に置き換えます。
+   *
+   * @param i i
+   * @param j j
+   * @param entry 格納される値
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public DoubleMatrix set(int i, int j, double entry) {
+    final int[] map = this.columnMap;
+    this.writableRow(i)[(map == null) ? j : map[j]] = entry;
+    this.modified();
+    return this;
+  }
+
+  /**
+   * 行の入れ替えを行います。ただし，i1 == i2なら何も行いません。<br>
+   * なお，i1 == i2 でも，i1またはi2の値が行列の添え字の範囲を逸脱している場合は例外をスローします。
+   *
+   * @param i1 任意の行番号
+   * @param i2 任意の行番号
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException i1またはi2の値が不正な添え字の場合
+   */
+  public DoubleMatrix swapRows(int i1, int i2) {
+    // 引数が同じなら交換処理を行う必要がないので何もせずreturnする
+    if (i1 == i2) {
+      // ただし，引数が配列の添え字範囲を逸脱していない場合に限る
+      // 逸脱している場合はそのまま交換処理を実行させ，例外を発生させる
+      if ((0 <= i1 && i1 < this.rows) && (0 <= i2 && i2 < this.rows)) {
+        return this;
+      }
+    }
+
+    final double[][] matrix = this.writableRowReferences();
+    double[] tmp = matrix[i1];
+    matrix[i1] = matrix[i2];
+    matrix[i2] = tmp;
+    if (this.sharedRows != null) {
+      boolean flag = this.sharedRows[i1];
+      this.sharedRows[i1] = this.sharedRows[i2];
+      this.sharedRows[i2] = flag;
+    }
+    this.modified();
+
+    return this;
+  }
+
+  /**
+   * 列の入れ替えを行います。ただし，j1 == j2なら何も行いません。<br>
+   * なお，j1 == j2 でも，j1またはj2の値が行列の添え字の範囲を逸脱している場合は例外をスローします。<br>
+   * 列の対応だけを入れ替えるため，計算量は行数によりません。
+   *
+   * @param j1 任意の列番号
+   * @param j2 任意の列番号
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException j1またはj2の値が不正な添え字の場合
+   */
+  public DoubleMatrix swapColumns(int j1, int j2) {
+    // 引数が同じなら交換処理を行う必要がないので何もせずreturnする
+    if (j1 == j2) {
+      // ただし，引数が配列の添え字範囲を逸脱していない場合に限る
+      // 逸脱している場合はそのまま交換処理を実行させ，例外を発生させる
+      if ((0 <= j1 && j1 < this.columns) && (0 <= j2 && j2 < this.columns)) {
+        return this;
+      }
+    }
+
+    // 配列は変更せず，列の対応だけを入れ替える(成分は次にstorage()を呼び出した時点で並べ替える)
+    int[] map = this.columnMap();
+    int tmp = map[j1];
+    map[j1] = map[j2];
+    map[j2] = tmp;
+    this.modified();
+    if (this.aliased) {
+      // 呼び出し側が参照している配列を，行列と同じ並びに保つ
+      this.storage();
+    }
+
+    return this;
+  }
+
+  /**
+   * 行を並べ替えます。並べ替えた後の第i行は，並べ替える前の第permutation[i]行です。<br>
+   * 各行の配列への参照を並べ替えるだけなので，成分はコピーしません。
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.of(3, 1, 10, 20, 30);
+   * a.permuteRows(2, 0, 1); // (30, 10, 20)
+   * }</pre>
+   *
+   * @param permutation 0からrows() - 1までの整数を1回ずつ並べた配列
+   * @return this
+   * @throws IllegalArgumentException permutationが行番号の置換でない場合
+   */
+  public DoubleMatrix permuteRows(int... permutation) {
+    checkPermutation(permutation, this.rows);
+
+    final double[][] matrix = this.writableRowReferences();
+    double[][] rows = matrix.clone();
     for (int i = 0; i < this.rows; i++) {
-      double tmp = this.matrix[i][j1];
-      this.matrix[i][j1] = this.matrix[i][j2];
-      this.matrix[i][j2] = tmp;
+      matrix[i] = rows[permutation[i]];
+    }
+    if (this.sharedRows != null) {
+      boolean[] flags = this.sharedRows.clone();
+      for (int i = 0; i < this.rows; i++) {
+        this.sharedRows[i] = flags[permutation[i]];
+      }
+    }
+    this.modified();
+
+    return this;
+  }
+
+  /**
+   * 列を並べ替えます。並べ替えた後の第j列は，並べ替える前の第permutation[j]列です。<br>
+   * 列の対応だけを更新するため，計算量は列数に比例します。
+   * 成分は，次に配列全体を走査する演算を実行する時点で，1行ずつまとめて並べ替えます。
+   *
+   * @param permutation 0からcolumns() - 1までの整数を1回ずつ並べた配列
+   * @return this
+   * @throws IllegalArgumentException permutationが列番号の置換でない場合
+   */
+  public DoubleMatrix permuteColumns(int... permutation) {
+    checkPermutation(permutation, this.columns);
+
+    int[] map = this.columnMap();
+    int[] previous = map.clone();
+    for (int j = 0; j < this.columns; j++) {
+      map[j] = previous[permutation[j]];
+    }
+    this.modified();
+    if (this.aliased) {
+      // 呼び出し側が参照している配列を，行列と同じ並びに保つ
+      this.storage();
     }
 
     return this;
   }
 
+  /**
+   * 列の対応を表す配列を返します。並べ替えがない場合は，恒等置換を表す配列を生成します。
+   *
+   * @return 列の対応を表す配列
+   */
+  private int[] columnMap() {
+    if (this.columnMap == null) {
+      this.columnMap = IntStream.range(0, this.columns).toArray();
+    }
+    return this.columnMap;
+  }
+
+  /**
+   * 配列が0からn - 1までの整数を1回ずつ並べた置換かどうか検証します。
+   *
+   * @param permutation 検証する配列
+   * @param n 置換の長さ
+   * @throws IllegalArgumentException permutationが長さnの置換でない場合
+   */
+  private static void checkPermutation(int[] permutation, int n) {
+    if (permutation.length != n) {
+      throw (new IllegalArgumentException(
+          String.format("置換の長さが不正です: %d != %d", permutation.length, n)));
+    }
+    boolean[] seen = new boolean[n];
+    for (int k : permutation) {
+      if (k < 0 || k >= n || seen[k]) {
+        throw (new IllegalArgumentException("置換ではありません: " + Arrays.toString(permutation)));
+      }
+      seen[k] = true;
+    }
+  }
+
   /**
    * this + thatを計算し，結果の行列を返します。<br>
    * ただし，thisとthatの型が異なり，計算を実行できない場合は，例外をスローします。
@@ -657,12 +1875,14 @@ public class DoubleMatrix {
               this.rows, this.columns, that.rows, that.columns)));
     }
 
-    double[][] result = new double[this.rows][this.columns];
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("plus");
+    double[][] result = DoubleMatrixWorkspace.allocate(this.rows, this.columns);
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
         result[i][j] = this.get(i, j) + that.get(i, j);
       }
     }
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, this.bytes(), this.size);
 
     return (new DoubleMatrix(result, false, false));
   }
@@ -683,11 +1903,15 @@ public class DoubleMatrix {
               this.rows, this.columns, that.rows, that.columns)));
     }
 
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("add");
+    final double[][] matrix = this.writableStorage();
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
-        this.matrix[i][j] += that.get(i, j);
+        matrix[i][j] += that.get(i, j);
       }
     }
+    this.modified();
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, 0, this.size);
 
     return this;
   }
@@ -708,12 +1932,14 @@ public class DoubleMatrix {
               this.rows, this.columns, that.rows, that.columns)));
     }
 
-    double[][] result = new double[this.rows][this.columns];
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("minus");
+    double[][] result = DoubleMatrixWorkspace.allocate(this.rows, this.columns);
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
         result[i][j] = this.get(i, j) - that.get(i, j);
       }
     }
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, this.bytes(), this.size);
 
     return (new DoubleMatrix(result, false, false));
   }
@@ -734,11 +1960,276 @@ public class DoubleMatrix {
               this.rows, this.columns, that.rows, that.columns)));
     }
 
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("sub");
+    final double[][] matrix = this.writableStorage();
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
-        this.matrix[i][j] -= that.get(i, j);
+        matrix[i][j] -= that.get(i, j);
       }
     }
+    this.modified();
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, 0, this.size);
+
+    return this;
+  }
+
+  /**
+   * この行列の各成分に関数fを適用した行列を返します。<br>
+   * 成分数が閾値以上なら，行単位で並列に計算するため，fは副作用のない関数である必要があります。
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 4, 9, 16);
+   * DoubleMatrix b = a.map(Math::sqrt); // [[1, 2], [3, 4]]
+   * }</pre>
+   *
+   * @param f 各成分に適用する関数
+   * @return 各成分にfを適用した行列
+   */
+  public DoubleMatrix map(DoubleUnaryOperator f) {
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("map");
+    double[][] result = DoubleMatrixWorkspace.allocate(this.rows, this.columns);
+    this.forEachRowIndex(
+        i -> {
+          final double[] row = this.matrix[i];
+          final double[] target = result[i];
+          for (int j = 0; j < row.length; j++) {
+            target[j] = f.applyAsDouble(row[j]);
+          }
+        });
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, this.bytes(), this.size);
+
+    return (new DoubleMatrix(result, false, false));
+  }
+
+  /**
+   * この行列の各成分を，関数fを適用した値に置き換え，thisを返します。<br>
+   * 成分数が閾値以上なら，行単位で並列に計算するため，fは副作用のない関数である必要があります。
+   *
+   * @param f 各成分に適用する関数
+   * @return this
+   */
+  public DoubleMatrix apply(DoubleUnaryOperator f) {
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("apply");
+    this.writableStorage();
+    this.forEachRowIndex(
+        i -> {
+          final double[] row = this.matrix[i];
+          for (int j = 0; j < row.length; j++) {
+            row[j] = f.applyAsDouble(row[j]);
+          }
+        });
+    this.modified();
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, 0, this.size);
+    return this;
+  }
+
+  /**
+   * thisとthatの同じ位置の成分に関数fを適用した行列を返します。<br>
+   * ただし，thisとthatの型が異なり，計算を実行できない場合は，例外をスローします。<br>
+   * 成分数が閾値以上なら，行単位で並列に計算するため，fは副作用のない関数である必要があります。
+   *
+   * <pre>{@code
+   * DoubleMatrix c = a.zip(b, Math::max); // 成分ごとの最大値
+   * }</pre>
+   *
+   * @param that もう一方の行列
+   * @param f 同じ位置の成分(thisの成分，thatの成分)に適用する関数
+   * @return 各成分にfを適用した行列
+   * @throws ArithmeticException thisとthatの型が異なり，計算を実行できない場合
+   */
+  public DoubleMatrix zip(DoubleMatrix that, DoubleBinaryOperator f) {
+    if (!this.isTypeEqual(that)) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows, that.columns)));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("zip");
+    final double[][] other = that.storage();
+    double[][] result = DoubleMatrixWorkspace.allocate(this.rows, this.columns);
+    this.forEachRowIndex(
+        i -> {
+          final double[] x = this.matrix[i];
+          final double[] y = other[i];
+          final double[] target = result[i];
+          for (int j = 0; j < x.length; j++) {
+            target[j] = f.applyAsDouble(x[j], y[j]);
+          }
+        });
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, this.bytes(), this.size);
+
+    return (new DoubleMatrix(result, false, false));
+  }
+  /**
+   * thisとthatのアダマール積(同じ位置の成分どうしの積)を計算し，結果の行列を返します。<br>
+   * ただし，thisとthatの型が異なり，計算を実行できない場合は，例外をスローします。
+   *
+   * @param that この行列に成分ごとに乗算する行列
+   * @return thisとthatのアダマール積
+   * @throws ArithmeticException thisとthatの型が異なり，計算を実行できない場合
+   */
+  public DoubleMatrix hadamard(DoubleMatrix that) {
+    if (!this.isTypeEqual(that)) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows, that.columns)));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("hadamard");
+    final double[][] other = that.storage();
+    double[][] result = DoubleMatrixWorkspace.allocate(this.rows, this.columns);
+    this.forEachRowIndex(
+        i -> {
+          final double[] x = this.matrix[i];
+          final double[] y = other[i];
+          final double[] target = result[i];
+          for (int j = 0; j < x.length; j++) {
+            target[j] = x[j] * y[j];
+          }
+        });
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, this.bytes(), this.size);
+
+    return (new DoubleMatrix(result, false, false));
+  }
+
+  /**
+   * thisの各成分に，thatの同じ位置の成分を乗算し，thisを返します。<br>
+   * ただし，thisとthatの型が異なり，計算を実行できない場合は，例外をスローします。
+   *
+   * @param that この行列に成分ごとに乗算する行列
+   * @return this
+   * @throws ArithmeticException thisとthatの型が異なり，計算を実行できない場合
+   */
+  public DoubleMatrix hadamardInPlace(DoubleMatrix that) {
+    if (!this.isTypeEqual(that)) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows, that.columns)));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("hadamardInPlace");
+    this.writableStorage();
+    final double[][] other = that.storage();
+    this.forEachRowIndex(
+        i -> {
+          final double[] x = this.matrix[i];
+          final double[] y = other[i];
+          for (int j = 0; j < x.length; j++) {
+            x[j] *= y[j];
+          }
+        });
+    this.modified();
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, 0, this.size);
+
+    return this;
+  }
+
+  /**
+   * thisとthatのクロネッカー積を計算し，結果の行列を返します。<br>
+   * thisがm * n，thatがp * qの行列の場合，結果は(m * p) * (n * q)の行列で，
+   * その(i * p + r, j * q + s)成分はthisの(i, j)成分とthatの(r, s)成分の積です。<br>
+   * 結果の行列は大きくなるため，ベクトルとの積だけが必要な場合はKroneckerProductの使用を検討してください。
+   *
+   * @param that 右側の行列
+   * @return thisとthatのクロネッカー積
+   * @throws IllegalArgumentException 結果の成分数が配列に格納できる大きさを超える場合
+   * @see KroneckerProduct
+   */
+  public DoubleMatrix kronecker(DoubleMatrix that) {
+    final long rows = (long) this.rows * that.rows;
+    final long columns = (long) this.columns * that.columns;
+    if (rows > Integer.MAX_VALUE || columns > Integer.MAX_VALUE - 8) {
+      throw (new IllegalArgumentException(
+          String.format("クロネッカー積の型が大きすぎます: (%d,%d)", rows, columns)));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("kronecker");
+    final double[][] a = this.storage();
+    final double[][] b = that.storage();
+    final int p = that.rows;
+    final int q = that.columns;
+    double[][] result = DoubleMatrixWorkspace.allocate((int) rows, (int) columns);
+    this.forEachRowIndex(
+        i -> {
+          final double[] ai = a[i];
+          for (int r = 0; r < p; r++) {
+            final double[] br = b[r];
+            final double[] target = result[i * p + r];
+            for (int j = 0; j < ai.length; j++) {
+              final double aij = ai[j];
+              final int offset = j * q;
+              for (int s = 0; s < q; s++) {
+                target[offset + s] = aij * br[s];
+              }
+            }
+          }
+        });
+    DoubleMatrixMetrics.end(
+        probe, (int) rows, (int) columns, 0, rows * columns * Double.BYTES, rows * columns);
+
+    return (new DoubleMatrix(result, false, false));
+  }
+
+  /**
+   * this += alpha * x * y^tを計算し，thisを返します(ランク1更新)。<br>
+   * xはthisの行数と同じ長さの列ベクトル，yはthisの列数と同じ長さの列ベクトルです。
+   * 各行にyの定数倍を加算するだけなので，計算量は成分数に比例し，作業用の配列も確保しません。
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.createIdentityMatrix(2);
+   * a.rank1Update(2, DoubleMatrix.createColumnVector(1, 2), DoubleMatrix.createColumnVector(3, 4));
+   * // a = [[7, 8], [12, 17]]
+   * }</pre>
+   *
+   * @param alpha 係数
+   * @param x 列ベクトル(長さはthisの行数)
+   * @param y 列ベクトル(長さはthisの列数)
+   * @return this
+   * @throws ArithmeticException xまたはyの型が不正で，計算を実行できない場合
+   * @see LUDecomposition#update(double, DoubleMatrix, DoubleMatrix)
+   * @see CholeskyDecomposition#update(DoubleMatrix)
+   * @see ShermanMorrisonInverse
+   */
+  public DoubleMatrix rank1Update(double alpha, DoubleMatrix x, DoubleMatrix y) {
+    if (x.rows != this.rows || x.columns != 1) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              x.rows, x.columns, this.rows, 1)));
+    }
+    if (y.rows != this.columns || y.columns != 1) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              y.rows, y.columns, this.columns, 1)));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("rank1Update");
+    final double[] u = new double[this.rows];
+    final double[] v = new double[this.columns];
+    for (int i = 0; i < u.length; i++) {
+      u[i] = alpha * x.get(i, 0);
+    }
+    for (int j = 0; j < v.length; j++) {
+      v[j] = y.get(j, 0);
+    }
+    this.writableStorage();
+    this.forEachRowIndex(
+        i -> {
+          final double ui = u[i];
+          if (ui == 0) {
+            return;
+          }
+          final double[] row = this.matrix[i];
+          for (int j = 0; j < row.length; j++) {
+            row[j] += ui * v[j];
+          }
+        });
+    this.modified();
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 1, 0, 2L * this.size);
 
     return this;
   }
@@ -750,12 +2241,14 @@ public class DoubleMatrix {
    * @return this * k
    */
   public DoubleMatrix times(double k) {
-    double[][] result = new double[this.rows][this.columns];
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("timesScalar");
+    double[][] result = DoubleMatrixWorkspace.allocate(this.rows, this.columns);
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
         result[i][j] = k * this.get(i, j);
       }
     }
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, this.bytes(), this.size);
 
     return (new DoubleMatrix(result, false, false));
   }
@@ -774,14 +2267,357 @@ public class DoubleMatrix {
           String.format("列数と行数が異なるため，計算できません: %d != %d", this.columns, that.rows)));
     }
 
-    double[][] result = new double[this.rows][that.columns];
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("times");
+    double[][] result = DoubleMatrixWorkspace.allocate(this.rows, that.columns);
+
+    // thatが列ベクトルの場合と，thisが行ベクトルの場合は専用の計算を行う
+    if (that.columns == 1) {
+      double[] y = new double[this.rows];
+      gemv(this.storage(), that.toColumnArray(), y, false);
+      for (int i = 0; i < this.rows; i++) {
+        result[i][0] = y[i];
+      }
+    } else if (this.rows == 1) {
+      gevm(this.storage()[0], that.storage(), result[0], false);
+    } else {
+      gemm(this.storage(), that.storage(), result);
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.rows,
+        that.columns,
+        this.columns,
+        (long) this.rows * that.columns * Double.BYTES,
+        2L * this.rows * that.columns * this.columns);
+
+    return (new DoubleMatrix(result, false, false));
+  }
+
+  /**
+   * this * xを計算し，その結果を列ベクトルyに格納します。<br>
+   * accumulateがtrueの場合は，y += this * xを計算します。<br>
+   * 反復法の内側のループのように，同じ型のベクトルに繰り返し結果を書き込む場合に，結果の行列の生成を避けることができます。
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+   * DoubleMatrix x = DoubleMatrix.createColumnVector(1, 1);
+   * DoubleMatrix y = DoubleMatrix.createZeroMatrix(2, 1);
+   * a.multiplyInto(x, y, false); // y = (3, 7)
+   * a.multiplyInto(x, y, true); // y = (6, 14)
+   * }</pre>
+   *
+   * @param x この行列に右から乗算する列ベクトル
+   * @param y 結果を格納する列ベクトル
+   * @param accumulate trueならyに結果を加算し，falseならyを結果で上書きします。
+   * @return y
+   * @throws ArithmeticException xまたはyの型が不正で，計算を実行できない場合
+   */
+  public DoubleMatrix multiplyInto(DoubleMatrix x, DoubleMatrix y, boolean accumulate) {
+    if (x.columns != 1 || x.rows != this.columns) {
+      throw (new ArithmeticException(
+          String.format(
+              "列ベクトルの型が不正なため，計算できません: (%d,%d) != (%d,1)",
+              x.rows, x.columns, this.columns)));
+    }
+    if (y.columns != 1 || y.rows != this.rows) {
+      throw (new ArithmeticException(
+          String.format(
+              "結果を格納する列ベクトルの型が不正です: (%d,%d) != (%d,1)", y.rows, y.columns, this.rows)));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("multiplyInto");
+    double[] result = accumulate ? y.toColumnArray() : new double[this.rows];
+    gemv(this.storage(), x.toColumnArray(), result, accumulate);
+    final double[][] target = y.writableStorage();
     for (int i = 0; i < this.rows; i++) {
-      for (int j = 0; j < that.columns; j++) {
-        for (int k = 0; k < this.columns; k++) { // or (k < that.rows)
-          result[i][j] += this.get(i, k) * that.get(k, j);
-        }
+      target[i][0] = result[i];
+    }
+    y.modified();
+    DoubleMatrixMetrics.end(probe, this.rows, 1, this.columns, 0, 2L * this.size);
+
+    return y;
+  }
+
+  /**
+   * x * thisを計算し，その結果を行ベクトルyに格納します。<br>
+   * accumulateがtrueの場合は，y += x * thisを計算します。
+   *
+   * @param x この行列に左から乗算する行ベクトル
+   * @param y 結果を格納する行ベクトル
+   * @param accumulate trueならyに結果を加算し，falseならyを結果で上書きします。
+   * @return y
+   * @throws ArithmeticException xまたはyの型が不正で，計算を実行できない場合
+   * @see #multiplyInto(DoubleMatrix, DoubleMatrix, boolean)
+   */
+  public DoubleMatrix leftMultiplyInto(DoubleMatrix x, DoubleMatrix y, boolean accumulate) {
+    if (x.rows != 1 || x.columns != this.rows) {
+      throw (new ArithmeticException(
+          String.format(
+              "行ベクトルの型が不正なため，計算できません: (%d,%d) != (1,%d)", x.rows, x.columns, this.rows)));
+    }
+    if (y.rows != 1 || y.columns != this.columns) {
+      throw (new ArithmeticException(
+          String.format(
+              "結果を格納する行ベクトルの型が不正です: (%d,%d) != (1,%d)",
+              y.rows, y.columns, this.columns)));
+    }
+
+    // x と y が同じ配列を参照している場合に備えて，xの成分を退避してから計算する
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("leftMultiplyInto");
+    double[] xs = x.storage()[0].clone();
+    gevm(xs, this.storage(), y.writableStorage()[0], accumulate);
+    y.modified();
+    DoubleMatrixMetrics.end(probe, 1, this.columns, this.rows, 0, 2L * this.size);
+
+    return y;
+  }
+
+  /**
+   * 列ベクトルの成分を1次元配列にコピーして返します。
+   *
+   * @return 列ベクトルの成分を並べた配列
+   */
+  private double[] toColumnArray() {
+    double[] result = new double[this.rows];
+    for (int i = 0; i < this.rows; i++) {
+      result[i] = this.matrix[i][0];
+    }
+    return result;
+  }
+
+  /**
+   * 行列aとbの積を計算し，cに格納します(cの元の値は上書きします)。<br>
+   * cの各行を，aの第i行の成分とbの行の積の和として計算するため，bの列方向へのアクセスは発生しません。
+   * 各成分の積和は内側の次元の添え字の昇順に加算するため，結果は素朴な3重ループと一致します。<br>
+   * 演算量が閾値以上なら，行単位で並列に計算します。
+   *
+   * @param a 左側の行列
+   * @param b 右側の行列
+   * @param c 結果を格納する配列(a，bとは別の配列)
+   */
+  static void gemm(double[][] a, double[][] b, double[][] c) {
+    final int columns = c[0].length;
+    IntConsumer row =
+        i -> {
+          final double[] ai = a[i];
+          final double[] ci = c[i];
+          Arrays.fill(ci, 0);
+          for (int k = 0; k < ai.length; k++) {
+            final double aik = ai[k];
+            final double[] bk = b[k];
+            for (int j = 0; j < columns; j++) {
+              ci[j] += aik * bk[j];
+            }
+          }
+        };
+    if ((long) a.length * b.length * columns >= PARALLEL_THRESHOLD && a.length > 1) {
+      IntStream.range(0, a.length).parallel().forEach(row);
+    } else {
+      for (int i = 0; i < a.length; i++) {
+        row.accept(i);
+      }
+    }
+  }
+
+  /**
+   * 行列aと列ベクトルxの積を計算し，yに格納します(accumulateがtrueならyに加算します)。<br>
+   * 各行の計算は独立しているため，aの成分数が閾値以上なら行単位で並列に計算します。
+   *
+   * @param a 行列
+   * @param x 列ベクトルの成分
+   * @param y 結果を格納する配列
+   * @param accumulate trueならyに結果を加算します。
+   */
+  private static void gemv(double[][] a, double[] x, double[] y, boolean accumulate) {
+    if ((long) a.length * x.length >= PARALLEL_THRESHOLD) {
+      IntStream.range(0, a.length)
+          .parallel()
+          .forEach(i -> y[i] = dot(a[i], x, accumulate ? y[i] : 0));
+    } else {
+      for (int i = 0; i < a.length; i++) {
+        y[i] = dot(a[i], x, accumulate ? y[i] : 0);
+      }
+    }
+  }
+
+  /**
+   * 行ベクトルxと行列aの積を計算し，yに格納します(accumulateがtrueならyに加算します)。<br>
+   * aを行方向に走査しながらyを更新するため，aの列方向へのアクセスは発生しません。<br>
+   * aの成分数が閾値以上なら，列を分割して並列に計算します。
+   *
+   * @param x 行ベクトルの成分
+   * @param a 行列
+   * @param y 結果を格納する配列
+   * @param accumulate trueならyに結果を加算します。
+   */
+  private static void gevm(double[] x, double[][] a, double[] y, boolean accumulate) {
+    if (!accumulate) {
+      Arrays.fill(y, 0);
+    }
+
+    final int columns = y.length;
+    if ((long) a.length * columns >= PARALLEL_THRESHOLD && columns > PARALLEL_COLUMN_CHUNK) {
+      int chunks = (columns + PARALLEL_COLUMN_CHUNK - 1) / PARALLEL_COLUMN_CHUNK;
+      IntStream.range(0, chunks)
+          .parallel()
+          .forEach(
+              c -> {
+                int from = c * PARALLEL_COLUMN_CHUNK;
+                axpyRows(x, a, y, from, Math.min(from + PARALLEL_COLUMN_CHUNK, columns));
+              });
+    } else {
+      axpyRows(x, a, y, 0, columns);
+    }
+  }
+
+  /**
+   * y[from, to) += x[k] * a[k][from, to)をすべてのkについて計算します。
+   *
+   * @param x 行ベクトルの成分
+   * @param a 行列
+   * @param y 結果を格納する配列
+   * @param from 計算する列の範囲の先頭(この値を含む)
+   * @param to 計算する列の範囲の末尾(この値を含まない)
+   */
+  private static void axpyRows(double[] x, double[][] a, double[] y, int from, int to) {
+    for (int k = 0; k < a.length; k++) {
+      final double xk = x[k];
+      final double[] ak = a[k];
+      for (int j = from; j < to; j++) {
+        y[j] += xk * ak[j];
+      }
+    }
+  }
+
+  /**
+   * 配列aとxの内積にinitを加えた値を返します。
+   *
+   * @param a 配列
+   * @param x 配列
+   * @param init 初期値
+   * @return init + a・x
+   */
+  private static double dot(double[] a, double[] x, double init) {
+    double sum = init;
+    for (int k = 0; k < a.length; k++) {
+      sum += a[k] * x[k];
+    }
+    return sum;
+  }
+
+  /**
+   * thisを係数行列とする連立一次方程式this * X = bを解き，Xを返します。<br>
+   * 部分ピボット選択付きのLU分解を使用します。
+   * この行列が変更されていない間は，前回の分解結果を再利用します。
+   * 計測する浮動小数点演算の回数には，分解を実際に行った場合だけ分解の分を含めます。
+   *
+   * @param b 右辺の行列
+   * @return 解X
+   * @throws ArithmeticException thisが正方行列でない場合，thisが正則でない場合，またはbの行数がthisの次数と異なる場合
+   * @see LUDecomposition
+   */
+  public DoubleMatrix solve(DoubleMatrix b) {
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("solve");
+    final boolean factorize = this.derived().lu == null;
+    DoubleMatrix result = this.lu().solve(b);
+    final long n = this.rows;
+    final long factorization = factorize ? 2 * n * n * n / 3 : 0;
+    DoubleMatrixMetrics.end(
+        probe,
+        result.rows,
+        result.columns,
+        this.columns,
+        result.bytes() + this.bytes(),
+        factorization + 2 * n * n * b.columns);
+    return result;
+  }
+
+  /**
+   * thisのk乗を計算し，結果の行列を返します。k = 0の場合は単位行列を返します。<br>
+   * 指数を上位のビットから順に見て，2乗とthisとの積を繰り返す方法で計算するため，積の回数はlog2(k)の2倍以下です。
+   * thisの配列は読み取るだけなので，確保する配列はkによらず結果を含めて2個だけで，積の計算のたびに交互に使い回します。
+   *
+   * <pre>{@code
+   * DoubleMatrix f = DoubleMatrix.of(2, 2, 1, 1, 1, 0);
+   * f.pow(10); // [[89, 55], [55, 34]] (フィボナッチ数)
+   * }</pre>
+   *
+   * @param k 指数
+   * @return this^k
+   * @throws ArithmeticException thisが正方行列でない場合
+   * @throws IllegalArgumentException kが負の場合
+   */
+  public DoubleMatrix pow(int k) {
+    if (this.rows != this.columns) {
+      throw (new ArithmeticException(
+          String.format("正方行列ではないため，計算できません: (%d,%d)", this.rows, this.columns)));
+    }
+    if (k < 0) {
+      throw (new IllegalArgumentException("指数が負です: " + k));
+    }
+    if (k == 0) {
+      return createIdentityMatrix(this.rows);
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("pow");
+    final int n = this.rows;
+    // thisの配列は読み取るだけで書き込まない。結果と作業用の2個の配列を，積のたびに交互に使い回す
+    final double[][] a = this.storage();
+    double[][] result = a;
+    double[][] work = new double[n][n];
+    int products = 0;
+
+    // 指数を上位のビットから順に見て，結果を2乗し，ビットが1ならさらにthisを乗算する
+    for (int bit = Integer.highestOneBit(k) >>> 1; bit != 0; bit >>>= 1) {
+      gemm(result, result, work);
+      // 最初の2乗の後は，thisの配列の代わりに2個目の配列を確保する
+      double[][] tmp = (result == a) ? new double[n][n] : result;
+      result = work;
+      work = tmp;
+      products++;
+      if ((k & bit) != 0) {
+        gemm(result, a, work);
+        tmp = result;
+        result = work;
+        work = tmp;
+        products++;
       }
     }
+    if (result == a) {
+      // k = 1の場合は，thisのコピーを返す
+      result = work;
+      for (int i = 0; i < n; i++) {
+        System.arraycopy(a[i], 0, result[i], 0, n);
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe, n, n, n, ((k == 1) ? 1 : 2) * this.bytes(), 2L * n * n * n * products);
+
+    return (new DoubleMatrix(result, false, false));
+  }
+
+  /**
+   * thisの行列指数関数exp(this) = I + this + this^2 / 2! + ...を計算し，結果の行列を返します。<br>
+   * Higham(2005)のスケーリングと2乗の繰り返しによるPadé近似(次数3，5，7，9，13)を使用します。
+   * 1ノルムが小さい場合は低い次数で近似し，大きい場合は2^sで割ってから次数13で近似し，s回2乗します。
+   *
+   * <pre>{@code
+   * DoubleMatrix a = DoubleMatrix.of(2, 2, 0, 1, 0, 0);
+   * a.expm(); // [[1, 1], [0, 1]]
+   * }</pre>
+   *
+   * @return exp(this)(成分に無限大またはNaNが含まれる場合は，全ての成分がNaNの行列)
+   * @throws ArithmeticException thisが正方行列でない場合
+   */
+  public DoubleMatrix expm() {
+    if (this.rows != this.columns) {
+      throw (new ArithmeticException(
+          String.format("正方行列ではないため，計算できません: (%d,%d)", this.rows, this.columns)));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("expm");
+    double[][] result = MatrixExponential.expm(this.storage());
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, this.rows, this.bytes(), 0);
 
     return (new DoubleMatrix(result, false, false));
   }
@@ -793,11 +2629,15 @@ public class DoubleMatrix {
    * @return this
    */
   public DoubleMatrix mul(double k) {
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("mul");
+    final double[][] matrix = this.writableStorage();
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
-        this.matrix[i][j] *= k;
+        matrix[i][j] *= k;
       }
     }
+    this.modified();
+    DoubleMatrixMetrics.end(probe, this.rows, this.columns, 0, 0, this.size);
     return this;
   }
 
@@ -807,12 +2647,15 @@ public class DoubleMatrix {
    * @return t^this
    */
   public DoubleMatrix trs() {
-    double[][] result = new double[this.columns][this.rows];
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("trs");
+    final double[][] matrix = this.storage();
+    double[][] result = DoubleMatrixWorkspace.allocate(this.columns, this.rows);
     for (int i = 0; i < this.rows; i++) {
       for (int j = 0; j < this.columns; j++) {
-        result[j][i] = this.matrix[i][j];
+        result[j][i] = matrix[i][j];
       }
     }
+    DoubleMatrixMetrics.end(probe, this.columns, this.rows, 0, this.bytes(), 0);
 
     return (new DoubleMatrix(result, false, false));
   }
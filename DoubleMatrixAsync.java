@@ -0,0 +1,267 @@
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * DoubleMatrixの時間のかかる演算を非同期に実行し，CompletableFutureで結果を返すクラスです。<br>
+ * <br>
+ * ファイルの読み書きは入出力用のスレッドで実行します。
+ * 実行環境が仮想スレッドに対応している場合(Java 21以降)は，タスクごとに仮想スレッドを使用し，
+ * 対応していない場合は必要に応じて生成されるデーモンスレッドを使用します。<br>
+ * 行列の積や連立一次方程式の求解は，CPUのコア数と同じ個数のスレッドからなる計算用のスレッドプールで実行します。<br>
+ * <br>
+ * 返されたCompletableFutureをcancel(boolean)で取り消す(または他の方法で完了させる)と，
+ * 計算中の積はRow block(CANCEL_CHECK_ROWS行)ごとに，LU分解は一定の列数ごとに取り消しを確認し，計算を中止します。
+ * ファイルの読み書きは，開始する前に取り消された場合だけ中止します。
+ *
+ * <pre>{@code
+ * CompletableFuture<DoubleMatrix> c =
+ *     DoubleMatrixAsync.readFromFileAsync("a.dat")
+ *         .thenCompose(a -> DoubleMatrixAsync.timesAsync(a, a));
+ * c.orTimeout(10, TimeUnit.SECONDS); // 時間内に終わらなければ計算を中止する
+ * }</pre>
+ *
+ * @author mpp
+ */
+public final class DoubleMatrixAsync {
+
+  /** 積の計算中に取り消しを確認する間隔(行数)です。 */
+  static final int CANCEL_CHECK_ROWS = 32;
+
+  /** 計算用のスレッドプールです。 */
+  private static final ExecutorService COMPUTE =
+      Executors.newFixedThreadPool(
+          Runtime.getRuntime().availableProcessors(), daemonThreadFactory("DoubleMatrixAsync-compute"));
+
+  /** 入出力用のスレッドを生成するExecutorServiceです。 */
+  private static final ExecutorService IO;
+
+  /** 入出力用のスレッドが仮想スレッドならtrueです。 */
+  private static final boolean VIRTUAL_THREADS;
+
+  static {
+    ExecutorService io;
+    boolean virtual;
+    try {
+      // Java 21以降にだけ存在するメソッドのため，リフレクションで呼び出す
+      io =
+          (ExecutorService)
+              Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      virtual = true;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      io = Executors.newCachedThreadPool(daemonThreadFactory("DoubleMatrixAsync-io"));
+      virtual = false;
+    }
+    IO = io;
+    VIRTUAL_THREADS = virtual;
+  }
+
+  /** インスタンスを生成させないためのコンストラクタです。 */
+  private DoubleMatrixAsync() {}
+
+  /**
+   * 入出力に仮想スレッドを使用しているかどうかを返します。
+   *
+   * @return 仮想スレッドを使用している場合はtrue
+   */
+  public static boolean isUsingVirtualThreads() {
+    return VIRTUAL_THREADS;
+  }
+
+  /**
+   * a * bを計算用のスレッドプールで計算します。結果はa.times(b)と同じです。
+   *
+   * @param a 左側の行列
+   * @param b 右側の行列
+   * @return a * bを結果とするCompletableFuture
+   * @throws ArithmeticException aの列数とbの行数が異なる場合
+   * @see DoubleMatrix#times(DoubleMatrix)
+   */
+  public static CompletableFuture<DoubleMatrix> timesAsync(DoubleMatrix a, DoubleMatrix b) {
+    if (a.columns() != b.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", a.columns(), b.rows())));
+    }
+    return submit(COMPUTE, cancelled -> multiply(a, b, cancelled));
+  }
+
+  /**
+   * 連立一次方程式a * X = bを計算用のスレッドプールで解きます。
+   *
+   * @param a 係数行列(正方行列)
+   * @param b 右辺の行列
+   * @return 解Xを結果とするCompletableFuture(aが正則でない場合などは，ArithmeticExceptionで失敗します)
+   * @see DoubleMatrix#solve(DoubleMatrix)
+   */
+  public static CompletableFuture<DoubleMatrix> solveAsync(DoubleMatrix a, DoubleMatrix b) {
+    return submit(COMPUTE, cancelled -> LUDecomposition.of(a, cancelled).solve(b));
+  }
+
+  /**
+   * 行列の文字列表現が書き込まれたファイルを入出力用のスレッドで読み込みます。
+   *
+   * @param filename ファイル名
+   * @return 読み込んだ行列を結果とするCompletableFuture(入出力エラーの場合はIOExceptionで失敗します)
+   * @see DoubleMatrix#readFromFile(String)
+   */
+  public static CompletableFuture<DoubleMatrix> readFromFileAsync(String filename) {
+    return submit(IO, cancelled -> DoubleMatrix.readFromFile(filename));
+  }
+
+  /**
+   * 行列の文字列表現が書き込まれたファイルを，各成分の間の区切り(正規表現)を指定して入出力用のスレッドで読み込みます。
+   *
+   * @param filename ファイル名
+   * @param regex 正規表現の区切り
+   * @return 読み込んだ行列を結果とするCompletableFuture(入出力エラーの場合はIOExceptionで失敗します)
+   * @see DoubleMatrix#readFromFile(String, String)
+   */
+  public static CompletableFuture<DoubleMatrix> readFromFileAsync(String filename, String regex) {
+    return submit(IO, cancelled -> DoubleMatrix.readFromFile(filename, regex));
+  }
+
+  /**
+   * 行列の文字列表現を入出力用のスレッドでファイルに書き込みます。
+   *
+   * @param matrix 行列
+   * @param filename ファイル名
+   * @return 書き込んだ行列を結果とするCompletableFuture(入出力エラーの場合はIOExceptionで失敗します)
+   * @see DoubleMatrix#writeToFile(DoubleMatrix, String)
+   */
+  public static CompletableFuture<DoubleMatrix> writeToFileAsync(
+      DoubleMatrix matrix, String filename) {
+    return submit(
+        IO,
+        cancelled -> {
+          DoubleMatrix.writeToFile(matrix, filename);
+          return matrix;
+        });
+  }
+
+  /**
+   * 行列の文字列表現を，指定された区切り文字を使用して入出力用のスレッドでファイルに書き込みます。
+   *
+   * @param matrix 行列
+   * @param filename ファイル名
+   * @param delim 各要素間の区切り文字
+   * @return 書き込んだ行列を結果とするCompletableFuture(入出力エラーの場合はIOExceptionで失敗します)
+   * @see DoubleMatrix#writeToFile(DoubleMatrix, String, String)
+   */
+  public static CompletableFuture<DoubleMatrix> writeToFileAsync(
+      DoubleMatrix matrix, String filename, String delim) {
+    return submit(
+        IO,
+        cancelled -> {
+          DoubleMatrix.writeToFile(matrix, filename, delim);
+          return matrix;
+        });
+  }
+
+  /**
+   * 取り消しを確認しながら実行するタスクを表すインタフェースです。
+   *
+   * @param <T> タスクの結果の型
+   */
+  @FunctionalInterface
+  private interface Task<T> {
+
+    /**
+     * タスクを実行します。
+     *
+     * @param cancelled 結果が不要になった(取り消された)場合にtrueを返す関数
+     * @return タスクの結果
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    T run(BooleanSupplier cancelled) throws IOException;
+  }
+
+  /**
+   * タスクをexecutorで実行し，その結果を返すCompletableFutureを返します。<br>
+   * タスクには，CompletableFutureが既に完了している(取り消された)かどうかを返す関数を渡します。
+   *
+   * @param <T> タスクの結果の型
+   * @param executor タスクを実行するExecutorService
+   * @param task タスク
+   * @return タスクの結果を返すCompletableFuture
+   */
+  private static <T> CompletableFuture<T> submit(ExecutorService executor, Task<T> task) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    Callable<Void> callable =
+        () -> {
+          if (future.isDone()) {
+            return null;
+          }
+          try {
+            future.complete(task.run(future::isDone));
+          } catch (Throwable t) {
+            future.completeExceptionally(t);
+          }
+          return null;
+        };
+    executor.submit(callable);
+    return future;
+  }
+
+  /**
+   * a * bを計算します。CANCEL_CHECK_ROWS行ごとにcancelledを確認し，trueの場合は計算を中止します。<br>
+   * 各成分の積和をDoubleMatrix.times(DoubleMatrix)と同じ順序で計算するため，結果は一致します。
+   *
+   * @param a 左側の行列
+   * @param b 右側の行列
+   * @param cancelled 中止するかどうかを返す関数
+   * @return a * b
+   * @throws CancellationException 計算を中止した場合
+   */
+  static DoubleMatrix multiply(DoubleMatrix a, DoubleMatrix b, BooleanSupplier cancelled) {
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("timesAsync");
+    final double[][] x = a.array();
+    final double[][] y = b.array();
+    final double[][] result = new double[a.rows()][b.columns()];
+
+    for (int i0 = 0; i0 < x.length; i0 += CANCEL_CHECK_ROWS) {
+      if (cancelled.getAsBoolean()) {
+        throw (new CancellationException("行列の積の計算が中止されました"));
+      }
+      for (int i = i0; i < Math.min(i0 + CANCEL_CHECK_ROWS, x.length); i++) {
+        final double[] xi = x[i];
+        final double[] ci = result[i];
+        for (int k = 0; k < xi.length; k++) {
+          final double xik = xi[k];
+          final double[] yk = y[k];
+          for (int j = 0; j < ci.length; j++) {
+            ci[j] += xik * yk[j];
+          }
+        }
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        a.rows(),
+        b.columns(),
+        a.columns(),
+        (long) a.rows() * b.columns() * Double.BYTES,
+        2L * a.rows() * b.columns() * a.columns());
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * デーモンスレッドを生成するThreadFactoryを返します。
+   *
+   * @param prefix スレッドの名前の接頭辞
+   * @return ThreadFactory
+   */
+  private static ThreadFactory daemonThreadFactory(String prefix) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
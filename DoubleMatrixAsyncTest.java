@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Usage: java -ea DoubleMatrixAsyncTest
+public class DoubleMatrixAsyncTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  private static Throwable causeOf(CompletableFuture<?> future) throws InterruptedException {
+    try {
+      future.get();
+    } catch (ExecutionException ee) {
+      return ee.getCause();
+    }
+    throw new AssertionError("future completed normally");
+  }
+
+  public static void main(String[] args) throws Exception {
+    checkEnableAssertions();
+    java.util.Random random = new java.util.Random(38);
+    java.util.function.DoubleSupplier entries = () -> random.nextDouble() - 0.5;
+
+    { // 行列の積の動作確認
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(entries, 70, 45);
+      DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(entries, 45, 33);
+      DoubleMatrix c = DoubleMatrixAsync.timesAsync(a, b).get(10, TimeUnit.SECONDS);
+      DoubleMatrix expected = a.times(b);
+      for (int i = 0; i < expected.rows(); i++) {
+        for (int j = 0; j < expected.columns(); j++) {
+          assert Double.compare(c.get(i, j), expected.get(i, j)) == 0;
+        }
+      }
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "DoubleMatrixAsync.timesAsync(a, a)",
+          () -> DoubleMatrixAsync.timesAsync(a, a));
+    }
+
+    { // 連立一次方程式の求解の動作確認
+      DoubleMatrix a = DoubleMatrix.of(3, 3, 4, 1, 2, 1, 5, 3, 2, 3, 6);
+      DoubleMatrix x = DoubleMatrix.createColumnVector(1, -2, 3);
+      DoubleMatrix b = a.times(x);
+      DoubleMatrix solution = DoubleMatrixAsync.solveAsync(a, b).get(10, TimeUnit.SECONDS);
+      assert solution.minus(x).normInf() < 1e-12;
+
+      DoubleMatrix singular = DoubleMatrix.of(2, 2, 1, 2, 2, 4);
+      Throwable cause = causeOf(DoubleMatrixAsync.solveAsync(singular, DoubleMatrix.of(2, 1, 1, 1)));
+      assert cause instanceof ArithmeticException : cause;
+    }
+
+    { // ファイルの読み書きの動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 3, 1.5, -2, 3, 4, 5.25, -6);
+      DoubleMatrix b =
+          DoubleMatrixAsync.writeToFileAsync(a, "tmp/async.dat")
+              .thenCompose(m -> DoubleMatrixAsync.readFromFileAsync("tmp/async.dat"))
+              .get(10, TimeUnit.SECONDS);
+      assert b.isEqual(a);
+
+      DoubleMatrix c =
+          DoubleMatrixAsync.writeToFileAsync(a, "tmp/async.csv", ",")
+              .thenCompose(m -> DoubleMatrixAsync.readFromFileAsync("tmp/async.csv", ","))
+              .get(10, TimeUnit.SECONDS);
+      assert c.isEqual(a);
+
+      Throwable cause = causeOf(DoubleMatrixAsync.readFromFileAsync("tmp/no-such-file.dat"));
+      assert cause instanceof IOException : cause;
+    }
+
+    { // 取り消しの動作確認
+      // 行列の積は，Row blockごとに取り消しを確認する
+      DoubleMatrix a =
+          DoubleMatrixTest.Test.randomMatrix(entries, 5 * DoubleMatrixAsync.CANCEL_CHECK_ROWS, 8);
+      DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(entries, 8, 8);
+      AtomicInteger checks = new AtomicInteger();
+      DoubleMatrixTest.Test.assertThrows(
+          CancellationException.class,
+          "DoubleMatrixAsync.multiply(a, b, () -> checks.incrementAndGet() > 2)",
+          () -> DoubleMatrixAsync.multiply(a, b, () -> checks.incrementAndGet() > 2));
+      assert checks.get() == 3 : checks.get();
+
+      checks.set(0);
+      DoubleMatrixAsync.multiply(a, b, () -> checks.incrementAndGet() < 0);
+      assert checks.get() == 5 : checks.get();
+
+      // LU分解は一定の列数ごとに取り消しを確認する
+      DoubleMatrix c = DoubleMatrix.createIdentityMatrix(3 * LUDecomposition.CANCEL_CHECK_INTERVAL);
+      checks.set(0);
+      DoubleMatrixTest.Test.assertThrows(
+          CancellationException.class,
+          "LUDecomposition.of(c, () -> checks.incrementAndGet() > 1)",
+          () -> LUDecomposition.of(c, () -> checks.incrementAndGet() > 1));
+      assert checks.get() == 2 : checks.get();
+
+      // 取り消したCompletableFuture
+      DoubleMatrix d = DoubleMatrixTest.Test.randomMatrix(entries, 400, 400);
+      CompletableFuture<DoubleMatrix> future = DoubleMatrixAsync.timesAsync(d, d);
+      future.cancel(true);
+      assert future.isCancelled();
+      DoubleMatrixTest.Test.assertThrows(
+          CancellationException.class, "future.get()", () -> future.get());
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class DoubleMatrixAsyncTest
@@ -0,0 +1,606 @@
+import java.util.stream.IntStream;
+
+/**
+ * 同じ型の小さな行列(3 * 3や4 * 4の変換行列など)を多数まとめて保持し，一括で計算を行うためのクラスです。<br>
+ * <br>
+ * 行列ごとにdouble型2次元配列とDoubleMatrixを生成する代わりに，全ての行列の成分を1つのdouble型配列に格納します。<br>
+ * 配列は成分ごとにまとめた配置(structure-of-arrays)になっており，(i, j)成分の値がバッチ内の行列の順に連続して並びます。<br>
+ * そのため，各演算の最も内側のループはバッチ方向の連続したアクセスとなり，JITコンパイラによるベクトル化が効きやすくなります。<br>
+ * <br>
+ * 以下は，回転行列と拡大縮小行列の組をまとめて掛け合わせる例です。
+ *
+ * <pre>{@code
+ * DoubleMatrixBatch r = DoubleMatrixBatch.of(rot1, rot2, rot3);
+ * DoubleMatrixBatch s = DoubleMatrixBatch.of(scale1, scale2, scale3);
+ * DoubleMatrixBatch rs = r.times(s);
+ * DoubleMatrix rs2 = rs.get(1); // rot2.times(scale2)と等しい
+ * }</pre>
+ *
+ * @author mpp
+ * @see DoubleMatrix
+ */
+public class DoubleMatrixBatch {
+
+  /** バッチ方向に並列に計算するかどうかを決める閾値(バッチ全体の成分数)です。 */
+  private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /** バッチ方向に並列に計算する際に，1つのタスクが担当する行列の個数です。 */
+  private static final int PARALLEL_CHUNK = 1 << 12;
+
+  /**
+   * 型がrows * columnsで成分の値が全て0dの行列をcount個保持するバッチを生成します。
+   *
+   * @param count バッチ内の行列の個数
+   * @param rows 各行列の行数
+   * @param columns 各行列の列数
+   * @return 零行列のバッチ
+   * @throws IllegalArgumentException 引数のいずれかが負の値の場合
+   */
+  public static DoubleMatrixBatch create(int count, int rows, int columns) {
+    return (new DoubleMatrixBatch(count, rows, columns));
+  }
+
+  /**
+   * 任意の個数の同じ型の行列を1つのバッチにまとめます。
+   *
+   * @param matrices 任意の個数の行列
+   * @return 行列のバッチ
+   * @throws IllegalArgumentException 行列が1つも渡されなかった場合，または行列の型が揃っていない場合
+   */
+  public static DoubleMatrixBatch of(DoubleMatrix... matrices) {
+    if (matrices.length == 0) {
+      throw (new IllegalArgumentException("行列が1つも指定されていません"));
+    }
+
+    DoubleMatrixBatch result =
+        new DoubleMatrixBatch(matrices.length, matrices[0].rows(), matrices[0].columns());
+    for (int b = 0; b < matrices.length; b++) {
+      if (!matrices[0].isTypeEqual(matrices[b])) {
+        throw (new IllegalArgumentException("行列の型が揃っていません。バッチの生成に失敗しました"));
+      }
+      result.set(b, matrices[b]);
+    }
+
+    return result;
+  }
+
+  /** バッチ内の全ての行列の成分を，成分ごとにまとめて保持する配列です。 */
+  private final double[] data;
+
+  /** バッチ内の行列の個数を表します。 */
+  private final int count;
+
+  /** 各行列の行数を表します。 */
+  private final int rows;
+
+  /** 各行列の列数を表します。 */
+  private final int columns;
+
+  /**
+   * 型がrows * columnsで成分の値が全て0dの行列をcount個保持するバッチを生成します。
+   *
+   * @param count バッチ内の行列の個数
+   * @param rows 各行列の行数
+   * @param columns 各行列の列数
+   * @throws IllegalArgumentException 引数のいずれかが負の値の場合
+   */
+  private DoubleMatrixBatch(int count, int rows, int columns) {
+    if (count < 0 || rows < 0 || columns < 0) {
+      throw (new IllegalArgumentException(
+          String.format("バッチの大きさが不正です: %d * (%d,%d)", count, rows, columns)));
+    }
+
+    this.count = count;
+    this.rows = rows;
+    this.columns = columns;
+    this.data = new double[Math.multiplyExact(Math.multiplyExact(rows, columns), count)];
+  }
+
+  /**
+   * バッチ内の行列の個数を返します。
+   *
+   * @return 行列の個数
+   */
+  public int count() {
+    return this.count;
+  }
+
+  /**
+   * バッチ内の各行列の行数を返します。
+   *
+   * @return 行数
+   */
+  public int rows() {
+    return this.rows;
+  }
+
+  /**
+   * バッチ内の各行列の列数を返します。
+   *
+   * @return 列数
+   */
+  public int columns() {
+    return this.columns;
+  }
+
+  /**
+   * thisの各行列の型とthatの各行列の型，およびバッチ内の行列の個数が等しいなら真を返します。
+   *
+   * @param that 任意のバッチ
+   * @return 型と個数が等しいならtrue
+   */
+  public boolean isTypeEqual(DoubleMatrixBatch that) {
+    return (this.count == that.count && this.rows == that.rows && this.columns == that.columns);
+  }
+
+  /**
+   * b番目の行列の(i, j)成分を取得します。
+   *
+   * @param b バッチ内の行列の番号
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws IndexOutOfBoundsException b，iまたはjの値が不正な添え字の場合
+   */
+  public double get(int b, int i, int j) {
+    return this.data[this.index(b, i, j)];
+  }
+
+  /**
+   * b番目の行列の(i, j)成分を指定された値に置き換えます。
+   *
+   * @param b バッチ内の行列の番号
+   * @param i i
+   * @param j j
+   * @param entry 格納される値
+   * @return this
+   * @throws IndexOutOfBoundsException b，iまたはjの値が不正な添え字の場合
+   */
+  public DoubleMatrixBatch set(int b, int i, int j, double entry) {
+    this.data[this.index(b, i, j)] = entry;
+    return this;
+  }
+
+  /**
+   * b番目の行列のコピーを返します。
+   *
+   * @param b バッチ内の行列の番号
+   * @return b番目の行列
+   * @throws IndexOutOfBoundsException bの値が不正な添え字の場合
+   */
+  public DoubleMatrix get(int b) {
+    this.checkIndex(b);
+
+    DoubleMatrix result = DoubleMatrix.createZeroMatrix(this.rows, this.columns);
+    for (int i = 0; i < this.rows; i++) {
+      for (int j = 0; j < this.columns; j++) {
+        result.set(i, j, this.data[(i * this.columns + j) * this.count + b]);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * b番目の行列をmatrixの内容で置き換えます。
+   *
+   * @param b バッチ内の行列の番号
+   * @param matrix 格納される行列
+   * @return this
+   * @throws IndexOutOfBoundsException bの値が不正な添え字の場合
+   * @throws ArithmeticException matrixの型がバッチ内の行列の型と異なる場合
+   */
+  public DoubleMatrixBatch set(int b, DoubleMatrix matrix) {
+    this.checkIndex(b);
+    if (matrix.rows() != this.rows || matrix.columns() != this.columns) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，格納できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, matrix.rows(), matrix.columns())));
+    }
+
+    for (int i = 0; i < this.rows; i++) {
+      for (int j = 0; j < this.columns; j++) {
+        this.data[(i * this.columns + j) * this.count + b] = matrix.get(i, j);
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * バッチ内の各行列について this[b] + that[b] を計算し，結果のバッチを返します。
+   *
+   * @param that このバッチに加算するバッチ
+   * @return this + that
+   * @throws ArithmeticException thisとthatの型または個数が異なり，計算を実行できない場合
+   */
+  public DoubleMatrixBatch plus(DoubleMatrixBatch that) {
+    this.checkTypeEqual(that);
+
+    DoubleMatrixBatch result = new DoubleMatrixBatch(this.count, this.rows, this.columns);
+    for (int e = 0; e < this.data.length; e++) {
+      result.data[e] = this.data[e] + that.data[e];
+    }
+
+    return result;
+  }
+
+  /**
+   * バッチ内の各行列について this[b] += that[b] を計算し，thisを返します。
+   *
+   * @param that このバッチに加算するバッチ
+   * @return this
+   * @throws ArithmeticException thisとthatの型または個数が異なり，計算を実行できない場合
+   */
+  public DoubleMatrixBatch add(DoubleMatrixBatch that) {
+    this.checkTypeEqual(that);
+
+    for (int e = 0; e < this.data.length; e++) {
+      this.data[e] += that.data[e];
+    }
+
+    return this;
+  }
+
+  /**
+   * バッチ内の各行列について this[b] * that[b] を計算し，結果のバッチを返します。<br>
+   * 内側の次元が2，3，4の場合は，展開された専用の計算で処理します。
+   *
+   * @param that このバッチに乗算するバッチ
+   * @return this * that
+   * @throws ArithmeticException thisの列数とthatの行数，またはバッチ内の行列の個数が異なる場合
+   */
+  public DoubleMatrixBatch times(DoubleMatrixBatch that) {
+    if (this.columns != that.rows) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.columns, that.rows)));
+    }
+    if (this.count != that.count) {
+      throw (new ArithmeticException(
+          String.format("行列の個数が異なるため，計算できません: %d != %d", this.count, that.count)));
+    }
+
+    DoubleMatrixBatch result = new DoubleMatrixBatch(this.count, this.rows, that.columns);
+    this.forEachChunk(
+        (long) result.data.length + this.data.length + that.data.length,
+        (from, to) -> multiply(this, that, result, from, to));
+
+    return result;
+  }
+
+  /**
+   * バッチ内の各行列を転置したバッチを返します。<br>
+   * 成分ごとにまとめた配置のため，転置は(i, j)成分の列と(j, i)成分の列の一括コピーで行われます。
+   *
+   * @return 各行列を転置したバッチ
+   */
+  public DoubleMatrixBatch trs() {
+    DoubleMatrixBatch result = new DoubleMatrixBatch(this.count, this.columns, this.rows);
+    for (int i = 0; i < this.rows; i++) {
+      for (int j = 0; j < this.columns; j++) {
+        System.arraycopy(
+            this.data,
+            (i * this.columns + j) * this.count,
+            result.data,
+            (j * this.rows + i) * this.count,
+            this.count);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * バッチ内の各行列の逆行列を計算し，結果のバッチを返します。<br>
+   * 2 * 2と3 * 3の行列は余因子行列を用いた展開済みの計算で，それ以外は部分ピボット選択付きのGauss-Jordan法で計算します。
+   *
+   * @return 各行列の逆行列のバッチ
+   * @throws ArithmeticException 行列が正方行列でない場合，またはバッチ内に正則でない行列が含まれる場合
+   */
+  public DoubleMatrixBatch inverse() {
+    if (this.rows != this.columns) {
+      throw (new ArithmeticException(
+          String.format("正方行列ではないため，逆行列を計算できません: (%d,%d)", this.rows, this.columns)));
+    }
+
+    DoubleMatrixBatch result = new DoubleMatrixBatch(this.count, this.rows, this.columns);
+    this.forEachChunk(
+        (long) this.data.length * this.rows,
+        (from, to) -> {
+          switch (this.rows) {
+            case 2:
+              invert2(this, result, from, to);
+              break;
+            case 3:
+              invert3(this, result, from, to);
+              break;
+            default:
+              invertGaussJordan(this, result, from, to);
+              break;
+          }
+        });
+
+    return result;
+  }
+
+  /** バッチの一部の範囲[from, to)を処理する関数です。 */
+  @FunctionalInterface
+  private interface RangeKernel {
+    void apply(int from, int to);
+  }
+
+  /**
+   * バッチ全体をいくつかの範囲に分割して，kernelを適用します。<br>
+   * workが閾値以上の場合は，分割した範囲を並列に処理します。
+   *
+   * @param work 計算量の目安となる値
+   * @param kernel 各範囲に適用する関数
+   */
+  private void forEachChunk(long work, RangeKernel kernel) {
+    if (work < PARALLEL_THRESHOLD || this.count <= PARALLEL_CHUNK) {
+      kernel.apply(0, this.count);
+      return;
+    }
+
+    int chunks = (this.count + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+    IntStream.range(0, chunks)
+        .parallel()
+        .forEach(
+            c -> {
+              int from = c * PARALLEL_CHUNK;
+              kernel.apply(from, Math.min(from + PARALLEL_CHUNK, this.count));
+            });
+  }
+
+  /**
+   * c[b] = a[b] * bb[b] を範囲[from, to)のバッチについて計算します。
+   *
+   * @param a 左側のバッチ
+   * @param bb 右側のバッチ
+   * @param c 結果を格納するバッチ
+   * @param from 範囲の先頭(この値を含む)
+   * @param to 範囲の末尾(この値を含まない)
+   */
+  private static void multiply(
+      DoubleMatrixBatch a, DoubleMatrixBatch bb, DoubleMatrixBatch c, int from, int to) {
+    final int n = a.count;
+    final int inner = a.columns;
+    final double[] x = a.data;
+    final double[] y = bb.data;
+    final double[] z = c.data;
+
+    for (int i = 0; i < c.rows; i++) {
+      for (int j = 0; j < c.columns; j++) {
+        final int zij = (i * c.columns + j) * n;
+        final int xi = i * inner * n;
+        final int yj = j * n;
+        final int ystep = c.columns * n;
+
+        switch (inner) {
+          case 2:
+            {
+              final int x0 = xi, x1 = xi + n;
+              final int y0 = yj, y1 = yj + ystep;
+              for (int b = from; b < to; b++) {
+                z[zij + b] = x[x0 + b] * y[y0 + b] + x[x1 + b] * y[y1 + b];
+              }
+              break;
+            }
+          case 3:
+            {
+              final int x0 = xi, x1 = xi + n, x2 = xi + 2 * n;
+              final int y0 = yj, y1 = yj + ystep, y2 = yj + 2 * ystep;
+              for (int b = from; b < to; b++) {
+                z[zij + b] =
+                    x[x0 + b] * y[y0 + b] + x[x1 + b] * y[y1 + b] + x[x2 + b] * y[y2 + b];
+              }
+              break;
+            }
+          case 4:
+            {
+              final int x0 = xi, x1 = xi + n, x2 = xi + 2 * n, x3 = xi + 3 * n;
+              final int y0 = yj, y1 = yj + ystep, y2 = yj + 2 * ystep, y3 = yj + 3 * ystep;
+              for (int b = from; b < to; b++) {
+                z[zij + b] =
+                    x[x0 + b] * y[y0 + b]
+                        + x[x1 + b] * y[y1 + b]
+                        + x[x2 + b] * y[y2 + b]
+                        + x[x3 + b] * y[y3 + b];
+              }
+              break;
+            }
+          default:
+            for (int k = 0; k < inner; k++) {
+              final int xk = xi + k * n;
+              final int yk = yj + k * ystep;
+              for (int b = from; b < to; b++) {
+                z[zij + b] += x[xk + b] * y[yk + b];
+              }
+            }
+            break;
+        }
+      }
+    }
+  }
+
+  /**
+   * 2 * 2行列の逆行列を範囲[from, to)のバッチについて計算します。
+   *
+   * @param a 元のバッチ
+   * @param c 結果を格納するバッチ
+   * @param from 範囲の先頭(この値を含む)
+   * @param to 範囲の末尾(この値を含まない)
+   * @throws ArithmeticException 正則でない行列が含まれる場合
+   */
+  private static void invert2(DoubleMatrixBatch a, DoubleMatrixBatch c, int from, int to) {
+    final int n = a.count;
+    final double[] x = a.data;
+    final double[] z = c.data;
+
+    for (int b = from; b < to; b++) {
+      double a00 = x[b], a01 = x[n + b], a10 = x[2 * n + b], a11 = x[3 * n + b];
+      double det = a00 * a11 - a01 * a10;
+      checkDeterminant(det, b);
+      double inv = 1 / det;
+      z[b] = a11 * inv;
+      z[n + b] = -a01 * inv;
+      z[2 * n + b] = -a10 * inv;
+      z[3 * n + b] = a00 * inv;
+    }
+  }
+
+  /**
+   * 3 * 3行列の逆行列を範囲[from, to)のバッチについて計算します。
+   *
+   * @param a 元のバッチ
+   * @param c 結果を格納するバッチ
+   * @param from 範囲の先頭(この値を含む)
+   * @param to 範囲の末尾(この値を含まない)
+   * @throws ArithmeticException 正則でない行列が含まれる場合
+   */
+  private static void invert3(DoubleMatrixBatch a, DoubleMatrixBatch c, int from, int to) {
+    final int n = a.count;
+    final double[] x = a.data;
+    final double[] z = c.data;
+
+    for (int b = from; b < to; b++) {
+      double a00 = x[b], a01 = x[n + b], a02 = x[2 * n + b];
+      double a10 = x[3 * n + b], a11 = x[4 * n + b], a12 = x[5 * n + b];
+      double a20 = x[6 * n + b], a21 = x[7 * n + b], a22 = x[8 * n + b];
+
+      double c00 = a11 * a22 - a12 * a21;
+      double c01 = a12 * a20 - a10 * a22;
+      double c02 = a10 * a21 - a11 * a20;
+      double det = a00 * c00 + a01 * c01 + a02 * c02;
+      checkDeterminant(det, b);
+      double inv = 1 / det;
+
+      z[b] = c00 * inv;
+      z[n + b] = (a02 * a21 - a01 * a22) * inv;
+      z[2 * n + b] = (a01 * a12 - a02 * a11) * inv;
+      z[3 * n + b] = c01 * inv;
+      z[4 * n + b] = (a00 * a22 - a02 * a20) * inv;
+      z[5 * n + b] = (a02 * a10 - a00 * a12) * inv;
+      z[6 * n + b] = c02 * inv;
+      z[7 * n + b] = (a01 * a20 - a00 * a21) * inv;
+      z[8 * n + b] = (a00 * a11 - a01 * a10) * inv;
+    }
+  }
+
+  /**
+   * 部分ピボット選択付きのGauss-Jordan法で，範囲[from, to)のバッチの逆行列を計算します。<br>
+   * 各行列の成分は作業用の配列に集めてから計算するため，作業用の配列は範囲内で使い回されます。
+   *
+   * @param a 元のバッチ
+   * @param c 結果を格納するバッチ
+   * @param from 範囲の先頭(この値を含む)
+   * @param to 範囲の末尾(この値を含まない)
+   * @throws ArithmeticException 正則でない行列が含まれる場合
+   */
+  private static void invertGaussJordan(
+      DoubleMatrixBatch a, DoubleMatrixBatch c, int from, int to) {
+    final int n = a.count;
+    final int m = a.rows;
+    double[][] work = new double[m][2 * m];
+
+    for (int b = from; b < to; b++) {
+      for (int i = 0; i < m; i++) {
+        for (int j = 0; j < m; j++) {
+          work[i][j] = a.data[(i * m + j) * n + b];
+          work[i][m + j] = (i == j) ? 1 : 0;
+        }
+      }
+
+      for (int k = 0; k < m; k++) {
+        int pivot = k;
+        for (int i = k + 1; i < m; i++) {
+          if (Math.abs(work[i][k]) > Math.abs(work[pivot][k])) {
+            pivot = i;
+          }
+        }
+        checkDeterminant(work[pivot][k], b);
+        double[] tmp = work[k];
+        work[k] = work[pivot];
+        work[pivot] = tmp;
+
+        double inv = 1 / work[k][k];
+        for (int j = 0; j < 2 * m; j++) {
+          work[k][j] *= inv;
+        }
+        for (int i = 0; i < m; i++) {
+          if (i == k || work[i][k] == 0) {
+            continue;
+          }
+          double factor = work[i][k];
+          for (int j = 0; j < 2 * m; j++) {
+            work[i][j] -= factor * work[k][j];
+          }
+        }
+      }
+
+      for (int i = 0; i < m; i++) {
+        for (int j = 0; j < m; j++) {
+          c.data[(i * m + j) * n + b] = work[i][m + j];
+        }
+      }
+    }
+  }
+
+  /**
+   * 行列式(またはピボット)の値が0なら例外をスローします。
+   *
+   * @param det 行列式またはピボットの値
+   * @param b バッチ内の行列の番号
+   * @throws ArithmeticException detが0の場合
+   */
+  private static void checkDeterminant(double det, int b) {
+    if (det == 0) {
+      throw (new ArithmeticException(String.format("%d番目の行列は正則ではありません", b)));
+    }
+  }
+
+  /**
+   * thisとthatの型または個数が異なるなら例外をスローします。
+   *
+   * @param that 任意のバッチ
+   * @throws ArithmeticException thisとthatの型または個数が異なる場合
+   */
+  private void checkTypeEqual(DoubleMatrixBatch that) {
+    if (!this.isTypeEqual(that)) {
+      throw (new ArithmeticException(
+          String.format(
+              "バッチの型が異なるため，計算できません: %d * (%d,%d) != %d * (%d,%d)",
+              this.count, this.rows, this.columns, that.count, that.rows, that.columns)));
+    }
+  }
+
+  /**
+   * b番目の行列の番号が範囲内かどうか検証します。
+   *
+   * @param b バッチ内の行列の番号
+   * @throws IndexOutOfBoundsException bの値が不正な添え字の場合
+   */
+  private void checkIndex(int b) {
+    if (b < 0 || b >= this.count) {
+      throw (new IndexOutOfBoundsException(String.format("不正な添え字です: %d", b)));
+    }
+  }
+
+  /**
+   * b番目の行列の(i, j)成分が格納されている位置を返します。
+   *
+   * @param b バッチ内の行列の番号
+   * @param i i
+   * @param j j
+   * @return dataの添え字
+   * @throws IndexOutOfBoundsException b，iまたはjの値が不正な添え字の場合
+   */
+  private int index(int b, int i, int j) {
+    this.checkIndex(b);
+    if (i < 0 || i >= this.rows || j < 0 || j >= this.columns) {
+      throw (new IndexOutOfBoundsException(String.format("不正な添え字です: (%d,%d)", i, j)));
+    }
+    return (i * this.columns + j) * this.count + b;
+  }
+}
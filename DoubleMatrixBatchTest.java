@@ -0,0 +1,162 @@
+// Usage: java -ea DoubleMatrixBatchTest
+public class DoubleMatrixBatchTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  // 正則になるように，各行の1つの成分に40を加えたランダムな行列
+  private static DoubleMatrix nonsingularMatrix(java.util.Random random, int rows, int columns) {
+    DoubleMatrix result = DoubleMatrixTest.Test.randomMatrix(random, rows, columns);
+    for (int i = 0; i < rows; i++) {
+      result.set(i, i % columns, result.get(i, i % columns) + 40);
+    }
+    return result;
+  }
+
+  private static boolean isClose(DoubleMatrix a, DoubleMatrix b) {
+    if (!a.isTypeEqual(b)) {
+      return false;
+    }
+    for (int i = 0; i < a.rows(); i++) {
+      for (int j = 0; j < a.columns(); j++) {
+        if (Math.abs(a.get(i, j) - b.get(i, j)) > 1e-9) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+
+    { // 生成と成分の取得，設定の動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6);
+      DoubleMatrix b = DoubleMatrix.of(2, 3, -1, -2, -3, -4, -5, -6);
+
+      DoubleMatrixBatch x = DoubleMatrixBatch.of(a, b);
+      assert x.count() == 2;
+      assert x.rows() == 2;
+      assert x.columns() == 3;
+      assert x.get(0).isEqual(a);
+      assert x.get(1).isEqual(b);
+      assert x.get(1, 1, 2) == -6;
+
+      assert x.set(0, 1, 1, 50) == x;
+      assert x.get(0, 1, 1) == 50;
+      assert a.get(1, 1) == 5;
+
+      DoubleMatrixBatch z = DoubleMatrixBatch.create(3, 2, 2);
+      assert z.get(2).isEqual(DoubleMatrix.createZeroMatrix(2, 2));
+
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "DoubleMatrixBatch.of(a, a.trs())",
+          () -> DoubleMatrixBatch.of(a, a.trs()));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class, "DoubleMatrixBatch.of()", () -> DoubleMatrixBatch.of());
+      DoubleMatrixTest.Test.assertThrows(
+          IndexOutOfBoundsException.class, "x.get(2)", () -> x.get(2));
+      DoubleMatrixTest.Test.assertThrows(
+          IndexOutOfBoundsException.class, "x.get(0, 0, 3)", () -> x.get(0, 0, 3));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class, "x.set(0, a.trs())", () -> x.set(0, a.trs()));
+    } // end of block
+
+    { // plus(), add(), trs() の動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6);
+      DoubleMatrix b = DoubleMatrix.of(2, 3, 6, 5, 4, 3, 2, 1);
+
+      DoubleMatrixBatch x = DoubleMatrixBatch.of(a, b);
+      DoubleMatrixBatch y = DoubleMatrixBatch.of(b, b);
+
+      DoubleMatrixBatch s = x.plus(y);
+      assert s.get(0).isEqual(a.plus(b));
+      assert s.get(1).isEqual(b.plus(b));
+
+      assert x.add(y) == x;
+      assert x.get(0).isEqual(a.plus(b));
+
+      DoubleMatrixBatch t = y.trs();
+      assert t.rows() == 3;
+      assert t.columns() == 2;
+      assert t.get(1).isEqual(b.trs());
+
+      DoubleMatrixTest.Test.assertThrows(ArithmeticException.class, "x.plus(t)", () -> x.plus(t));
+    } // end of block
+
+    { // times() の動作確認(展開された計算と一般の計算の両方)
+      java.util.Random random = new java.util.Random(26);
+      int[][] shapes = {{2, 2, 2}, {3, 3, 3}, {4, 4, 4}, {6, 6, 6}, {2, 5, 3}, {1, 1, 1}};
+      for (int[] shape : shapes) {
+        DoubleMatrix[] as = new DoubleMatrix[7];
+        DoubleMatrix[] bs = new DoubleMatrix[7];
+        for (int b = 0; b < as.length; b++) {
+          as[b] = nonsingularMatrix(random, shape[0], shape[1]);
+          bs[b] = nonsingularMatrix(random, shape[1], shape[2]);
+        }
+        DoubleMatrixBatch c = DoubleMatrixBatch.of(as).times(DoubleMatrixBatch.of(bs));
+        for (int b = 0; b < as.length; b++) {
+          assert c.get(b).isEqual(as[b].times(bs[b]));
+        }
+      }
+
+      DoubleMatrixBatch x = DoubleMatrixBatch.create(2, 2, 3);
+      DoubleMatrixBatch y = DoubleMatrixBatch.create(3, 3, 2);
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class, "x.times(x)", () -> x.times(x));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class, "x.times(y)", () -> x.times(y));
+    } // end of block
+
+    { // inverse() の動作確認
+      java.util.Random random = new java.util.Random(27);
+      for (int n = 1; n <= 6; n++) {
+        DoubleMatrix[] as = new DoubleMatrix[5];
+        for (int b = 0; b < as.length; b++) {
+          as[b] = nonsingularMatrix(random, n, n);
+        }
+        DoubleMatrixBatch inv = DoubleMatrixBatch.of(as).inverse();
+        for (int b = 0; b < as.length; b++) {
+          assert isClose(as[b].times(inv.get(b)), DoubleMatrix.createIdentityMatrix(n));
+        }
+      }
+
+      DoubleMatrixBatch singular =
+          DoubleMatrixBatch.of(
+              DoubleMatrix.createIdentityMatrix(3), DoubleMatrix.createZeroMatrix(3, 3));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class, "singular.inverse()", () -> singular.inverse());
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "DoubleMatrixBatch.create(1, 2, 3).inverse()",
+          () -> DoubleMatrixBatch.create(1, 2, 3).inverse());
+    } // end of block
+
+    { // 並列に計算される大きさのバッチの動作確認
+      final int count = 20000;
+      DoubleMatrixBatch x = DoubleMatrixBatch.create(count, 3, 3);
+      DoubleMatrixBatch y = DoubleMatrixBatch.create(count, 3, 3);
+      for (int b = 0; b < count; b++) {
+        for (int i = 0; i < 3; i++) {
+          x.set(b, i, i, b + 1);
+          y.set(b, i, (i + 1) % 3, 2);
+        }
+      }
+      DoubleMatrixBatch c = x.times(y);
+      DoubleMatrixBatch inv = x.inverse();
+      for (int b = 0; b < count; b += 997) {
+        assert c.get(b).isEqual(x.get(b).times(y.get(b)));
+        assert isClose(x.get(b).times(inv.get(b)), DoubleMatrix.createIdentityMatrix(3));
+      }
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class DoubleMatrixBatchTest
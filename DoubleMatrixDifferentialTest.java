@@ -0,0 +1,607 @@
+// Usage: java -ea [-Dseed=<seed>] [-Dtrials=<trials>] DoubleMatrixDifferentialTest
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+/**
+ * 最適化された演算(配列の一括走査，並列化，列の並べ替えの遅延，コピーオンライトなど)の結果を，
+ * get()だけを使用する素朴な実装の結果と比較するテストです。<br>
+ * 成分は小さな整数にするため，積や和の丸め誤差は発生せず，結果は完全に一致しなければなりません。<br>
+ * 型は，ランダムな大きさに加えて，1行や1列の行列と，並列化や集計のブロックの閾値の前後の大きさを含みます。<br>
+ * 作業領域(DoubleMatrixWorkspace)の中での演算，ブロック行列，クロネッカー積の作用，
+ * 複数のスレッドからの同時の読み取りについても，同様に素朴な実装と比較します。
+ */
+public class DoubleMatrixDifferentialTest {
+
+  /** 閾値の前後の型です。PARALLEL_THRESHOLD = 2^16，REDUCTION_BLOCK_ENTRIES = 2^12，PARALLEL_COLUMN_CHUNK = 256に対応します。 */
+  private static final int[][] EDGE_SHAPES = {
+    {1, 1}, {1, 2}, {2, 1}, {1, 257}, {257, 1}, {64, 64}, {63, 65}, {1, 4097}, {4097, 1},
+    {255, 257}, {256, 256}, {257, 255}, {1, 65536}, {65536, 1},
+  };
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  /** 列の並べ替えが未反映の状態や，他の行列と配列を共有している状態の行列をランダムに生成します。 */
+  private static DoubleMatrix randomLayout(Random random, DoubleMatrix matrix) {
+    DoubleMatrix result = DoubleMatrix.from(matrix);
+    switch (random.nextInt(4)) {
+      case 0:
+        // そのまま(matrixと配列を共有している)
+        return result;
+      case 1:
+        // 配列の列の順序が異なり，並べ替えが未反映の状態
+        return pendingColumns(random, reference(matrix));
+      case 2:
+        // 行の並べ替えを元に戻した状態
+        {
+          int[] permutation = randomPermutation(random, matrix.rows());
+          int[] inverse = new int[permutation.length];
+          for (int i = 0; i < permutation.length; i++) {
+            inverse[permutation[i]] = i;
+          }
+          result.permuteRows(permutation);
+          result.permuteRows(inverse);
+          return result;
+        }
+      default:
+        // 呼び出し側と配列を共有している状態
+        return DoubleMatrix.wrap(reference(matrix).unwrap());
+    }
+  }
+
+  /** 行列の配列の列の順序を入れ替え，その並べ替えを元に戻す操作を未反映にした状態にして返します。 */
+  private static DoubleMatrix pendingColumns(Random random, DoubleMatrix matrix) {
+    int[] permutation = randomPermutation(random, matrix.columns());
+    int[] inverse = new int[permutation.length];
+    for (int j = 0; j < permutation.length; j++) {
+      inverse[permutation[j]] = j;
+    }
+    matrix.permuteColumns(inverse);
+    matrix.sum(); // 並べ替えを配列に反映させる
+    return matrix.permuteColumns(permutation);
+  }
+
+  private static int[] randomPermutation(Random random, int n) {
+    int[] result = new int[n];
+    for (int i = 0; i < n; i++) {
+      result[i] = i;
+    }
+    for (int i = n - 1; i > 0; i--) {
+      int k = random.nextInt(i + 1);
+      int tmp = result[i];
+      result[i] = result[k];
+      result[k] = tmp;
+    }
+    return result;
+  }
+
+  // ---------------------------------------------------------------------------------------------
+  // 素朴な実装(get()とset()だけを使用する)
+
+  private static DoubleMatrix reference(DoubleMatrix a) {
+    DoubleMatrix result = DoubleMatrix.createZeroMatrix(a.rows(), a.columns());
+    for (int i = 0; i < a.rows(); i++) {
+      for (int j = 0; j < a.columns(); j++) {
+        result.set(i, j, a.get(i, j));
+      }
+    }
+    return result;
+  }
+
+  private static DoubleMatrix naiveTimes(DoubleMatrix a, DoubleMatrix b) {
+    DoubleMatrix result = DoubleMatrix.createZeroMatrix(a.rows(), b.columns());
+    for (int i = 0; i < a.rows(); i++) {
+      for (int j = 0; j < b.columns(); j++) {
+        double sum = 0;
+        for (int k = 0; k < a.columns(); k++) {
+          sum += a.get(i, k) * b.get(k, j);
+        }
+        result.set(i, j, sum);
+      }
+    }
+    return result;
+  }
+
+  private static DoubleMatrix naiveZip(
+      DoubleMatrix a, DoubleMatrix b, java.util.function.DoubleBinaryOperator f) {
+    DoubleMatrix result = DoubleMatrix.createZeroMatrix(a.rows(), a.columns());
+    for (int i = 0; i < a.rows(); i++) {
+      for (int j = 0; j < a.columns(); j++) {
+        result.set(i, j, f.applyAsDouble(a.get(i, j), b.get(i, j)));
+      }
+    }
+    return result;
+  }
+
+  private static DoubleMatrix naiveTranspose(DoubleMatrix a) {
+    DoubleMatrix result = DoubleMatrix.createZeroMatrix(a.columns(), a.rows());
+    for (int i = 0; i < a.rows(); i++) {
+      for (int j = 0; j < a.columns(); j++) {
+        result.set(j, i, a.get(i, j));
+      }
+    }
+    return result;
+  }
+
+  private static DoubleMatrix naiveKronecker(DoubleMatrix a, DoubleMatrix b) {
+    DoubleMatrix result =
+        DoubleMatrix.createZeroMatrix(a.rows() * b.rows(), a.columns() * b.columns());
+    for (int i = 0; i < result.rows(); i++) {
+      for (int j = 0; j < result.columns(); j++) {
+        result.set(
+            i,
+            j,
+            a.get(i / b.rows(), j / b.columns()) * b.get(i % b.rows(), j % b.columns()));
+      }
+    }
+    return result;
+  }
+
+  private static double[] naiveRowSums(DoubleMatrix a, boolean abs) {
+    double[] result = new double[a.rows()];
+    for (int i = 0; i < a.rows(); i++) {
+      for (int j = 0; j < a.columns(); j++) {
+        result[i] += abs ? Math.abs(a.get(i, j)) : a.get(i, j);
+      }
+    }
+    return result;
+  }
+
+  private static double[] naiveColumnSums(DoubleMatrix a, boolean abs) {
+    double[] result = new double[a.columns()];
+    for (int i = 0; i < a.rows(); i++) {
+      for (int j = 0; j < a.columns(); j++) {
+        result[j] += abs ? Math.abs(a.get(i, j)) : a.get(i, j);
+      }
+    }
+    return result;
+  }
+
+  private static double max(double[] values) {
+    double result = Double.NEGATIVE_INFINITY;
+    for (double v : values) {
+      result = Math.max(result, v);
+    }
+    return result;
+  }
+
+  // ---------------------------------------------------------------------------------------------
+  // 比較
+
+  private static void assertSame(DoubleMatrix expected, DoubleMatrix actual, String what) {
+    assert expected.rows() == actual.rows() && expected.columns() == actual.columns()
+        : what + ": 型が異なります";
+    for (int i = 0; i < expected.rows(); i++) {
+      for (int j = 0; j < expected.columns(); j++) {
+        assert Double.compare(expected.get(i, j), actual.get(i, j)) == 0
+            : String.format(
+                "%s: (%d,%d)成分が異なります: %s != %s",
+                what, i, j, expected.get(i, j), actual.get(i, j));
+      }
+    }
+  }
+
+  private static void assertSame(double expected, double actual, String what) {
+    assert Double.compare(expected, actual) == 0
+        : String.format("%s: %s != %s", what, expected, actual);
+  }
+
+  /** 1つの型について，行列の形によらない演算を比較します。 */
+  private static void checkShape(Random random, int rows, int columns, String label) {
+    final DoubleMatrix a0 = DoubleMatrixTest.Test.randomMatrix(random, rows, columns);
+    final DoubleMatrix b0 = DoubleMatrixTest.Test.randomMatrix(random, rows, columns);
+    final DoubleMatrix a = randomLayout(random, a0);
+    final DoubleMatrix b = randomLayout(random, b0);
+
+    // 要素ごとの演算
+    assertSame(naiveZip(a0, b0, Double::sum), a.plus(b), label + " plus");
+    assertSame(naiveZip(a0, b0, (x, y) -> x - y), a.minus(b), label + " minus");
+    assertSame(naiveZip(a0, b0, (x, y) -> x * y), a.hadamard(b), label + " hadamard");
+    assertSame(naiveZip(a0, b0, Math::max), a.zip(b, Math::max), label + " zip");
+    assertSame(naiveZip(a0, a0, (x, y) -> 3 * x), a.times(3), label + " times(k)");
+    assertSame(naiveZip(a0, a0, (x, y) -> x * x + 1), a.map(x -> x * x + 1), label + " map");
+    assertSame(naiveTranspose(a0), a.transposed(), label + " transposed");
+    assertSame(naiveTranspose(a0), a.trs(), label + " trs");
+
+    // 破壊的な演算(コピーに対して行い，コピー元が変わらないことも確認する)
+    assertSame(naiveZip(a0, b0, Double::sum), DoubleMatrix.from(a).add(b), label + " add");
+    assertSame(naiveZip(a0, b0, (x, y) -> x - y), DoubleMatrix.from(a).sub(b), label + " sub");
+    assertSame(naiveZip(a0, a0, (x, y) -> -2 * x), DoubleMatrix.from(a).mul(-2), label + " mul");
+    assertSame(
+        naiveZip(a0, a0, (x, y) -> x - 1),
+        DoubleMatrix.from(a).apply(x -> x - 1),
+        label + " apply");
+    assertSame(
+        naiveZip(a0, b0, (x, y) -> x * y),
+        DoubleMatrix.from(a).hadamardInPlace(b),
+        label + " hadamardInPlace");
+    final DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(random, rows, 1);
+    final DoubleMatrix y = DoubleMatrixTest.Test.randomMatrix(random, columns, 1);
+    assertSame(
+        naiveTimes(x, naiveTranspose(y)).plus(a0),
+        DoubleMatrix.from(a).rank1Update(1, x, y),
+        label + " rank1Update");
+    assertSame(a0, a, label + " 破壊的な演算の後のコピー元");
+    assertSame(b0, b, label + " 破壊的な演算の後のコピー元");
+
+    // 同じ行列を両方の引数に渡す場合
+    assertSame(naiveZip(a0, a0, Double::sum), DoubleMatrix.from(a).add(a), label + " a.add(a)");
+    DoubleMatrix self = DoubleMatrix.from(a);
+    assertSame(naiveZip(a0, a0, (p, q) -> 0), self.sub(self), label + " a.sub(a)");
+    self = DoubleMatrix.from(a);
+    assertSame(naiveZip(a0, a0, (p, q) -> p * q), self.hadamardInPlace(self), label + " a ∘= a");
+
+    // 集計
+    final double[] rowSums = naiveRowSums(a0, false);
+    final double[] columnSums = naiveColumnSums(a0, false);
+    double total = 0;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    double squares = 0;
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        final double v = a0.get(i, j);
+        total += v;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+        squares += v * v;
+      }
+    }
+    assertSame(total, a.sum(), label + " sum");
+    assertSame(total, a.sum(true), label + " sum(true)");
+    assertSame(total, a.entries().parallel().sum(), label + " entries().parallel().sum()");
+    assertSame(min, a.min(), label + " min");
+    assertSame(max, a.max(), label + " max");
+    assertSame(DoubleMatrix.createColumnVector(rowSums), a.rowSums(), label + " rowSums");
+    assertSame(DoubleMatrix.createRowVector(columnSums), a.columnSums(), label + " columnSums");
+    assertSame(max(naiveColumnSums(a0, true)), a.norm1(), label + " norm1");
+    assertSame(max(naiveRowSums(a0, true)), a.normInf(), label + " normInf");
+    assertSame(Math.sqrt(squares), a.normFrobenius(), label + " normFrobenius");
+
+    // ストリーム
+    final int i0 = random.nextInt(rows);
+    final int j0 = random.nextInt(columns);
+    assertSame(
+        DoubleMatrix.createRowVector(a.row(i0).toArray()),
+        DoubleMatrix.createRowVector(naiveTranspose(a0).column(i0).toArray()),
+        label + " row");
+    assertSame(
+        DoubleMatrix.createColumnVector(a.column(j0).toArray()),
+        DoubleMatrix.createColumnVector(naiveTranspose(a0).row(j0).toArray()),
+        label + " column");
+  }
+
+  /** 積に関する演算を比較します。 */
+  private static void checkProduct(Random random, int m, int k, int n, String label) {
+    final DoubleMatrix a0 = DoubleMatrixTest.Test.randomMatrix(random, m, k);
+    final DoubleMatrix b0 = DoubleMatrixTest.Test.randomMatrix(random, k, n);
+    final DoubleMatrix a = randomLayout(random, a0);
+    final DoubleMatrix b = randomLayout(random, b0);
+    final DoubleMatrix expected = naiveTimes(a0, b0);
+    assertSame(expected, a.times(b), label + " times");
+
+    // 行列とベクトルの積
+    final DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(random, k, 1);
+    final DoubleMatrix y = DoubleMatrixTest.Test.randomMatrix(random, m, 1);
+    final DoubleMatrix ax = naiveTimes(a0, x);
+    assertSame(ax, a.times(x), label + " gemv");
+    assertSame(ax, a.multiplyInto(x, DoubleMatrix.from(y), false), label + " multiplyInto");
+    assertSame(
+        ax.plus(y), a.multiplyInto(x, DoubleMatrix.from(y), true), label + " multiplyInto(acc)");
+    final DoubleMatrix u = DoubleMatrixTest.Test.randomMatrix(random, 1, m);
+    final DoubleMatrix ua = naiveTimes(u, a0);
+    assertSame(ua, u.times(a), label + " gevm");
+    final DoubleMatrix v = DoubleMatrixTest.Test.randomMatrix(random, 1, k);
+    assertSame(
+        ua.plus(v),
+        a.leftMultiplyInto(u, DoubleMatrix.from(v), true),
+        label + " leftMultiplyInto(acc)");
+    assertSame(a0, a, label + " 積の後のコピー元");
+
+    if (m == k) {
+      // 結果を格納する行列と引数が同じ場合
+      final DoubleMatrix z = DoubleMatrix.from(x);
+      assertSame(naiveTimes(a0, x), a.multiplyInto(z, z, false), label + " multiplyInto(z, z)");
+      final DoubleMatrix w = DoubleMatrixTest.Test.randomMatrix(random, 1, m);
+      final DoubleMatrix wa = naiveTimes(w, a0);
+      assertSame(wa, a.leftMultiplyInto(w, w, false), label + " leftMultiplyInto(w, w)");
+      assertSame(naiveTimes(a0, a0), a.times(a), label + " a.times(a)");
+    }
+  }
+
+  /** 正方行列に関する演算と，特殊な形式の行列の演算を比較します。 */
+  private static void checkSquare(Random random, int n, String label) {
+    final DoubleMatrix a0 = DoubleMatrixTest.Test.randomMatrix(random, n, n);
+    final DoubleMatrix a = randomLayout(random, a0);
+    final DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, n, 3);
+
+    DoubleMatrix power = DoubleMatrix.createIdentityMatrix(n);
+    for (int k = 0; k <= 4; k++) {
+      assertSame(power, a.pow(k), label + " pow(" + k + ")");
+      power = naiveTimes(power, a0);
+    }
+
+    // 対称行列と三角行列
+    final DoubleMatrix symmetric = a0.plus(naiveTranspose(a0));
+    assertSame(
+        naiveTimes(symmetric, b),
+        PackedSymmetricMatrix.of(symmetric).times(b),
+        label + " PackedSymmetricMatrix.times");
+    DoubleMatrix lower = DoubleMatrix.createZeroMatrix(n, n);
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j <= i; j++) {
+        lower.set(i, j, a0.get(i, j));
+      }
+    }
+    assertSame(
+        naiveTimes(lower, b),
+        PackedTriangularMatrix.lower(lower).times(b),
+        label + " PackedTriangularMatrix.times");
+
+    // 帯行列
+    final int kl = random.nextInt(Math.min(n, 4));
+    final int ku = random.nextInt(Math.min(n, 4));
+    DoubleMatrix band = DoubleMatrix.createZeroMatrix(n, n);
+    for (int i = 0; i < n; i++) {
+      for (int j = Math.max(0, i - kl); j <= Math.min(n - 1, i + ku); j++) {
+        band.set(i, j, a0.get(i, j));
+      }
+    }
+    assertSame(
+        naiveTimes(band, b), BandMatrix.of(band, kl, ku).times(b), label + " BandMatrix.times");
+
+    // クロネッカー積(小さい行列だけ)
+    if (n <= 12) {
+      final DoubleMatrix c =
+          DoubleMatrixTest.Test.randomMatrix(random, 1 + random.nextInt(4), 1 + random.nextInt(4));
+      assertSame(naiveKronecker(a0, c), a.kronecker(c), label + " kronecker");
+      final DoubleMatrix z = DoubleMatrixTest.Test.randomMatrix(random, n * c.columns(), 2);
+      assertSame(
+          naiveTimes(naiveKronecker(a0, c), z),
+          KroneckerProduct.of(a, c).times(z),
+          label + " KroneckerProduct.times");
+    }
+
+    // 連立一次方程式(丸め誤差があるため，残差で比較する)
+    final DoubleMatrix diagonal = a0.plus(DoubleMatrix.createIdentityMatrix(n).times(10 * n));
+    final DoubleMatrix solution = randomLayout(random, diagonal).solve(b);
+    final double residual = naiveTimes(diagonal, solution).minus(b).normInf();
+    assert residual <= 1e-10 * n : label + " solve: 残差 " + residual;
+  }
+
+  /** 作業領域から配列を借りた状態の行列を生成します。列の並べ替えが未反映の状態にする場合もあります。 */
+  private static DoubleMatrix pooledLayout(
+      Random random, DoubleMatrixWorkspace scope, DoubleMatrix matrix) {
+    DoubleMatrix result = scope.copyOf(matrix);
+    return random.nextBoolean() ? result : pendingColumns(random, result);
+  }
+
+  /** 作業領域を閉じた後に，返却された配列を別の成分で上書きさせます。 */
+  private static void reuseReturnedBuffers(int rows, int columns) {
+    DoubleMatrixWorkspace scope = DoubleMatrixWorkspace.open();
+    try {
+      for (int k = 0; k < 8; k++) {
+        scope.zeros(rows, columns).apply(x -> 1e6);
+      }
+    } finally {
+      scope.close();
+    }
+  }
+
+  /**
+   * 作業領域の中での演算を比較します。<br>
+   * 作業領域の中で生成された結果は作業領域の中で比較し，キャッシュ(transposed)や，keepで切り離した結果は，
+   * 作業領域を閉じて配列が再利用された後にも比較します。
+   */
+  private static void checkWorkspace(Random random, int m, int k, int n, String label) {
+    final DoubleMatrix a0 = DoubleMatrixTest.Test.randomMatrix(random, m, k);
+    final DoubleMatrix b0 = DoubleMatrixTest.Test.randomMatrix(random, k, n);
+    final DoubleMatrix c0 = DoubleMatrixTest.Test.randomMatrix(random, m, k);
+    final DoubleMatrix a = randomLayout(random, a0);
+    final DoubleMatrix right =
+        DoubleMatrixTest.Test.randomMatrix(random, 1 + random.nextInt(3), 1 + random.nextInt(3));
+    final DoubleMatrix z = DoubleMatrixTest.Test.randomMatrix(random, k * right.columns(), 2);
+    final DoubleMatrix t;
+    final DoubleMatrix kept;
+    final DoubleMatrix kronecker;
+    DoubleMatrixWorkspace scope = DoubleMatrixWorkspace.open();
+    try {
+      final DoubleMatrix b = pooledLayout(random, scope, b0);
+      final DoubleMatrix c = pooledLayout(random, scope, c0);
+      assertSame(naiveTimes(a0, b0), a.times(b), label + " 作業領域 times");
+      assertSame(naiveZip(a0, c0, Double::sum), a.plus(c), label + " 作業領域 plus");
+      assertSame(naiveZip(c0, a0, (x, y) -> x - y), c.minus(a), label + " 作業領域 minus");
+      assertSame(naiveZip(a0, c0, (x, y) -> x * y), c.hadamard(a), label + " 作業領域 hadamard");
+      assertSame(naiveTranspose(c0), c.trs(), label + " 作業領域 trs");
+      assertSame(b0, DoubleMatrix.from(b), label + " 作業領域 from");
+      t = a.transposed();
+      kept = scope.keep(a.times(b).plus(DoubleMatrix.createZeroMatrix(m, n)));
+      kronecker = KroneckerProduct.of(a, randomLayout(random, right)).times(z);
+      assertSame(
+          naiveTimes(naiveKronecker(a0, right), z), kronecker, label + " 作業領域 Kronecker");
+      scope.keep(kronecker);
+    } finally {
+      scope.close();
+    }
+    reuseReturnedBuffers(k, m);
+    reuseReturnedBuffers(m, n);
+    reuseReturnedBuffers(m * right.rows(), 2);
+    assertSame(naiveTranspose(a0), t, label + " 作業領域を閉じた後の transposed");
+    assertSame(naiveTranspose(a0), a.transposed(), label + " 作業領域を閉じた後の transposed");
+    assertSame(naiveTimes(a0, b0), kept, label + " 作業領域を閉じた後の keep");
+    assertSame(naiveTimes(naiveKronecker(a0, right), z), kronecker, label + " 作業領域を閉じた後の Kronecker");
+    assertSame(a0, a, label + " 作業領域を閉じた後のコピー元");
+  }
+
+  /** 行列をランダムな位置で区切ったブロック行列の演算を比較します。各ブロックの状態もランダムにします。 */
+  private static void checkBlock(Random random, int m, int k, int n, String label) {
+    final DoubleMatrix a0 = DoubleMatrixTest.Test.randomMatrix(random, m, k);
+    final DoubleMatrix b0 = DoubleMatrixTest.Test.randomMatrix(random, k, n);
+    final int[] rowCuts = randomCuts(random, m);
+    final int[] columnCuts = randomCuts(random, k);
+    DoubleMatrix[][] blocks = new DoubleMatrix[rowCuts.length - 1][columnCuts.length - 1];
+    for (int p = 0; p < blocks.length; p++) {
+      for (int q = 0; q < blocks[p].length; q++) {
+        DoubleMatrix block =
+            DoubleMatrix.createZeroMatrix(
+                rowCuts[p + 1] - rowCuts[p], columnCuts[q + 1] - columnCuts[q]);
+        for (int i = 0; i < block.rows(); i++) {
+          for (int j = 0; j < block.columns(); j++) {
+            block.set(i, j, a0.get(rowCuts[p] + i, columnCuts[q] + j));
+          }
+        }
+        blocks[p][q] = randomLayout(random, block);
+      }
+    }
+    final DoubleBlockMatrix x = DoubleBlockMatrix.of(blocks);
+    final DoubleMatrix b = randomLayout(random, b0);
+    assertSame(naiveTimes(a0, b0), x.times(b), label + " DoubleBlockMatrix.times");
+    assertSame(a0, x.materialize(), label + " DoubleBlockMatrix.materialize");
+    final int i0 = random.nextInt(m);
+    final int j0 = random.nextInt(k);
+    assertSame(a0.get(i0, j0), x.get(i0, j0), label + " DoubleBlockMatrix.get");
+    final DoubleMatrix y = DoubleMatrixTest.Test.randomMatrix(random, m, 2);
+    assertSame(
+        naiveTimes(naiveTranspose(a0), y), x.trs().times(y), label + " DoubleBlockMatrix.trs");
+    assertSame(a0, x.materialize(), label + " 積の後のブロック");
+  }
+
+  /** 0とnを含み，狭義単調増加な区切りの位置をランダムに生成します。 */
+  private static int[] randomCuts(Random random, int n) {
+    final int pieces = 1 + random.nextInt(Math.min(n, 3));
+    java.util.TreeSet<Integer> cuts = new java.util.TreeSet<>();
+    cuts.add(0);
+    cuts.add(n);
+    while (cuts.size() < pieces + 1) {
+      cuts.add(1 + random.nextInt(n - 1));
+    }
+    return cuts.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * 1つの行列を複数のスレッドから同時に読み取る演算を比較します。<br>
+   * 行列は列の並べ替えが未反映の状態にしておき，読み取る操作が同時に並べ替えを反映しても結果が変わらないことを確認します。
+   * キャッシュされる結果(転置，LU分解，ノルム)も同時に計算し，他のスレッドが計算した結果を読んでも正しいことを確認します。
+   */
+  private static void checkConcurrentReaders(
+      Random random, ExecutorService executor, int threads, int n, String label)
+      throws Exception {
+    final DoubleMatrix a0 = DoubleMatrixTest.Test.randomMatrix(random, n, n);
+    final DoubleMatrix b0 = DoubleMatrixTest.Test.randomMatrix(random, n, 3);
+    final DoubleMatrix expected = naiveTimes(a0, b0);
+    final DoubleMatrix expectedTranspose = naiveTranspose(a0);
+    final double expectedSum = a0.sum();
+    final double expectedNorm = a0.norm1();
+    final DoubleMatrix expectedSolution = a0.solve(b0);
+    final DoubleMatrix a = pendingColumns(random, reference(a0));
+    final DoubleMatrix b = randomLayout(random, b0);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<String>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final int id = t;
+      Callable<String> reader =
+          () -> {
+            start.await();
+            switch (id % 4) {
+              case 0:
+                return a.times(b).isEqual(expected) ? null : "times";
+              case 1:
+                if (!a.solve(b).isEqual(expectedSolution)) {
+                  return "solve";
+                }
+                return a.transposed().isEqual(expectedTranspose) ? null : "transposed";
+              case 2:
+                if (a.norm1() != expectedNorm) {
+                  return "norm1";
+                }
+                return (a.sum() == expectedSum) ? null : "sum";
+              default:
+                for (int i = 0; i < n; i++) {
+                  if (a.get(i, (i + id) % n) != a0.get(i, (i + id) % n)) {
+                    return "get";
+                  }
+                }
+                return DoubleBlockMatrix.horizontal(a).times(b).isEqual(expected)
+                    ? null
+                    : "DoubleBlockMatrix.times";
+            }
+          };
+      futures.add(executor.submit(reader));
+    }
+    start.countDown();
+    for (Future<String> f : futures) {
+      final String failed = f.get();
+      assert failed == null : label + " 同時に読み取った " + failed + " の結果が異なります";
+    }
+    assertSame(a0, a, label + " 同時に読み取った後の行列");
+  }
+
+  public static void main(String[] args) throws Exception {
+    checkEnableAssertions();
+    final long seed = Long.getLong("seed", 50);
+    final int trials = Integer.getInteger("trials", 60);
+    Random random = new Random(seed);
+    System.err.println("seed = " + seed + ", trials = " + trials);
+
+    // 閾値の前後の型
+    for (int[] shape : EDGE_SHAPES) {
+      final String label = String.format("[seed=%d (%d,%d)]", seed, shape[0], shape[1]);
+      checkShape(random, shape[0], shape[1], label);
+      if ((long) shape[0] * shape[1] <= 4097) {
+        checkProduct(random, shape[0], shape[1], 1 + random.nextInt(5), label);
+        checkProduct(random, shape[1], shape[0], 1 + random.nextInt(5), label);
+      }
+    }
+    // 行列とベクトルの積が並列に計算される大きさ
+    checkProduct(random, 256, 256, 2, String.format("[seed=%d (256,256)]", seed));
+    checkProduct(random, 255, 257, 1, String.format("[seed=%d (255,257)]", seed));
+    checkProduct(random, 1, 300, 257, String.format("[seed=%d (1,300,257)]", seed));
+    checkSquare(random, 1, String.format("[seed=%d n=1]", seed));
+    checkSquare(random, 2, String.format("[seed=%d n=2]", seed));
+    checkSquare(random, 64, String.format("[seed=%d n=64]", seed));
+
+    // ブロック行列の積が並列に計算される大きさ
+    checkBlock(random, 300, 40, 8, String.format("[seed=%d (300,40,8)]", seed));
+
+    // ランダムな型
+    for (int t = 0; t < trials; t++) {
+      final int m = 1 + random.nextInt(40);
+      final int k = 1 + random.nextInt(40);
+      final int n = 1 + random.nextInt(40);
+      final String label = String.format("[seed=%d trial=%d (%d,%d,%d)]", seed, t, m, k, n);
+      checkShape(random, m, k, label);
+      checkProduct(random, m, k, n, label);
+      checkSquare(random, m, label);
+      checkWorkspace(random, m, k, n, label);
+      checkBlock(random, m, k, n, label);
+    }
+
+    // 複数のスレッドからの同時の読み取り
+    final int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      // 大きい行列は並べ替えの反映に時間がかかり，途中で他のスレッドが読み取る機会が多い
+      for (int t = 0; t < trials / 4; t++) {
+        final int n = (t % 3 == 0) ? 1 + random.nextInt(40) : 600 + random.nextInt(400);
+        checkConcurrentReaders(
+            random, executor, threads, n, String.format("[seed=%d trial=%d n=%d]", seed, t, n));
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class DoubleMatrixDifferentialTest
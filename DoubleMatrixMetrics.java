@@ -0,0 +1,340 @@
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DoubleMatrixの各演算の呼び出し回数，行列の型，実行時間，確保したメモリ量，達成したGFLOP/sを計測するクラスです。<br>
+ * <br>
+ * 計測は既定では無効になっており，無効の間は各演算でvolatileなフラグを1回読む以外の処理は行われません。<br>
+ * enable()を呼び出すか，システムプロパティjamaca.metricsをtrueにしてJVMを起動すると計測が有効になります。<br>
+ * 計測結果はsnapshot()で取得できるほか，JDK Flight Recorderが動作している場合はDoubleMatrixOperationEventとしても記録されます。
+ *
+ * <pre>{@code
+ * DoubleMatrixMetrics.enable();
+ * a.times(b);
+ * DoubleMatrixMetrics.Stats stats = DoubleMatrixMetrics.snapshot().get("times");
+ * System.out.println(stats.calls() + " " + stats.gflops());
+ * }</pre>
+ *
+ * @author mpp
+ * @see DoubleMatrixOperationEvent
+ */
+public final class DoubleMatrixMetrics {
+
+  /** 計測が有効ならtrueです。 */
+  private static volatile boolean enabled = Boolean.getBoolean("jamaca.metrics");
+
+  /** 演算の名前と，その演算の計測値の対応です。 */
+  private static final ConcurrentHashMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+
+  /** インスタンスを生成させないためのコンストラクタです。 */
+  private DoubleMatrixMetrics() {}
+
+  /** 計測を有効にします。 */
+  public static void enable() {
+    enabled = true;
+  }
+
+  /** 計測を無効にします。それまでの計測値は保持されます。 */
+  public static void disable() {
+    enabled = false;
+  }
+
+  /**
+   * 計測が有効かどうかを返します。
+   *
+   * @return 計測が有効ならtrue
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /** それまでの計測値をすべて破棄します。 */
+  public static void reset() {
+    COUNTERS.clear();
+  }
+
+  /**
+   * 現時点の計測値を，演算の名前の順に並べて返します。
+   *
+   * @return 演算の名前と計測値の対応(変更不可)
+   */
+  public static Map<String, Stats> snapshot() {
+    TreeMap<String, Stats> result = new TreeMap<>();
+    COUNTERS.forEach((name, counter) -> result.put(name, counter.toStats(name)));
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * 演算の計測を開始します。計測が無効の場合は何も行わずにnullを返します。
+   *
+   * @param operation 演算の名前
+   * @return 計測中の演算を表すオブジェクト(計測が無効の場合はnull)
+   */
+  static Probe begin(String operation) {
+    return enabled ? new Probe(operation) : null;
+  }
+
+  /**
+   * 演算の計測を終了し，計測値を記録します。probeがnullの場合は何も行いません。
+   *
+   * @param probe begin(String)の戻り値
+   * @param rows 結果(または演算の対象)の行列の行数
+   * @param columns 結果(または演算の対象)の行列の列数
+   * @param inner 行列の積の内側の次元(積以外の演算では0)
+   * @param bytesAllocated 結果を格納するために確保した配列の大きさ
+   * @param flops 浮動小数点演算の回数
+   */
+  static void end(
+      Probe probe, int rows, int columns, int inner, long bytesAllocated, long flops) {
+    if (probe == null) {
+      return;
+    }
+
+    final long elapsed = System.nanoTime() - probe.start;
+    COUNTERS
+        .computeIfAbsent(probe.operation, k -> new Counter())
+        .add(rows, columns, elapsed, bytesAllocated, flops);
+
+    DoubleMatrixOperationEvent event = probe.event;
+    event.end();
+    if (event.shouldCommit()) {
+      event.operation = probe.operation;
+      event.rows = rows;
+      event.columns = columns;
+      event.inner = inner;
+      event.bytesAllocated = bytesAllocated;
+      event.flops = flops;
+      event.commit();
+    }
+  }
+
+  /** 計測中の演算を表すクラスです。 */
+  static final class Probe {
+
+    /** 演算の名前です。 */
+    private final String operation;
+
+    /** 演算を開始した時刻(ナノ秒)です。 */
+    private final long start;
+
+    /** JFRに記録するイベントです。 */
+    private final DoubleMatrixOperationEvent event;
+
+    /**
+     * 演算の計測を開始します。
+     *
+     * @param operation 演算の名前
+     */
+    private Probe(String operation) {
+      this.operation = operation;
+      this.event = new DoubleMatrixOperationEvent();
+      this.event.begin();
+      this.start = System.nanoTime();
+    }
+  }
+
+  /** 1つの演算の計測値を，複数のスレッドから同時に加算できるように保持するクラスです。 */
+  private static final class Counter {
+
+    /** 呼び出し回数です。 */
+    private final LongAdder calls = new LongAdder();
+
+    /** 実行時間の合計(ナノ秒)です。 */
+    private final LongAdder nanos = new LongAdder();
+
+    /** 確保した配列の大きさの合計(バイト)です。 */
+    private final LongAdder bytes = new LongAdder();
+
+    /** 浮動小数点演算の回数の合計です。 */
+    private final LongAdder flops = new LongAdder();
+
+    /** 行列の行数の最大値です。 */
+    private final LongAccumulator maxRows = new LongAccumulator(Math::max, 0);
+
+    /** 行列の列数の最大値です。 */
+    private final LongAccumulator maxColumns = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 演算1回分の計測値を加算します。
+     *
+     * @param rows 行列の行数
+     * @param columns 行列の列数
+     * @param nanos 実行時間(ナノ秒)
+     * @param bytes 確保した配列の大きさ(バイト)
+     * @param flops 浮動小数点演算の回数
+     */
+    void add(int rows, int columns, long nanos, long bytes, long flops) {
+      this.calls.increment();
+      this.nanos.add(nanos);
+      this.bytes.add(bytes);
+      this.flops.add(flops);
+      this.maxRows.accumulate(rows);
+      this.maxColumns.accumulate(columns);
+    }
+
+    /**
+     * 現時点の計測値を返します。
+     *
+     * @param operation 演算の名前
+     * @return 計測値
+     */
+    Stats toStats(String operation) {
+      return (new Stats(
+          operation,
+          this.calls.sum(),
+          this.nanos.sum(),
+          this.bytes.sum(),
+          this.flops.sum(),
+          (int) this.maxRows.get(),
+          (int) this.maxColumns.get()));
+    }
+  }
+
+  /** 1つの演算の計測値を表すクラスです。 */
+  public static final class Stats {
+
+    /** 演算の名前です。 */
+    private final String operation;
+
+    /** 呼び出し回数です。 */
+    private final long calls;
+
+    /** 実行時間の合計(ナノ秒)です。 */
+    private final long nanos;
+
+    /** 確保した配列の大きさの合計(バイト)です。 */
+    private final long bytesAllocated;
+
+    /** 浮動小数点演算の回数の合計です。 */
+    private final long flops;
+
+    /** 行列の行数の最大値です。 */
+    private final int maxRows;
+
+    /** 行列の列数の最大値です。 */
+    private final int maxColumns;
+
+    /**
+     * 計測値を生成します。
+     *
+     * @param operation 演算の名前
+     * @param calls 呼び出し回数
+     * @param nanos 実行時間の合計(ナノ秒)
+     * @param bytesAllocated 確保した配列の大きさの合計(バイト)
+     * @param flops 浮動小数点演算の回数の合計
+     * @param maxRows 行列の行数の最大値
+     * @param maxColumns 行列の列数の最大値
+     */
+    private Stats(
+        String operation,
+        long calls,
+        long nanos,
+        long bytesAllocated,
+        long flops,
+        int maxRows,
+        int maxColumns) {
+      this.operation = operation;
+      this.calls = calls;
+      this.nanos = nanos;
+      this.bytesAllocated = bytesAllocated;
+      this.flops = flops;
+      this.maxRows = maxRows;
+      this.maxColumns = maxColumns;
+    }
+
+    /**
+     * 演算の名前を返します。
+     *
+     * @return 演算の名前
+     */
+    public String operation() {
+      return this.operation;
+    }
+
+    /**
+     * 呼び出し回数を返します。
+     *
+     * @return 呼び出し回数
+     */
+    public long calls() {
+      return this.calls;
+    }
+
+    /**
+     * 実行時間の合計をナノ秒単位で返します。
+     *
+     * @return 実行時間の合計(ナノ秒)
+     */
+    public long totalNanos() {
+      return this.nanos;
+    }
+
+    /**
+     * 確保した配列の大きさの合計をバイト単位で返します。
+     *
+     * @return 確保した配列の大きさの合計(バイト)
+     */
+    public long bytesAllocated() {
+      return this.bytesAllocated;
+    }
+
+    /**
+     * 浮動小数点演算の回数の合計を返します。
+     *
+     * @return 浮動小数点演算の回数の合計
+     */
+    public long flops() {
+      return this.flops;
+    }
+
+    /**
+     * 計測された行列の行数の最大値を返します。
+     *
+     * @return 行数の最大値
+     */
+    public int maxRows() {
+      return this.maxRows;
+    }
+
+    /**
+     * 計測された行列の列数の最大値を返します。
+     *
+     * @return 列数の最大値
+     */
+    public int maxColumns() {
+      return this.maxColumns;
+    }
+
+    /**
+     * 達成した演算性能(GFLOP/s)を返します。実行時間が0の場合は0を返します。
+     *
+     * @return 浮動小数点演算の回数の合計 / 実行時間の合計(10^9回/秒)
+     */
+    public double gflops() {
+      return (this.nanos == 0) ? 0 : (double) this.flops / this.nanos;
+    }
+
+    /**
+     * 計測値の文字列表現を返します。
+     *
+     * @return 計測値の文字列表現
+     */
+    @Override
+    public String toString() {
+      return String.format(
+          "%s: calls=%d, time=%.3fms, allocated=%dB, flops=%d (%.3f GFLOP/s), max shape=(%d,%d)",
+          this.operation,
+          this.calls,
+          this.nanos / 1e6,
+          this.bytesAllocated,
+          this.flops,
+          this.gflops(),
+          this.maxRows,
+          this.maxColumns);
+    }
+  }
+}
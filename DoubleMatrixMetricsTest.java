@@ -0,0 +1,132 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+// Usage: java -ea DoubleMatrixMetricsTest
+public class DoubleMatrixMetricsTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    checkEnableAssertions();
+
+    DoubleMatrix a = DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6);
+    DoubleMatrix b = DoubleMatrix.of(3, 4, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+
+    { // 計測が無効の間は何も記録されないことを確認
+      DoubleMatrixMetrics.disable();
+      DoubleMatrixMetrics.reset();
+      assert !DoubleMatrixMetrics.isEnabled();
+
+      a.times(b);
+      a.plus(a);
+      assert DoubleMatrixMetrics.snapshot().isEmpty();
+    } // end of block
+
+    { // 計測値の確認
+      DoubleMatrixMetrics.enable();
+      assert DoubleMatrixMetrics.isEnabled();
+
+      a.times(b);
+      a.times(b);
+      a.plus(a);
+      a.trs();
+      DoubleMatrix c = DoubleMatrix.from(a).add(a).mul(2);
+      c.times(2);
+      DoubleMatrixMetrics.disable();
+      c.sub(a);
+
+      Map<String, DoubleMatrixMetrics.Stats> snapshot = DoubleMatrixMetrics.snapshot();
+      assert snapshot.keySet().toString().equals("[add, mul, plus, times, timesScalar, trs]");
+
+      DoubleMatrixMetrics.Stats times = snapshot.get("times");
+      assert times.operation().equals("times");
+      assert times.calls() == 2;
+      assert times.flops() == 2 * (2L * 2 * 4 * 3);
+      assert times.bytesAllocated() == 2 * (2L * 4 * Double.BYTES);
+      assert times.maxRows() == 2;
+      assert times.maxColumns() == 4;
+      assert times.totalNanos() >= 0;
+      assert times.gflops() >= 0;
+
+      assert snapshot.get("plus").calls() == 1;
+      assert snapshot.get("plus").flops() == 6;
+      assert snapshot.get("trs").maxRows() == 3;
+      assert snapshot.get("add").bytesAllocated() == 0;
+      assert !snapshot.containsKey("sub");
+
+      DoubleMatrixMetrics.reset();
+      assert DoubleMatrixMetrics.snapshot().isEmpty();
+      assert snapshot.get("times").calls() == 2; // スナップショットはリセットの影響を受けない
+    } // end of block
+
+    { // 分解結果を再利用した求解では，分解の演算回数を計上しないことを確認
+      DoubleMatrix s = DoubleMatrix.of(3, 3, 4, 1, 0, 1, 4, 1, 0, 1, 4);
+      DoubleMatrix y = DoubleMatrix.createColumnVector(1, 2, 3);
+      DoubleMatrixMetrics.enable();
+      s.solve(y);
+      final long first = DoubleMatrixMetrics.snapshot().get("solve").flops();
+      s.solve(y);
+      final long second = DoubleMatrixMetrics.snapshot().get("solve").flops() - first;
+      DoubleMatrixMetrics.disable();
+      DoubleMatrixMetrics.reset();
+
+      assert first == 2 * 27 / 3 + 2 * 9;
+      assert second == 2 * 9;
+    } // end of block
+
+    { // ファイル入出力の計測値の確認
+      DoubleMatrixMetrics.enable();
+      DoubleMatrix.writeToFile(a, "tmp/metrics.dat");
+      DoubleMatrix d = DoubleMatrix.readFromFile("tmp/metrics.dat");
+      DoubleMatrixMetrics.disable();
+
+      assert d.isEqual(a);
+      Map<String, DoubleMatrixMetrics.Stats> snapshot = DoubleMatrixMetrics.snapshot();
+      assert snapshot.get("writeToFile").calls() == 1;
+      assert snapshot.get("readFromFile").calls() == 1;
+      assert snapshot.get("readFromFile").bytesAllocated() == 6 * Double.BYTES;
+      DoubleMatrixMetrics.reset();
+    } // end of block
+
+    { // JDK Flight Recorderのイベントとして記録されることを確認
+      Path file = Paths.get("tmp/metrics.jfr");
+      try (Recording recording = new Recording()) {
+        recording.enable(DoubleMatrixOperationEvent.class);
+        recording.start();
+        DoubleMatrixMetrics.enable();
+        a.times(b);
+        DoubleMatrixMetrics.disable();
+        a.times(b);
+        recording.stop();
+        recording.dump(file);
+      }
+
+      int count = 0;
+      for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+        if (event.getEventType().getName().equals("jamaca.DoubleMatrixOperation")) {
+          assert event.getString("operation").equals("times");
+          assert event.getInt("rows") == 2;
+          assert event.getInt("columns") == 4;
+          assert event.getInt("inner") == 3;
+          assert event.getLong("flops") == 48;
+          count++;
+        }
+      }
+      assert count == 1;
+      DoubleMatrixMetrics.reset();
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class DoubleMatrixMetricsTest
@@ -0,0 +1,46 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * DoubleMatrixの演算1回分を表すJDK Flight Recorderのイベントです。<br>
+ * DoubleMatrixMetricsによる計測が有効で，かつこのイベントがJFRの設定で有効になっている場合に記録されます。
+ *
+ * @author mpp
+ * @see DoubleMatrixMetrics
+ */
+@Name("jamaca.DoubleMatrixOperation")
+@Label("DoubleMatrix Operation")
+@Category({"JaMaCa", "Matrix"})
+@Description("DoubleMatrixの演算1回分の実行時間，行列の型，確保したメモリ量，浮動小数点演算の回数")
+@StackTrace(false)
+public final class DoubleMatrixOperationEvent extends jdk.jfr.Event {
+
+  /** 演算の名前です。 */
+  @Label("Operation")
+  String operation;
+
+  /** 結果(または演算の対象)の行列の行数です。 */
+  @Label("Rows")
+  int rows;
+
+  /** 結果(または演算の対象)の行列の列数です。 */
+  @Label("Columns")
+  int columns;
+
+  /** 行列の積の内側の次元です。積以外の演算では0です。 */
+  @Label("Inner Dimension")
+  int inner;
+
+  /** 演算の結果を格納するために確保した配列の大きさです。 */
+  @Label("Bytes Allocated")
+  @DataAmount
+  long bytesAllocated;
+
+  /** 演算に要した浮動小数点演算の回数です。 */
+  @Label("Floating-point Operations")
+  long flops;
+}
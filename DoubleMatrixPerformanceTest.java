@@ -0,0 +1,173 @@
+// Usage: java -Djava.util.concurrent.ForkJoinPool.common.parallelism=0
+//            [-Dperf.baseline=<file>] [-Dperf.threshold=<ratio>] [-Dperf.update=true]
+//            DoubleMatrixPerformanceTest
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 主な演算の実行時間が，記録済みのベースラインから閾値を超えて遅くなっていないことを確認するテストです。<br>
+ * 実行時間はマシンによって異なるため，各演算の実行時間を，同じ実行の中で測定した素朴な三重ループの積の実行時間で割った比を記録し，比較します。
+ * 比がベースラインの値のthreshold倍(既定値は2)を超えた演算があれば失敗します。<br>
+ * 基準の積は1つのスレッドで計算するため，並列に計算する演算(times，gemv，plus，solveなど)の比はコア数によって変わります。
+ * そのため，共通のForkJoinPoolの並列度を0(呼び出したスレッドだけで計算する)にして実行する必要があり，
+ * そうでない場合は失敗します。ベースラインには，記録したマシンのプロセッサ数も記録します。<br>
+ * ベースライン(既定ではリポジトリのperf-baseline.txt)がない場合は失敗します。
+ * -Dperf.update=trueを指定した場合は，比較せずに測定した比をベースラインとして書き込みます。
+ */
+public class DoubleMatrixPerformanceTest {
+
+  /** 測定前に実行する回数です。 */
+  private static final int WARMUP = 5;
+
+  /** 測定する回数です。他の処理の影響を受けにくい最小値を使用します。 */
+  private static final int RUNS = 15;
+
+  /** 共通のForkJoinPoolの並列度を指定するシステムプロパティです。 */
+  private static final String PARALLELISM = "java.util.concurrent.ForkJoinPool.common.parallelism";
+
+  /** 結果が最適化で取り除かれないようにするための値です。 */
+  private static double sink;
+
+  /** 処理の実行時間の最小値(ナノ秒)を測定します。 */
+  private static long measure(Supplier<Object> task) {
+    for (int r = 0; r < WARMUP; r++) {
+      sink += task.get().hashCode();
+    }
+    long[] times = new long[RUNS];
+    for (int r = 0; r < RUNS; r++) {
+      final long start = System.nanoTime();
+      sink += task.get().hashCode();
+      times[r] = System.nanoTime() - start;
+    }
+    return Arrays.stream(times).min().getAsLong();
+  }
+
+  /** 基準となる素朴な三重ループの積です。 */
+  private static double[][] naiveTimes(double[][] a, double[][] b) {
+    final int n = a.length;
+    final int m = b[0].length;
+    double[][] c = new double[n][m];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < m; j++) {
+        double sum = 0;
+        for (int k = 0; k < b.length; k++) {
+          sum += a[i][k] * b[k][j];
+        }
+        c[i][j] = sum;
+      }
+    }
+    return c;
+  }
+
+  public static void main(String[] args) throws IOException {
+    final Path baselinePath = Paths.get(System.getProperty("perf.baseline", "perf-baseline.txt"));
+    final double threshold = Double.parseDouble(System.getProperty("perf.threshold", "2"));
+    final boolean update = Boolean.getBoolean("perf.update");
+    // 並列度1では呼び出したスレッドとワーカーの2つで計算するため，0を指定させる
+    if (!"0".equals(System.getProperty(PARALLELISM))) {
+      throw new AssertionError(
+          "並列に計算する演算の比がコア数によって変わるため，-D" + PARALLELISM + "=0を指定して実行してください");
+    }
+    final int processors = Runtime.getRuntime().availableProcessors();
+    Random random = new Random(50);
+    DoubleSupplier entries = () -> random.nextDouble() - 0.5;
+
+    final DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(entries, 256, 256);
+    final DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(entries, 256, 256);
+    final DoubleMatrix big = DoubleMatrixTest.Test.randomMatrix(entries, 1024, 1024);
+    final DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(entries, 1024, 1);
+    final DoubleMatrix small = DoubleMatrixTest.Test.randomMatrix(entries, 32, 32);
+    final DoubleMatrix spd =
+        a.transposed().times(a).plus(DoubleMatrix.createIdentityMatrix(256));
+    final double[][] ra = DoubleMatrixTest.Test.randomMatrix(entries, 128, 128).array();
+    final double[][] rb = DoubleMatrixTest.Test.randomMatrix(entries, 128, 128).array();
+
+    long reference = measure(() -> naiveTimes(ra, rb));
+    Map<String, Supplier<Object>> kernels = new LinkedHashMap<>();
+    kernels.put("times", () -> a.times(b));
+    kernels.put("gemv", () -> big.times(x));
+    kernels.put("plus", () -> big.plus(big));
+    kernels.put("transposed", () -> DoubleMatrix.from(big).transposed());
+    kernels.put("sum", () -> big.map(v -> v).sum());
+    kernels.put("columnSums", () -> big.map(v -> v).columnSums());
+    kernels.put("solve", () -> DoubleMatrix.from(spd).solve(b));
+    kernels.put("cholesky", () -> CholeskyDecomposition.of(spd).solve(b));
+    kernels.put("kronecker", () -> small.kronecker(small));
+    kernels.put("expm", () -> a.times(0.01).expm());
+
+    Properties baseline = new Properties();
+    if (!update) {
+      if (!Files.exists(baselinePath)) {
+        throw new AssertionError(
+            "ベースラインがありません: " + baselinePath + " (-Dperf.update=trueで記録してください)");
+      }
+      try (BufferedReader reader = Files.newBufferedReader(baselinePath, StandardCharsets.UTF_8)) {
+        baseline.load(reader);
+      }
+    }
+
+    // 基準の測定の揺らぎがすべての比に影響しないように，最後にもう一度測定して小さい方を使用する
+    Map<String, Long> times = new LinkedHashMap<>();
+    for (Map.Entry<String, Supplier<Object>> kernel : kernels.entrySet()) {
+      times.put(kernel.getKey(), measure(kernel.getValue()));
+    }
+    reference = Math.min(reference, measure(() -> naiveTimes(ra, rb)));
+
+    StringBuilder measured = new StringBuilder();
+    measured.append("# DoubleMatrixPerformanceTest: 素朴な積の実行時間に対する比(1スレッドで測定)\n");
+    measured.append(String.format("processors=%d%n", processors));
+    boolean failed = false;
+    System.err.printf("基準(128 * 128の素朴な積): %.3f ms%n", reference / 1e6);
+    if (!update) {
+      System.err.printf(
+          "プロセッサ数: %d (ベースライン %s)%n",
+          processors, baseline.getProperty("processors", "記録なし"));
+    }
+    for (Map.Entry<String, Long> entry : times.entrySet()) {
+      final String name = entry.getKey();
+      final long time = entry.getValue();
+      final double ratio = (double) time / reference;
+      measured.append(String.format("%s=%.4f%n", name, ratio));
+
+      if (update) {
+        System.err.printf("%-12s %9.3f ms  比 %.4f%n", name, time / 1e6, ratio);
+        continue;
+      }
+      final String stored = baseline.getProperty(name);
+      if (stored == null) {
+        System.err.printf("%-12s %9.3f ms  比 %.4f  <-- ベースラインがありません%n", name, time / 1e6, ratio);
+        failed = true;
+        continue;
+      }
+      final double limit = Double.parseDouble(stored) * threshold;
+      final boolean regressed = ratio > limit;
+      failed |= regressed;
+      System.err.printf(
+          "%-12s %9.3f ms  比 %.4f (ベースライン %s，上限 %.4f)%s%n",
+          name, time / 1e6, ratio, stored, limit, regressed ? "  <-- 遅くなっています" : "");
+    }
+
+    if (update) {
+      Files.write(baselinePath, measured.toString().getBytes(StandardCharsets.UTF_8));
+      System.err.println("ベースラインを記録しました: " + baselinePath);
+    }
+    if (failed) {
+      throw new AssertionError(
+          String.format("ベースラインの%.1f倍を超えて遅くなった演算，またはベースラインのない演算があります", threshold));
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class DoubleMatrixPerformanceTest
@@ -0,0 +1,106 @@
+import java.util.stream.DoubleStream;
+
+/**
+ * ある時点のDoubleMatrixの成分を保持する，変更できない行列を表すクラスです。<br>
+ * DoubleMatrix.snapshot()で生成します。成分は元の行列と共有しますが，元の行列は変更する前に該当する行をコピーするため，
+ * スナップショットの成分が変わることはありません。<br>
+ * 変更する操作を持たないため，同期やコピーを行わずに複数のスレッドから参照できます。
+ * 演算を行う場合は，toDoubleMatrix()で(成分をコピーせずに)DoubleMatrixに変換してください。
+ *
+ * <pre>{@code
+ * DoubleMatrixSnapshot weights = model.snapshot(); // 行列の大きさによらず定数時間
+ * for (Worker w : workers) {
+ *   w.submit(x -> weights.toDoubleMatrix().times(x));
+ * }
+ * model.add(gradient); // 更新する行だけがコピーされ，weightsは変わらない
+ * }</pre>
+ *
+ * @author mpp
+ * @see DoubleMatrix#snapshot()
+ */
+public final class DoubleMatrixSnapshot {
+
+  /** 成分を保持する行列です。この行列は変更しません。 */
+  private final DoubleMatrix matrix;
+
+  /**
+   * スナップショットを生成します。
+   *
+   * @param matrix 成分を保持する行列(他から参照されていないもの)
+   */
+  DoubleMatrixSnapshot(DoubleMatrix matrix) {
+    this.matrix = matrix;
+  }
+
+  /**
+   * 行数を返します。
+   *
+   * @return 行数
+   */
+  public int rows() {
+    return this.matrix.rows();
+  }
+
+  /**
+   * 列数を返します。
+   *
+   * @return 列数
+   */
+  public int columns() {
+    return this.matrix.columns();
+  }
+
+  /**
+   * サイズ(rows * columnsの計算結果)を返します。
+   *
+   * @return サイズ
+   */
+  public int size() {
+    return this.matrix.size();
+  }
+
+  /**
+   * (i, j)成分を返します。
+   *
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public double get(int i, int j) {
+    return this.matrix.get(i, j);
+  }
+
+  /**
+   * 全ての成分を，左上から右下にかけて行優先の順に並べたストリームを返します。
+   *
+   * @return 成分のストリーム
+   * @see DoubleMatrix#entries()
+   */
+  public DoubleStream entries() {
+    return this.matrix.entries();
+  }
+
+  /**
+   * スナップショットと同じ成分を持つDoubleMatrixを返します。<br>
+   * 成分はコピーせずに共有するため，計算量は行列の大きさによりません。
+   * 返された行列を変更しても，変更する行だけがコピーされるため，スナップショットは変わりません。
+   *
+   * @return スナップショットと同じ成分を持つ行列
+   * @see DoubleMatrix#from(DoubleMatrix)
+   */
+  public DoubleMatrix toDoubleMatrix() {
+    return DoubleMatrix.from(this.matrix);
+  }
+
+  /**
+   * スナップショットの文字列表現を返します。形式はDoubleMatrix.toString()と同じです。
+   *
+   * @return 文字列表現
+   * @see DoubleMatrix#toString()
+   */
+  @Override
+  public String toString() {
+    return this.matrix.toString();
+  }
+}
@@ -0,0 +1,155 @@
+// Usage: java -ea DoubleMatrixSnapshotTest
+public class DoubleMatrixSnapshotTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    checkEnableAssertions();
+    java.util.Random random = new java.util.Random(47);
+
+    { // from(DoubleMatrix)が配列を共有し，変更した側だけに反映されることを確認
+      DoubleMatrix a = DoubleMatrix.of(3, 2, 1, 2, 3, 4, 5, 6);
+      DoubleMatrix b = DoubleMatrix.from(a);
+      assert b != a && b.isEqual(a);
+      assert b.array() == a.array();
+
+      b.set(1, 0, 30);
+      assert a.get(1, 0) == 3 && b.get(1, 0) == 30;
+      // 変更していない行は共有したまま
+      assert a.array()[0] == b.array()[0] && a.array()[2] == b.array()[2];
+      assert a.array()[1] != b.array()[1];
+
+      a.set(0, 1, 20);
+      assert a.isEqual(DoubleMatrix.of(3, 2, 1, 20, 3, 4, 5, 6));
+      assert b.isEqual(DoubleMatrix.of(3, 2, 1, 2, 30, 4, 5, 6));
+    }
+
+    { // 一部の行だけを共有している行列のコピーを変更しても，他の行列が変わらないことを確認
+      DoubleMatrix a = DoubleMatrix.of(2, 1, 1, 2);
+      DoubleMatrix b = DoubleMatrix.from(a);
+      b.set(0, 0, 10);
+      DoubleMatrix c = DoubleMatrix.from(b);
+      c.add(DoubleMatrix.of(2, 1, 100, 100));
+      assert a.isEqual(DoubleMatrix.of(2, 1, 1, 2));
+      assert b.isEqual(DoubleMatrix.of(2, 1, 10, 2));
+      assert c.isEqual(DoubleMatrix.of(2, 1, 110, 102));
+    }
+
+    { // 行列全体を変更する演算と，行と列の並べ替えの動作確認
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, 5, 4);
+      DoubleMatrix original = DoubleMatrix.of(5, 4, a.entries().toArray());
+      DoubleMatrix[] copies = new DoubleMatrix[9];
+      for (int k = 0; k < copies.length; k++) {
+        copies[k] = DoubleMatrix.from(a);
+      }
+      DoubleMatrix one = DoubleMatrix.createZeroMatrix(5, 4).apply(x -> 1);
+      copies[0].add(one);
+      copies[1].sub(one);
+      copies[2].mul(2);
+      copies[3].apply(x -> -x);
+      copies[4].hadamardInPlace(one.times(2));
+      copies[5].rank1Update(
+          1,
+          DoubleMatrix.createColumnVector(1, 0, 0, 0, 1),
+          DoubleMatrix.createColumnVector(1, 2, 3, 4));
+      copies[6].swapRows(0, 4).set(0, 0, 100);
+      copies[7].permuteRows(4, 3, 2, 1, 0).swapColumns(0, 3);
+      copies[8].permuteColumns(3, 2, 1, 0).set(2, 1, 100);
+      assert a.isEqual(original);
+      for (DoubleMatrix c : copies) {
+        assert !c.isEqual(original);
+      }
+      assert copies[2].isEqual(original.times(2));
+      assert copies[6].get(4, 0) == original.get(0, 0);
+      assert copies[6].get(0, 0) == 100 && copies[6].get(0, 1) == original.get(4, 1);
+      assert copies[7].get(0, 0) == original.get(4, 3);
+      assert copies[8].get(2, 1) == 100 && copies[8].get(2, 2) == original.get(2, 1);
+
+      // 元の行列を変更しても，コピーは変わらない
+      DoubleMatrix b = DoubleMatrix.from(a);
+      a.swapColumns(1, 2);
+      a.swapRows(0, 1);
+      a.add(one);
+      assert b.isEqual(original);
+      assert a.get(0, 1) == original.get(1, 2) + 1;
+
+      // 列の並べ替えが未反映の行列のコピー
+      DoubleMatrix c = DoubleMatrix.from(original);
+      c.swapColumns(0, 1);
+      DoubleMatrix d = DoubleMatrix.from(c);
+      assert d.get(0, 0) == original.get(0, 1);
+      assert c.get(0, 0) == original.get(0, 1);
+      assert original.isEqual(b);
+    }
+
+    { // 作業領域の配列を使用している行列は，従来どおりコピーすることを確認
+      DoubleMatrix kept;
+      try (DoubleMatrixWorkspace ws = DoubleMatrixWorkspace.open()) {
+        DoubleMatrix t = ws.zeros(2, 2);
+        t.set(0, 0, 7);
+        kept = DoubleMatrix.from(t);
+        assert kept.array() != t.array();
+      }
+      try (DoubleMatrixWorkspace ws = DoubleMatrixWorkspace.open()) {
+        ws.zeros(2, 2).set(0, 0, 100);
+      }
+      assert kept.isEqual(DoubleMatrix.of(2, 2, 7, 0, 0, 0));
+    }
+
+    { // スナップショットの動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6);
+      DoubleMatrixSnapshot s = a.snapshot();
+      assert s.rows() == 2 && s.columns() == 3 && s.size() == 6;
+      assert s.get(1, 2) == 6;
+      assert s.entries().sum() == 21;
+      assert s.toString().equals(a.toString());
+
+      a.set(1, 2, 60);
+      a.swapRows(0, 1);
+      a.mul(10);
+      assert s.get(1, 2) == 6 && s.get(0, 0) == 1;
+
+      DoubleMatrix t = s.toDoubleMatrix();
+      assert t.isEqual(DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6));
+      t.set(0, 0, -1);
+      assert s.get(0, 0) == 1;
+      assert s.toDoubleMatrix().get(0, 0) == 1;
+      DoubleMatrixTest.Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class, "s.get(2, 0)", () -> s.get(2, 0));
+    }
+
+    { // 複数のスレッドからスナップショットを参照しても，元の行列の変更の影響を受けないことを確認
+      final int n = 300;
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, n, n);
+      DoubleMatrixSnapshot s = a.snapshot();
+      final double expected = s.entries().sum();
+      java.util.concurrent.ExecutorService executor =
+          java.util.concurrent.Executors.newFixedThreadPool(4);
+      try {
+        java.util.List<java.util.concurrent.Future<Double>> futures = new java.util.ArrayList<>();
+        for (int k = 0; k < 8; k++) {
+          futures.add(executor.submit(() -> s.toDoubleMatrix().apply(x -> x).sum()));
+        }
+        for (int i = 0; i < n; i++) {
+          a.set(i, i, 1000);
+        }
+        a.add(a);
+        for (java.util.concurrent.Future<Double> f : futures) {
+          assert f.get() == expected;
+        }
+      } finally {
+        executor.shutdown();
+      }
+      assert s.entries().sum() == expected;
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class DoubleMatrixSnapshotTest
@@ -31,6 +31,23 @@ public class DoubleMatrixTest {
               : "    No message.");
       System.err.println("---------------------------------");
     }
+
+    // 成分が-9以上9以下のランダムな整数の行列(積や和を誤差なく計算できる)
+    static DoubleMatrix randomMatrix(java.util.Random random, int rows, int columns) {
+      return randomMatrix(() -> random.nextInt(19) - 9, rows, columns);
+    }
+
+    // 成分を行優先の順にentriesで生成した行列
+    static DoubleMatrix randomMatrix(
+        java.util.function.DoubleSupplier entries, int rows, int columns) {
+      DoubleMatrix result = DoubleMatrix.createZeroMatrix(rows, columns);
+      for (int i = 0; i < rows; i++) {
+        for (int j = 0; j < columns; j++) {
+          result.set(i, j, entries.getAsDouble());
+        }
+      }
+      return result;
+    }
   }
 
   private static void checkEnableAssertions() {
@@ -866,6 +883,653 @@ public class DoubleMatrixTest {
       assert !a.isEqual(b);
     } // end of block
 
+    { // 行列とベクトルの積の動作確認
+      DoubleMatrix a =
+          DoubleMatrix.from(
+              new double[][] {
+                {1, 2, 3},
+                {4, 5, 6},
+              });
+
+      DoubleMatrix x = DoubleMatrix.createColumnVector(1, 0, -1);
+      DoubleMatrix y = DoubleMatrix.createColumnVector(-2, -2);
+      DoubleMatrix u = DoubleMatrix.createRowVector(1, -1);
+      DoubleMatrix v = DoubleMatrix.createRowVector(-3, -3, -3);
+
+      assert a.times(x).isEqual(y);
+      assert u.times(a).isEqual(v);
+
+      DoubleMatrix z = DoubleMatrix.createColumnVector(10, 20);
+      assert a.multiplyInto(x, z, false) == z;
+      assert z.isEqual(y);
+      a.multiplyInto(x, z, true);
+      assert z.isEqual(y.times(2));
+
+      DoubleMatrix w = DoubleMatrix.createRowVector(1, 1, 1);
+      assert a.leftMultiplyInto(u, w, true) == w;
+      assert w.isEqual(DoubleMatrix.createRowVector(-2, -2, -2));
+      a.leftMultiplyInto(u, w, false);
+      assert w.isEqual(v);
+
+      Test.assertThrows(
+          ArithmeticException.class,
+          "a.multiplyInto(u, z, false)",
+          () -> a.multiplyInto(u, z, false));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "a.multiplyInto(x, w, false)",
+          () -> a.multiplyInto(x, w, false));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "a.leftMultiplyInto(x, w, false)",
+          () -> a.leftMultiplyInto(x, w, false));
+
+      // 並列に計算される大きさの行列でも，結果が一般の行列の積と一致することを確認
+      final int n = 300;
+      double[][] val = new double[n][n];
+      double[][] col = new double[n][1];
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          val[i][j] = (i * 31 + j * 17) % 11 - 5;
+        }
+        col[i][0] = i % 7 - 3;
+      }
+      DoubleMatrix b = DoubleMatrix.from(val);
+      DoubleMatrix c = DoubleMatrix.from(col);
+      DoubleMatrix expected = DoubleMatrix.createZeroMatrix(n, 1);
+      for (int i = 0; i < n; i++) {
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+          sum += b.get(i, k) * c.get(k, 0);
+        }
+        expected.set(i, 0, sum);
+      }
+      assert b.times(c).isEqual(expected);
+      assert c.trs().times(b.trs()).isEqual(expected.trs());
+    } // end of block
+
+    { // solve() の動作確認
+      DoubleMatrix a =
+          DoubleMatrix.from(
+              new double[][] {
+                {0, 2, 1},
+                {1, 1, 1},
+                {2, 1, 0},
+              });
+
+      DoubleMatrix x = DoubleMatrix.createColumnVector(1, -2, 3);
+      DoubleMatrix b = a.times(x);
+
+      DoubleMatrix y = a.solve(b);
+      DoubleMatrix inv = a.solve(DoubleMatrix.createIdentityMatrix(3));
+      DoubleMatrix e = inv.times(a).minus(DoubleMatrix.createIdentityMatrix(3));
+      for (int i = 0; i < 3; i++) {
+        assert Math.abs(y.get(i, 0) - x.get(i, 0)) < 1e-12;
+        for (int j = 0; j < 3; j++) {
+          assert Math.abs(e.get(i, j)) < 1e-12;
+        }
+      }
+
+      DoubleMatrix s = DoubleMatrix.of(2, 2, 1, 2, 2, 4);
+      DoubleMatrix t = DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6);
+      Test.assertThrows(ArithmeticException.class, "s.solve(b)", () -> s.solve(b));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "s.solve(DoubleMatrix.createColumnVector(1, 1))",
+          () -> s.solve(DoubleMatrix.createColumnVector(1, 1)));
+      Test.assertThrows(ArithmeticException.class, "t.solve(x)", () -> t.solve(x));
+    } // end of block
+
+    { // 導出結果のキャッシュの動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 3, 1, -2, 3, -4, 5, -6);
+      int v0 = a.version();
+
+      DoubleMatrix t1 = a.transposed();
+      assert t1 == a.transposed();
+      assert t1.isEqual(a.trs());
+      assert a.trs() != a.trs();
+      assert a.norm1() == 9;
+      assert a.normInf() == 15;
+      assert a.normFrobenius() == Math.sqrt(91);
+      assert a.version() == v0;
+
+      a.set(0, 0, 7);
+      assert a.version() != v0;
+      assert a.transposed() != t1;
+      assert a.transposed().get(0, 0) == 7;
+      assert a.norm1() == 11;
+      assert a.normInf() == 15;
+
+      int v1 = a.version();
+      a.swapRows(1, 1);
+      assert a.version() == v1;
+      a.swapRows(0, 1);
+      assert a.version() != v1;
+      assert a.transposed().isEqual(a.trs());
+
+      // 共有された転置行列が変更された場合は計算し直す
+      DoubleMatrix t2 = a.transposed();
+      t2.set(0, 0, 100);
+      assert a.transposed() != t2;
+      assert a.transposed().isEqual(a.trs());
+
+      // 作業領域の中で生成した転置行列は，作業領域を閉じた後も有効
+      DoubleMatrix m = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      DoubleMatrix t3;
+      DoubleMatrixWorkspace scope = DoubleMatrixWorkspace.open();
+      try {
+        t3 = m.transposed();
+      } finally {
+        scope.close();
+      }
+      scope = DoubleMatrixWorkspace.open();
+      try {
+        scope.zeros(2, 2).set(0, 0, 9).set(1, 1, 9);
+      } finally {
+        scope.close();
+      }
+      assert m.transposed() == t3;
+      assert t3.isEqual(DoubleMatrix.of(2, 2, 1, 3, 2, 4));
+
+      DoubleMatrix s = DoubleMatrix.of(2, 2, 1, 2, 2, 1);
+      assert s.isSymmetric();
+      s.add(DoubleMatrix.of(2, 2, 0, 1, 0, 0));
+      assert !s.isSymmetric();
+      s.sub(DoubleMatrix.of(2, 2, 0, 1, 0, 0));
+      assert s.isSymmetric();
+
+      LUDecomposition lu = s.lu();
+      assert lu == s.lu();
+      s.mul(2);
+      assert lu != s.lu();
+      assert s.lu().determinant() == -12;
+
+      DoubleMatrix y = DoubleMatrix.createColumnVector(1, 1);
+      int v2 = y.version();
+      s.multiplyInto(DoubleMatrix.createColumnVector(1, 0), y, false);
+      assert y.version() != v2;
+    } // end of block
+
+    { // Cholesky分解の動作確認
+      DoubleMatrix a =
+          DoubleMatrix.from(
+              new double[][] {
+                {4, 12, -16},
+                {12, 37, -43},
+                {-16, -43, 98},
+              });
+
+      CholeskyDecomposition chol = a.cholesky();
+      assert chol == a.cholesky();
+      assert chol.order() == 3;
+      assert chol.lower().isEqual(DoubleMatrix.of(3, 3, 2, 0, 0, 6, 1, 0, -8, 5, 3));
+      assert chol.lower().times(chol.lower().trs()).isEqual(a);
+      assert chol.determinant() == 36;
+
+      DoubleMatrix x = DoubleMatrix.createColumnVector(1, -2, 3);
+      DoubleMatrix y = chol.solve(a.times(x));
+      for (int i = 0; i < 3; i++) {
+        assert Math.abs(y.get(i, 0) - x.get(i, 0)) < 1e-12;
+      }
+
+      DoubleMatrix n = DoubleMatrix.of(2, 2, 1, 2, 2, 1);
+      DoubleMatrix u = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      Test.assertThrows(ArithmeticException.class, "n.cholesky()", () -> n.cholesky());
+      Test.assertThrows(ArithmeticException.class, "u.cholesky()", () -> u.cholesky());
+      Test.assertThrows(
+          ArithmeticException.class,
+          "chol.solve(DoubleMatrix.createColumnVector(1, 1))",
+          () -> chol.solve(DoubleMatrix.createColumnVector(1, 1)));
+    } // end of block
+
+    { // ストリームの動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6);
+      assert java.util.Arrays.equals(a.entries().toArray(), new double[] {1, 2, 3, 4, 5, 6});
+      assert a.entries().sum() == 21;
+      assert java.util.Arrays.equals(a.row(1).toArray(), new double[] {4, 5, 6});
+      assert java.util.Arrays.equals(a.column(2).toArray(), new double[] {3, 6});
+      Test.assertThrows(ArrayIndexOutOfBoundsException.class, "a.column(3)", () -> a.column(3));
+      Test.assertThrows(ArrayIndexOutOfBoundsException.class, "a.row(-1)", () -> a.row(-1));
+
+      // rowArrays()はコピーを返す
+      double[][] rows = a.rowArrays().toArray(double[][]::new);
+      assert rows.length == 2 && java.util.Arrays.equals(rows[0], new double[] {1, 2, 3});
+      rows[0][0] = -1;
+      assert a.get(0, 0) == 1;
+
+      // 並列ストリームは行の境界で分割され，順序も保たれる
+      DoubleMatrix b = DoubleMatrix.createZeroMatrix(301, 7);
+      for (int i = 0; i < b.rows(); i++) {
+        for (int j = 0; j < b.columns(); j++) {
+          b.set(i, j, i * b.columns() + j);
+        }
+      }
+      double[] entries = b.entries().parallel().toArray();
+      assert entries.length == b.size();
+      for (int k = 0; k < entries.length; k++) {
+        assert entries[k] == k;
+      }
+      assert b.entries().parallel().sum() == (double) b.size() * (b.size() - 1) / 2;
+      assert b.column(3).parallel().count() == 301;
+
+      java.util.Spliterator.OfDouble spliterator = b.entries().spliterator();
+      java.util.Spliterator.OfDouble prefix = spliterator.trySplit();
+      assert prefix.estimateSize() % b.columns() == 0;
+      assert prefix.estimateSize() + spliterator.estimateSize() == b.size();
+      java.util.Spliterator.OfDouble half = prefix.trySplit();
+      assert half.estimateSize() % b.columns() == 0;
+
+      // 1行だけの範囲は中央で分割される
+      DoubleMatrix c = DoubleMatrix.createRowVector(1, 2, 3, 4, 5);
+      java.util.Spliterator.OfDouble single = c.entries().spliterator();
+      assert single.trySplit().estimateSize() == 2;
+      assert DoubleMatrix.createZeroMatrix(1, 1).entries().spliterator().trySplit() == null;
+    } // end of block
+
+    { // 成分ごとの演算と集計の動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 3, 1, -2, 3, -4, 5, -6);
+      assert a.map(Math::abs).isEqual(DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6));
+      assert a.get(0, 1) == -2;
+      DoubleMatrix b = DoubleMatrix.of(2, 3, 6, 5, 4, 3, 2, 1);
+      assert a.zip(b, Math::max).isEqual(DoubleMatrix.of(2, 3, 6, 5, 4, 3, 5, 1));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "a.zip(a.trs(), Double::sum)",
+          () -> a.zip(a.trs(), Double::sum));
+
+      assert a.sum() == -3;
+      assert a.min() == -6;
+      assert a.max() == 5;
+      assert a.rowSums().isEqual(DoubleMatrix.createColumnVector(2, -5));
+      assert a.columnSums().isEqual(DoubleMatrix.createRowVector(-3, 3, -3));
+      assert a.rowMeans().isEqual(DoubleMatrix.createColumnVector(2.0 / 3, -5.0 / 3));
+      assert a.columnMeans().isEqual(DoubleMatrix.createRowVector(-1.5, 1.5, -1.5));
+      assert a.norm1() == 9;
+      assert a.normInf() == 15;
+      assert a.normFrobenius() == Math.sqrt(91);
+      assert Double.isNaN(DoubleMatrix.createRowVector(1, Double.NaN).max());
+
+      // 補償付きの加算
+      DoubleMatrix c = DoubleMatrix.createRowVector(1e100, 1, -1e100);
+      assert c.sum() == 0;
+      assert c.sum(true) == 1;
+
+      // applyはキャッシュを無効にする
+      DoubleMatrix d = DoubleMatrix.from(a);
+      final int version = d.version();
+      assert d.normInf() == 15;
+      assert d.apply(x -> 2 * x) == d;
+      assert d.version() != version;
+      assert d.normInf() == 30;
+      assert d.isEqual(a.times(2));
+
+      // 並列に計算しても結果は逐次計算と一致する
+      java.util.Random random = new java.util.Random(40);
+      DoubleMatrix e = DoubleMatrix.createZeroMatrix(700, 300);
+      for (int i = 0; i < e.rows(); i++) {
+        for (int j = 0; j < e.columns(); j++) {
+          e.set(i, j, random.nextGaussian());
+        }
+      }
+      double[] rowSums = new double[e.rows()];
+      double[] columnSums = new double[e.columns()];
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < e.rows(); i++) {
+        for (int j = 0; j < e.columns(); j++) {
+          rowSums[i] += e.get(i, j);
+          columnSums[j] += e.get(i, j);
+          max = Math.max(max, e.get(i, j));
+        }
+      }
+      assert e.rowSums().isEqual(DoubleMatrix.createColumnVector(rowSums));
+      assert e.columnSums().isEqual(DoubleMatrix.createRowVector(columnSums));
+      assert e.max() == max;
+      final double sum = e.sum();
+      for (int trial = 0; trial < 5; trial++) {
+        assert e.sum() == sum;
+        assert e.sum(true) == e.sum(true);
+      }
+      assert Math.abs(e.sum(true) - sum) < 1e-9;
+      DoubleMatrix squared = e.map(x -> x * x);
+      for (int i = 0; i < e.rows(); i++) {
+        for (int j = 0; j < e.columns(); j++) {
+          assert squared.get(i, j) == e.get(i, j) * e.get(i, j);
+        }
+      }
+      assert e.zip(e, (x, y) -> x - y).max() == 0;
+    } // end of block
+
+    { // 行と列の並べ替えの動作確認
+      DoubleMatrix a = DoubleMatrix.of(3, 3, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+      assert a.permuteRows(2, 0, 1) == a;
+      assert a.isEqual(DoubleMatrix.of(3, 3, 7, 8, 9, 1, 2, 3, 4, 5, 6));
+      assert a.permuteColumns(1, 2, 0) == a;
+      assert a.isEqual(DoubleMatrix.of(3, 3, 8, 9, 7, 2, 3, 1, 5, 6, 4));
+
+      // 列の入れ替えを重ねても，get，setは並べ替えた後の添え字で成分を読み書きする
+      DoubleMatrix b = DoubleMatrix.of(2, 4, 1, 2, 3, 4, 5, 6, 7, 8);
+      final int version = b.version();
+      b.swapColumns(0, 3).swapColumns(1, 3).permuteColumns(3, 2, 1, 0);
+      assert b.version() == version + 3;
+      assert b.get(0, 0) == 2 && b.get(0, 1) == 3 && b.get(0, 2) == 1 && b.get(0, 3) == 4;
+      b.set(1, 2, -5);
+      assert b.get(1, 2) == -5;
+      assert b.toString().equals(String.format("2.0 3.0 1.0 4.0%n6.0 7.0 -5.0 8.0"));
+
+      // 並べ替えた行列に対する各演算の結果は，並べ替えた成分から生成した行列の結果と一致する
+      DoubleMatrix c = DoubleMatrix.of(2, 4, 2, 3, 1, 4, 6, 7, -5, 8);
+      DoubleMatrix d = DoubleMatrix.from(b);
+      assert d.isEqual(c);
+      b.swapColumns(0, 1);
+      c.swapColumns(1, 0);
+      assert b.trs().isEqual(c.trs());
+      assert b.times(c.trs()).isEqual(c.times(c.trs()));
+      assert b.columnSums().isEqual(DoubleMatrix.createRowVector(10, 8, -4, 12));
+      assert java.util.Arrays.equals(
+          b.entries().toArray(), new double[] {3, 2, 1, 4, 7, 6, -5, 8});
+      assert java.util.Arrays.equals(b.column(0).toArray(), new double[] {3, 7});
+      assert DoubleMatrix.combineHorizontally(b, b).get(1, 4) == 7;
+      b.swapColumns(2, 3);
+      assert b.add(c).isEqual(DoubleMatrix.of(2, 4, 6, 4, 5, 5, 14, 12, 3, 3));
+
+      Test.assertThrows(
+          IllegalArgumentException.class, "a.permuteRows(0, 1)", () -> a.permuteRows(0, 1));
+      Test.assertThrows(
+          IllegalArgumentException.class, "a.permuteRows(0, 1, 1)", () -> a.permuteRows(0, 1, 1));
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "a.permuteColumns(0, 1, 3)",
+          () -> a.permuteColumns(0, 1, 3));
+      Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class, "a.swapColumns(0, 3)", () -> a.swapColumns(0, 3));
+    } // end of block
+
+    { // 列の並べ替えが保留された行列を，複数のスレッドから同時に読み取れることを確認
+      java.util.Random random = new java.util.Random(41);
+      final int n = 256;
+      for (int trial = 0; trial < 16; trial++) {
+        DoubleMatrix a = DoubleMatrix.createZeroMatrix(n, n);
+        for (int i = 0; i < n; i++) {
+          for (int j = 0; j < n; j++) {
+            a.set(i, j, random.nextInt(7) - 3);
+          }
+        }
+        DoubleMatrix expected = DoubleMatrix.from(a).swapColumns(0, 1).swapColumns(2, n - 1);
+        expected.sum(); // 並べ替えを反映させておく
+        a.swapColumns(0, 1).swapColumns(2, n - 1);
+        DoubleMatrix x = DoubleMatrix.createIdentityMatrix(n);
+        final boolean ok =
+            java.util.stream.IntStream.range(0, 8)
+                .parallel()
+                .allMatch(
+                    k ->
+                        (k % 2 == 0)
+                            ? a.times(x).isEqual(expected)
+                            : a.get(k, 0) == expected.get(k, 0) && a.sum() == expected.sum());
+        assert ok;
+        assert a.isEqual(expected);
+      }
+    } // end of block
+
+    { // pow()，expm()の動作確認
+      DoubleMatrix f = DoubleMatrix.of(2, 2, 1, 1, 1, 0);
+      assert f.pow(0).isEqual(DoubleMatrix.createIdentityMatrix(2));
+      assert f.pow(1).isEqual(f) && f.pow(1) != f;
+      assert f.pow(10).isEqual(DoubleMatrix.of(2, 2, 89, 55, 55, 34));
+      assert f.pow(40).get(0, 1) == 102334155;
+
+      java.util.Random random = new java.util.Random(44);
+      DoubleMatrix a = DoubleMatrix.createZeroMatrix(6, 6);
+      for (int i = 0; i < 6; i++) {
+        for (int j = 0; j < 6; j++) {
+          a.set(i, j, random.nextInt(5) - 2);
+        }
+      }
+      DoubleMatrix copy = DoubleMatrix.from(a);
+      DoubleMatrix expected = DoubleMatrix.createIdentityMatrix(6);
+      for (int k = 1; k <= 13; k++) {
+        expected = expected.times(a);
+        assert a.pow(k).isEqual(expected) : k;
+      }
+      assert a.isEqual(copy); // thisの配列は作業用に使用しない
+
+      Test.assertThrows(
+          ArithmeticException.class,
+          "DoubleMatrix.createZeroMatrix(2, 3).pow(2)",
+          () -> DoubleMatrix.createZeroMatrix(2, 3).pow(2));
+      Test.assertThrows(IllegalArgumentException.class, "f.pow(-1)", () -> f.pow(-1));
+
+      // 冪零行列，対角行列，回転の生成子
+      assert DoubleMatrix.createZeroMatrix(3, 3)
+          .expm()
+          .isEqual(DoubleMatrix.createIdentityMatrix(3));
+      assert DoubleMatrix.of(2, 2, 0, 1, 0, 0).expm().isEqual(DoubleMatrix.of(2, 2, 1, 1, 0, 1));
+      DoubleMatrix d = DoubleMatrix.createDiagonalMatrix(-3, 0.5, 2).expm();
+      assert Math.abs(d.get(0, 0) - Math.exp(-3)) < 1e-15;
+      assert Math.abs(d.get(1, 1) - Math.exp(0.5)) < 1e-14;
+      assert Math.abs(d.get(2, 2) - Math.exp(2)) < 1e-13;
+      assert d.get(0, 1) == 0;
+      for (double t : new double[] {0.01, 0.2, 0.9, 2, 5, 30}) {
+        DoubleMatrix r = DoubleMatrix.of(2, 2, 0, -t, t, 0).expm();
+        DoubleMatrix rotation =
+            DoubleMatrix.of(2, 2, Math.cos(t), -Math.sin(t), Math.sin(t), Math.cos(t));
+        assert r.minus(rotation).normInf() < 1e-12 : t;
+      }
+
+      // 無限大やNaNを含む場合は，2乗の繰り返しが終わらなくならずにNaNを返す
+      for (double x : new double[] {Double.POSITIVE_INFINITY, Double.NaN}) {
+        DoubleMatrix e = DoubleMatrix.of(2, 2, x, 0, 0, 1).expm();
+        assert Double.isNaN(e.get(0, 0)) && Double.isNaN(e.get(1, 1)) : x;
+      }
+      // 1ノルムがdoubleの最大値に近くても，有限回の2乗で終わる
+      DoubleMatrix huge = DoubleMatrix.of(2, 2, -Double.MAX_VALUE, 0, 0, -Double.MAX_VALUE).expm();
+      assert huge.get(0, 1) == 0;
+
+      // exp(A) exp(-A) = I
+      DoubleMatrix b = a.times(0.7);
+      DoubleMatrix product = b.expm().times(b.times(-1).expm());
+      assert product.minus(DoubleMatrix.createIdentityMatrix(6)).normInf() < 1e-9;
+
+      // テイラー級数との比較
+      DoubleMatrix c = a.times(0.05);
+      DoubleMatrix series = DoubleMatrix.createIdentityMatrix(6);
+      DoubleMatrix term = DoubleMatrix.createIdentityMatrix(6);
+      for (int k = 1; k < 30; k++) {
+        term = term.times(c).times(1.0 / k);
+        series = series.plus(term);
+      }
+      assert c.expm().minus(series).normInf() < 1e-14;
+
+      Test.assertThrows(
+          ArithmeticException.class,
+          "DoubleMatrix.createZeroMatrix(2, 3).expm()",
+          () -> DoubleMatrix.createZeroMatrix(2, 3).expm());
+    } // end of block
+
+    { // ランク1更新の動作確認
+      DoubleMatrix a = DoubleMatrix.createIdentityMatrix(2);
+      final int version = a.version();
+      assert a.rank1Update(
+              2, DoubleMatrix.createColumnVector(1, 2), DoubleMatrix.createColumnVector(3, 4))
+          == a;
+      assert a.isEqual(DoubleMatrix.of(2, 2, 7, 8, 12, 17));
+      assert a.version() != version;
+
+      DoubleMatrix r = DoubleMatrix.createZeroMatrix(2, 3);
+      r.swapColumns(0, 2);
+      r.rank1Update(
+          1, DoubleMatrix.createColumnVector(1, -1), DoubleMatrix.createColumnVector(1, 2, 3));
+      assert r.isEqual(DoubleMatrix.of(2, 3, 1, 2, 3, -1, -2, -3));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "r.rank1Update(1, DoubleMatrix.createColumnVector(1, 2, 3), ...)",
+          () ->
+              r.rank1Update(
+                  1,
+                  DoubleMatrix.createColumnVector(1, 2, 3),
+                  DoubleMatrix.createColumnVector(1, 2, 3)));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "r.rank1Update(1, ..., DoubleMatrix.createRowVector(1, 2, 3))",
+          () ->
+              r.rank1Update(
+                  1, DoubleMatrix.createColumnVector(1, 2), DoubleMatrix.createRowVector(1, 2, 3)));
+
+      // LU分解とCholesky分解の更新が，分解のやり直しと一致することを確認
+      java.util.Random random = new java.util.Random(46);
+      final int n = 8;
+      DoubleMatrix m = DoubleMatrix.createZeroMatrix(n, n);
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          m.set(i, j, random.nextInt(19) - 9);
+        }
+      }
+      DoubleMatrix spd = m.transposed().times(m).plus(DoubleMatrix.createIdentityMatrix(n));
+      DoubleMatrix general = DoubleMatrix.from(m);
+      LUDecomposition lu = general.lu();
+      CholeskyDecomposition chol = spd.cholesky();
+      DoubleMatrix b = DoubleMatrix.createZeroMatrix(n, 2);
+      for (int i = 0; i < n; i++) {
+        b.set(i, 0, random.nextInt(19) - 9);
+        b.set(i, 1, random.nextInt(19) - 9);
+      }
+      for (int t = 0; t < 5; t++) {
+        DoubleMatrix x = DoubleMatrix.createZeroMatrix(n, 1);
+        DoubleMatrix y = DoubleMatrix.createZeroMatrix(n, 1);
+        for (int i = 0; i < n; i++) {
+          x.set(i, 0, random.nextInt(7) - 3);
+          y.set(i, 0, random.nextInt(7) - 3);
+        }
+        LUDecomposition previous = lu;
+        lu = lu.update(0.5, x, y);
+        general.rank1Update(0.5, x, y);
+        assert lu != previous;
+        assert lu.solve(b).minus(general.lu().solve(b)).normInf() < 1e-8 : t;
+        assert Math.abs(lu.determinant() / general.lu().determinant() - 1) < 1e-9 : t;
+
+        chol = chol.update(x);
+        spd.rank1Update(1, x, x);
+        assert chol.lower().minus(spd.cholesky().lower()).normInf() < 1e-10 : t;
+        assert chol.solve(b).minus(spd.solve(b)).normInf() < 1e-10 : t;
+      }
+      // 逆更新で元に戻ることを確認
+      DoubleMatrix x = DoubleMatrix.createColumnVector(1, -2, 0, 3, 1, 0, -1, 2);
+      CholeskyDecomposition up = chol.update(x);
+      assert up.downdate(x).lower().minus(chol.lower()).normInf() < 1e-10;
+      assert up.downdate(x).determinant() != up.determinant();
+
+      CholeskyDecomposition identity = DoubleMatrix.createIdentityMatrix(2).cholesky();
+      Test.assertThrows(
+          ArithmeticException.class,
+          "identity.downdate(DoubleMatrix.createColumnVector(1, 0))",
+          () -> identity.downdate(DoubleMatrix.createColumnVector(1, 0)));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "identity.update(DoubleMatrix.createColumnVector(1, 0, 0))",
+          () -> identity.update(DoubleMatrix.createColumnVector(1, 0, 0)));
+      assert identity.lower().isEqual(DoubleMatrix.createIdentityMatrix(2));
+
+      // 更新後の行列が正則でない場合
+      LUDecomposition luIdentity = DoubleMatrix.createIdentityMatrix(2).lu();
+      DoubleMatrix e0 = DoubleMatrix.createColumnVector(1, 0);
+      Test.assertThrows(
+          ArithmeticException.class,
+          "luIdentity.update(-1, e0, e0)",
+          () -> luIdentity.update(-1, e0, e0));
+    } // end of block
+
+    { // wrap()，unwrap()とバッファとの変換の動作確認
+      double[][] val = {
+        {1, 2, 3},
+        {4, 5, 6},
+      };
+      DoubleMatrix a = DoubleMatrix.wrap(val);
+      assert a.array() == val;
+      val[1][2] = 60;
+      assert a.get(1, 2) == 60;
+      a.set(0, 0, 10);
+      assert val[0][0] == 10;
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "DoubleMatrix.wrap(new double[][] {{0}, {1, 2}})",
+          () -> DoubleMatrix.wrap(new double[][] {{0}, {1, 2}}));
+
+      // 呼び出し側が参照している配列は，コピーの際に共有しない
+      DoubleMatrix copy = DoubleMatrix.from(a);
+      assert copy.array() != val && copy.array()[0] != val[0];
+      DoubleMatrixSnapshot snapshot = a.snapshot();
+      val[0][1] = 20;
+      assert copy.get(0, 1) == 2 && snapshot.get(0, 1) == 2;
+
+      // unwrap()は列の並べ替えと共有の解消を反映した配列を返す
+      DoubleMatrix b = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      DoubleMatrix shared = DoubleMatrix.from(b);
+      b.swapColumns(0, 1);
+      double[][] unwrapped = b.unwrap();
+      assert unwrapped == b.unwrap();
+      assert unwrapped[0][0] == 2 && unwrapped[1][1] == 3;
+      unwrapped[0][0] = 100;
+      assert b.get(0, 0) == 100;
+      assert shared.isEqual(DoubleMatrix.of(2, 2, 1, 2, 3, 4));
+      DoubleMatrix later = DoubleMatrix.from(b);
+      unwrapped[1][0] = -1;
+      assert later.get(1, 0) == 4;
+
+      // 配列への直接の書き込みの後も，計算結果は古い成分のキャッシュを使用しない
+      double[][] raw = {{1, 7}, {7, 1}};
+      DoubleMatrix w = DoubleMatrix.wrap(raw);
+      assert w.isSymmetric() && w.normInf() == 8 && w.transposed().get(0, 1) == 7;
+      raw[0][1] = 100;
+      assert !w.isSymmetric();
+      assert w.normInf() == 101;
+      assert w.transposed().get(1, 0) == 100;
+      assert b.normInf() == 101;
+      unwrapped[0][1] = 0;
+      assert b.normInf() == 100;
+
+      // 列の並べ替えは直ちに配列に反映され，配列と行列の成分の位置が一致する
+      double[][] buf = {{1, 2, 3}, {4, 5, 6}};
+      DoubleMatrix v = DoubleMatrix.wrap(buf);
+      v.swapColumns(0, 1);
+      assert v.get(0, 0) == 2 && buf[0][0] == 2;
+      buf[1][0] = 50;
+      assert v.get(1, 0) == 50;
+      v.permuteColumns(2, 0, 1);
+      assert java.util.Arrays.equals(buf[0], new double[] {3, 2, 1});
+      assert v.get(1, 1) == 50;
+
+      // DoubleBufferとの変換
+      DoubleMatrix c = DoubleMatrix.of(2, 3, 1, 2, 3, 4, 5, 6);
+      c.swapColumns(0, 2);
+      java.nio.DoubleBuffer buffer = java.nio.DoubleBuffer.allocate(8);
+      buffer.put(-1);
+      c.writeTo(buffer);
+      assert buffer.position() == 7;
+      assert buffer.get(1) == 3 && buffer.get(4) == 6 && buffer.get(6) == 4;
+      buffer.position(1);
+      DoubleMatrix d = DoubleMatrix.from(buffer, 2, 3);
+      assert d.isEqual(c);
+      assert buffer.position() == 7;
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "DoubleMatrix.from(buffer, 1, 2)",
+          () -> DoubleMatrix.from(buffer, 1, 2));
+      Test.assertThrows(
+          java.nio.BufferOverflowException.class,
+          "c.writeTo(java.nio.DoubleBuffer.allocate(5))",
+          () -> c.writeTo(java.nio.DoubleBuffer.allocate(5)));
+
+      // 直接バッファとの変換
+      java.nio.ByteBuffer bytes = c.toByteBuffer();
+      assert bytes.isDirect();
+      assert bytes.position() == 0 && bytes.limit() == 6 * Double.BYTES;
+      assert bytes.order() == java.nio.ByteOrder.nativeOrder();
+      assert DoubleMatrix.from(bytes.asDoubleBuffer(), 2, 3).isEqual(c);
+      assert DoubleMatrix.from(bytes.asDoubleBuffer(), 3, 2)
+          .isEqual(DoubleMatrix.of(3, 2, 3, 2, 1, 6, 5, 4));
+    } // end of block
+
     System.err.println();
     System.err.println("テスト完了");
   } // end of main()
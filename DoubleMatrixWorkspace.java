@@ -0,0 +1,337 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 一時的な行列のためのdouble型2次元配列を再利用するための作業領域(スコープ)を表すクラスです。<br>
+ * <br>
+ * 作業領域を開いている間，そのスレッドで実行されたDoubleMatrixの演算(plus，minus，times，trs)は，<br>
+ * 結果の行列のための配列を新たに生成する代わりに，スレッドごとに保持されている使用済みの配列を再利用します。<br>
+ * 作業領域から借りた配列は，作業領域を閉じたときにまとめて返却され，同じ型の行列のために再び使用されます。<br>
+ * 返却された配列は，型(rows * columns)ごとに個数の上限付きで保持され，上限を超えた配列は破棄されます。<br>
+ * <br>
+ * 作業領域を閉じた後は，作業領域の中で生成された行列を使用してはいけません。<br>
+ * 作業領域の外でも使用する行列は，keep(DoubleMatrix)で作業領域から切り離すか，DoubleMatrix.from(DoubleMatrix)でコピーしてください。<br>
+ * なお，ライブラリが内部に保持する行列(DoubleMatrix.transposed()のキャッシュや，ShermanMorrisonInverseが保持する逆行列など)は，
+ * 作業領域を開いていても作業領域から配列を借りずに生成するため，作業領域を閉じた後も有効です。
+ *
+ * <pre>{@code
+ * DoubleMatrix result;
+ * try (DoubleMatrixWorkspace ws = DoubleMatrixWorkspace.open()) {
+ *   DoubleMatrix t = ws.zeros(n, n);  // 作業用の行列
+ *   DoubleMatrix u = a.times(b);      // 結果の配列も作業領域から借りる
+ *   result = ws.keep(u.plus(c));      // この行列だけは作業領域の外でも使用する
+ * }
+ * }</pre>
+ *
+ * 作業領域はスレッドごとに管理されるため，作業領域を開いたスレッドと同じスレッドで閉じる必要があります。<br>
+ * また，作業領域は入れ子にすることができます。内側の作業領域を閉じると，外側の作業領域が再び有効になります。
+ *
+ * @author mpp
+ */
+public final class DoubleMatrixWorkspace implements AutoCloseable {
+
+  /** スレッドごとに保持する配列の成分数の合計の上限です(4Mi個，32MiB)。 */
+  private static final long MAX_POOLED_ENTRIES = 1L << 22;
+
+  /** スレッドごとに，同じ型の配列を保持する個数の上限です。 */
+  private static final int MAX_POOLED_PER_SHAPE = 8;
+
+  /** 各スレッドで現在有効になっている作業領域です。 */
+  private static final ThreadLocal<DoubleMatrixWorkspace> CURRENT = new ThreadLocal<>();
+
+  /** 各スレッドで返却された配列を保持する領域です。 */
+  private static final ThreadLocal<Pool> POOL = ThreadLocal.withInitial(Pool::new);
+
+  /**
+   * 現在のスレッドで新しい作業領域を開きます。
+   *
+   * @return 作業領域
+   */
+  public static DoubleMatrixWorkspace open() {
+    DoubleMatrixWorkspace workspace = new DoubleMatrixWorkspace(CURRENT.get());
+    CURRENT.set(workspace);
+    return workspace;
+  }
+
+  /**
+   * 型がrows * columnsのdouble型2次元配列を返します。<br>
+   * 現在のスレッドで作業領域が開いている場合は，その作業領域から配列を借ります。
+   * そうでない場合は，新たに配列を生成します。<br>
+   * 借りた配列には以前の計算の値が残っているため，全ての成分を上書きする演算が結果を格納する配列を確保するために使用します。
+   * 結果に加算していく演算はallocateZeros(int, int)を使用してください。
+   *
+   * @param rows 行数
+   * @param columns 列数
+   * @return 成分の値が不定の配列
+   */
+  static double[][] allocate(int rows, int columns) {
+    DoubleMatrixWorkspace workspace = CURRENT.get();
+    if (workspace == null || workspace.suspended > 0) {
+      return new double[rows][columns];
+    }
+    return workspace.borrow(rows, columns, false);
+  }
+
+  /**
+   * 型がrows * columnsで成分の値が全て0dのdouble型2次元配列を返します。<br>
+   * 現在のスレッドで作業領域が開いている場合は，その作業領域から配列を借ります。
+   * そうでない場合は，新たに配列を生成します。<br>
+   * 結果の配列に加算していく演算が，結果を格納する配列を確保するために使用します。
+   *
+   * @param rows 行数
+   * @param columns 列数
+   * @return 成分の値が全て0dの配列
+   */
+  static double[][] allocateZeros(int rows, int columns) {
+    DoubleMatrixWorkspace workspace = CURRENT.get();
+    if (workspace == null || workspace.suspended > 0) {
+      return new double[rows][columns];
+    }
+    return workspace.borrow(rows, columns, true);
+  }
+
+  /**
+   * 作業領域から配列を借りずに処理を実行し，その結果を返します。<br>
+   * 処理の中で実行されたDoubleMatrixの演算は，作業領域が開いていても結果の配列を新たに生成します。
+   * キャッシュやオブジェクトのフィールドなど，作業領域を閉じた後も使用される可能性がある行列を計算するために使用します。
+   *
+   * @param <T> 処理の結果の型
+   * @param task 処理
+   * @return 処理の結果
+   */
+  static <T> T unpooled(Supplier<T> task) {
+    DoubleMatrixWorkspace workspace = CURRENT.get();
+    if (workspace == null) {
+      return task.get();
+    }
+    workspace.suspended++;
+    try {
+      return task.get();
+    } finally {
+      workspace.suspended--;
+    }
+  }
+
+  /**
+   * 配列が，現在のスレッドで開いているいずれかの作業領域から借りたものかどうかを返します。<br>
+   * DoubleMatrix.from(DoubleMatrix)が，配列を共有してよいかどうかを判定するために使用します。
+   *
+   * @param buffer 配列
+   * @return 作業領域から借りた配列ならtrue
+   */
+  static boolean isBorrowed(double[][] buffer) {
+    for (DoubleMatrixWorkspace w = CURRENT.get(); w != null; w = w.parent) {
+      if (w.borrowed.contains(buffer)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** 返却された配列を，型ごとに保持するクラスです。 */
+  private static final class Pool {
+
+    /** 型(rows，columns)を表すキーと，その型の配列の対応です。 */
+    private final HashMap<Long, ArrayDeque<double[][]>> buffers = new HashMap<>();
+
+    /** 保持している配列の成分数の合計です。 */
+    private long entries;
+
+    /**
+     * 型がrows * columnsの配列を取り出します。保持していない場合はnullを返します。
+     *
+     * @param rows 行数
+     * @param columns 列数
+     * @return 配列またはnull
+     */
+    double[][] take(int rows, int columns) {
+      ArrayDeque<double[][]> deque = this.buffers.get(key(rows, columns));
+      if (deque == null || deque.isEmpty()) {
+        return null;
+      }
+      this.entries -= (long) rows * columns;
+      return deque.pollLast();
+    }
+
+    /**
+     * 配列を返却します。上限を超える場合は配列を破棄します。
+     *
+     * @param buffer 返却する配列
+     */
+    void give(double[][] buffer) {
+      final int rows = buffer.length;
+      final int columns = (rows == 0) ? 0 : buffer[0].length;
+      final long size = (long) rows * columns;
+      if (this.entries + size > MAX_POOLED_ENTRIES) {
+        return;
+      }
+
+      ArrayDeque<double[][]> deque =
+          this.buffers.computeIfAbsent(key(rows, columns), k -> new ArrayDeque<>());
+      if (deque.size() >= MAX_POOLED_PER_SHAPE) {
+        return;
+      }
+      deque.addLast(buffer);
+      this.entries += size;
+    }
+
+    /**
+     * 型を表すキーを返します。
+     *
+     * @param rows 行数
+     * @param columns 列数
+     * @return キー
+     */
+    private static Long key(int rows, int columns) {
+      return ((long) rows << 32) | (columns & 0xffffffffL);
+    }
+  }
+
+  /** この作業領域を開いたときに有効だった作業領域です(ない場合はnull)。 */
+  private final DoubleMatrixWorkspace parent;
+
+  /** この作業領域を開いたスレッドです。 */
+  private final Thread owner;
+
+  /** この作業領域から貸し出している配列です(配列の内容ではなく参照で識別します)。 */
+  private final Set<double[][]> borrowed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /** この作業領域を閉じたならtrueです。 */
+  private boolean closed;
+
+  /** unpooledを実行中の数です。0より大きい間は，allocateは作業領域から配列を借りません。 */
+  private int suspended;
+
+  /**
+   * 作業領域を生成します。
+   *
+   * @param parent この作業領域を開いたときに有効だった作業領域
+   */
+  private DoubleMatrixWorkspace(DoubleMatrixWorkspace parent) {
+    this.parent = parent;
+    this.owner = Thread.currentThread();
+  }
+
+  /**
+   * 型がrows * columnsで成分の値が全て0dの作業用の行列を返します。<br>
+   * 返される行列は作業領域を閉じると無効になります。
+   *
+   * @param rows 行列の行数
+   * @param columns 行列の列数
+   * @return 零行列
+   * @throws IllegalStateException 作業領域が閉じている場合，または作業領域を開いたスレッド以外から呼び出した場合
+   */
+  public DoubleMatrix zeros(int rows, int columns) {
+    return DoubleMatrix.wrapArray(this.borrow(rows, columns, true));
+  }
+
+  /**
+   * 行列のコピーを作業用の行列として返します。<br>
+   * 返される行列は作業領域を閉じると無効になります。
+   *
+   * @param matrix コピー元の行列
+   * @return コピーされた行列
+   * @throws IllegalStateException 作業領域が閉じている場合，または作業領域を開いたスレッド以外から呼び出した場合
+   */
+  public DoubleMatrix copyOf(DoubleMatrix matrix) {
+    double[][] buffer = this.borrow(matrix.rows(), matrix.columns(), false);
+    for (int i = 0; i < buffer.length; i++) {
+      for (int j = 0; j < buffer[i].length; j++) {
+        buffer[i][j] = matrix.get(i, j);
+      }
+    }
+    return DoubleMatrix.wrapArray(buffer);
+  }
+
+  /**
+   * 行列を作業領域から切り離し，作業領域を閉じた後も使用できるようにします。<br>
+   * matrixがこの作業領域から借りた配列を使用していない場合は，何も行いません。
+   *
+   * @param matrix 作業領域の外でも使用する行列
+   * @return matrix
+   * @throws IllegalStateException 作業領域が閉じている場合，または作業領域を開いたスレッド以外から呼び出した場合
+   */
+  public DoubleMatrix keep(DoubleMatrix matrix) {
+    this.checkOpen();
+
+    this.borrowed.remove(matrix.array());
+    return matrix;
+  }
+
+  /**
+   * 作業領域を閉じ，この作業領域から借りた配列をすべて返却します。<br>
+   * 既に閉じている場合は何も行いません。
+   *
+   * @throws IllegalStateException 作業領域を開いたスレッド以外から呼び出した場合，または内側の作業領域が開いたままの場合
+   */
+  @Override
+  public void close() {
+    if (this.closed) {
+      return;
+    }
+    if (Thread.currentThread() != this.owner) {
+      throw (new IllegalStateException("作業領域を開いたスレッド以外から閉じることはできません"));
+    }
+    if (CURRENT.get() != this) {
+      throw (new IllegalStateException("内側の作業領域が閉じられていません"));
+    }
+
+    Pool pool = POOL.get();
+    for (double[][] buffer : this.borrowed) {
+      pool.give(buffer);
+    }
+    this.borrowed.clear();
+    this.closed = true;
+
+    if (this.parent == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(this.parent);
+    }
+  }
+
+  /**
+   * 型がrows * columnsの配列を借りて返します。<br>
+   * 返却された配列を再利用する場合，zeroがtrueなら成分の値を全て0dにし，falseなら以前の値のまま返します。
+   *
+   * @param rows 行数
+   * @param columns 列数
+   * @param zero trueなら成分の値を全て0dにします。
+   * @return 借りた配列
+   * @throws IllegalStateException 作業領域が閉じている場合，または作業領域を開いたスレッド以外から呼び出した場合
+   */
+  private double[][] borrow(int rows, int columns, boolean zero) {
+    this.checkOpen();
+
+    double[][] buffer = POOL.get().take(rows, columns);
+    if (buffer == null) {
+      buffer = new double[rows][columns];
+    } else if (zero) {
+      for (double[] row : buffer) {
+        Arrays.fill(row, 0);
+      }
+    }
+    this.borrowed.add(buffer);
+
+    return buffer;
+  }
+
+  /**
+   * 作業領域が使用可能かどうか検証します。
+   *
+   * @throws IllegalStateException 作業領域が閉じている場合，または作業領域を開いたスレッド以外から呼び出した場合
+   */
+  private void checkOpen() {
+    if (this.closed) {
+      throw (new IllegalStateException("作業領域は既に閉じられています"));
+    }
+    if (Thread.currentThread() != this.owner) {
+      throw (new IllegalStateException("作業領域を開いたスレッド以外から使用することはできません"));
+    }
+  }
+}
@@ -0,0 +1,177 @@
+// Usage: java -ea DoubleMatrixWorkspaceTest
+public class DoubleMatrixWorkspaceTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    checkEnableAssertions();
+
+    { // 作業領域の中で生成された配列が，閉じた後に再利用されることを確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      DoubleMatrix b = DoubleMatrix.of(2, 2, 5, 6, 7, 8);
+
+      double[][] buffer;
+      DoubleMatrixWorkspace scope = DoubleMatrixWorkspace.open();
+      try {
+        DoubleMatrix c = a.plus(b);
+        assert c.isEqual(DoubleMatrix.of(2, 2, 6, 8, 10, 12));
+        buffer = c.array();
+      } finally {
+        scope.close();
+      }
+
+      try (DoubleMatrixWorkspace ws = DoubleMatrixWorkspace.open()) {
+        DoubleMatrix z = ws.zeros(2, 2);
+        assert z.array() == buffer;
+        assert z.isEqual(DoubleMatrix.createZeroMatrix(2, 2));
+      }
+
+      scope = DoubleMatrixWorkspace.open();
+      try {
+        DoubleMatrix c = a.times(b);
+        assert c.array() == buffer;
+        assert c.isEqual(DoubleMatrix.of(2, 2, 19, 22, 43, 50));
+      } finally {
+        scope.close();
+      }
+    } // end of block
+
+    { // keep() で切り離した行列は再利用されないことを確認
+      DoubleMatrix a = DoubleMatrix.of(3, 1, 1, 2, 3);
+      DoubleMatrix kept;
+      try (DoubleMatrixWorkspace ws = DoubleMatrixWorkspace.open()) {
+        DoubleMatrix t = ws.copyOf(a);
+        assert t.isEqual(a);
+        kept = ws.keep(t.times(2));
+      }
+
+      try (DoubleMatrixWorkspace ws = DoubleMatrixWorkspace.open()) {
+        DoubleMatrix u = ws.zeros(3, 1);
+        DoubleMatrix v = ws.zeros(3, 1);
+        assert u.array() != kept.array();
+        assert v.array() != kept.array();
+        u.set(0, 0, 100);
+        v.set(0, 0, 100);
+      }
+      assert kept.isEqual(DoubleMatrix.of(3, 1, 2, 4, 6));
+    } // end of block
+
+    { // 作業領域の外では配列が再利用されないことを確認
+      DoubleMatrix a = DoubleMatrix.of(1, 2, 1, 2);
+      double[][] buffer;
+      DoubleMatrixWorkspace scope = DoubleMatrixWorkspace.open();
+      try {
+        buffer = a.trs().array();
+      } finally {
+        scope.close();
+      }
+      assert a.trs().array() != buffer;
+    } // end of block
+
+    { // unpooledの中の演算は作業領域から配列を借りないことを確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      DoubleMatrixWorkspace scope = DoubleMatrixWorkspace.open();
+      try {
+        double[][] kept = DoubleMatrixWorkspace.unpooled(() -> a.plus(a).array());
+        assert !DoubleMatrixWorkspace.isBorrowed(kept);
+        assert DoubleMatrixWorkspace.isBorrowed(a.plus(a).array());
+      } finally {
+        scope.close();
+      }
+    } // end of block
+
+    { // 値が残った配列を再利用しても，結果に加算していく演算とzerosが正しいことを確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 2, 1, 1, 3);
+      DoubleMatrix b = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      DoubleMatrix expected = a.times(b);
+      for (int round = 0; round < 2; round++) {
+        DoubleMatrixWorkspace scope = DoubleMatrixWorkspace.open();
+        try {
+          a.plus(b).plus(b).plus(b); // 返却される配列に値を残す
+          assert scope.zeros(2, 2).isEqual(DoubleMatrix.createZeroMatrix(2, 2));
+          assert BandMatrix.of(a).times(b).isEqual(expected);
+          assert PackedSymmetricMatrix.of(a).times(b).isEqual(expected);
+          assert DoubleBlockMatrix.horizontal(a).times(b).isEqual(expected);
+          assert a.times(b).isEqual(expected);
+        } finally {
+          scope.close();
+        }
+      }
+    } // end of block
+
+    { // 作業領域の中で生成・更新したShermanMorrisonInverseが，閉じた後も有効なことを確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 4, 1, 2, 3);
+      DoubleMatrix u = DoubleMatrix.of(2, 1, 1, 0);
+      DoubleMatrix c = DoubleMatrix.of(1, 1, 1);
+      ShermanMorrisonInverse inverse;
+      DoubleMatrixWorkspace scope = DoubleMatrixWorkspace.open();
+      try {
+        inverse = ShermanMorrisonInverse.of(a);
+        inverse.update(u, c, u);
+      } finally {
+        scope.close();
+      }
+      // 返却された配列を再利用させる
+      scope = DoubleMatrixWorkspace.open();
+      try {
+        for (int k = 0; k < 8; k++) {
+          scope.zeros(2, 2).set(0, 0, 9).set(1, 1, 9);
+        }
+      } finally {
+        scope.close();
+      }
+      DoubleMatrix b = DoubleMatrix.of(2, 2, 5, 1, 2, 3);
+      assert inverse.inverse().times(b).minus(DoubleMatrix.createIdentityMatrix(2)).normInf()
+          < 1e-14;
+    } // end of block
+
+    { // 入れ子になった作業領域の動作確認
+      DoubleMatrixWorkspace outer = DoubleMatrixWorkspace.open();
+      DoubleMatrixWorkspace inner = DoubleMatrixWorkspace.open();
+
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalStateException.class, "outer.close()", () -> outer.close());
+
+      inner.close();
+      inner.close(); // 2回目は何も行わない
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalStateException.class, "inner.zeros(1, 1)", () -> inner.zeros(1, 1));
+
+      assert outer.zeros(1, 1).isEqual(DoubleMatrix.createZeroMatrix(1, 1));
+      outer.close();
+    } // end of block
+
+    { // 作業領域を開いたスレッド以外からは使用できないことを確認
+      DoubleMatrixWorkspace ws = DoubleMatrixWorkspace.open();
+      Exception[] thrown = new Exception[2];
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  ws.zeros(1, 1);
+                } catch (IllegalStateException e) {
+                  thrown[0] = e;
+                }
+                try {
+                  ws.close();
+                } catch (IllegalStateException e) {
+                  thrown[1] = e;
+                }
+              });
+      thread.start();
+      thread.join();
+      assert thrown[0] != null;
+      assert thrown[1] != null;
+      ws.close();
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class DoubleMatrixWorkspaceTest
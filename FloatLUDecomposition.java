@@ -0,0 +1,167 @@
+/**
+ * 単精度の行列に対する部分ピボット選択付きのLU分解を表すクラスです。<br>
+ * 計算はすべてfloat型で行われるため，倍精度のLU分解に比べてメモリの使用量と転送量が半分になります。<br>
+ * 分解の精度が不足する場合は，MixedPrecisionSolverによる反復改良と組み合わせて使用します。
+ *
+ * @author mpp
+ * @see LUDecomposition
+ * @see MixedPrecisionSolver
+ */
+public class FloatLUDecomposition {
+
+  /**
+   * 単精度の正方行列をLU分解します。
+   *
+   * @param matrix 分解する正方行列
+   * @return LU分解
+   * @throws ArithmeticException matrixが正方行列でない場合，または正則でない場合
+   */
+  public static FloatLUDecomposition of(FloatMatrix matrix) {
+    return (new FloatLUDecomposition(matrix));
+  }
+
+  /** 単位下三角行列Lの対角より下の成分と，上三角行列Uの成分をまとめて保持する配列です。 */
+  private final float[][] lu;
+
+  /** 行の入れ替えを表す配列です。pivot[i]は，PAのi行目が元の行列の何行目かを表します。 */
+  private final int[] pivot;
+
+  /** 係数行列の次数を表します。 */
+  private final int n;
+
+  /**
+   * 単精度の正方行列をLU分解します。
+   *
+   * @param matrix 分解する正方行列
+   * @throws ArithmeticException matrixが正方行列でない場合，または正則でない場合
+   */
+  private FloatLUDecomposition(FloatMatrix matrix) {
+    if (matrix.rows() != matrix.columns()) {
+      throw (new ArithmeticException(
+          String.format(
+              "正方行列ではないため，LU分解できません: (%d,%d)", matrix.rows(), matrix.columns())));
+    }
+
+    this.n = matrix.rows();
+    this.lu = new float[this.n][this.n];
+    this.pivot = new int[this.n];
+    for (int i = 0; i < this.n; i++) {
+      for (int j = 0; j < this.n; j++) {
+        this.lu[i][j] = matrix.get(i, j);
+      }
+      this.pivot[i] = i;
+    }
+
+    for (int k = 0; k < this.n; k++) {
+      int p = k;
+      for (int i = k + 1; i < this.n; i++) {
+        if (Math.abs(this.lu[i][k]) > Math.abs(this.lu[p][k])) {
+          p = i;
+        }
+      }
+      if (this.lu[p][k] == 0) {
+        throw (new ArithmeticException("行列が正則ではないため，LU分解できません"));
+      }
+      if (p != k) {
+        float[] tmp = this.lu[p];
+        this.lu[p] = this.lu[k];
+        this.lu[k] = tmp;
+        int t = this.pivot[p];
+        this.pivot[p] = this.pivot[k];
+        this.pivot[k] = t;
+      }
+
+      final float[] rowK = this.lu[k];
+      for (int i = k + 1; i < this.n; i++) {
+        final float[] rowI = this.lu[i];
+        final float l = rowI[k] / rowK[k];
+        rowI[k] = l;
+        if (l == 0) {
+          continue;
+        }
+        for (int j = k + 1; j < this.n; j++) {
+          rowI[j] -= l * rowK[j];
+        }
+      }
+    }
+  }
+
+  /**
+   * 係数行列の次数を返します。
+   *
+   * @return 次数
+   */
+  public int order() {
+    return this.n;
+  }
+
+  /**
+   * 連立一次方程式AX = Bを解き，Xを返します。
+   *
+   * @param b 右辺の行列
+   * @return 解X
+   * @throws ArithmeticException bの行数が係数行列の次数と異なる場合
+   */
+  public FloatMatrix solve(FloatMatrix b) {
+    if (b.rows() != this.n) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, b.rows())));
+    }
+
+    FloatMatrix result = FloatMatrix.createZeroMatrix(this.n, b.columns());
+    float[] x = new float[this.n];
+    for (int j = 0; j < b.columns(); j++) {
+      for (int i = 0; i < this.n; i++) {
+        x[i] = b.get(this.pivot[i], j);
+      }
+      this.solveInPlace(x);
+      for (int i = 0; i < this.n; i++) {
+        result.set(i, j, x[i]);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * 連立一次方程式Ax = rを単精度で解き，解をxに格納します。<br>
+   * 反復改良の補正量の計算のように，倍精度の右辺を単精度の分解で解く場合に使用します。
+   *
+   * @param r 右辺(倍精度)
+   * @param x 解を格納する配列(倍精度)
+   */
+  void solve(double[] r, double[] x) {
+    float[] y = new float[this.n];
+    for (int i = 0; i < this.n; i++) {
+      y[i] = (float) r[this.pivot[i]];
+    }
+    this.solveInPlace(y);
+    for (int i = 0; i < this.n; i++) {
+      x[i] = y[i];
+    }
+  }
+
+  /**
+   * 行の入れ替えを適用済みの右辺xに対して前進代入と後退代入を行い，解をxに格納します。
+   *
+   * @param x 行の入れ替えを適用済みの右辺。解で上書きされます。
+   */
+  private void solveInPlace(float[] x) {
+    for (int i = 1; i < this.n; i++) {
+      final float[] row = this.lu[i];
+      float sum = x[i];
+      for (int k = 0; k < i; k++) {
+        sum -= row[k] * x[k];
+      }
+      x[i] = sum;
+    }
+    for (int i = this.n - 1; i >= 0; i--) {
+      final float[] row = this.lu[i];
+      float sum = x[i];
+      for (int k = i + 1; k < this.n; k++) {
+        sum -= row[k] * x[k];
+      }
+      x[i] = sum / row[i];
+    }
+  }
+}
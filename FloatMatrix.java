@@ -0,0 +1,1062 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * float型2次元配列をラップし，行列として扱えるようにするクラスです。<br>
+ * つまり，このクラスにラップされたfloat型2次元配列は，a.length * a[0].lengthの計算結果の値が<br>
+ * 2次元配列の全ての要素数に等しいことが保証されます。<br>
+ * <br>
+ * また，このクラスはラップ元のfloat型2次元配列の完全なコピーを内部に保持するという仕様のため，<br>
+ * ラップ元配列の値に変更があっても，その影響を受けません。<br>
+ * <br>
+ * このクラスはDoubleMatrixと同じAPIを単精度で提供します。<br>
+ * 64ビットの精度を必要としない計算では，メモリの使用量と転送量が半分になり，SIMD命令で一度に処理できる成分の数が倍になります。<br>
+ * DoubleMatrixとの相互の変換は，from(DoubleMatrix)とDoubleMatrix.from(FloatMatrix)で明示的に行います。
+ *
+ * @author mpp
+ * @see DoubleMatrix
+ */
+public class FloatMatrix {
+
+  /**
+   * この行列を文字列として表現するとき(オーバライドされたtoString()の呼び出し時)に各成分の間に挿入される区切り文字を表します。<br>
+   * オーバライドされたtoString()は，ここで指定された区切り文字を使用して，行列の内容を文字列に変換します。<br>
+   * また，この値を変更した場合，toString()のjavadocに記載されている実行例の変更も同時に行う必要があることに注意してください。
+   *
+   * @see #toString()
+   */
+  private static final String DEFAULT_DELIM = " ";
+
+  /**
+   * 行列とベクトルの積を複数のスレッドで並列に計算するかどうかを決める閾値です。<br>
+   * 行列の成分数がこの値以上の場合に，行(または列)を分割して並列に計算します。
+   */
+  private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /** 行ベクトルと行列の積を並列に計算する際に，1つのタスクが担当する列数です。 */
+  private static final int PARALLEL_COLUMN_CHUNK = 256;
+
+  /**
+   * 行列の文字列表現を指定された区切り文字を使用してファイルに書き込みます。<br>
+   * 以下は，行列をCSVファイルとして書き出す例です。
+   *
+   * <pre>{@code
+   * FloatMatrix a = FloatMatrix.from(
+   *   new float[][]{
+   *     {1, 2},
+   *     {1, 2},
+   *     {1, 2},
+   *   }
+   * );
+   * FloatMatrix.writeToFile(a, "mat.csv", ",");
+   * }</pre>
+   *
+   * @param matrix 行列
+   * @param filename ファイル名
+   * @param delim 各要素間の区切り文字
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public static void writeToFile(FloatMatrix matrix, String filename, String delim)
+      throws IOException {
+    try (BufferedWriter file = Files.newBufferedWriter(Paths.get(filename))) {
+      file.write(matrix.toString(delim));
+      file.flush();
+    } catch (IOException ioe) {
+      throw ioe;
+    }
+  }
+
+  /**
+   * 行列の文字列表現(toString()の実行結果)をファイルに書き込みます。
+   *
+   * @param matrix 行列
+   * @param filename ファイル名
+   * @throws IOException 入出力エラーが発生した場合
+   * @see #toString()
+   */
+  public static void writeToFile(FloatMatrix matrix, String filename) throws IOException {
+    writeToFile(matrix, filename, DEFAULT_DELIM);
+  }
+
+  /**
+   * 行列の文字列表現が書き込まれたファイルを，各成分の間の区切り（正規表現）を指定して読み込み，行列を生成します。<br>
+   * 以下は，CSVファイルに書き込まれた行列を読み込む例です。
+   *
+   * <pre>{@code
+   * // mat.csvが以下の内容でカレントディレクトリ内に存在するとする
+   * // 1.0,2.0
+   * // 1.0,2.0
+   * // 1.0,2.0
+   * FloatMatrix a = FloatMatrix.readFromFile("mat.csv", ",");
+   * }</pre>
+   *
+   * @param filename ファイル名
+   * @param regex 正規表現の区切り
+   * @return ファイルから読み込んだ行列
+   * @throws IOException 入出力エラーが発生した場合
+   * @throws IllegalArgumentException ファイルの内容を行列として解釈できない場合
+   */
+  public static FloatMatrix readFromFile(String filename, String regex) throws IOException {
+    ArrayList<float[]> rows = new ArrayList<float[]>();
+    String line = null;
+
+    try (BufferedReader file = Files.newBufferedReader(Paths.get(filename))) {
+      while (Objects.nonNull(line = file.readLine())) {
+        String[] tokens = line.split(regex);
+        float[] row = new float[tokens.length];
+        for (int j = 0; j < row.length; j++) {
+          row[j] = Float.parseFloat(tokens[j]);
+        }
+        rows.add(row);
+      }
+    } catch (NumberFormatException nfe) {
+      IOException ioe =
+          new IOException(String.format("%s:%d: %s", filename, rows.size() + 1, line));
+      ioe.initCause(nfe);
+      throw ioe;
+    } catch (IOException ioe) {
+      throw ioe;
+    }
+
+    float[][] result = rows.toArray(new float[rows.size()][]);
+    return (new FloatMatrix(result, true, false));
+  }
+
+  /**
+   * 行列の文字列表現(toString()の実行結果)が書き込まれたファイルを読み込み，行列を生成します。<br>
+   *
+   * @param filename ファイル名
+   * @return ファイルから読み込んだ行列
+   * @throws IOException 入出力エラーが発生した場合
+   * @throws IllegalArgumentException ファイルの内容を行列として解釈できない場合
+   * @see #toString()
+   */
+  public static FloatMatrix readFromFile(String filename) throws IOException {
+    return readFromFile(filename, DEFAULT_DELIM);
+  }
+
+  /**
+   * 任意の個数の行列を水平方向に連結した行列を生成し，それを返します。<br>
+   * 以下は列ベクトルを並べて行列を生成する例です。
+   *
+   * <pre>{@code
+   * FloatMatrix x = FloatMatrix.createColumnVector(1, 2, 3);
+   * FloatMatrix y = FloatMatrix.createColumnVector(4, 5, 6);
+   * FloatMatrix z = FloatMatrix.createColumnVector(7, 8, 9);
+   * FloatMatrix A = FloatMatrix.combineHorizontally(x, y, z);
+   * }</pre>
+   *
+   * @param matrices 任意の個数の行列
+   * @return 連結結果の行列
+   * @throws IllegalArgumentException 行列の連結が出来ない(行数が異なっている)場合
+   * @see #createColumnVector(float...)
+   */
+  public static FloatMatrix combineHorizontally(FloatMatrix... matrices) {
+    final int rows = matrices[0].rows;
+    int columns = matrices[0].columns;
+
+    for (int k = 1; k < matrices.length; k++) {
+      if (matrices[k].rows != rows) {
+        throw (new IllegalArgumentException("行列の行数が揃っていません。水平方向への結合に失敗しました"));
+      }
+      columns += matrices[k].columns;
+    }
+
+    float[][] result = new float[rows][columns];
+    int pos = 0;
+    for (int k = 0; k < matrices.length; k++) {
+      for (int i = 0; i < rows; i++) {
+        for (int j = 0; j < matrices[k].columns; j++) {
+          result[i][j + pos] = matrices[k].get(i, j);
+        }
+      }
+      pos += matrices[k].columns;
+    }
+
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * 任意の個数の行列を垂直方向に連結した行列を生成し，それを返します。<br>
+   * 以下は行ベクトルを並べて行列を生成する例です。
+   *
+   * <pre>{@code
+   * FloatMatrix x = FloatMatrix.createRowVector(1, 2, 3);
+   * FloatMatrix y = FloatMatrix.createRowVector(4, 5, 6);
+   * FloatMatrix z = FloatMatrix.createRowVector(7, 8, 9);
+   * FloatMatrix A = FloatMatrix.combineVertically(x, y, z);
+   * }</pre>
+   *
+   * @param matrices 任意の個数の行列
+   * @return 連結結果の行列
+   * @throws IllegalArgumentException 行列の連結が出来ない(列数が異なっている)場合
+   * @see #createRowVector(float...)
+   */
+  public static FloatMatrix combineVertically(FloatMatrix... matrices) {
+    int rows = matrices[0].rows;
+    final int columns = matrices[0].columns;
+
+    for (int k = 1; k < matrices.length; k++) {
+      if (matrices[k].columns != columns) {
+        throw (new IllegalArgumentException("行列の列数が揃っていません。垂直方向への結合に失敗しました"));
+      }
+      rows += matrices[k].rows;
+    }
+
+    float[][] result = new float[rows][columns];
+    int pos = 0;
+    for (int k = 0; k < matrices.length; k++) {
+      for (int i = 0; i < matrices[k].rows; i++) {
+        for (int j = 0; j < columns; j++) {
+          result[i + pos][j] = matrices[k].get(i, j);
+        }
+      }
+      pos += matrices[k].rows;
+    }
+
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * 行ベクトルを生成して，それを返します。
+   *
+   * @param entries 行ベクトルの成分
+   * @return 行ベクトル
+   */
+  public static FloatMatrix createRowVector(float... entries) {
+    return (new FloatMatrix(1, entries.length, entries));
+  }
+
+  /**
+   * 列ベクトルを生成して，それを返します。
+   *
+   * @param entries 列ベクトルの成分
+   * @return 列ベクトル
+   */
+  public static FloatMatrix createColumnVector(float... entries) {
+    return (new FloatMatrix(entries.length, 1, entries));
+  }
+
+  /**
+   * 対角行列を生成して，それを返します。
+   *
+   * @param entries 対角成分
+   * @return 対角行列
+   */
+  public static FloatMatrix createDiagonalMatrix(float... entries) {
+    float[][] result = new float[entries.length][entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      result[i][i] = entries[i];
+    }
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * 単位行列を生成して，それを返します。
+   *
+   * @param n 行列の次数
+   * @return 単位行列
+   */
+  public static FloatMatrix createIdentityMatrix(int n) {
+    float[][] result = new float[n][n];
+    for (int i = 0; i < n; i++) {
+      result[i][i] = 1;
+    }
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * 型がrows * columnsで成分の値が全て0fの行列（零行列）を生成します。
+   *
+   * @param rows 行列の行数
+   * @param columns 行列の列数
+   * @return 零行列
+   */
+  public static FloatMatrix createZeroMatrix(int rows, int columns) {
+    return (new FloatMatrix(rows, columns));
+  }
+
+  /**
+   * 引数で渡されたfloat型2次元配列の内容で行列を生成します。
+   *
+   * @param matrix 行列を表すfloat型2次元配列
+   * @return 行列
+   * @throws IllegalArgumentException matrixを行列として解釈できない場合
+   */
+  public static FloatMatrix from(float[][] matrix) {
+    return (new FloatMatrix(matrix));
+  }
+
+  /**
+   * 行列のコピーを生成します。
+   *
+   * @param matrix コピー元の行列
+   * @return コピーされた行列
+   */
+  public static FloatMatrix from(FloatMatrix matrix) {
+    return (new FloatMatrix(matrix));
+  }
+
+  /**
+   * 倍精度の行列を単精度に変換した行列を生成します。<br>
+   * 各成分はfloat型へのキャストと同じ規則で丸められます。
+   *
+   * @param matrix 変換元の倍精度の行列
+   * @return 変換された行列
+   * @see DoubleMatrix#from(FloatMatrix)
+   */
+  public static FloatMatrix from(DoubleMatrix matrix) {
+    float[][] result = new float[matrix.rows()][matrix.columns()];
+    for (int i = 0; i < result.length; i++) {
+      for (int j = 0; j < result[i].length; j++) {
+        result[i][j] = (float) matrix.get(i, j);
+      }
+    }
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * 型がrows * columnsの行列を生成し，各成分の値を左上から右下にかけて順に初期化します。
+   *
+   * @param rows 行列の行数
+   * @param columns 行列の列数
+   * @param entries 初期化に使用するrows * columns個のfloat値
+   * @return 行列
+   * @throws IllegalArgumentException entries.length != rows * columnsの場合
+   */
+  public static FloatMatrix of(int rows, int columns, float... entries) {
+    return (new FloatMatrix(rows, columns, entries));
+  }
+
+  /** 行列を表すfloat型2次元配列です。 */
+  private final float[][] matrix;
+
+  /** この行列の行数を表します。 */
+  private final int rows;
+
+  /** この行列の列数を表します。 */
+  private final int columns;
+
+  /** この行列のサイズ(rows * columnsの計算結果)を表します。 */
+  private final int size;
+
+  /**
+   * このクラスのコードを直接触るプログラマのために用意された，privateなコンストラクタです。<br>
+   * ラップ元のmatrixを行列として解釈してもよいかどうか検証する機能や，matrixの完全なコピーを取る機能を提供します。<br>
+   * なお，ここでの検証とは，matrix.length * matrix[0].lengthの計算結果の値がmatrixの全要素数と等しいかどうか確認するプロセスのことです。<br>
+   *
+   * @param matrix ラップ元のfloat型2次元配列への参照。
+   * @param doValidate trueなら検証を行います。
+   * @param doCopy trueならmatrixの完全なコピーを作成し，それをthis.matrixに保持します。
+   *     falseの場合はmatrixへの参照をそのままthis.matrixに保持します。
+   * @throws IllegalArgumentException 検証した結果，matrixを行列として解釈できない場合
+   */
+  private FloatMatrix(float[][] matrix, boolean doValidate, boolean doCopy) {
+    if (doValidate) {
+      for (int i = 1; i < matrix.length; i++) {
+        if (matrix[i].length != matrix[0].length) {
+          throw (new IllegalArgumentException("行列として解釈できません"));
+        }
+      }
+    }
+
+    this.rows = matrix.length;
+    this.columns = matrix[0].length;
+    this.size = matrix.length * matrix[0].length;
+
+    if (doCopy) {
+      this.matrix = new float[this.rows][this.columns];
+      for (int i = 0; i < this.rows; i++) {
+        System.arraycopy(matrix[i], 0, this.matrix[i], 0, this.columns);
+      }
+    } else {
+      this.matrix = matrix;
+    }
+  }
+
+  /**
+   * 引数で渡されたfloat型2次元配列の内容で行列を生成します。
+   *
+   * @param matrix 行列を表すfloat型2次元配列
+   * @throws IllegalArgumentException matrixを行列として解釈できない場合
+   */
+  private FloatMatrix(float[][] matrix) {
+    this(matrix, true, true);
+  }
+
+  /**
+   * 型がrows * columnsで成分の値が全て0fの行列を生成します。
+   *
+   * @param rows 行列の行数
+   * @param columns 行列の列数
+   */
+  private FloatMatrix(int rows, int columns) {
+    this(new float[rows][columns], false, false);
+  }
+
+  /**
+   * 型がrows * columnsの行列を生成し，各成分の値を左上から右下にかけて順に初期化します。<br>
+   *
+   * @param rows 行列の行数
+   * @param columns 行列の列数
+   * @param entries 初期化に使用するrows * columns個のfloat値
+   * @throws IllegalArgumentException entries.length != rows * columnsの場合
+   */
+  private FloatMatrix(int rows, int columns, float... entries) {
+    this(new float[rows][columns], false, false);
+
+    if (entries.length > this.size) {
+      throw (new IllegalArgumentException("第3引数以降の成分の数が多すぎます"));
+    } else if (entries.length < this.size) {
+      throw (new IllegalArgumentException("第3引数以降の成分の数が少なすぎます"));
+    }
+
+    for (int i = 0; i < this.rows; i++) {
+      for (int j = 0; j < this.columns; j++) {
+        this.matrix[i][j] = entries[i * this.columns + j];
+      }
+    }
+  }
+
+  /**
+   * コピーコンストラクタです。
+   *
+   * @param matrix コピー元の行列
+   */
+  private FloatMatrix(FloatMatrix matrix) {
+    this(matrix.matrix, false, true);
+  }
+
+  /**
+   * この行列の行数を返します。
+   *
+   * @return 行数
+   */
+  public int rows() {
+    return this.rows;
+  }
+
+  /**
+   * この行列の列数を返します。
+   *
+   * @return 列数
+   */
+  public int columns() {
+    return this.columns;
+  }
+
+  /**
+   * この行列のサイズ(rows * columnsの計算結果)を返します。
+   *
+   * @return サイズ
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * thisの型(rows * columns)とthatの型が等しいなら真を返します。
+   *
+   * @param that 任意の行列
+   * @return 型が等しいならtrue
+   */
+  public boolean isTypeEqual(FloatMatrix that) {
+    return (this.rows == that.rows && this.columns == that.columns);
+  }
+
+  /**
+   * thisとthatが等価な行列なら真を返します。
+   *
+   * @param that 任意の行列
+   * @return this = thatならtrue
+   */
+  public boolean isEqual(FloatMatrix that) {
+    if (this == that) {
+      return true;
+    }
+
+    if (!this.isTypeEqual(that)) {
+      return false;
+    }
+
+    for (int i = 0; i < this.rows; i++) {
+      for (int j = 0; j < this.columns; j++) {
+        if (this.get(i, j) != that.get(i, j)) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * この行列が対称かどうか判定して，結果の真偽値を返します。
+   *
+   * @return 対称行列なら，true
+   */
+  public boolean isSymmetric() {
+    if (this.rows != this.columns) {
+      return false;
+    }
+
+    for (int i = 0; i < this.rows; i++) {
+      for (int j = 0; j < this.columns; j++) {
+        if (i == j) {
+          continue;
+        }
+
+        if (this.get(i, j) != this.get(j, i)) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * この行列の文字列表現を返します。<br>
+   * <br>
+   * 実行例
+   *
+   * <pre>{@code
+   * FloatMatrix a = FloatMatrix.createZeroMatrix(3, 4);
+   * System.out.print(a);
+   * }</pre>
+   *
+   * 実行結果
+   *
+   * <pre>{@code
+   * 0.0 0.0 0.0 0.0
+   * 0.0 0.0 0.0 0.0
+   * 0.0 0.0 0.0 0.0
+   * }</pre>
+   *
+   * @return この行列の文字列表現
+   * @see #createZeroMatrix(int, int)
+   */
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+
+    for (int i = 0; i < this.rows; i++) {
+      result.append(this.matrix[i][0]);
+      for (int j = 1; j < this.columns; j++) {
+        result.append(DEFAULT_DELIM);
+        result.append(this.matrix[i][j]);
+      }
+      if (i < this.rows - 1) {
+        result.append(System.lineSeparator());
+      }
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * この行列の文字列表現を指定された区切り文字を使用して生成し，それを返します。<br>
+   * <br>
+   * 実行例
+   *
+   * <pre>{@code
+   * FloatMatrix a = FloatMatrix.createZeroMatrix(3, 4);
+   * System.out.print(a.toString("|"));
+   * }</pre>
+   *
+   * 実行結果
+   *
+   * <pre>{@code
+   * 0.0|0.0|0.0|0.0
+   * 0.0|0.0|0.0|0.0
+   * 0.0|0.0|0.0|0.0
+   * }</pre>
+   *
+   * @param delim 各要素間の区切り文字
+   * @return この行列の文字列表現
+   */
+  public String toString(String delim) {
+    if (delim.isEmpty() || delim.contains(".") || delim.matches(".*\\d.*")) {
+      throw (new IllegalArgumentException("区切り文字が不正です: " + delim));
+    }
+
+    String result = this.toString();
+    if (!DEFAULT_DELIM.equals(delim)) {
+      result = result.replace(DEFAULT_DELIM, delim);
+    }
+
+    return result;
+  }
+
+  /**
+   * 行列の(i, j)成分を取得します。
+   *
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public float get(int i, int j) {
+    return this.matrix[i][j];
+  }
+
+  /**
+   * 行列の(i, j)成分を指定された値に置き換えます。
+   *
+   * @param i i
+   * @param j j
+   * @param entry 格納される値
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public FloatMatrix set(int i, int j, float entry) {
+    this.matrix[i][j] = entry;
+    return this;
+  }
+
+  /**
+   * 行の入れ替えを行います。ただし，i1 == i2なら何も行いません。<br>
+   * なお，i1 == i2 でも，i1またはi2の値が行列の添え字の範囲を逸脱している場合は例外をスローします。
+   *
+   * @param i1 任意の行番号
+   * @param i2 任意の行番号
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException i1またはi2の値が不正な添え字の場合
+   */
+  public FloatMatrix swapRows(int i1, int i2) {
+    // 引数が同じなら交換処理を行う必要がないので何もせずreturnする
+    if (i1 == i2) {
+      // ただし，引数が配列の添え字範囲を逸脱していない場合に限る
+      // 逸脱している場合はそのまま交換処理を実行させ，例外を発生させる
+      if ((0 <= i1 && i1 < this.rows) && (0 <= i2 && i2 < this.rows)) {
+        return this;
+      }
+    }
+
+    float[] tmp = this.matrix[i1];
+    this.matrix[i1] = this.matrix[i2];
+    this.matrix[i2] = tmp;
+
+    return this;
+  }
+
+  /**
+   * 列の入れ替えを行います。ただし，j1 == j2なら何も行いません。<br>
+   * なお，j1 == j2 でも，j1またはj2の値が行列の添え字の範囲を逸脱している場合は例外をスローします。
+   *
+   * @param j1 任意の列番号
+   * @param j2 任意の列番号
+   * @return this
+   * @throws ArrayIndexOutOfBoundsException j1またはj2の値が不正な添え字の場合
+   */
+  public FloatMatrix swapColumns(int j1, int j2) {
+    // 引数が同じなら交換処理を行う必要がないので何もせずreturnする
+    if (j1 == j2) {
+      // ただし，引数が配列の添え字範囲を逸脱していない場合に限る
+      // 逸脱している場合はそのまま交換処理を実行させ，例外を発生させる
+      if ((0 <= j1 && j1 < this.columns) && (0 <= j2 && j2 < this.columns)) {
+        return this;
+      }
+    }
+
+    for (int i = 0; i < this.rows; i++) {
+      float tmp = this.matrix[i][j1];
+      this.matrix[i][j1] = this.matrix[i][j2];
+      this.matrix[i][j2] = tmp;
+    }
+
+    return this;
+  }
+
+  /**
+   * this + thatを計算し，結果の行列を返します。<br>
+   * ただし，thisとthatの型が異なり，計算を実行できない場合は，例外をスローします。
+   *
+   * @param that この行列に加算する行列。
+   * @return this + that
+   * @throws ArithmeticException thisとthatの型が異なり，計算を実行できない場合
+   */
+  public FloatMatrix plus(FloatMatrix that) {
+    if (!this.isTypeEqual(that)) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows, that.columns)));
+    }
+
+    float[][] result = new float[this.rows][this.columns];
+    for (int i = 0; i < this.rows; i++) {
+      final float[] a = this.matrix[i];
+      final float[] b = that.matrix[i];
+      final float[] c = result[i];
+      for (int j = 0; j < this.columns; j++) {
+        c[j] = a[j] + b[j];
+      }
+    }
+
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * this += thatを計算し，thisを返します。<br>
+   * ただし，thisとthatの型が異なり，計算を実行できない場合は，例外をスローします。
+   *
+   * @param that この行列に加算する行列。
+   * @return this
+   * @throws ArithmeticException thisとthatの型が異なり，計算を実行できない場合
+   */
+  public FloatMatrix add(FloatMatrix that) {
+    if (!this.isTypeEqual(that)) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows, that.columns)));
+    }
+
+    for (int i = 0; i < this.rows; i++) {
+      final float[] a = this.matrix[i];
+      final float[] b = that.matrix[i];
+      for (int j = 0; j < this.columns; j++) {
+        a[j] += b[j];
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * this - thatを計算し，結果の行列を返します。<br>
+   * ただし，thisとthatの型が異なり，計算を実行できない場合は，例外をスローします。
+   *
+   * @param that この行列から減算する行列。
+   * @return this - that
+   * @throws ArithmeticException thisとthatの型が異なり，計算を実行できない場合
+   */
+  public FloatMatrix minus(FloatMatrix that) {
+    if (!this.isTypeEqual(that)) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows, that.columns)));
+    }
+
+    float[][] result = new float[this.rows][this.columns];
+    for (int i = 0; i < this.rows; i++) {
+      final float[] a = this.matrix[i];
+      final float[] b = that.matrix[i];
+      final float[] c = result[i];
+      for (int j = 0; j < this.columns; j++) {
+        c[j] = a[j] - b[j];
+      }
+    }
+
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * this -= thatを計算し，thisを返します。<br>
+   * ただし，thisとthatの型が異なり，計算を実行できない場合は，例外をスローします。
+   *
+   * @param that この行列から減算する行列。
+   * @return this
+   * @throws ArithmeticException thisとthatの型が異なり，計算を実行できない場合
+   */
+  public FloatMatrix sub(FloatMatrix that) {
+    if (!this.isTypeEqual(that)) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows, that.columns)));
+    }
+
+    for (int i = 0; i < this.rows; i++) {
+      final float[] a = this.matrix[i];
+      final float[] b = that.matrix[i];
+      for (int j = 0; j < this.columns; j++) {
+        a[j] -= b[j];
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * thisをk倍した行列を返します。
+   *
+   * @param k この行列に乗算する値。
+   * @return this * k
+   */
+  public FloatMatrix times(float k) {
+    float[][] result = new float[this.rows][this.columns];
+    for (int i = 0; i < this.rows; i++) {
+      final float[] a = this.matrix[i];
+      final float[] c = result[i];
+      for (int j = 0; j < this.columns; j++) {
+        c[j] = k * a[j];
+      }
+    }
+
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * this * thatを計算し，結果の行列を返します。<br>
+   * ただし，thisの列数とthatの行数が異なり，計算を実行できない場合は，例外をスローします。
+   *
+   * @param that この行列に乗算する行列。
+   * @return this * that
+   * @throws ArithmeticException thisの列数とthatの行数が異なり，計算を実行できない場合
+   */
+  public FloatMatrix times(FloatMatrix that) {
+    if (this.columns != that.rows) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.columns, that.rows)));
+    }
+
+    // thatが列ベクトルの場合と，thisが行ベクトルの場合は専用の計算を行う
+    if (that.columns == 1) {
+      float[] y = new float[this.rows];
+      gemv(this.matrix, that.toColumnArray(), y, false);
+      return createColumnVector(y);
+    }
+    if (this.rows == 1) {
+      float[] y = new float[that.columns];
+      gevm(this.matrix[0], that.matrix, y, false);
+      return (new FloatMatrix(new float[][] {y}, false, false));
+    }
+
+    // 結果の各行を，thatの行の定数倍の和として計算する(i-k-jの順)
+    // 最も内側のループが連続したfloat配列への積和になるため，SIMD命令に変換されやすい
+    float[][] result = new float[this.rows][that.columns];
+    for (int i = 0; i < this.rows; i++) {
+      final float[] c = result[i];
+      for (int k = 0; k < this.columns; k++) {
+        final float aik = this.matrix[i][k];
+        final float[] b = that.matrix[k];
+        for (int j = 0; j < that.columns; j++) {
+          c[j] += aik * b[j];
+        }
+      }
+    }
+
+    return (new FloatMatrix(result, false, false));
+  }
+
+  /**
+   * this * xを計算し，その結果を列ベクトルyに格納します。<br>
+   * accumulateがtrueの場合は，y += this * xを計算します。<br>
+   * 反復法の内側のループのように，同じ型のベクトルに繰り返し結果を書き込む場合に，結果の行列の生成を避けることができます。
+   *
+   * <pre>{@code
+   * FloatMatrix a = FloatMatrix.of(2, 2, 1, 2, 3, 4);
+   * FloatMatrix x = FloatMatrix.createColumnVector(1, 1);
+   * FloatMatrix y = FloatMatrix.createZeroMatrix(2, 1);
+   * a.multiplyInto(x, y, false); // y = (3, 7)
+   * a.multiplyInto(x, y, true); // y = (6, 14)
+   * }</pre>
+   *
+   * @param x この行列に右から乗算する列ベクトル
+   * @param y 結果を格納する列ベクトル
+   * @param accumulate trueならyに結果を加算し，falseならyを結果で上書きします。
+   * @return y
+   * @throws ArithmeticException xまたはyの型が不正で，計算を実行できない場合
+   */
+  public FloatMatrix multiplyInto(FloatMatrix x, FloatMatrix y, boolean accumulate) {
+    if (x.columns != 1 || x.rows != this.columns) {
+      throw (new ArithmeticException(
+          String.format(
+              "列ベクトルの型が不正なため，計算できません: (%d,%d) != (%d,1)",
+              x.rows, x.columns, this.columns)));
+    }
+    if (y.columns != 1 || y.rows != this.rows) {
+      throw (new ArithmeticException(
+          String.format(
+              "結果を格納する列ベクトルの型が不正です: (%d,%d) != (%d,1)", y.rows, y.columns, this.rows)));
+    }
+
+    float[] result = accumulate ? y.toColumnArray() : new float[this.rows];
+    gemv(this.matrix, x.toColumnArray(), result, accumulate);
+    for (int i = 0; i < this.rows; i++) {
+      y.matrix[i][0] = result[i];
+    }
+
+    return y;
+  }
+
+  /**
+   * x * thisを計算し，その結果を行ベクトルyに格納します。<br>
+   * accumulateがtrueの場合は，y += x * thisを計算します。
+   *
+   * @param x この行列に左から乗算する行ベクトル
+   * @param y 結果を格納する行ベクトル
+   * @param accumulate trueならyに結果を加算し，falseならyを結果で上書きします。
+   * @return y
+   * @throws ArithmeticException xまたはyの型が不正で，計算を実行できない場合
+   * @see #multiplyInto(FloatMatrix, FloatMatrix, boolean)
+   */
+  public FloatMatrix leftMultiplyInto(FloatMatrix x, FloatMatrix y, boolean accumulate) {
+    if (x.rows != 1 || x.columns != this.rows) {
+      throw (new ArithmeticException(
+          String.format(
+              "行ベクトルの型が不正なため，計算できません: (%d,%d) != (1,%d)", x.rows, x.columns, this.rows)));
+    }
+    if (y.rows != 1 || y.columns != this.columns) {
+      throw (new ArithmeticException(
+          String.format(
+              "結果を格納する行ベクトルの型が不正です: (%d,%d) != (1,%d)",
+              y.rows, y.columns, this.columns)));
+    }
+
+    // x と y が同じ配列を参照している場合に備えて，xの成分を退避してから計算する
+    float[] xs = x.matrix[0].clone();
+    gevm(xs, this.matrix, y.matrix[0], accumulate);
+
+    return y;
+  }
+
+  /**
+   * 列ベクトルの成分を1次元配列にコピーして返します。
+   *
+   * @return 列ベクトルの成分を並べた配列
+   */
+  private float[] toColumnArray() {
+    float[] result = new float[this.rows];
+    for (int i = 0; i < this.rows; i++) {
+      result[i] = this.matrix[i][0];
+    }
+    return result;
+  }
+
+  /**
+   * 行列aと列ベクトルxの積を計算し，yに格納します(accumulateがtrueならyに加算します)。<br>
+   * 各行の計算は独立しているため，aの成分数が閾値以上なら行単位で並列に計算します。
+   *
+   * @param a 行列
+   * @param x 列ベクトルの成分
+   * @param y 結果を格納する配列
+   * @param accumulate trueならyに結果を加算します。
+   */
+  private static void gemv(float[][] a, float[] x, float[] y, boolean accumulate) {
+    if ((long) a.length * x.length >= PARALLEL_THRESHOLD) {
+      IntStream.range(0, a.length)
+          .parallel()
+          .forEach(i -> y[i] = dot(a[i], x, accumulate ? y[i] : 0));
+    } else {
+      for (int i = 0; i < a.length; i++) {
+        y[i] = dot(a[i], x, accumulate ? y[i] : 0);
+      }
+    }
+  }
+
+  /**
+   * 行ベクトルxと行列aの積を計算し，yに格納します(accumulateがtrueならyに加算します)。<br>
+   * aを行方向に走査しながらyを更新するため，aの列方向へのアクセスは発生しません。<br>
+   * aの成分数が閾値以上なら，列を分割して並列に計算します。
+   *
+   * @param x 行ベクトルの成分
+   * @param a 行列
+   * @param y 結果を格納する配列
+   * @param accumulate trueならyに結果を加算します。
+   */
+  private static void gevm(float[] x, float[][] a, float[] y, boolean accumulate) {
+    if (!accumulate) {
+      Arrays.fill(y, 0);
+    }
+
+    final int columns = y.length;
+    if ((long) a.length * columns >= PARALLEL_THRESHOLD && columns > PARALLEL_COLUMN_CHUNK) {
+      int chunks = (columns + PARALLEL_COLUMN_CHUNK - 1) / PARALLEL_COLUMN_CHUNK;
+      IntStream.range(0, chunks)
+          .parallel()
+          .forEach(
+              c -> {
+                int from = c * PARALLEL_COLUMN_CHUNK;
+                axpyRows(x, a, y, from, Math.min(from + PARALLEL_COLUMN_CHUNK, columns));
+              });
+    } else {
+      axpyRows(x, a, y, 0, columns);
+    }
+  }
+
+  /**
+   * y[from, to) += x[k] * a[k][from, to)をすべてのkについて計算します。
+   *
+   * @param x 行ベクトルの成分
+   * @param a 行列
+   * @param y 結果を格納する配列
+   * @param from 計算する列の範囲の先頭(この値を含む)
+   * @param to 計算する列の範囲の末尾(この値を含まない)
+   */
+  private static void axpyRows(float[] x, float[][] a, float[] y, int from, int to) {
+    for (int k = 0; k < a.length; k++) {
+      final float xk = x[k];
+      final float[] ak = a[k];
+      for (int j = from; j < to; j++) {
+        y[j] += xk * ak[j];
+      }
+    }
+  }
+
+  /**
+   * 配列aとxの内積にinitを加えた値を返します。<br>
+   * 4つの独立した部分和に分けて積和を行うことで，加算の依存関係による待ちを減らしています。
+   *
+   * @param a 配列
+   * @param x 配列
+   * @param init 初期値
+   * @return init + a・x
+   */
+  private static float dot(float[] a, float[] x, float init) {
+    float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    int k = 0;
+    for (; k + 3 < a.length; k += 4) {
+      s0 += a[k] * x[k];
+      s1 += a[k + 1] * x[k + 1];
+      s2 += a[k + 2] * x[k + 2];
+      s3 += a[k + 3] * x[k + 3];
+    }
+    for (; k < a.length; k++) {
+      s0 += a[k] * x[k];
+    }
+    return init + ((s0 + s1) + (s2 + s3));
+  }
+
+  /**
+   * this *= kを計算し，thisを返します。
+   *
+   * @param k この行列に乗算する値。
+   * @return this
+   */
+  public FloatMatrix mul(float k) {
+    for (int i = 0; i < this.rows; i++) {
+      final float[] a = this.matrix[i];
+      for (int j = 0; j < this.columns; j++) {
+        a[j] *= k;
+      }
+    }
+    return this;
+  }
+
+  /**
+   * thisを転置した行列を返します。
+   *
+   * @return t^this
+   */
+  public FloatMatrix trs() {
+    float[][] result = new float[this.columns][this.rows];
+    for (int i = 0; i < this.rows; i++) {
+      for (int j = 0; j < this.columns; j++) {
+        result[j][i] = this.matrix[i][j];
+      }
+    }
+
+    return (new FloatMatrix(result, false, false));
+  }
+}
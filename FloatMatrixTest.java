@@ -0,0 +1,954 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Usage: java -ea FloatMatrixTest
+public class FloatMatrixTest {
+
+  @FunctionalInterface
+  interface Test {
+    void test() throws Exception;
+
+    static void assertThrows(Class<? extends Exception> expected, String code, Test test) {
+      Class<? extends Exception> actual;
+      String message;
+      try {
+        test.test();
+        actual = null;
+        message = null;
+      } catch (Exception e) {
+        actual = e.getClass();
+        message = e.getMessage();
+      }
+
+      System.err.println(code);
+      assert expected.equals(actual);
+      System.err.printf(" => Exception %s thrown as expected.\n", expected);
+      System.err.println(
+          message != null && !message.isEmpty()
+              ? message.replaceAll("(?m)^", "    ")
+              : "    No message.");
+      System.err.println("---------------------------------");
+    }
+  }
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  private static void writeToFile(String filename, String str) {
+    try (BufferedWriter file = Files.newBufferedWriter(Paths.get(filename))) {
+      file.write(str, 0, str.length());
+      file.flush();
+    } catch (IOException ioe) {
+      ioe.printStackTrace();
+    }
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+
+    { // 引数の配列が不正な場合を確認
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "new FloatMatrix(new float[][] {{0}, {1, 2}})",
+          () -> FloatMatrix.from(new float[][] {{0}, {1, 2}}));
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "new FloatMatrix(new float[][] {{0, 1}, {1, 2}, {1, 2, 3}, {4, 5}})",
+          () -> FloatMatrix.from(new float[][] {{0, 1}, {1, 2}, {1, 2, 3}, {4, 5}}));
+    } // end of block
+
+    { // rows, columns, sizeが正しく設定されているかを確認
+      FloatMatrix a = FloatMatrix.from(new float[][] {{0, 0, 0}});
+      assert a.rows() == 1;
+      assert a.columns() == 3;
+      assert a.size() == 3;
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {0}, {0}, {0}, {0},
+              });
+      assert b.rows() == 4;
+      assert b.columns() == 1;
+      assert b.size() == 4;
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1, 5},
+                {0, 2, 4},
+                {0, 3, 3},
+                {0, 4, 2},
+                {0, 5, 1},
+              });
+      assert c.rows() == 5;
+      assert c.columns() == 3;
+      assert c.size() == 15;
+    } // end of block
+
+    { // get(), set()の動作確認
+      FloatMatrix a =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1, 2},
+                {3, 4, 5},
+                {6, 7, 8},
+              });
+
+      assert a.get(1, 1) == 4;
+      assert a.get(2, 2) == 8;
+
+      assert a.set(1, 1, -90).set(2, 2, 256) == a;
+      assert a.get(1, 1) == -90;
+      assert a.get(2, 2) == 256;
+    } // end of block
+
+    { // 行列の元となった配列の値の変更の影響を受けないことを確認
+      float[][] val = {
+        {0, 1, 2},
+        {3, 4, 5},
+        {6, 7, 8},
+      };
+      FloatMatrix a = FloatMatrix.from(val);
+
+      for (int i = 0; i < val.length; i++) {
+        for (int j = 0; j < val[i].length; j++) {
+          val[i][j] = 42;
+        }
+      }
+
+      for (int i = 0; i < val.length; i++) {
+        for (int j = 0; j < val[i].length; j++) {
+          assert a.get(i, j) == a.rows() * i + j;
+        }
+      }
+    } // end of block
+
+    { // isEqual() の動作確認
+      FloatMatrix a =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1, 2},
+                {3, 4, 5},
+                {6, 7, 8},
+                {9, 10, 11},
+              });
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1, 2},
+                {3, 4, 5},
+                {6, 7, 8},
+              });
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1},
+                {3, 4},
+                {6, 7},
+                {9, 10},
+              });
+
+      FloatMatrix d =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1, 2},
+                {3, 4, 5},
+                {6, 7, 8},
+                {9, 10, 11},
+              });
+
+      FloatMatrix e =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1, 2},
+                {3, 4, 5},
+                {6, 7, 8},
+                {9, 10, -11},
+              });
+
+      Test.assertThrows(NullPointerException.class, "a.isEqual(null)", () -> a.isEqual(null));
+
+      assert a.isEqual(a);
+
+      // 行数が異なる場合
+      assert !a.isEqual(b);
+      assert !b.isEqual(a);
+
+      // 列数が異なる場合
+      assert !a.isEqual(c);
+      assert !c.isEqual(a);
+
+      // 同じ場合
+      assert a.isEqual(d);
+      assert d.isEqual(a);
+
+      // 型は等しいが，成分の値が一部異っている場合
+      assert !a.isEqual(e);
+      assert !e.isEqual(a);
+    } // end of block
+
+    { // isSymmetric() の動作確認
+      FloatMatrix a =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 7, 3},
+                {7, 4, -5},
+                {3, -5, 6},
+              });
+
+      assert a.isSymmetric();
+
+      a.set(0, 1, 1);
+      assert !a.isSymmetric();
+    } // end of block
+
+    { // toString() の動作確認
+      FloatMatrix a = FloatMatrix.from(new float[][] {{0, 1, 2}});
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {0}, {1}, {2},
+              });
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 3, 6, 9},
+                {1, 4, 7, 10},
+                {2, 5, 8, 11},
+              });
+
+      assert a.toString().equals("0.0 1.0 2.0");
+      assert a.toString(",").equals("0.0,1.0,2.0");
+      assert b.toString().equals(String.format("0.0%n1.0%n2.0"));
+      assert b.toString(";").equals(String.format("0.0%n1.0%n2.0"));
+      assert c.toString()
+          .equals(String.format("0.0 3.0 6.0 9.0%n1.0 4.0 7.0 10.0%n2.0 5.0 8.0 11.0"));
+      assert c.toString(" | ")
+          .equals(
+              String.format(
+                  "0.0 | 3.0 | 6.0 | 9.0%n1.0 | 4.0 | 7.0 | 10.0%n2.0 | 5.0 | 8.0 | 11.0"));
+
+      Test.assertThrows(IllegalArgumentException.class, "a.toString(\"\")", () -> a.toString(""));
+      Test.assertThrows(IllegalArgumentException.class, "a.toString(\".\")", () -> a.toString("."));
+      Test.assertThrows(
+          IllegalArgumentException.class, "a.toString(\",.\")", () -> a.toString(",."));
+      Test.assertThrows(
+          IllegalArgumentException.class, "a.toString(\".,\")", () -> a.toString(".,"));
+      Test.assertThrows(
+          IllegalArgumentException.class, "a.toString(\",.,\")", () -> a.toString(",.,"));
+      Test.assertThrows(IllegalArgumentException.class, "a.toString(\"6\")", () -> a.toString("6"));
+      Test.assertThrows(
+          IllegalArgumentException.class, "a.toString(\",6\")", () -> a.toString(",6"));
+      Test.assertThrows(
+          IllegalArgumentException.class, "a.toString(\"6,\")", () -> a.toString("6,"));
+      Test.assertThrows(
+          IllegalArgumentException.class, "a.toString(\",6,\")", () -> a.toString(",6,"));
+    } // end of block
+
+    { // add() の動作確認
+      FloatMatrix a = FloatMatrix.from(new float[][] {{1, 2, 3}});
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 4, 5},
+                {2, 5, 6},
+                {3, 6, 7},
+              });
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 4},
+                {2, 5},
+                {3, 6},
+              });
+
+      FloatMatrix d =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 4},
+                {2, 5},
+                {3, 6},
+              });
+
+      FloatMatrix e =
+          FloatMatrix.from(
+              new float[][] {
+                {-1, 4},
+                {-2, 5},
+                {-3, 6},
+              });
+
+      FloatMatrix f =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 8},
+                {0, 10},
+                {0, 12},
+              });
+
+      Test.assertThrows(NullPointerException.class, "a.plus(null)", () -> a.plus(null));
+
+      // 行数が異なる場合
+      Test.assertThrows(ArithmeticException.class, "a.plus(b)", () -> a.plus(b));
+      Test.assertThrows(ArithmeticException.class, "b.plus(a)", () -> b.plus(a));
+
+      // 列数が異なる場合
+      Test.assertThrows(ArithmeticException.class, "b.plus(c)", () -> b.plus(c));
+      Test.assertThrows(ArithmeticException.class, "c.plus(b)", () -> c.plus(b));
+
+      // 加算結果が正しいかどうか
+      assert d.plus(e).isEqual(f);
+      assert e.plus(d).isEqual(f);
+    } // end of block
+
+    { // sub() の動作確認
+      FloatMatrix a =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 4, 7, 10},
+                {2, 5, 8, 11},
+                {3, 6, 9, 12},
+              });
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 1, 1, 1},
+                {-1, -1, -1, -1},
+                {2, 2, 2, 2},
+              });
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 3, 6, 9},
+                {3, 6, 9, 12},
+                {1, 4, 7, 10},
+              });
+
+      FloatMatrix d = FloatMatrix.from(new float[][] {{1, 2}});
+
+      assert a.minus(b).isEqual(c);
+
+      Test.assertThrows(ArithmeticException.class, "a.minus(d)", () -> a.minus(d));
+      Test.assertThrows(ArithmeticException.class, "d.minus(a)", () -> d.minus(a));
+    } // end of block
+
+    { // 行列の定数倍の動作確認
+      FloatMatrix a =
+          FloatMatrix.from(
+              new float[][] {
+                {-9, -3, 6},
+                {4, 5, 6},
+                {1, 2, 3},
+              });
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {-18, -6, 12},
+                {8, 10, 12},
+                {2, 4, 6},
+              });
+
+      FloatMatrix z =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 0, 0},
+                {0, 0, 0},
+                {0, 0, 0},
+              });
+
+      assert a.times(2).isEqual(b);
+      assert b.times(0.5f).isEqual(a);
+
+      // 0A = O
+      assert a.times(0).isEqual(z);
+
+      // 1A = A
+      assert a.times(1).isEqual(a);
+
+      // kO = O
+      assert z.times(12).isEqual(z);
+    } // end of block
+
+    { // 行列同士の掛け算の動作確認
+      FloatMatrix a = FloatMatrix.from(new float[][] {{1, 2, 3, 4, 5}});
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {1}, {1}, {1}, {1}, {1},
+              });
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {1}, {2}, {3}, {4}, {5},
+              });
+
+      FloatMatrix d = FloatMatrix.from(new float[][] {{1, 1, 1, 1, 1}});
+
+      FloatMatrix e = FloatMatrix.from(new float[][] {{15}});
+
+      FloatMatrix f =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3, 4, 5},
+                {1, 2, 3, 4, 5},
+                {1, 2, 3, 4, 5},
+                {1, 2, 3, 4, 5},
+                {1, 2, 3, 4, 5},
+              });
+
+      FloatMatrix g =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 1, 1, 1, 1},
+                {2, 2, 2, 2, 2},
+                {3, 3, 3, 3, 3},
+                {4, 4, 4, 4, 4},
+                {5, 5, 5, 5, 5},
+              });
+
+      assert a.times(b).isEqual(e);
+      assert d.times(c).isEqual(e);
+
+      assert b.times(a).isEqual(f);
+      assert c.times(d).isEqual(g);
+
+      Test.assertThrows(ArithmeticException.class, "d.times(e)", () -> d.times(e));
+    } // end of block
+
+    { // createDiagonalMatrix() の動作確認
+      FloatMatrix a = FloatMatrix.createDiagonalMatrix(1, 2, 3);
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 0, 0},
+                {0, 2, 0},
+                {0, 0, 3},
+              });
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1, 2},
+                {3, 4, 5},
+                {6, 7, 8},
+              });
+
+      FloatMatrix d = FloatMatrix.createDiagonalMatrix(2, 3, 4);
+
+      FloatMatrix e =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 3, 8},
+                {6, 12, 20},
+                {12, 21, 32},
+              });
+
+      FloatMatrix f = FloatMatrix.createDiagonalMatrix(2, 1);
+
+      FloatMatrix g =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3},
+                {4, 5, 6},
+              });
+
+      FloatMatrix h =
+          FloatMatrix.from(
+              new float[][] {
+                {2, 4, 6},
+                {4, 5, 6},
+              });
+
+      FloatMatrix z =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 0, 0},
+                {0, 0, 0},
+                {0, 0, 0},
+              });
+
+      assert a.isEqual(b);
+      assert c.times(d).isEqual(e);
+      assert f.times(g).isEqual(h);
+      assert z.isEqual(FloatMatrix.createDiagonalMatrix(new float[] {0, 0, 0}));
+      assert z.isEqual(FloatMatrix.createDiagonalMatrix(0, 0, 0));
+    } // end of block
+
+    { // createIdentityMatrix() の動作確認
+      FloatMatrix a = FloatMatrix.createIdentityMatrix(5);
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 0, 0, 0, 0},
+                {0, 1, 0, 0, 0},
+                {0, 0, 1, 0, 0},
+                {0, 0, 0, 1, 0},
+                {0, 0, 0, 0, 1},
+              });
+
+      assert a.isEqual(b);
+    } // end of block
+
+    { // 行列の転置の動作確認
+      FloatMatrix a =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3},
+                {4, 5, 6},
+              });
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 4},
+                {2, 5},
+                {3, 6},
+              });
+
+      FloatMatrix c = FloatMatrix.from(new float[][] {{1, 2, 3}});
+
+      FloatMatrix d =
+          FloatMatrix.from(
+              new float[][] {
+                {1}, {2}, {3},
+              });
+
+      FloatMatrix e = FloatMatrix.createDiagonalMatrix(1, 2, 3);
+
+      assert a.trs().isEqual(b);
+      assert a.trs().trs().isEqual(a);
+
+      assert c.trs().isEqual(d);
+      assert e.trs().isEqual(e);
+    } // end of block
+
+    { // 行列同士の型の比較の動作確認
+      FloatMatrix a = FloatMatrix.from(new float[][] {{1, 2, 3}});
+      FloatMatrix b = FloatMatrix.from(new float[][] {{0, 0, 0}});
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3},
+                {1, 2, 3},
+                {1, 2, 3},
+              });
+
+      FloatMatrix d =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3},
+                {1, 2, 3},
+                {1, 0, 3},
+              });
+
+      assert !a.isEqual(b);
+      assert !b.isEqual(a);
+      assert a.isTypeEqual(b);
+      assert b.isTypeEqual(a);
+
+      assert !c.isEqual(d);
+      assert !d.isEqual(c);
+      assert c.isTypeEqual(d);
+      assert d.isTypeEqual(c);
+    } // end of block
+
+    { // 行と列の交換の動作確認
+      float[][] val = {
+        {1, 1, 1, 1},
+        {2, 2, 2, 2},
+        {3, 3, 3, 3},
+        {4, 4, 4, 4},
+        {5, 5, 5, 5},
+      };
+
+      FloatMatrix a = FloatMatrix.from(val);
+
+      FloatMatrix b = FloatMatrix.from(val);
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 0, 0, 1, 0},
+                {0, 1, 0, 0, 0},
+                {0, 0, 1, 0, 0},
+                {1, 0, 0, 0, 0},
+                {0, 0, 0, 0, 1},
+              });
+
+      float[][] val2 = {
+        {1, 2, 3},
+        {4, 5, 6},
+        {7, 8, 9},
+        {3, 2, 1},
+      };
+
+      FloatMatrix d = FloatMatrix.from(val2);
+
+      FloatMatrix e = FloatMatrix.from(val2);
+
+      FloatMatrix f =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 0, 1},
+                {0, 1, 0},
+                {1, 0, 0},
+              });
+
+      Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class, "a.swapRows(-1, -1)", () -> a.swapRows(-1, -1));
+      Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class, "a.swapRows(100, 100)", () -> a.swapRows(100, 100));
+      Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class, "a.swapColumns(-1, -1)", () -> a.swapRows(-1, -1));
+      Test.assertThrows(
+          ArrayIndexOutOfBoundsException.class,
+          "a.swapColumns(100, 100)",
+          () -> a.swapRows(100, 100));
+
+      assert a.isEqual(b);
+      assert b.isEqual(a);
+      assert a.swapRows(0, 3) == a;
+      assert a.isEqual(c.times(b));
+      assert a.swapRows(0, 0) == a;
+
+      assert d.isEqual(e);
+      assert e.isEqual(d);
+      assert d.swapColumns(0, 2) == d;
+      assert d.isEqual(e.times(f));
+      assert d.swapColumns(0, 0) == d;
+    } // end of block
+
+    { // 自分自身に対する加算と減算の動作確認
+      float[][] val = {
+        {1, 2, 3},
+        {4, 5, 6},
+      };
+
+      FloatMatrix a = FloatMatrix.from(val);
+
+      FloatMatrix b = FloatMatrix.from(val);
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {2, 2, 2},
+                {2, 2, 2},
+              });
+
+      FloatMatrix d =
+          FloatMatrix.from(
+              new float[][] {
+                {3, 4, 5},
+                {6, 7, 8},
+              });
+
+      FloatMatrix e = FloatMatrix.from(new float[][] {{1, 2, 3}});
+
+      assert !a.isEqual(d);
+      a.add(c);
+      assert a.isEqual(d);
+
+      a.sub(c);
+      assert !a.isEqual(d);
+      assert a.isEqual(b);
+
+      Test.assertThrows(ArithmeticException.class, "a.add(e)", () -> a.add(e));
+      Test.assertThrows(ArithmeticException.class, "e.add(a)", () -> e.add(a));
+      Test.assertThrows(ArithmeticException.class, "a.sub(e)", () -> a.sub(e));
+      Test.assertThrows(ArithmeticException.class, "e.sub(a)", () -> e.sub(a));
+    } // end of block
+
+    { // 自分自身の定数倍の動作確認
+      FloatMatrix a = FloatMatrix.from(new float[][] {{1, 2, 3}});
+
+      FloatMatrix b = FloatMatrix.from(new float[][] {{12, 24, 36}});
+
+      assert !a.isEqual(b);
+      a.mul(12);
+      assert a.isEqual(b);
+    } // end of block
+
+    { // ファイル入出力の動作確認
+      FloatMatrix a = FloatMatrix.from(new float[][] {{1, 2, 3}});
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {-1}, {-2}, {-3},
+              });
+
+      FloatMatrix c =
+          FloatMatrix.from(
+              new float[][] {
+                {-1, -4},
+                {-2, -5},
+                {-3, -6},
+              });
+
+      try {
+        FloatMatrix.writeToFile(a, "tmp/ftmp1.dat");
+        FloatMatrix.writeToFile(b, "tmp/ftmp2.dat");
+        FloatMatrix.writeToFile(c, "tmp/ftmp3.dat", ",");
+      } catch (IOException ioe) {
+        ioe.printStackTrace();
+        System.exit(1);
+      }
+
+      FloatMatrix d, e, f;
+      d = e = f = null;
+      try {
+        d = FloatMatrix.readFromFile("tmp/ftmp1.dat");
+        e = FloatMatrix.readFromFile("tmp/ftmp2.dat");
+        f = FloatMatrix.readFromFile("tmp/ftmp3.dat", ",");
+      } catch (IOException ioe) {
+        ioe.printStackTrace();
+        System.exit(1);
+      }
+
+      assert a.isEqual(d);
+      assert b.isEqual(e);
+      assert c.isEqual(f);
+    } // end of block
+
+    { // FloatMatrix(int, int), FloatMatrix(int, int, float...) の動作確認
+      FloatMatrix a = FloatMatrix.createZeroMatrix(5, 1);
+
+      FloatMatrix b =
+          FloatMatrix.from(
+              new float[][] {
+                {0}, {0}, {0}, {0}, {0},
+              });
+
+      FloatMatrix c = FloatMatrix.createZeroMatrix(4, 5);
+
+      FloatMatrix d =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0},
+              });
+
+      FloatMatrix e = FloatMatrix.of(2, 2, 1, 2, 3, 4);
+
+      FloatMatrix f =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2},
+                {3, 4},
+              });
+
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "new FloatMatrix(2, 2, 1, 2, 3)",
+          () -> FloatMatrix.of(2, 2, 1, 2, 3));
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "new FloatMatrix(2, 2, 1, 2, 3, 4, 5)",
+          () -> FloatMatrix.of(2, 2, 1, 2, 3, 4, 5));
+
+      assert a.isEqual(b);
+      assert c.isEqual(d);
+      assert e.isEqual(f);
+    } // end of block
+
+    { // createRowVector(), createColumnVector() の動作確認
+      FloatMatrix a = FloatMatrix.createRowVector(-3, -2, -1, 0);
+
+      FloatMatrix b = FloatMatrix.from(new float[][] {{-3, -2, -1, 0}});
+
+      FloatMatrix c = FloatMatrix.createColumnVector(4, 5, 6, -9);
+
+      FloatMatrix d =
+          FloatMatrix.from(
+              new float[][] {
+                {4}, {5}, {6}, {-9},
+              });
+
+      assert a.isEqual(b);
+      assert c.isEqual(d);
+    } // end of block
+
+    { // 行列の水平方向，垂直方向への結合の動作確認
+      FloatMatrix a = FloatMatrix.createColumnVector(-1, 2, 3);
+      FloatMatrix b = FloatMatrix.createColumnVector(1, -2, 3);
+      FloatMatrix c = FloatMatrix.createColumnVector(1, 2, -3);
+
+      FloatMatrix d =
+          FloatMatrix.from(
+              new float[][] {
+                {-1, 1, 1},
+                {2, -2, 2},
+                {3, 3, -3},
+              });
+
+      FloatMatrix e =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3},
+                {4, 5, 6},
+              });
+
+      FloatMatrix f =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3, 1, 2, 3},
+                {4, 5, 6, 4, 5, 6},
+              });
+
+      FloatMatrix g =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3, 1, 2, 3},
+                {4, 5, 6, 4, 5, 6},
+                {1, 2, 3, 1, 2, 3},
+                {4, 5, 6, 4, 5, 6},
+                {1, 2, 3, 1, 2, 3},
+                {4, 5, 6, 4, 5, 6},
+              });
+
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "FloatMatrix.combineHorizontally(f, g)",
+          () -> FloatMatrix.combineHorizontally(f, g));
+      Test.assertThrows(
+          IllegalArgumentException.class,
+          "FloatMatrix.combineVertically(e, f, e)",
+          () -> FloatMatrix.combineVertically(e, f, e));
+
+      assert d.isEqual(FloatMatrix.combineHorizontally(a, b, c));
+      assert d.trs().isEqual(FloatMatrix.combineVertically(a.trs(), b.trs(), c.trs()));
+
+      assert f.isEqual(FloatMatrix.combineHorizontally(e, e));
+      assert g.isEqual(FloatMatrix.combineVertically(f, f, f));
+    } // end of block
+
+    { // ファイルの形式に誤りがあった場合の例外を確認
+      writeToFile("tmp/ftmpe1.dat", "2 3 4\n6 u 9\n");
+      Test.assertThrows(
+          IOException.class,
+          "FloatMatrix.readFromFile(\"ftmpe1.dat\")",
+          () -> FloatMatrix.readFromFile("tmp/ftmpe1.dat"));
+    } // end of block
+
+    { // コピーコンストラクタの動作確認
+      FloatMatrix a =
+          FloatMatrix.from(
+              new float[][] {
+                {0, 1, 2},
+                {3, 4, 5},
+                {6, 7, 8},
+              });
+
+      FloatMatrix b = FloatMatrix.from(a); // aの内容でbを作成
+
+      assert a.isEqual(b);
+      a.set(1, 1, -9);
+      assert !a.isEqual(b);
+    } // end of block
+
+    { // 行列とベクトルの積の動作確認
+      FloatMatrix a =
+          FloatMatrix.from(
+              new float[][] {
+                {1, 2, 3},
+                {4, 5, 6},
+              });
+
+      FloatMatrix x = FloatMatrix.createColumnVector(1, 0, -1);
+      FloatMatrix y = FloatMatrix.createColumnVector(-2, -2);
+      FloatMatrix u = FloatMatrix.createRowVector(1, -1);
+      FloatMatrix v = FloatMatrix.createRowVector(-3, -3, -3);
+
+      assert a.times(x).isEqual(y);
+      assert u.times(a).isEqual(v);
+
+      FloatMatrix z = FloatMatrix.createColumnVector(10, 20);
+      assert a.multiplyInto(x, z, false) == z;
+      assert z.isEqual(y);
+      a.multiplyInto(x, z, true);
+      assert z.isEqual(y.times(2));
+
+      FloatMatrix w = FloatMatrix.createRowVector(1, 1, 1);
+      assert a.leftMultiplyInto(u, w, true) == w;
+      assert w.isEqual(FloatMatrix.createRowVector(-2, -2, -2));
+      a.leftMultiplyInto(u, w, false);
+      assert w.isEqual(v);
+
+      Test.assertThrows(
+          ArithmeticException.class,
+          "a.multiplyInto(u, z, false)",
+          () -> a.multiplyInto(u, z, false));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "a.multiplyInto(x, w, false)",
+          () -> a.multiplyInto(x, w, false));
+      Test.assertThrows(
+          ArithmeticException.class,
+          "a.leftMultiplyInto(x, w, false)",
+          () -> a.leftMultiplyInto(x, w, false));
+
+      // 並列に計算される大きさの行列でも，結果が一般の行列の積と一致することを確認
+      final int n = 300;
+      float[][] val = new float[n][n];
+      float[][] col = new float[n][1];
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          val[i][j] = (i * 31 + j * 17) % 11 - 5;
+        }
+        col[i][0] = i % 7 - 3;
+      }
+      FloatMatrix b = FloatMatrix.from(val);
+      FloatMatrix c = FloatMatrix.from(col);
+      FloatMatrix expected = FloatMatrix.createZeroMatrix(n, 1);
+      for (int i = 0; i < n; i++) {
+        float sum = 0;
+        for (int k = 0; k < n; k++) {
+          sum += b.get(i, k) * c.get(k, 0);
+        }
+        expected.set(i, 0, sum);
+      }
+      assert b.times(c).isEqual(expected);
+      assert c.trs().times(b.trs()).isEqual(expected.trs());
+    } // end of block
+
+    { // DoubleMatrixとの相互変換の動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 0.5, -1.25, 3, 1.0 / 3);
+      FloatMatrix b = FloatMatrix.from(a);
+
+      assert b.rows() == 2;
+      assert b.columns() == 2;
+      assert b.get(0, 0) == 0.5f;
+      assert b.get(0, 1) == -1.25f;
+      assert b.get(1, 1) == (float) (1.0 / 3);
+
+      DoubleMatrix c = DoubleMatrix.from(b);
+      assert c.get(1, 0) == 3;
+      assert c.get(1, 1) == (double) (float) (1.0 / 3);
+      assert c.get(1, 1) != a.get(1, 1);
+      assert FloatMatrix.from(c).isEqual(b);
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class FloatMatrixTest
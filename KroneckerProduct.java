@@ -0,0 +1,172 @@
+/**
+ * 2つの行列A，Bのクロネッカー積A ⊗ Bを，成分を展開せずに表すクラスです。<br>
+ * Aがm * n，Bがp * qの行列の場合，A ⊗ Bは(m * p) * (n * q)の行列ですが，このクラスはAとBだけを保持します。<br>
+ * ベクトルとの積は，長さn * qのベクトルxを行優先でn * qの行列Xに並べ直すと，
+ * (A ⊗ B)x が A X B^t を行優先で並べたベクトルに等しいことを利用して計算します。
+ * そのため，計算量はn * q * (m + p)程度で，(m * p) * (n * q)の行列を生成する必要はありません。
+ *
+ * <pre>{@code
+ * // 2次元格子上の分離可能な作用素 (Dx ⊗ I + I ⊗ Dy) を格子点の値uに適用する
+ * KroneckerProduct kx = KroneckerProduct.of(dx, DoubleMatrix.createIdentityMatrix(ny));
+ * KroneckerProduct ky = KroneckerProduct.of(DoubleMatrix.createIdentityMatrix(nx), dy);
+ * DoubleMatrix v = kx.times(u).plus(ky.times(u));
+ * }</pre>
+ *
+ * AとBは参照を保持するため，生成した後にAやBを変更すると，このクロネッカー積にも反映されます。
+ *
+ * @author mpp
+ * @see DoubleMatrix#kronecker(DoubleMatrix)
+ */
+public final class KroneckerProduct {
+
+  /**
+   * クロネッカー積A ⊗ Bを表すオブジェクトを生成します。
+   *
+   * @param a 左側の行列A
+   * @param b 右側の行列B
+   * @return A ⊗ B
+   * @throws IllegalArgumentException A ⊗ Bの行数または列数がintの範囲を超える場合
+   */
+  public static KroneckerProduct of(DoubleMatrix a, DoubleMatrix b) {
+    final long rows = (long) a.rows() * b.rows();
+    final long columns = (long) a.columns() * b.columns();
+    if (rows > Integer.MAX_VALUE || columns > Integer.MAX_VALUE) {
+      throw (new IllegalArgumentException(
+          String.format("クロネッカー積の型が大きすぎます: (%d,%d)", rows, columns)));
+    }
+    return (new KroneckerProduct(a, b));
+  }
+
+  /** 左側の行列Aです。 */
+  private final DoubleMatrix a;
+
+  /** 右側の行列Bです。 */
+  private final DoubleMatrix b;
+
+  /**
+   * クロネッカー積を生成します。
+   *
+   * @param a 左側の行列A
+   * @param b 右側の行列B
+   */
+  private KroneckerProduct(DoubleMatrix a, DoubleMatrix b) {
+    this.a = a;
+    this.b = b;
+  }
+
+  /**
+   * 左側の行列Aを返します。
+   *
+   * @return A
+   */
+  public DoubleMatrix left() {
+    return this.a;
+  }
+
+  /**
+   * 右側の行列Bを返します。
+   *
+   * @return B
+   */
+  public DoubleMatrix right() {
+    return this.b;
+  }
+
+  /**
+   * A ⊗ Bの行数を返します。
+   *
+   * @return 行数
+   */
+  public int rows() {
+    return this.a.rows() * this.b.rows();
+  }
+
+  /**
+   * A ⊗ Bの列数を返します。
+   *
+   * @return 列数
+   */
+  public int columns() {
+    return this.a.columns() * this.b.columns();
+  }
+
+  /**
+   * A ⊗ Bの(i, j)成分を返します。
+   *
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public double get(int i, int j) {
+    if (i < 0 || i >= this.rows() || j < 0 || j >= this.columns()) {
+      throw (new IndexOutOfBoundsException(
+          String.format("添え字が範囲外です: (%d,%d) (型: (%d,%d))", i, j, this.rows(), this.columns())));
+    }
+    final int p = this.b.rows();
+    final int q = this.b.columns();
+    return this.a.get(i / p, j / q) * this.b.get(i % p, j % q);
+  }
+
+  /**
+   * (A ⊗ B) * xを，A ⊗ Bを展開せずに計算し，結果の行列を返します。<br>
+   * xの各列について，その列を行優先でn * qの行列Xに並べ直し，A X B^tを計算して結果の列とします。
+   *
+   * @param x 右から乗算する行列(行数はA ⊗ Bの列数)
+   * @return (A ⊗ B) * x
+   * @throws ArithmeticException xの行数がA ⊗ Bの列数と異なる場合
+   */
+  public DoubleMatrix times(DoubleMatrix x) {
+    if (x.rows() != this.columns()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.columns(), x.rows())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("kroneckerTimes");
+    final int m = this.a.rows();
+    final int n = this.a.columns();
+    final int p = this.b.rows();
+    final int q = this.b.columns();
+    final double[][] left = this.a.array();
+    final double[][] rightTransposed = this.b.transposed().array();
+    final double[][] source = x.array();
+
+    double[][] unfolded = new double[n][q];
+    double[][] partial = new double[n][p];
+    double[][] folded = new double[m][p];
+    double[][] result = DoubleMatrixWorkspace.allocate(m * p, x.columns());
+    for (int c = 0; c < x.columns(); c++) {
+      for (int j = 0; j < n; j++) {
+        for (int s = 0; s < q; s++) {
+          unfolded[j][s] = source[j * q + s][c];
+        }
+      }
+      DoubleMatrix.gemm(unfolded, rightTransposed, partial); // X B^t
+      DoubleMatrix.gemm(left, partial, folded); // A (X B^t)
+      for (int i = 0; i < m; i++) {
+        for (int r = 0; r < p; r++) {
+          result[i * p + r][c] = folded[i][r];
+        }
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        m * p,
+        x.columns(),
+        n * q,
+        (long) m * p * x.columns() * Double.BYTES,
+        2L * x.columns() * ((long) n * q * p + (long) m * n * p));
+
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * A ⊗ Bを展開したDoubleMatrixを生成します。
+   *
+   * @return A ⊗ B
+   * @see DoubleMatrix#kronecker(DoubleMatrix)
+   */
+  public DoubleMatrix toDoubleMatrix() {
+    return this.a.kronecker(this.b);
+  }
+}
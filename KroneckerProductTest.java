@@ -0,0 +1,92 @@
+// Usage: java -ea KroneckerProductTest
+public class KroneckerProductTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+    java.util.Random random = new java.util.Random(45);
+
+    { // アダマール積の動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      DoubleMatrix b = DoubleMatrix.of(2, 2, 5, 6, 7, 8);
+      assert a.hadamard(b).isEqual(DoubleMatrix.of(2, 2, 5, 12, 21, 32));
+      assert a.get(0, 1) == 2;
+
+      final int version = a.version();
+      assert a.hadamardInPlace(b) == a;
+      assert a.isEqual(DoubleMatrix.of(2, 2, 5, 12, 21, 32));
+      assert a.version() != version;
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "a.hadamard(DoubleMatrix.createZeroMatrix(2, 3))",
+          () -> a.hadamard(DoubleMatrix.createZeroMatrix(2, 3)));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "a.hadamardInPlace(DoubleMatrix.createZeroMatrix(3, 2))",
+          () -> a.hadamardInPlace(DoubleMatrix.createZeroMatrix(3, 2)));
+    }
+
+    { // クロネッカー積の動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 2, 3, 4);
+      DoubleMatrix b = DoubleMatrix.of(2, 3, 0, 5, 1, 6, 7, 0);
+      DoubleMatrix k = a.kronecker(b);
+      assert k.rows() == 4 && k.columns() == 6;
+      assert k.isEqual(
+          DoubleMatrix.from(
+              new double[][] {
+                {0, 5, 1, 0, 10, 2},
+                {6, 7, 0, 12, 14, 0},
+                {0, 15, 3, 0, 20, 4},
+                {18, 21, 0, 24, 28, 0},
+              }));
+
+      KroneckerProduct lazy = KroneckerProduct.of(a, b);
+      assert lazy.left() == a && lazy.right() == b;
+      assert lazy.rows() == 4 && lazy.columns() == 6;
+      for (int i = 0; i < 4; i++) {
+        for (int j = 0; j < 6; j++) {
+          assert lazy.get(i, j) == k.get(i, j);
+        }
+      }
+      assert lazy.toDoubleMatrix().isEqual(k);
+
+      DoubleMatrixTest.Test.assertThrows(
+          IndexOutOfBoundsException.class, "lazy.get(4, 0)", () -> lazy.get(4, 0));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "lazy.times(DoubleMatrix.createZeroMatrix(4, 1))",
+          () -> lazy.times(DoubleMatrix.createZeroMatrix(4, 1)));
+    }
+
+    { // 展開しない積が，展開した行列との積と一致することを確認
+      int[][] shapes = {{3, 4, 5, 2}, {1, 7, 6, 1}, {5, 5, 5, 5}, {2, 3, 1, 4}};
+      for (int[] shape : shapes) {
+        DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, shape[0], shape[1]);
+        DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, shape[2], shape[3]);
+        DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(random, shape[1] * shape[3], 3);
+        KroneckerProduct lazy = KroneckerProduct.of(a, b);
+        assert lazy.times(x).isEqual(a.kronecker(b).times(x));
+      }
+
+      // 2次元格子上のラプラシアン (D ⊗ I + I ⊗ D)
+      DoubleMatrix d = DoubleMatrix.of(3, 3, -2, 1, 0, 1, -2, 1, 0, 1, -2);
+      DoubleMatrix identity = DoubleMatrix.createIdentityMatrix(3);
+      DoubleMatrix u = DoubleMatrixTest.Test.randomMatrix(random, 9, 1);
+      DoubleMatrix lazy =
+          KroneckerProduct.of(d, identity).times(u).plus(KroneckerProduct.of(identity, d).times(u));
+      DoubleMatrix dense = d.kronecker(identity).plus(identity.kronecker(d)).times(u);
+      assert lazy.isEqual(dense);
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class KroneckerProductTest
@@ -0,0 +1,293 @@
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 部分ピボット選択付きのLU分解を表すクラスです。<br>
+ * 正方行列AをPA = LUの形に分解して保持し，連立一次方程式AX = Bの解や行列式を求めるために使用します。<br>
+ * <br>
+ * 分解は生成時に一度だけ行われるため，同じ係数行列で右辺だけが異なる連立一次方程式を繰り返し解く場合は，<br>
+ * このクラスのインスタンスを使い回すことで，分解のための計算(O(n^3))を省くことができます。
+ *
+ * <pre>{@code
+ * DoubleMatrix a = DoubleMatrix.of(2, 2, 4, 3, 6, 3);
+ * LUDecomposition lu = LUDecomposition.of(a);
+ * DoubleMatrix x = lu.solve(DoubleMatrix.createColumnVector(10, 12)); // x = (1, 2)
+ * }</pre>
+ *
+ * @author mpp
+ * @see DoubleMatrix#solve(DoubleMatrix)
+ */
+public class LUDecomposition {
+
+  /** 分解を中止するかどうかを確認する間隔(列数)です。 */
+  static final int CANCEL_CHECK_INTERVAL = 32;
+
+  /**
+   * 正方行列をLU分解します。
+   *
+   * @param matrix 分解する正方行列
+   * @return LU分解
+   * @throws ArithmeticException matrixが正方行列でない場合，または正則でない場合
+   */
+  public static LUDecomposition of(DoubleMatrix matrix) {
+    return (new LUDecomposition(matrix, () -> false));
+  }
+
+  /**
+   * 正方行列をLU分解します。消去の途中でcancelledがtrueを返した場合は，分解を中止します。
+   *
+   * @param matrix 分解する正方行列
+   * @param cancelled 中止するかどうかを返す関数(CANCEL_CHECK_INTERVAL列ごとに呼び出されます)
+   * @return LU分解
+   * @throws ArithmeticException matrixが正方行列でない場合，または正則でない場合
+   * @throws CancellationException 分解を中止した場合
+   */
+  static LUDecomposition of(DoubleMatrix matrix, BooleanSupplier cancelled) {
+    return (new LUDecomposition(matrix, cancelled));
+  }
+
+  /** 単位下三角行列Lの対角より下の成分と，上三角行列Uの成分をまとめて保持する配列です。 */
+  private final double[][] lu;
+
+  /** 行の入れ替えを表す配列です。pivot[i]は，PAのi行目が元の行列の何行目かを表します。 */
+  private final int[] pivot;
+
+  /** 行の入れ替えの回数が偶数なら1，奇数なら-1を表します。 */
+  private final int sign;
+
+  /** 係数行列の次数を表します。 */
+  private final int n;
+
+  /**
+   * 正方行列をLU分解します。
+   *
+   * @param matrix 分解する正方行列
+   * @param cancelled 中止するかどうかを返す関数
+   * @throws ArithmeticException matrixが正方行列でない場合，または正則でない場合
+   * @throws CancellationException 分解を中止した場合
+   */
+  private LUDecomposition(DoubleMatrix matrix, BooleanSupplier cancelled) {
+    if (matrix.rows() != matrix.columns()) {
+      throw (new ArithmeticException(
+          String.format(
+              "正方行列ではないため，LU分解できません: (%d,%d)", matrix.rows(), matrix.columns())));
+    }
+
+    this.n = matrix.rows();
+    this.lu = new double[this.n][this.n];
+    this.pivot = new int[this.n];
+    for (int i = 0; i < this.n; i++) {
+      for (int j = 0; j < this.n; j++) {
+        this.lu[i][j] = matrix.get(i, j);
+      }
+      this.pivot[i] = i;
+    }
+
+    int sign = 1;
+    for (int k = 0; k < this.n; k++) {
+      if (k % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+        throw (new CancellationException("LU分解が中止されました"));
+      }
+      int p = k;
+      for (int i = k + 1; i < this.n; i++) {
+        if (Math.abs(this.lu[i][k]) > Math.abs(this.lu[p][k])) {
+          p = i;
+        }
+      }
+      if (this.lu[p][k] == 0) {
+        throw (new ArithmeticException("行列が正則ではないため，LU分解できません"));
+      }
+      if (p != k) {
+        double[] tmp = this.lu[p];
+        this.lu[p] = this.lu[k];
+        this.lu[k] = tmp;
+        int t = this.pivot[p];
+        this.pivot[p] = this.pivot[k];
+        this.pivot[k] = t;
+        sign = -sign;
+      }
+
+      // 行単位の積和で消去を行う(内側のループは連続した配列へのアクセスになる)
+      final double[] rowK = this.lu[k];
+      for (int i = k + 1; i < this.n; i++) {
+        final double[] rowI = this.lu[i];
+        final double l = rowI[k] / rowK[k];
+        rowI[k] = l;
+        if (l == 0) {
+          continue;
+        }
+        for (int j = k + 1; j < this.n; j++) {
+          rowI[j] -= l * rowK[j];
+        }
+      }
+    }
+    this.sign = sign;
+  }
+
+  /**
+   * 計算済みの成分と行の入れ替えからLU分解を生成します。
+   *
+   * @param lu LとUの成分をまとめて保持する配列
+   * @param pivot 行の入れ替えを表す配列
+   * @param sign 行の入れ替えの回数の偶奇を表す符号
+   */
+  private LUDecomposition(double[][] lu, int[] pivot, int sign) {
+    this.n = lu.length;
+    this.lu = lu;
+    this.pivot = pivot;
+    this.sign = sign;
+  }
+
+  /**
+   * 係数行列の次数を返します。
+   *
+   * @return 次数
+   */
+  public int order() {
+    return this.n;
+  }
+
+  /**
+   * A + alpha * xy^tのLU分解を返します(ランク1更新)。この分解は変更しません。<br>
+   * PA = LUのとき P(A + alpha * xy^t) = LU + (alpha * Px)y^t なので，
+   * Bennettの方法で第k段ごとにUの第k行とLの第k列を更新し，残りの部分に対するランク1の項を求め直します。
+   * 分解をやり直すと計算量はn^3に比例しますが，この方法の計算量はn^2に比例します。<br>
+   * 行の入れ替えは元の分解のものをそのまま使用するため，更新を繰り返すと精度が低下する場合があります。
+   * 更新後の対角成分が0になった場合は，例外をスローします。その場合は分解をやり直してください。
+   *
+   * <pre>{@code
+   * LUDecomposition lu = a.lu();
+   * lu = lu.update(alpha, x, y); // a + alpha * x * y^t の分解
+   * }</pre>
+   *
+   * @param alpha 係数
+   * @param x 列ベクトル(長さは係数行列の次数)
+   * @param y 列ベクトル(長さは係数行列の次数)
+   * @return A + alpha * xy^tのLU分解
+   * @throws ArithmeticException xまたはyの型が不正で計算を実行できない場合，または更新後の対角成分が0になった場合
+   * @see DoubleMatrix#rank1Update(double, DoubleMatrix, DoubleMatrix)
+   */
+  public LUDecomposition update(double alpha, DoubleMatrix x, DoubleMatrix y) {
+    for (DoubleMatrix vector : new DoubleMatrix[] {x, y}) {
+      if (vector.rows() != this.n || vector.columns() != 1) {
+        throw (new ArithmeticException(
+            String.format(
+                "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+                vector.rows(), vector.columns(), this.n, 1)));
+      }
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("luUpdate");
+    double[][] lu = new double[this.n][];
+    for (int i = 0; i < this.n; i++) {
+      lu[i] = this.lu[i].clone();
+    }
+    double[] u = new double[this.n];
+    double[] v = new double[this.n];
+    for (int i = 0; i < this.n; i++) {
+      u[i] = alpha * x.get(this.pivot[i], 0);
+      v[i] = y.get(i, 0);
+    }
+
+    for (int k = 0; k < this.n; k++) {
+      final double[] rowK = lu[k];
+      final double d = rowK[k] + u[k] * v[k];
+      if (d == 0) {
+        throw (new ArithmeticException("行列が正則ではなくなるため，LU分解を更新できません"));
+      }
+      rowK[k] = d;
+      // Uの第k行: r' = r + u(k)v
+      final double uk = u[k];
+      for (int j = k + 1; j < this.n; j++) {
+        rowK[j] += uk * v[j];
+      }
+      // Lの第k列: l' = l + (v(k) / d)u'，ただし u' = u - u(k)l
+      final double vk = v[k] / d;
+      for (int i = k + 1; i < this.n; i++) {
+        final double[] rowI = lu[i];
+        u[i] -= uk * rowI[k];
+        rowI[k] += vk * u[i];
+      }
+      // 残りの部分に対するランク1の項: v' = v - (v(k) / d)r'
+      for (int j = k + 1; j < this.n; j++) {
+        v[j] -= vk * rowK[j];
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        this.n,
+        1,
+        (long) this.n * this.n * Double.BYTES,
+        4L * this.n * this.n);
+
+    return (new LUDecomposition(lu, this.pivot, this.sign));
+  }
+
+  /**
+   * 係数行列の行列式を返します。
+   *
+   * @return 行列式
+   */
+  public double determinant() {
+    double result = this.sign;
+    for (int i = 0; i < this.n; i++) {
+      result *= this.lu[i][i];
+    }
+    return result;
+  }
+
+  /**
+   * 連立一次方程式AX = Bを解き，Xを返します。<br>
+   * Bが複数の列を持つ場合は，各列を右辺とする連立一次方程式をまとめて解きます。
+   *
+   * @param b 右辺の行列
+   * @return 解X
+   * @throws ArithmeticException bの行数が係数行列の次数と異なる場合
+   */
+  public DoubleMatrix solve(DoubleMatrix b) {
+    if (b.rows() != this.n) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, b.rows())));
+    }
+
+    // 結果は配列に書き込み，最後に1回だけ行列に変換する(成分ごとのsetは変更回数を毎回加算するため使用しない)
+    double[][] result = new double[this.n][b.columns()];
+    double[] x = new double[this.n];
+    for (int j = 0; j < b.columns(); j++) {
+      for (int i = 0; i < this.n; i++) {
+        x[i] = b.get(this.pivot[i], j);
+      }
+      this.solveInPlace(x);
+      for (int i = 0; i < this.n; i++) {
+        result[i][j] = x[i];
+      }
+    }
+
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * 行の入れ替えを適用済みの右辺xに対して前進代入と後退代入を行い，解をxに格納します。
+   *
+   * @param x 行の入れ替えを適用済みの右辺。解で上書きされます。
+   */
+  private void solveInPlace(double[] x) {
+    for (int i = 1; i < this.n; i++) {
+      final double[] row = this.lu[i];
+      double sum = x[i];
+      for (int k = 0; k < i; k++) {
+        sum -= row[k] * x[k];
+      }
+      x[i] = sum;
+    }
+    for (int i = this.n - 1; i >= 0; i--) {
+      final double[] row = this.lu[i];
+      double sum = x[i];
+      for (int k = i + 1; k < this.n; k++) {
+        sum -= row[k] * x[k];
+      }
+      x[i] = sum / row[i];
+    }
+  }
+}
@@ -0,0 +1,258 @@
+import java.util.Arrays;
+
+/**
+ * 行列指数関数exp(A)を，スケーリングと2乗の繰り返しによるPadé近似で計算するクラスです。<br>
+ * N. J. Higham, "The Scaling and Squaring Method for the Matrix Exponential Revisited" (2005)の方法に従い，
+ * Aの1ノルムに応じてPadé近似の次数m(3，5，7，9，13)を選び，必要な場合はAを2^sで割ってから近似してs回2乗します。<br>
+ * 積はDoubleMatrix.gemmで計算し，2乗の繰り返しでは2個の配列を交互に使い回します。
+ *
+ * @author mpp
+ * @see DoubleMatrix#expm()
+ */
+final class MatrixExponential {
+
+  /** 次数3，5，7，9，13のPadé近似を使用できる1ノルムの上限です。 */
+  private static final double[] THETA = {
+    1.495585217958292e-2, 2.539398330063230e-1, 9.504178996162932e-1, 2.097847961257068e0,
+    5.371920351148152e0,
+  };
+
+  /**
+   * 2乗を繰り返す回数の上限です。<br>
+   * 有限の1ノルムに対するsは，doubleの最大値をTHETA[4]で割った値の2を底とする対数(約1022)以下になります。
+   */
+  private static final int MAX_SQUARINGS = 1100;
+
+  /** THETAに対応するPadé近似の次数です。 */
+  private static final int[] DEGREES = {3, 5, 7, 9, 13};
+
+  /** 次数3，5，7，9，13のPadé近似の係数です。 */
+  private static final double[][] COEFFICIENTS = {
+    {120, 60, 12, 1},
+    {30240, 15120, 3360, 420, 30, 1},
+    {17297280, 8648640, 1995840, 277200, 25200, 1512, 56, 1},
+    {
+      17643225600d, 8821612800d, 2075673600, 302702400, 30270240, 2162160, 110880, 3960, 90, 1,
+    },
+    {
+      64764752532480000d,
+      32382376266240000d,
+      7771770303897600d,
+      1187353796428800d,
+      129060195264000d,
+      10559470521600d,
+      670442572800d,
+      33522128640d,
+      1323241920,
+      40840800,
+      960960,
+      16380,
+      182,
+      1,
+    },
+  };
+
+  /** インスタンスを生成させないためのコンストラクタです。 */
+  private MatrixExponential() {}
+
+  /**
+   * 正方行列aの行列指数関数exp(a)を計算します。aは変更しません。<br>
+   * aの成分に無限大またはNaNが含まれる場合は，全ての成分がNaNの配列を返します。
+   *
+   * @param a 正方行列を表す配列
+   * @return exp(a)を表す配列
+   */
+  static double[][] expm(double[][] a) {
+    final int n = a.length;
+    final double norm = norm1(a);
+    if (!Double.isFinite(norm)) {
+      // 1ノルムが無限大だとsがintの最大値となり，2乗の繰り返しが終わらない
+      double[][] result = new double[n][n];
+      for (double[] row : result) {
+        Arrays.fill(row, Double.NaN);
+      }
+      return result;
+    }
+
+    for (int d = 0; d < DEGREES.length - 1; d++) {
+      if (norm <= THETA[d]) {
+        return pade(a, COEFFICIENTS[d]);
+      }
+    }
+
+    // 1ノルムがTHETA[4]以下になるように2^sで割ってから，次数13で近似する
+    final int s =
+        (norm > THETA[4])
+            ? (int) Math.min(Math.ceil(Math.log(norm / THETA[4]) / Math.log(2)), MAX_SQUARINGS)
+            : 0;
+    double[][] scaled = new double[n][];
+    final double factor = Math.scalb(1.0, -s);
+    for (int i = 0; i < n; i++) {
+      scaled[i] = a[i].clone();
+      for (int j = 0; j < n; j++) {
+        scaled[i][j] *= factor;
+      }
+    }
+    double[][] result = pade13(scaled);
+
+    double[][] work = new double[n][n];
+    for (int k = 0; k < s; k++) {
+      DoubleMatrix.gemm(result, result, work);
+      double[][] tmp = result;
+      result = work;
+      work = tmp;
+    }
+    return result;
+  }
+
+  /**
+   * 次数3，5，7，9のPadé近似r(a) = (V - U)^-1 (V + U)を計算します。<br>
+   * U = a(b1 I + b3 a^2 + ...)，V = b0 I + b2 a^2 + ...です。
+   *
+   * @param a 正方行列を表す配列
+   * @param b Padé近似の係数
+   * @return r(a)
+   */
+  private static double[][] pade(double[][] a, double[] b) {
+    final int n = a.length;
+    final int m = b.length - 1;
+
+    // a^2, a^4, ..., a^(m - 1)
+    double[][][] powers = new double[(m - 1) / 2][][];
+    powers[0] = multiply(a, a);
+    for (int j = 1; j < powers.length; j++) {
+      powers[j] = multiply(powers[j - 1], powers[0]);
+    }
+
+    double[][] odd = identity(n, b[1]);
+    double[][] even = identity(n, b[0]);
+    for (int j = 0; j < powers.length; j++) {
+      addScaled(odd, b[2 * j + 3], powers[j]);
+      addScaled(even, b[2 * j + 2], powers[j]);
+    }
+    return solve(multiply(a, odd), even);
+  }
+
+  /**
+   * 次数13のPadé近似r(a) = (V - U)^-1 (V + U)を計算します。<br>
+   * a^2，a^4，a^6だけを使って，U = a(a^6(b13 a^6 + b11 a^4 + b9 a^2) + b7 a^6 + b5 a^4 + b3 a^2 + b1 I)，
+   * V = a^6(b12 a^6 + b10 a^4 + b8 a^2) + b6 a^6 + b4 a^4 + b2 a^2 + b0 Iとして計算します(積は6回)。
+   *
+   * @param a 正方行列を表す配列
+   * @return r(a)
+   */
+  private static double[][] pade13(double[][] a) {
+    final int n = a.length;
+    final double[] b = COEFFICIENTS[4];
+    final double[][] a2 = multiply(a, a);
+    final double[][] a4 = multiply(a2, a2);
+    final double[][] a6 = multiply(a4, a2);
+
+    double[][] highOdd = identity(n, 0);
+    addScaled(highOdd, b[13], a6);
+    addScaled(highOdd, b[11], a4);
+    addScaled(highOdd, b[9], a2);
+    double[][] odd = multiply(a6, highOdd);
+    addScaled(odd, b[7], a6);
+    addScaled(odd, b[5], a4);
+    addScaled(odd, b[3], a2);
+    addScaled(odd, b[1], identity(n, 1));
+
+    double[][] highEven = identity(n, 0);
+    addScaled(highEven, b[12], a6);
+    addScaled(highEven, b[10], a4);
+    addScaled(highEven, b[8], a2);
+    double[][] even = multiply(a6, highEven);
+    addScaled(even, b[6], a6);
+    addScaled(even, b[4], a4);
+    addScaled(even, b[2], a2);
+    addScaled(even, b[0], identity(n, 1));
+
+    return solve(multiply(a, odd), even);
+  }
+
+  /**
+   * U，Vから(V - U)^-1 (V + U)を計算します。
+   *
+   * @param u U
+   * @param v V
+   * @return (V - U)^-1 (V + U)
+   */
+  private static double[][] solve(double[][] u, double[][] v) {
+    final int n = u.length;
+    double[][] q = new double[n][n];
+    double[][] p = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        q[i][j] = v[i][j] - u[i][j];
+        p[i][j] = v[i][j] + u[i][j];
+      }
+    }
+    return LUDecomposition.of(DoubleMatrix.wrapArray(q)).solve(DoubleMatrix.wrapArray(p)).array();
+  }
+
+  /**
+   * x * yを計算します。
+   *
+   * @param x 左側の行列を表す配列
+   * @param y 右側の行列を表す配列
+   * @return x * y
+   */
+  private static double[][] multiply(double[][] x, double[][] y) {
+    double[][] result = new double[x.length][y[0].length];
+    DoubleMatrix.gemm(x, y, result);
+    return result;
+  }
+
+  /**
+   * target += k * xを計算します。
+   *
+   * @param target 加算される配列
+   * @param k 係数
+   * @param x 加算する配列
+   */
+  private static void addScaled(double[][] target, double k, double[][] x) {
+    for (int i = 0; i < target.length; i++) {
+      final double[] ti = target[i];
+      final double[] xi = x[i];
+      for (int j = 0; j < ti.length; j++) {
+        ti[j] += k * xi[j];
+      }
+    }
+  }
+
+  /**
+   * 単位行列のk倍を生成します。
+   *
+   * @param n 次数
+   * @param k 対角成分の値
+   * @return 単位行列のk倍
+   */
+  private static double[][] identity(int n, double k) {
+    double[][] result = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      result[i][i] = k;
+    }
+    return result;
+  }
+
+  /**
+   * 1ノルム(列ごとの成分の絶対値の和の最大値)を計算します。
+   *
+   * @param a 行列を表す配列
+   * @return 1ノルム
+   */
+  private static double norm1(double[][] a) {
+    double[] sums = new double[a[0].length];
+    for (double[] row : a) {
+      for (int j = 0; j < sums.length; j++) {
+        sums[j] += Math.abs(row[j]);
+      }
+    }
+    double norm = 0;
+    for (double sum : sums) {
+      norm = Math.max(norm, sum);
+    }
+    return norm;
+  }
+}
@@ -0,0 +1,262 @@
+/**
+ * 単精度のLU分解と倍精度の反復改良を組み合わせて，連立一次方程式AX = Bを解くクラスです。<br>
+ * <br>
+ * 計算量の大部分を占めるLU分解(O(n^3))を単精度で行い，残差R = B - AXの計算(O(n^2))だけを元の倍精度の係数行列で行います。<br>
+ * 単精度の分解で補正量を求めてXに加える処理を，残差が倍精度の精度に見合う大きさになるまで繰り返します。<br>
+ * 係数行列の条件数が大きく反復改良が収束しない場合は，倍精度のLU分解による解法に切り替えます。
+ *
+ * <pre>{@code
+ * MixedPrecisionSolver solver = MixedPrecisionSolver.create();
+ * MixedPrecisionSolver.Result result = solver.solve(a, b);
+ * DoubleMatrix x = result.solution();
+ * System.out.println(result.iterations());
+ * }</pre>
+ *
+ * @author mpp
+ * @see FloatLUDecomposition
+ * @see LUDecomposition
+ */
+public class MixedPrecisionSolver {
+
+  /** 反復改良の回数の上限の既定値です。 */
+  public static final int DEFAULT_MAX_ITERATIONS = 30;
+
+  /** 収束判定に使用する相対誤差の既定値(倍精度の計算機イプシロン)です。 */
+  public static final double DEFAULT_TOLERANCE = Math.ulp(1.0) / 2;
+
+  /**
+   * 既定の設定で反復改良を行うソルバを生成します。
+   *
+   * @return ソルバ
+   */
+  public static MixedPrecisionSolver create() {
+    return (new MixedPrecisionSolver(DEFAULT_MAX_ITERATIONS, DEFAULT_TOLERANCE));
+  }
+
+  /**
+   * 反復改良の回数の上限と収束判定の相対誤差を指定して，ソルバを生成します。<br>
+   * 各列の残差rは，||r|| &lt;= tolerance * sqrt(n) * ||A|| * ||x||(いずれも最大値ノルム)を満たしたときに収束したとみなします。
+   *
+   * @param maxIterations 反復改良の回数の上限
+   * @param tolerance 収束判定に使用する相対誤差
+   * @return ソルバ
+   * @throws IllegalArgumentException maxIterationsが負の値の場合，またはtoleranceが正の値でない場合
+   */
+  public static MixedPrecisionSolver create(int maxIterations, double tolerance) {
+    return (new MixedPrecisionSolver(maxIterations, tolerance));
+  }
+
+  /** 反復改良の結果を表すクラスです。 */
+  public static final class Result {
+
+    /** 連立一次方程式の解です。 */
+    private final DoubleMatrix solution;
+
+    /** 反復改良を行った回数です。 */
+    private final int iterations;
+
+    /** 倍精度のLU分解による解法に切り替えた場合はtrueです。 */
+    private final boolean fallback;
+
+    /**
+     * 反復改良の結果を生成します。
+     *
+     * @param solution 連立一次方程式の解
+     * @param iterations 反復改良を行った回数
+     * @param fallback 倍精度のLU分解による解法に切り替えた場合はtrue
+     */
+    private Result(DoubleMatrix solution, int iterations, boolean fallback) {
+      this.solution = solution;
+      this.iterations = iterations;
+      this.fallback = fallback;
+    }
+
+    /**
+     * 連立一次方程式の解を返します。
+     *
+     * @return 解X
+     */
+    public DoubleMatrix solution() {
+      return this.solution;
+    }
+
+    /**
+     * 反復改良を行った回数を返します。<br>
+     * 右辺が複数の列を持つ場合は，各列の反復回数の最大値を返します。<br>
+     * 倍精度の解法に切り替えた場合は，切り替えるまでに行った回数を返します。
+     *
+     * @return 反復改良を行った回数
+     */
+    public int iterations() {
+      return this.iterations;
+    }
+
+    /**
+     * 反復改良が収束せず，倍精度のLU分解による解法に切り替えたかどうかを返します。
+     *
+     * @return 倍精度の解法に切り替えた場合はtrue
+     */
+    public boolean isFallback() {
+      return this.fallback;
+    }
+  }
+
+  /** 反復改良の回数の上限です。 */
+  private final int maxIterations;
+
+  /** 収束判定に使用する相対誤差です。 */
+  private final double tolerance;
+
+  /**
+   * 反復改良の回数の上限と収束判定の相対誤差を指定して，ソルバを生成します。
+   *
+   * @param maxIterations 反復改良の回数の上限
+   * @param tolerance 収束判定に使用する相対誤差
+   * @throws IllegalArgumentException maxIterationsが負の値の場合，またはtoleranceが正の値でない場合
+   */
+  private MixedPrecisionSolver(int maxIterations, double tolerance) {
+    if (maxIterations < 0) {
+      throw (new IllegalArgumentException("反復回数の上限が負の値です: " + maxIterations));
+    }
+    if (!(tolerance > 0)) {
+      throw (new IllegalArgumentException("相対誤差が正の値ではありません: " + tolerance));
+    }
+
+    this.maxIterations = maxIterations;
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * 連立一次方程式AX = Bを解きます。
+   *
+   * @param a 係数行列(正方行列)
+   * @param b 右辺の行列
+   * @return 解と反復改良の回数
+   * @throws ArithmeticException aが正方行列でない場合，aが正則でない場合，またはbの行数がaの次数と異なる場合
+   */
+  public Result solve(DoubleMatrix a, DoubleMatrix b) {
+    if (a.rows() != a.columns()) {
+      throw (new ArithmeticException(
+          String.format("正方行列ではないため，解けません: (%d,%d)", a.rows(), a.columns())));
+    }
+    if (b.rows() != a.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", a.columns(), b.rows())));
+    }
+
+    final int n = a.rows();
+    double[][] entries = new double[n][n];
+    double normA = 0;
+    for (int i = 0; i < n; i++) {
+      double rowSum = 0;
+      for (int j = 0; j < n; j++) {
+        entries[i][j] = a.get(i, j);
+        rowSum += Math.abs(entries[i][j]);
+      }
+      normA = Math.max(normA, rowSum);
+    }
+
+    // 単精度に丸めると表現できない値が含まれる場合や，単精度では正則でない場合は倍精度で解く
+    FloatLUDecomposition lu;
+    if (normA > Float.MAX_VALUE) {
+      return fallback(a, b, 0);
+    }
+    try {
+      lu = FloatLUDecomposition.of(FloatMatrix.from(a));
+    } catch (ArithmeticException ae) {
+      return fallback(a, b, 0);
+    }
+
+    final double threshold = this.tolerance * Math.sqrt(n) * normA;
+    double[][] solution = new double[n][b.columns()];
+    double[] rhs = new double[n];
+    double[] x = new double[n];
+    double[] r = new double[n];
+    double[] d = new double[n];
+    int iterations = 0;
+
+    for (int col = 0; col < b.columns(); col++) {
+      for (int i = 0; i < n; i++) {
+        rhs[i] = b.get(i, col);
+      }
+      lu.solve(rhs, x);
+
+      int k = 0;
+      while (true) {
+        double normR = residual(entries, x, rhs, r);
+        double normX = maxNorm(x);
+        if (!Double.isFinite(normR) || !Double.isFinite(normX)) {
+          return fallback(a, b, Math.max(iterations, k));
+        }
+        if (normR <= threshold * normX) {
+          break;
+        }
+        if (k == this.maxIterations) {
+          return fallback(a, b, k);
+        }
+        lu.solve(r, d);
+        for (int i = 0; i < n; i++) {
+          x[i] += d[i];
+        }
+        k++;
+      }
+      iterations = Math.max(iterations, k);
+
+      for (int i = 0; i < n; i++) {
+        solution[i][col] = x[i];
+      }
+    }
+
+    return (new Result(DoubleMatrix.wrapArray(solution), iterations, false));
+  }
+
+  /**
+   * 倍精度のLU分解で連立一次方程式を解き，その結果を返します。<br>
+   * 係数行列のLU分解がキャッシュされている場合は，分解し直さずに再利用します。
+   *
+   * @param a 係数行列
+   * @param b 右辺の行列
+   * @param iterations 切り替えるまでに行った反復改良の回数
+   * @return 解と反復改良の回数
+   */
+  private static Result fallback(DoubleMatrix a, DoubleMatrix b, int iterations) {
+    return (new Result(a.lu().solve(b), iterations, true));
+  }
+
+  /**
+   * 残差r = b - Axを倍精度で計算し，その最大値ノルムを返します。
+   *
+   * @param a 係数行列
+   * @param x 現在の解
+   * @param b 右辺
+   * @param r 残差を格納する配列
+   * @return rの最大値ノルム
+   */
+  private static double residual(double[][] a, double[] x, double[] b, double[] r) {
+    double norm = 0;
+    for (int i = 0; i < a.length; i++) {
+      final double[] row = a[i];
+      double sum = b[i];
+      for (int j = 0; j < row.length; j++) {
+        sum -= row[j] * x[j];
+      }
+      r[i] = sum;
+      norm = Math.max(norm, Math.abs(sum));
+    }
+    return norm;
+  }
+
+  /**
+   * 配列の最大値ノルムを返します。
+   *
+   * @param x 配列
+   * @return xの最大値ノルム
+   */
+  private static double maxNorm(double[] x) {
+    double norm = 0;
+    for (int i = 0; i < x.length; i++) {
+      norm = Math.max(norm, Math.abs(x[i]));
+    }
+    return norm;
+  }
+}
@@ -0,0 +1,134 @@
+// Usage: java -ea MixedPrecisionSolverTest
+public class MixedPrecisionSolverTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  private static double maxError(DoubleMatrix a, DoubleMatrix b) {
+    double result = 0;
+    for (int i = 0; i < a.rows(); i++) {
+      for (int j = 0; j < a.columns(); j++) {
+        result = Math.max(result, Math.abs(a.get(i, j) - b.get(i, j)));
+      }
+    }
+    return result;
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+
+    { // LUDecomposition の動作確認
+      DoubleMatrix a = DoubleMatrix.of(3, 3, 2, 1, 1, 4, -6, 0, -2, 7, 2);
+      LUDecomposition lu = LUDecomposition.of(a);
+
+      assert lu.order() == 3;
+      assert Math.abs(lu.determinant() - (-16)) < 1e-12;
+
+      DoubleMatrix x = DoubleMatrix.of(3, 2, 1, 0, 2, -1, 3, 5);
+      assert maxError(lu.solve(a.times(x)), x) < 1e-12;
+      assert lu.solve(a.times(x)).version() == 0; // 成分ごとに変更回数を加算しない
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "LUDecomposition.of(DoubleMatrix.createZeroMatrix(2, 3))",
+          () -> LUDecomposition.of(DoubleMatrix.createZeroMatrix(2, 3)));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "LUDecomposition.of(DoubleMatrix.createZeroMatrix(2, 2))",
+          () -> LUDecomposition.of(DoubleMatrix.createZeroMatrix(2, 2)));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "lu.solve(DoubleMatrix.createColumnVector(1, 2))",
+          () -> lu.solve(DoubleMatrix.createColumnVector(1, 2)));
+    } // end of block
+
+    { // FloatLUDecomposition の動作確認
+      FloatMatrix a = FloatMatrix.of(3, 3, 2, 1, 1, 4, -6, 0, -2, 7, 2);
+      FloatLUDecomposition lu = FloatLUDecomposition.of(a);
+      FloatMatrix x = FloatMatrix.createColumnVector(1, 2, 3);
+      FloatMatrix y = lu.solve(a.times(x));
+
+      assert lu.order() == 3;
+      for (int i = 0; i < 3; i++) {
+        assert Math.abs(y.get(i, 0) - x.get(i, 0)) < 1e-5;
+      }
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "FloatLUDecomposition.of(FloatMatrix.createZeroMatrix(2, 2))",
+          () -> FloatLUDecomposition.of(FloatMatrix.createZeroMatrix(2, 2)));
+    } // end of block
+
+    { // 反復改良により倍精度の精度の解が得られることを確認
+      java.util.Random random = new java.util.Random(29);
+      java.util.function.DoubleSupplier entries = () -> random.nextDouble() * 2 - 1;
+      final int n = 60;
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(entries, n, n);
+      for (int i = 0; i < n; i++) {
+        a.set(i, i, a.get(i, i) + n);
+      }
+      DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(entries, n, 3);
+      DoubleMatrix b = a.times(x);
+
+      MixedPrecisionSolver.Result result = MixedPrecisionSolver.create().solve(a, b);
+      assert !result.isFallback();
+      assert result.iterations() > 0;
+      assert result.iterations() <= MixedPrecisionSolver.DEFAULT_MAX_ITERATIONS;
+
+      double expected = maxError(a.solve(b), x);
+      assert maxError(result.solution(), x) <= Math.max(expected * 10, 1e-13);
+
+      // 単精度の解そのものは倍精度の精度に届かない
+      MixedPrecisionSolver.Result unrefined =
+          MixedPrecisionSolver.create(0, MixedPrecisionSolver.DEFAULT_TOLERANCE).solve(a, b);
+      assert unrefined.isFallback();
+      assert unrefined.iterations() == 0;
+    } // end of block
+
+    { // 単精度では正則でない場合に倍精度の解法に切り替わることを確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 1, 1, 1, 1 + 1e-10);
+      DoubleMatrix x = DoubleMatrix.createColumnVector(1, 1);
+      DoubleMatrix b = a.times(x);
+
+      MixedPrecisionSolver.Result result = MixedPrecisionSolver.create().solve(a, b);
+      assert result.isFallback();
+      assert maxError(result.solution(), x) < 1e-5;
+
+      // キャッシュされたLU分解があれば再利用する
+      LUDecomposition lu = a.lu();
+      result = MixedPrecisionSolver.create().solve(a, b);
+      assert result.isFallback();
+      assert a.lu() == lu;
+      assert result.solution().isEqual(lu.solve(b));
+    } // end of block
+
+    { // 例外の確認
+      MixedPrecisionSolver solver = MixedPrecisionSolver.create();
+      DoubleMatrix a = DoubleMatrix.createIdentityMatrix(3);
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "solver.solve(a, DoubleMatrix.createColumnVector(1, 2))",
+          () -> solver.solve(a, DoubleMatrix.createColumnVector(1, 2)));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "solver.solve(DoubleMatrix.createZeroMatrix(2, 3), a)",
+          () -> solver.solve(DoubleMatrix.createZeroMatrix(2, 3), a));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "MixedPrecisionSolver.create(-1, 1e-16)",
+          () -> MixedPrecisionSolver.create(-1, 1e-16));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "MixedPrecisionSolver.create(10, 0)",
+          () -> MixedPrecisionSolver.create(10, 0));
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class MixedPrecisionSolverTest
@@ -0,0 +1,241 @@
+/**
+ * 対称行列を，下三角部分の成分だけを1次元配列に詰めて保持するクラスです。<br>
+ * n次の対称行列をn(n + 1) / 2個の成分で表すため，DoubleMatrixに比べて記憶領域と積の計算で読み込む量が約半分になります。<br>
+ * 成分は下三角部分を行優先で並べて保持します。つまり，(i, j)成分(i &gt;= j)は配列のi(i + 1) / 2 + j番目に格納されます。
+ *
+ * <pre>{@code
+ * DoubleMatrix a = DoubleMatrix.of(2, 2, 4, 2, 2, 3);
+ * PackedSymmetricMatrix s = PackedSymmetricMatrix.of(a);
+ * DoubleMatrix y = s.times(DoubleMatrix.createColumnVector(1, 1)); // y = (6, 5)
+ * }</pre>
+ *
+ * @author mpp
+ * @see PackedTriangularMatrix
+ * @see DoubleMatrix#isSymmetric()
+ */
+public final class PackedSymmetricMatrix {
+
+  /**
+   * 対称行列から，成分を詰めて保持する行列を生成します。
+   *
+   * @param matrix 対称行列
+   * @return 成分を詰めて保持する対称行列
+   * @throws IllegalArgumentException matrixが対称行列でない場合
+   */
+  public static PackedSymmetricMatrix of(DoubleMatrix matrix) {
+    if (!matrix.isSymmetric()) {
+      throw (new IllegalArgumentException(
+          String.format("対称行列ではありません: (%d,%d)", matrix.rows(), matrix.columns())));
+    }
+
+    final int n = matrix.rows();
+    final double[][] entries = matrix.array();
+    double[] packed = new double[packedLength(n)];
+    for (int i = 0, p = 0; i < n; i++) {
+      System.arraycopy(entries[i], 0, packed, p, i + 1);
+      p += i + 1;
+    }
+    return (new PackedSymmetricMatrix(n, packed));
+  }
+
+  /**
+   * 成分が全て0のn次の対称行列を生成します。
+   *
+   * @param n 次数
+   * @return 成分が全て0の対称行列
+   * @throws IllegalArgumentException nが正でない場合
+   */
+  public static PackedSymmetricMatrix createZeroMatrix(int n) {
+    if (n <= 0) {
+      throw (new IllegalArgumentException("次数が不正です: " + n));
+    }
+    return (new PackedSymmetricMatrix(n, new double[packedLength(n)]));
+  }
+
+  /**
+   * n次の三角行列の成分数n(n + 1) / 2を返します。
+   *
+   * @param n 次数
+   * @return 成分数
+   * @throws IllegalArgumentException 成分数が配列に格納できる大きさを超える場合
+   */
+  static int packedLength(int n) {
+    final long length = (long) n * (n + 1) / 2;
+    if (length > Integer.MAX_VALUE - 8) {
+      throw (new IllegalArgumentException("次数が大きすぎます: " + n));
+    }
+    return (int) length;
+  }
+
+  /**
+   * 下三角部分を行優先で並べた配列上の，(i, j)成分(i >= j)の位置i(i + 1) / 2 + jを返します。<br>
+   * i(i + 1)はi >= 46341でintの範囲を超えるため，longで計算してから最後に1度だけintに変換します。
+   * 結果はpackedLength(n)未満のため，intに変換しても値は変わりません。
+   *
+   * @param i 行番号
+   * @param j 列番号(i以下)
+   * @return 配列上の位置
+   */
+  static int packedIndex(int i, int j) {
+    return (int) ((long) i * (i + 1) / 2 + j);
+  }
+
+  /** 次数を表します。 */
+  private final int n;
+
+  /** 下三角部分の成分を行優先で並べた配列です。 */
+  private final double[] packed;
+
+  /**
+   * 成分を詰めた配列をラップして，対称行列を生成します。
+   *
+   * @param n 次数
+   * @param packed 下三角部分の成分を行優先で並べた配列
+   */
+  private PackedSymmetricMatrix(int n, double[] packed) {
+    this.n = n;
+    this.packed = packed;
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int order() {
+    return this.n;
+  }
+
+  /**
+   * (i, j)成分の配列上の位置を返します。
+   *
+   * @param i i
+   * @param j j
+   * @return 配列上の位置
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  private int index(int i, int j) {
+    if (i < 0 || i >= this.n || j < 0 || j >= this.n) {
+      throw (new IndexOutOfBoundsException(
+          String.format("添え字が範囲外です: (%d,%d) (次数: %d)", i, j, this.n)));
+    }
+    return (i >= j) ? packedIndex(i, j) : packedIndex(j, i);
+  }
+
+  /**
+   * 行列の(i, j)成分を取得します。(j, i)成分と同じ値です。
+   *
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public double get(int i, int j) {
+    return this.packed[this.index(i, j)];
+  }
+
+  /**
+   * 行列の(i, j)成分と(j, i)成分を指定された値に置き換えます。
+   *
+   * @param i i
+   * @param j j
+   * @param entry 格納される値
+   * @return this
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public PackedSymmetricMatrix set(int i, int j, double entry) {
+    this.packed[this.index(i, j)] = entry;
+    return this;
+  }
+
+  /**
+   * this * thatを計算し，結果の行列を返します。<br>
+   * 詰めて保持している各成分a(i, j)(i &gt; j)を1回だけ読み込み，結果の第i行と第j行の両方に反映します。
+   * 結果の行とthatの行を順に走査するため，列方向へのアクセスは発生しません。
+   *
+   * @param that この行列に乗算する行列
+   * @return this * that
+   * @throws ArithmeticException thisの列数とthatの行数が異なり，計算を実行できない場合
+   */
+  public DoubleMatrix times(DoubleMatrix that) {
+    if (this.n != that.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, that.rows())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("packedSymmetricTimes");
+    final int columns = that.columns();
+    final double[][] b = that.array();
+    double[][] result = DoubleMatrixWorkspace.allocateZeros(this.n, columns);
+    for (int i = 0, p = 0; i < this.n; i++) {
+      final double[] ci = result[i];
+      final double[] bi = b[i];
+      for (int j = 0; j < i; j++, p++) {
+        final double aij = this.packed[p];
+        final double[] bj = b[j];
+        final double[] cj = result[j];
+        for (int k = 0; k < columns; k++) {
+          ci[k] += aij * bj[k];
+          cj[k] += aij * bi[k];
+        }
+      }
+      final double aii = this.packed[p++];
+      for (int k = 0; k < columns; k++) {
+        ci[k] += aii * bi[k];
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        columns,
+        this.n,
+        (long) this.n * columns * Double.BYTES,
+        2L * this.n * this.n * columns);
+
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * この行列をCholesky分解し，下三角行列Lを成分を詰めた形で返します(this = LL^t)。<br>
+   * 成分を詰めた配列の上で分解するため，DoubleMatrixを経由しません。
+   *
+   * @return 成分を詰めて保持する下三角行列L
+   * @throws ArithmeticException この行列が正定値でない場合
+   */
+  public PackedTriangularMatrix cholesky() {
+    double[] l = this.packed.clone();
+    for (int i = 0, rowI = 0; i < this.n; rowI += ++i) {
+      for (int j = 0, rowJ = 0; j <= i; rowJ += ++j) {
+        double sum = l[rowI + j];
+        for (int k = 0; k < j; k++) {
+          sum -= l[rowI + k] * l[rowJ + k];
+        }
+        if (i == j) {
+          if (!(sum > 0)) {
+            throw (new ArithmeticException("正定値行列ではないため，Cholesky分解できません"));
+          }
+          l[rowI + i] = Math.sqrt(sum);
+        } else {
+          l[rowI + j] = sum / l[rowJ + j];
+        }
+      }
+    }
+    return PackedTriangularMatrix.wrapLower(this.n, l);
+  }
+
+  /**
+   * この行列と同じ成分を持つDoubleMatrixを生成します。
+   *
+   * @return 同じ成分を持つDoubleMatrix
+   */
+  public DoubleMatrix toDoubleMatrix() {
+    double[][] result = new double[this.n][this.n];
+    for (int i = 0, p = 0; i < this.n; i++) {
+      for (int j = 0; j <= i; j++, p++) {
+        result[i][j] = this.packed[p];
+        result[j][i] = this.packed[p];
+      }
+    }
+    return DoubleMatrix.wrapArray(result);
+  }
+}
@@ -0,0 +1,90 @@
+// Usage: java -ea PackedSymmetricMatrixTest
+public class PackedSymmetricMatrixTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+    java.util.Random random = new java.util.Random(42);
+
+    { // 生成と成分の取得の動作確認
+      DoubleMatrix a = DoubleMatrix.of(3, 3, 1, 2, 3, 2, 4, 5, 3, 5, 6);
+      PackedSymmetricMatrix s = PackedSymmetricMatrix.of(a);
+      assert s.order() == 3;
+      assert s.get(0, 2) == 3 && s.get(2, 0) == 3;
+      assert s.get(1, 1) == 4;
+      assert s.toDoubleMatrix().isEqual(a);
+
+      assert s.set(2, 1, -7) == s;
+      assert s.get(1, 2) == -7 && s.get(2, 1) == -7;
+
+      PackedSymmetricMatrix z = PackedSymmetricMatrix.createZeroMatrix(4);
+      assert z.toDoubleMatrix().isEqual(DoubleMatrix.createZeroMatrix(4, 4));
+
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "PackedSymmetricMatrix.of(DoubleMatrix.of(2, 2, 1, 2, 3, 4))",
+          () -> PackedSymmetricMatrix.of(DoubleMatrix.of(2, 2, 1, 2, 3, 4)));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "PackedSymmetricMatrix.of(DoubleMatrix.createZeroMatrix(2, 3))",
+          () -> PackedSymmetricMatrix.of(DoubleMatrix.createZeroMatrix(2, 3)));
+      DoubleMatrixTest.Test.assertThrows(
+          IndexOutOfBoundsException.class, "s.get(3, 0)", () -> s.get(3, 0));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "PackedSymmetricMatrix.createZeroMatrix(0)",
+          () -> PackedSymmetricMatrix.createZeroMatrix(0));
+    }
+
+    { // 積の動作確認
+      DoubleMatrix r = DoubleMatrixTest.Test.randomMatrix(random, 17, 17);
+      DoubleMatrix a = r.plus(r.trs());
+      PackedSymmetricMatrix s = PackedSymmetricMatrix.of(a);
+      DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, 17, 5);
+      assert s.times(b).isEqual(a.times(b));
+      DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(random, 17, 1);
+      assert s.times(x).isEqual(a.times(x));
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "s.times(DoubleMatrix.createZeroMatrix(3, 3))",
+          () -> s.times(DoubleMatrix.createZeroMatrix(3, 3)));
+    }
+
+    { // Cholesky分解の動作確認
+      DoubleMatrix a = DoubleMatrix.of(3, 3, 4, 12, -16, 12, 37, -43, -16, -43, 98);
+      PackedTriangularMatrix l = PackedSymmetricMatrix.of(a).cholesky();
+      assert l.isLower();
+      assert l.toDoubleMatrix().isEqual(DoubleMatrix.of(3, 3, 2, 0, 0, 6, 1, 0, -8, 5, 3));
+      assert l.toDoubleMatrix().isEqual(a.cholesky().lower());
+      assert a.cholesky().packedLower().toDoubleMatrix().isEqual(a.cholesky().lower());
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "PackedSymmetricMatrix.of(DoubleMatrix.of(2, 2, 1, 2, 2, 1)).cholesky()",
+          () -> PackedSymmetricMatrix.of(DoubleMatrix.of(2, 2, 1, 2, 2, 1)).cholesky());
+    }
+
+    { // 配列上の位置の計算がintの範囲を超えないことの確認
+      // 成分数が配列に格納できる最大の次数の，最後の成分の位置
+      final int n = 65535;
+      assert PackedSymmetricMatrix.packedLength(n) == 2147450880;
+      assert PackedSymmetricMatrix.packedIndex(n - 1, n - 1) == 2147450879;
+      assert PackedSymmetricMatrix.packedIndex(46341, 0) == 1073767311;
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "PackedSymmetricMatrix.packedLength(65536)",
+          () -> PackedSymmetricMatrix.packedLength(65536));
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class PackedSymmetricMatrixTest
@@ -0,0 +1,320 @@
+/**
+ * 下三角行列または上三角行列を，三角部分の成分だけを1次元配列に詰めて保持するクラスです。<br>
+ * n次の三角行列をn(n + 1) / 2個の成分で表すため，DoubleMatrixに比べて記憶領域と計算で読み込む量が約半分になります。<br>
+ * 成分は三角部分を行優先で並べて保持します。
+ * 下三角行列の(i, j)成分(i &gt;= j)は配列のi(i + 1) / 2 + j番目に，
+ * 上三角行列の(i, j)成分(i &lt;= j)は配列のi * n - i(i - 1) / 2 + (j - i)番目に格納されます。
+ *
+ * <pre>{@code
+ * DoubleMatrix a = DoubleMatrix.of(2, 2, 2, 0, 1, 4);
+ * PackedTriangularMatrix l = PackedTriangularMatrix.lower(a);
+ * DoubleMatrix x = l.solve(DoubleMatrix.createColumnVector(2, 9)); // x = (1, 2)
+ * }</pre>
+ *
+ * @author mpp
+ * @see PackedSymmetricMatrix
+ */
+public final class PackedTriangularMatrix {
+
+  /**
+   * 正方行列の下三角部分(対角成分を含む)から，成分を詰めて保持する下三角行列を生成します。<br>
+   * 対角より上の成分は無視します。
+   *
+   * @param matrix 正方行列
+   * @return 成分を詰めて保持する下三角行列
+   * @throws IllegalArgumentException matrixが正方行列でない場合
+   */
+  public static PackedTriangularMatrix lower(DoubleMatrix matrix) {
+    final int n = checkSquare(matrix);
+    final double[][] entries = matrix.array();
+    double[] packed = new double[PackedSymmetricMatrix.packedLength(n)];
+    for (int i = 0, p = 0; i < n; i++) {
+      System.arraycopy(entries[i], 0, packed, p, i + 1);
+      p += i + 1;
+    }
+    return (new PackedTriangularMatrix(n, true, packed));
+  }
+
+  /**
+   * 正方行列の上三角部分(対角成分を含む)から，成分を詰めて保持する上三角行列を生成します。<br>
+   * 対角より下の成分は無視します。
+   *
+   * @param matrix 正方行列
+   * @return 成分を詰めて保持する上三角行列
+   * @throws IllegalArgumentException matrixが正方行列でない場合
+   */
+  public static PackedTriangularMatrix upper(DoubleMatrix matrix) {
+    final int n = checkSquare(matrix);
+    final double[][] entries = matrix.array();
+    double[] packed = new double[PackedSymmetricMatrix.packedLength(n)];
+    for (int i = 0, p = 0; i < n; i++) {
+      System.arraycopy(entries[i], i, packed, p, n - i);
+      p += n - i;
+    }
+    return (new PackedTriangularMatrix(n, false, packed));
+  }
+
+  /**
+   * 下三角部分を行優先で詰めた配列をラップして，下三角行列を生成します。配列はコピーしません。
+   *
+   * @param n 次数
+   * @param packed 下三角部分の成分を行優先で並べた配列
+   * @return 下三角行列
+   */
+  static PackedTriangularMatrix wrapLower(int n, double[] packed) {
+    return (new PackedTriangularMatrix(n, true, packed));
+  }
+
+  /**
+   * 行列が正方行列であることを検証し，その次数を返します。
+   *
+   * @param matrix 行列
+   * @return 次数
+   * @throws IllegalArgumentException matrixが正方行列でない場合
+   */
+  private static int checkSquare(DoubleMatrix matrix) {
+    if (matrix.rows() != matrix.columns()) {
+      throw (new IllegalArgumentException(
+          String.format("正方行列ではありません: (%d,%d)", matrix.rows(), matrix.columns())));
+    }
+    return matrix.rows();
+  }
+
+  /** 次数を表します。 */
+  private final int n;
+
+  /** 下三角行列ならtrue，上三角行列ならfalseです。 */
+  private final boolean lower;
+
+  /** 三角部分の成分を行優先で並べた配列です。 */
+  private final double[] packed;
+
+  /**
+   * 成分を詰めた配列をラップして，三角行列を生成します。
+   *
+   * @param n 次数
+   * @param lower 下三角行列ならtrue
+   * @param packed 三角部分の成分を行優先で並べた配列
+   */
+  private PackedTriangularMatrix(int n, boolean lower, double[] packed) {
+    this.n = n;
+    this.lower = lower;
+    this.packed = packed;
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int order() {
+    return this.n;
+  }
+
+  /**
+   * 下三角行列かどうかを返します。
+   *
+   * @return 下三角行列ならtrue，上三角行列ならfalse
+   */
+  public boolean isLower() {
+    return this.lower;
+  }
+
+  /**
+   * 第i行の先頭(下三角行列では第0列，上三角行列では第i列)の成分の配列上の位置を返します。<br>
+   * 途中の積はintの範囲を超えることがあるため，longで計算してから最後に1度だけintに変換します。
+   *
+   * @param i 行番号
+   * @return 配列上の位置
+   */
+  private int rowOffset(int i) {
+    return this.lower
+        ? PackedSymmetricMatrix.packedIndex(i, 0)
+        : (int) ((long) i * this.n - (long) i * (i - 1) / 2);
+  }
+
+  /**
+   * 第i行のうち三角部分に含まれる列の範囲の先頭を返します。
+   *
+   * @param i 行番号
+   * @return 範囲の先頭の列番号(この値を含む)
+   */
+  private int firstColumn(int i) {
+    return this.lower ? 0 : i;
+  }
+
+  /**
+   * 第i行のうち三角部分に含まれる列の範囲の末尾を返します。
+   *
+   * @param i 行番号
+   * @return 範囲の末尾の列番号(この値を含まない)
+   */
+  private int lastColumn(int i) {
+    return this.lower ? i + 1 : this.n;
+  }
+
+  /**
+   * 行列の(i, j)成分を取得します。三角部分の外側の成分は0です。
+   *
+   * @param i i
+   * @param j j
+   * @return (i, j)成分の値
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   */
+  public double get(int i, int j) {
+    if (i < 0 || i >= this.n || j < 0 || j >= this.n) {
+      throw (new IndexOutOfBoundsException(
+          String.format("添え字が範囲外です: (%d,%d) (次数: %d)", i, j, this.n)));
+    }
+    if (j < this.firstColumn(i) || j >= this.lastColumn(i)) {
+      return 0;
+    }
+    return this.packed[this.rowOffset(i) + j - this.firstColumn(i)];
+  }
+
+  /**
+   * 行列の(i, j)成分を指定された値に置き換えます。
+   *
+   * @param i i
+   * @param j j
+   * @param entry 格納される値
+   * @return this
+   * @throws IndexOutOfBoundsException iまたはjの値が不正な添え字の場合
+   * @throws IllegalArgumentException (i, j)成分が三角部分の外側にある場合
+   */
+  public PackedTriangularMatrix set(int i, int j, double entry) {
+    if (i < 0 || i >= this.n || j < 0 || j >= this.n) {
+      throw (new IndexOutOfBoundsException(
+          String.format("添え字が範囲外です: (%d,%d) (次数: %d)", i, j, this.n)));
+    }
+    if (j < this.firstColumn(i) || j >= this.lastColumn(i)) {
+      throw (new IllegalArgumentException(
+          String.format("三角部分の外側の成分は変更できません: (%d,%d)", i, j)));
+    }
+    this.packed[this.rowOffset(i) + j - this.firstColumn(i)] = entry;
+    return this;
+  }
+
+  /**
+   * 行列式(対角成分の積)を返します。
+   *
+   * @return 行列式
+   */
+  public double determinant() {
+    double result = 1;
+    for (int i = 0; i < this.n; i++) {
+      result *= this.packed[this.rowOffset(i) + i - this.firstColumn(i)];
+    }
+    return result;
+  }
+
+  /**
+   * this * thatを計算し，結果の行列を返します。<br>
+   * 三角部分の成分だけを読み込み，結果の各行にthatの行を加算するため，列方向へのアクセスは発生しません。
+   *
+   * @param that この行列に乗算する行列
+   * @return this * that
+   * @throws ArithmeticException thisの列数とthatの行数が異なり，計算を実行できない場合
+   */
+  public DoubleMatrix times(DoubleMatrix that) {
+    if (this.n != that.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, that.rows())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("packedTriangularTimes");
+    final int columns = that.columns();
+    final double[][] b = that.array();
+    double[][] result = DoubleMatrixWorkspace.allocateZeros(this.n, columns);
+    for (int i = 0; i < this.n; i++) {
+      final double[] ci = result[i];
+      int p = this.rowOffset(i);
+      for (int j = this.firstColumn(i); j < this.lastColumn(i); j++, p++) {
+        final double aij = this.packed[p];
+        final double[] bj = b[j];
+        for (int k = 0; k < columns; k++) {
+          ci[k] += aij * bj[k];
+        }
+      }
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        columns,
+        this.n,
+        (long) this.n * columns * Double.BYTES,
+        (long) this.n * (this.n + 1) * columns);
+
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * 連立一次方程式this * X = bを，下三角行列なら前進代入，上三角行列なら後退代入で解き，Xを返します。<br>
+   * bの全ての列を行単位でまとめて処理するため，列方向へのアクセスは発生しません。
+   *
+   * @param b 右辺の行列
+   * @return 解X
+   * @throws ArithmeticException bの行数がthisの次数と異なる場合，または対角成分に0が含まれる場合
+   */
+  public DoubleMatrix solve(DoubleMatrix b) {
+    if (this.n != b.rows()) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, b.rows())));
+    }
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("packedTriangularSolve");
+    final int columns = b.columns();
+    final double[][] y = b.array();
+    double[][] x = new double[this.n][];
+    for (int step = 0; step < this.n; step++) {
+      final int i = this.lower ? step : this.n - 1 - step;
+      final double[] xi = y[i].clone();
+      final int offset = this.rowOffset(i) - this.firstColumn(i);
+      for (int j = this.firstColumn(i); j < this.lastColumn(i); j++) {
+        if (j == i) {
+          continue;
+        }
+        final double aij = this.packed[offset + j];
+        final double[] xj = x[j];
+        for (int k = 0; k < columns; k++) {
+          xi[k] -= aij * xj[k];
+        }
+      }
+      final double aii = this.packed[offset + i];
+      if (aii == 0) {
+        throw (new ArithmeticException("対角成分が0のため，解を計算できません: " + i));
+      }
+      for (int k = 0; k < columns; k++) {
+        xi[k] /= aii;
+      }
+      x[i] = xi;
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        columns,
+        this.n,
+        (long) this.n * columns * Double.BYTES,
+        (long) this.n * this.n * columns);
+
+    return DoubleMatrix.wrapArray(x);
+  }
+
+  /**
+   * この行列と同じ成分を持つDoubleMatrixを生成します。
+   *
+   * @return 同じ成分を持つDoubleMatrix
+   */
+  public DoubleMatrix toDoubleMatrix() {
+    double[][] result = new double[this.n][this.n];
+    for (int i = 0; i < this.n; i++) {
+      System.arraycopy(
+          this.packed,
+          this.rowOffset(i),
+          result[i],
+          this.firstColumn(i),
+          this.lastColumn(i) - this.firstColumn(i));
+    }
+    return DoubleMatrix.wrapArray(result);
+  }
+}
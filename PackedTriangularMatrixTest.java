@@ -0,0 +1,73 @@
+// Usage: java -ea PackedTriangularMatrixTest
+public class PackedTriangularMatrixTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+    java.util.Random random = new java.util.Random(42);
+
+    { // 生成と成分の取得の動作確認
+      DoubleMatrix a = DoubleMatrix.of(3, 3, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+      PackedTriangularMatrix l = PackedTriangularMatrix.lower(a);
+      PackedTriangularMatrix u = PackedTriangularMatrix.upper(a);
+      assert l.isLower() && !u.isLower();
+      assert l.order() == 3 && u.order() == 3;
+      assert l.toDoubleMatrix().isEqual(DoubleMatrix.of(3, 3, 1, 0, 0, 4, 5, 0, 7, 8, 9));
+      assert u.toDoubleMatrix().isEqual(DoubleMatrix.of(3, 3, 1, 2, 3, 0, 5, 6, 0, 0, 9));
+      assert l.get(0, 2) == 0 && l.get(2, 1) == 8;
+      assert u.get(2, 1) == 0 && u.get(1, 2) == 6;
+      assert l.determinant() == 45 && u.determinant() == 45;
+
+      assert u.set(0, 1, -2) == u;
+      assert u.get(0, 1) == -2;
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class, "u.set(1, 0, 1)", () -> u.set(1, 0, 1));
+      DoubleMatrixTest.Test.assertThrows(
+          IndexOutOfBoundsException.class, "l.get(0, 3)", () -> l.get(0, 3));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "PackedTriangularMatrix.lower(DoubleMatrix.createZeroMatrix(2, 3))",
+          () -> PackedTriangularMatrix.lower(DoubleMatrix.createZeroMatrix(2, 3)));
+    }
+
+    { // 積と連立一次方程式の求解の動作確認
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, 13, 13);
+      for (int i = 0; i < 13; i++) {
+        a.set(i, i, 10 + i);
+      }
+      DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, 13, 4);
+      for (boolean lower : new boolean[] {true, false}) {
+        PackedTriangularMatrix t =
+            lower ? PackedTriangularMatrix.lower(a) : PackedTriangularMatrix.upper(a);
+        DoubleMatrix dense = t.toDoubleMatrix();
+        assert t.times(b).isEqual(dense.times(b));
+
+        DoubleMatrix x = t.solve(b);
+        DoubleMatrix residual = dense.times(x).minus(b);
+        assert residual.normInf() < 1e-10 : residual.normInf();
+        assert x.minus(dense.solve(b)).normInf() < 1e-10;
+      }
+
+      PackedTriangularMatrix singular =
+          PackedTriangularMatrix.lower(DoubleMatrix.of(2, 2, 1, 0, 1, 0));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "singular.solve(DoubleMatrix.createColumnVector(1, 1))",
+          () -> singular.solve(DoubleMatrix.createColumnVector(1, 1)));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "singular.times(DoubleMatrix.createColumnVector(1, 1, 1))",
+          () -> singular.times(DoubleMatrix.createColumnVector(1, 1, 1)));
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class PackedTriangularMatrixTest
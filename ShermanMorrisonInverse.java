@@ -0,0 +1,224 @@
+/**
+ * 正則行列Aの逆行列を保持し，Aに低ランクの項を加えたときに逆行列を更新するクラスです。<br>
+ * ランク1の更新A + alpha * xy^tにはSherman-Morrisonの公式
+ * (A + alpha * xy^t)^-1 = A^-1 - alpha * (A^-1 x)(y^t A^-1) / (1 + alpha * y^t A^-1 x)を，
+ * ランクkの更新A + UCV^tにはWoodburyの公式
+ * (A + UCV^t)^-1 = A^-1 - A^-1 U (I + C V^t A^-1 U)^-1 C V^t A^-1を使用します。<br>
+ * 逆行列を計算し直すと計算量はn^3に比例しますが，ランク1の更新はn^2，ランクkの更新はn^2 * kに比例します。
+ *
+ * <pre>{@code
+ * ShermanMorrisonInverse inverse = ShermanMorrisonInverse.of(a);
+ * for (Event e : events) {
+ *   inverse.rank1Update(e.weight(), e.x(), e.y()); // A += weight * x * y^t
+ * }
+ * DoubleMatrix solution = inverse.solve(b);
+ * }</pre>
+ *
+ * 更新を繰り返すと丸め誤差が蓄積するため，精度が必要な場合は適当な間隔でofにより計算し直してください。
+ *
+ * @author mpp
+ * @see DoubleMatrix#rank1Update(double, DoubleMatrix, DoubleMatrix)
+ */
+public final class ShermanMorrisonInverse {
+
+  /**
+   * 正則行列aの逆行列をLU分解により計算し，それを保持するオブジェクトを生成します。aは変更しません。<br>
+   * 保持する逆行列は作業領域(DoubleMatrixWorkspace)から配列を借りずに生成するため，作業領域を閉じた後も使用できます。
+   *
+   * @param a 正則行列
+   * @return aの逆行列を保持するオブジェクト
+   * @throws ArithmeticException aが正方行列でない場合，または正則でない場合
+   */
+  public static ShermanMorrisonInverse of(DoubleMatrix a) {
+    return (new ShermanMorrisonInverse(
+        DoubleMatrixWorkspace.unpooled(
+            () -> a.lu().solve(DoubleMatrix.createIdentityMatrix(a.rows())).array())));
+  }
+
+  /** 逆行列の成分を保持する配列です。 */
+  private double[][] inverse;
+
+  /** 次数を表します。 */
+  private final int n;
+
+  /** 更新の回数を表します。 */
+  private int updates;
+
+  /**
+   * 逆行列を保持するオブジェクトを生成します。
+   *
+   * @param inverse 逆行列の成分を保持する配列
+   */
+  private ShermanMorrisonInverse(double[][] inverse) {
+    this.inverse = inverse;
+    this.n = inverse.length;
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int order() {
+    return this.n;
+  }
+
+  /**
+   * ofで生成してから更新した回数を返します。
+   *
+   * @return 更新の回数
+   */
+  public int updates() {
+    return this.updates;
+  }
+
+  /**
+   * 現在の逆行列の複製を返します。
+   *
+   * @return 逆行列
+   */
+  public DoubleMatrix inverse() {
+    return DoubleMatrix.from(this.inverse);
+  }
+
+  /**
+   * 現在の逆行列を使用して連立一次方程式AX = Bを解き，Xを返します。計算量はn^2 * (Bの列数)に比例します。
+   *
+   * @param b 右辺の行列
+   * @return 解X
+   * @throws ArithmeticException bの行数が次数と異なる場合
+   */
+  public DoubleMatrix solve(DoubleMatrix b) {
+    if (b.rows() != this.n) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.n, b.rows())));
+    }
+    return DoubleMatrix.wrapArray(this.inverse).times(b);
+  }
+
+  /**
+   * A += alpha * xy^tに対応して，保持している逆行列を更新します。計算量はn^2に比例します。<br>
+   * 1 + alpha * y^t A^-1 xが0の場合は更新後の行列が正則でないため，逆行列を変更せずに例外をスローします。
+   *
+   * @param alpha 係数
+   * @param x 列ベクトル(長さは次数)
+   * @param y 列ベクトル(長さは次数)
+   * @return this
+   * @throws ArithmeticException xまたはyの型が不正で計算を実行できない場合，または更新後の行列が正則でない場合
+   */
+  public ShermanMorrisonInverse rank1Update(double alpha, DoubleMatrix x, DoubleMatrix y) {
+    this.checkType(x, 1);
+    this.checkType(y, 1);
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("shermanMorrison");
+    final double[][] inverse = this.inverse;
+    // p = A^-1 x，q = y^t A^-1
+    double[] p = new double[this.n];
+    double[] q = new double[this.n];
+    for (int i = 0; i < this.n; i++) {
+      final double[] row = inverse[i];
+      final double yi = y.get(i, 0);
+      double sum = 0;
+      for (int j = 0; j < this.n; j++) {
+        sum += row[j] * x.get(j, 0);
+        q[j] += yi * row[j];
+      }
+      p[i] = sum;
+    }
+    double denominator = 1;
+    for (int i = 0; i < this.n; i++) {
+      denominator += alpha * y.get(i, 0) * p[i];
+    }
+    if (denominator == 0) {
+      throw (new ArithmeticException("行列が正則ではなくなるため，逆行列を更新できません"));
+    }
+
+    final double k = alpha / denominator;
+    for (int i = 0; i < this.n; i++) {
+      final double[] row = inverse[i];
+      final double pi = k * p[i];
+      if (pi == 0) {
+        continue;
+      }
+      for (int j = 0; j < this.n; j++) {
+        row[j] -= pi * q[j];
+      }
+    }
+    this.updates++;
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        this.n,
+        1,
+        (long) this.n * this.n * Double.BYTES,
+        6L * this.n * this.n);
+
+    return this;
+  }
+
+  /**
+   * A += UCV^tに対応して，保持している逆行列をWoodburyの公式で更新します。<br>
+   * UとVはn * kの行列，Cはk * kの行列です。計算量はn^2 * kに比例し，k * kの連立一次方程式を1回解きます。
+   * 更新後の行列が正則でない場合は，逆行列を変更せずに例外をスローします。
+   *
+   * @param u n * kの行列U
+   * @param c k * kの行列C
+   * @param v n * kの行列V
+   * @return this
+   * @throws ArithmeticException U，C，Vの型が不正で計算を実行できない場合，または更新後の行列が正則でない場合
+   */
+  public ShermanMorrisonInverse update(DoubleMatrix u, DoubleMatrix c, DoubleMatrix v) {
+    final int k = c.rows();
+    if (c.columns() != k) {
+      throw (new ArithmeticException(
+          String.format(
+              "正方行列ではないため，計算できません: (%d,%d)", c.rows(), c.columns())));
+    }
+    this.checkType(u, k);
+    this.checkType(v, k);
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("woodbury");
+    final DoubleMatrix inverse = DoubleMatrix.wrapArray(this.inverse);
+    final DoubleMatrix inverseU = inverse.times(u); // A^-1 U (n * k)
+    final DoubleMatrix vInverse = v.transposed().times(inverse); // V^t A^-1 (k * n)
+    final DoubleMatrix cvInverse = c.times(vInverse); // C V^t A^-1 (k * n)
+    DoubleMatrix capacitance = cvInverse.times(u); // I + C V^t A^-1 U (k * k)
+    for (int i = 0; i < k; i++) {
+      capacitance.set(i, i, capacitance.get(i, i) + 1);
+    }
+    final DoubleMatrix correction;
+    try {
+      correction = inverseU.times(capacitance.solve(cvInverse));
+    } catch (ArithmeticException e) {
+      throw (new ArithmeticException("行列が正則ではなくなるため，逆行列を更新できません"));
+    }
+    // 途中の行列は作業領域から借りてもよいが，保持する逆行列は作業領域を閉じた後も使用する
+    this.inverse = DoubleMatrixWorkspace.unpooled(() -> inverse.minus(correction).array());
+    this.updates++;
+    DoubleMatrixMetrics.end(
+        probe,
+        this.n,
+        this.n,
+        k,
+        (long) this.n * this.n * Double.BYTES,
+        6L * this.n * this.n * k);
+
+    return this;
+  }
+
+  /**
+   * 行列がn * columnsの型であることを確認します。
+   *
+   * @param matrix 確認する行列
+   * @param columns 列数
+   * @throws ArithmeticException matrixの型がn * columnsでない場合
+   */
+  private void checkType(DoubleMatrix matrix, int columns) {
+    if (matrix.rows() != this.n || matrix.columns() != columns) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              matrix.rows(), matrix.columns(), this.n, columns)));
+    }
+  }
+}
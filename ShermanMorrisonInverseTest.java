@@ -0,0 +1,123 @@
+// Usage: java -ea ShermanMorrisonInverseTest
+public class ShermanMorrisonInverseTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  private static double inverseError(ShermanMorrisonInverse inverse, DoubleMatrix a) {
+    return a.times(inverse.inverse())
+        .minus(DoubleMatrix.createIdentityMatrix(a.rows()))
+        .normInf();
+  }
+
+  public static void main(String[] args) {
+    checkEnableAssertions();
+    java.util.Random random = new java.util.Random(46);
+
+    { // 生成と求解の動作確認
+      DoubleMatrix a = DoubleMatrix.of(2, 2, 4, 7, 2, 6);
+      ShermanMorrisonInverse inverse = ShermanMorrisonInverse.of(a);
+      assert inverse.order() == 2;
+      assert inverse.updates() == 0;
+      assert inverseError(inverse, a) < 1e-15;
+      assert inverse.inverse() != inverse.inverse();
+      DoubleMatrix x = inverse.solve(DoubleMatrix.createColumnVector(11, 8));
+      assert x.minus(DoubleMatrix.createColumnVector(1, 1)).normInf() < 1e-14;
+
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "ShermanMorrisonInverse.of(DoubleMatrix.createZeroMatrix(2, 2))",
+          () -> ShermanMorrisonInverse.of(DoubleMatrix.createZeroMatrix(2, 2)));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "ShermanMorrisonInverse.of(DoubleMatrix.createZeroMatrix(2, 3))",
+          () -> ShermanMorrisonInverse.of(DoubleMatrix.createZeroMatrix(2, 3)));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "inverse.solve(DoubleMatrix.createColumnVector(1, 2, 3))",
+          () -> inverse.solve(DoubleMatrix.createColumnVector(1, 2, 3)));
+    }
+
+    { // ランク1の更新が，逆行列の計算し直しと一致することを確認
+      final int n = 10;
+      DoubleMatrix a =
+          DoubleMatrixTest.Test.randomMatrix(random, n, n)
+              .plus(DoubleMatrix.createIdentityMatrix(n).times(40));
+      ShermanMorrisonInverse inverse = ShermanMorrisonInverse.of(a);
+      for (int t = 0; t < 20; t++) {
+        DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(random, n, 1);
+        DoubleMatrix y = DoubleMatrixTest.Test.randomMatrix(random, n, 1);
+        assert inverse.rank1Update(0.25, x, y) == inverse;
+        a.rank1Update(0.25, x, y);
+      }
+      assert inverse.updates() == 20;
+      assert inverseError(inverse, a) < 1e-10;
+      assert inverse.inverse().minus(ShermanMorrisonInverse.of(a).inverse()).normInf() < 1e-12;
+
+      // 更新後の行列が正則でない場合は，逆行列を変更しない
+      ShermanMorrisonInverse identity =
+          ShermanMorrisonInverse.of(DoubleMatrix.createIdentityMatrix(2));
+      DoubleMatrix e0 = DoubleMatrix.createColumnVector(1, 0);
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "identity.rank1Update(-1, e0, e0)",
+          () -> identity.rank1Update(-1, e0, e0));
+      assert identity.inverse().isEqual(DoubleMatrix.createIdentityMatrix(2));
+      assert identity.updates() == 0;
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "identity.rank1Update(1, e0, DoubleMatrix.createRowVector(1, 0))",
+          () -> identity.rank1Update(1, e0, DoubleMatrix.createRowVector(1, 0)));
+    }
+
+    { // ランクkの更新(Woodburyの公式)の動作確認
+      final int n = 12;
+      final int k = 3;
+      DoubleMatrix a =
+          DoubleMatrixTest.Test.randomMatrix(random, n, n)
+              .plus(DoubleMatrix.createIdentityMatrix(n).times(50));
+      ShermanMorrisonInverse inverse = ShermanMorrisonInverse.of(a);
+      DoubleMatrix u = DoubleMatrixTest.Test.randomMatrix(random, n, k);
+      DoubleMatrix c = DoubleMatrix.createDiagonalMatrix(0.5, -0.25, 0.125);
+      DoubleMatrix v = DoubleMatrixTest.Test.randomMatrix(random, n, k);
+      assert inverse.update(u, c, v) == inverse;
+      a.add(u.times(c).times(v.transposed()));
+      assert inverseError(inverse, a) < 1e-12;
+      assert inverse.updates() == 1;
+
+      // ランク1の場合はSherman-Morrisonの公式と一致する
+      DoubleMatrix x = DoubleMatrixTest.Test.randomMatrix(random, n, 1);
+      DoubleMatrix y = DoubleMatrixTest.Test.randomMatrix(random, n, 1);
+      ShermanMorrisonInverse woodbury = ShermanMorrisonInverse.of(a);
+      ShermanMorrisonInverse shermanMorrison = ShermanMorrisonInverse.of(a);
+      woodbury.update(x, DoubleMatrix.createDiagonalMatrix(0.5), y);
+      shermanMorrison.rank1Update(0.5, x, y);
+      assert woodbury.inverse().minus(shermanMorrison.inverse()).normInf() < 1e-15;
+
+      ShermanMorrisonInverse identity =
+          ShermanMorrisonInverse.of(DoubleMatrix.createIdentityMatrix(2));
+      DoubleMatrix e = DoubleMatrix.createIdentityMatrix(2);
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "identity.update(e, e.times(-1), e)",
+          () -> identity.update(e, e.times(-1), e));
+      assert identity.inverse().isEqual(e);
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "identity.update(e, DoubleMatrix.createZeroMatrix(2, 1), e)",
+          () -> identity.update(e, DoubleMatrix.createZeroMatrix(2, 1), e));
+      DoubleMatrixTest.Test.assertThrows(
+          ArithmeticException.class,
+          "identity.update(x, e, e)",
+          () -> identity.update(DoubleMatrix.createZeroMatrix(2, 1), e, e));
+    }
+
+    System.err.println();
+    System.err.println("テスト完了");
+  }
+} // end of class ShermanMorrisonInverseTest
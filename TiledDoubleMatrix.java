@@ -0,0 +1,706 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ヒープに収まらない大きさの行列を，正方形のタイルに分割してファイルに保存する行列です。<br>
+ * <br>
+ * 行列はtileSize * tileSizeのタイルに分割され，タイルの行の順にファイルに並べられます(端のタイルも同じ大きさで，余白は0です)。<br>
+ * メモリ上には，最近使用したタイルを最大cacheTiles個まで保持します(LRU方式)。
+ * 変更されたタイルは，キャッシュから追い出されるときか，flush()またはclose()を呼び出したときにファイルへ書き戻されます。<br>
+ * <br>
+ * times，plus，trsはタイル単位で計算し，結果を新しいファイルにタイルの順に書き込むため，
+ * 必要なメモリはタイルの大きさとキャッシュの個数だけで決まり，行列全体の大きさには依存しません。<br>
+ * forEachRowは，タイルの行(tileSize行)ごとにファイルを先頭から順に読み込み，各行を渡します。
+ *
+ * <pre>{@code
+ * try (TiledDoubleMatrix a = TiledDoubleMatrix.open("a.tiles", 64);
+ *     TiledDoubleMatrix b = TiledDoubleMatrix.open("b.tiles", 64);
+ *     TiledDoubleMatrix c = a.times(b, "c.tiles")) {
+ *   c.forEachRow((i, row) -> process(i, row));
+ * }
+ * }</pre>
+ *
+ * このクラスのインスタンスは複数のスレッドから同時に使用してはいけません。
+ *
+ * @author mpp
+ * @see ChunkedMatrixFile
+ */
+public final class TiledDoubleMatrix implements AutoCloseable {
+
+  /** ヘッダの先頭に書き込む値("JMCT")です。 */
+  private static final int HEADER_MAGIC = 0x4a4d4354;
+
+  /** ファイル形式の版です。 */
+  private static final int FORMAT_VERSION = 1;
+
+  /** ヘッダの大きさ(バイト)です。 */
+  private static final int HEADER_BYTES = 8 * Integer.BYTES;
+
+  /**
+   * タイルの1辺の長さの上限です。<br>
+   * 1タイルの大きさ(tileSize * tileSize * 8バイト)がintの最大値以下になるようにします。
+   * 1 << 14では，ちょうど2GiBとなりintの範囲を超えます。
+   */
+  private static final int MAX_TILE_SIZE = (1 << 14) - 1;
+
+  /** 行を受け取る関数を表すインタフェースです。 */
+  @FunctionalInterface
+  public interface RowConsumer {
+
+    /**
+     * 行を受け取ります。rowは次の行を渡すときに再利用されるため，保持する場合はコピーしてください。
+     *
+     * @param i 行番号
+     * @param row 行の成分
+     */
+    void accept(int i, double[] row);
+  }
+
+  /**
+   * 成分の値が全て0dの行列を保存するファイルを新たに作成します。既存のファイルは上書きされます。
+   *
+   * @param filename ファイル名
+   * @param rows 行数
+   * @param columns 列数
+   * @param tileSize タイルの1辺の長さ
+   * @param cacheTiles メモリ上に保持するタイルの個数の上限
+   * @return 零行列
+   * @throws IOException 入出力エラーが発生した場合
+   * @throws IllegalArgumentException 引数のいずれかが正の値でない場合，またはtileSizeが大きすぎる場合
+   */
+  public static TiledDoubleMatrix create(
+      String filename, int rows, int columns, int tileSize, int cacheTiles) throws IOException {
+    if (rows <= 0 || columns <= 0) {
+      throw (new IllegalArgumentException(
+          String.format("行列の型が不正です: (%d,%d)", rows, columns)));
+    }
+    if (tileSize <= 0 || tileSize > MAX_TILE_SIZE) {
+      throw (new IllegalArgumentException("タイルの大きさが不正です: " + tileSize));
+    }
+    checkCacheTiles(cacheTiles);
+
+    FileChannel channel =
+        FileChannel.open(
+            Paths.get(filename),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      header
+          .putInt(HEADER_MAGIC)
+          .putInt(FORMAT_VERSION)
+          .putInt(rows)
+          .putInt(columns)
+          .putInt(tileSize)
+          .position(HEADER_BYTES)
+          .flip();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      TiledDoubleMatrix result =
+          new TiledDoubleMatrix(filename, channel, rows, columns, tileSize, cacheTiles);
+      // 末尾の1バイトだけを書き込んでファイルを伸ばす(書き込まれていない領域は0として読み込まれる)
+      final long end = result.tileOffset(result.tileCount());
+      channel.write(ByteBuffer.allocate(1), end - 1);
+      return result;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * create(String, int, int, int, int)で作成したファイルを開きます。
+   *
+   * @param filename ファイル名
+   * @param cacheTiles メモリ上に保持するタイルの個数の上限
+   * @return 行列
+   * @throws IOException 入出力エラーが発生した場合，またはファイルの形式が正しくない場合
+   * @throws IllegalArgumentException cacheTilesが正の値でない場合
+   */
+  public static TiledDoubleMatrix open(String filename, int cacheTiles) throws IOException {
+    checkCacheTiles(cacheTiles);
+
+    FileChannel channel =
+        FileChannel.open(Paths.get(filename), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw (new IOException(filename + ": ファイルが短すぎます"));
+        }
+      }
+      header.flip();
+      if (header.getInt() != HEADER_MAGIC) {
+        throw (new IOException(filename + ": タイル形式のファイルではありません"));
+      }
+      final int version = header.getInt();
+      if (version != FORMAT_VERSION) {
+        throw (new IOException(filename + ": 対応していない形式の版です: " + version));
+      }
+      final int rows = header.getInt();
+      final int columns = header.getInt();
+      final int tileSize = header.getInt();
+      if (rows <= 0 || columns <= 0 || tileSize <= 0 || tileSize > MAX_TILE_SIZE) {
+        throw (new IOException(filename + ": ヘッダが壊れています"));
+      }
+
+      TiledDoubleMatrix result =
+          new TiledDoubleMatrix(filename, channel, rows, columns, tileSize, cacheTiles);
+      if (channel.size() < result.tileOffset(result.tileCount())) {
+        throw (new IOException(filename + ": ファイルが途中で終わっています"));
+      }
+      return result;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * 行列の内容をタイル形式のファイルに書き込み，そのファイルを開いた行列を返します。
+   *
+   * @param matrix 行列
+   * @param filename ファイル名
+   * @param tileSize タイルの1辺の長さ
+   * @param cacheTiles メモリ上に保持するタイルの個数の上限
+   * @return 行列
+   * @throws IOException 入出力エラーが発生した場合
+   * @throws IllegalArgumentException tileSizeまたはcacheTilesが不正な場合
+   */
+  public static TiledDoubleMatrix from(
+      DoubleMatrix matrix, String filename, int tileSize, int cacheTiles) throws IOException {
+    TiledDoubleMatrix result =
+        create(filename, matrix.rows(), matrix.columns(), tileSize, cacheTiles);
+    try {
+      final double[][] entries = matrix.array();
+      final double[] tile = new double[tileSize * tileSize];
+      for (int ti = 0; ti < result.tileRows; ti++) {
+        for (int tj = 0; tj < result.tileColumns; tj++) {
+          Arrays.fill(tile, 0);
+          final int i0 = ti * tileSize;
+          final int j0 = tj * tileSize;
+          final int width = Math.min(tileSize, result.columns - j0);
+          for (int i = 0; i < Math.min(tileSize, result.rows - i0); i++) {
+            System.arraycopy(entries[i0 + i], j0, tile, i * tileSize, width);
+          }
+          result.writeTile(ti * result.tileColumns + tj, tile);
+        }
+      }
+      return result;
+    } catch (IOException | RuntimeException e) {
+      result.close();
+      throw e;
+    }
+  }
+
+  /**
+   * キャッシュの個数の上限を検証します。
+   *
+   * @param cacheTiles メモリ上に保持するタイルの個数の上限
+   * @throws IllegalArgumentException cacheTilesが正の値でない場合
+   */
+  private static void checkCacheTiles(int cacheTiles) {
+    if (cacheTiles <= 0) {
+      throw (new IllegalArgumentException("キャッシュの個数が正の値ではありません: " + cacheTiles));
+    }
+  }
+
+  /** メモリ上に保持しているタイルを表すクラスです。 */
+  private static final class Tile {
+
+    /** タイルの成分(行優先)です。 */
+    private final double[] data;
+
+    /** ファイルに書き戻していない変更がある場合はtrueです。 */
+    private boolean dirty;
+
+    /**
+     * タイルを生成します。
+     *
+     * @param data タイルの成分
+     */
+    private Tile(double[] data) {
+      this.data = data;
+    }
+  }
+
+  /** ファイル名です。 */
+  private final String filename;
+
+  /** 読み書きに使用するチャネルです。 */
+  private final FileChannel channel;
+
+  /** 行列の行数です。 */
+  private final int rows;
+
+  /** 行列の列数です。 */
+  private final int columns;
+
+  /** タイルの1辺の長さです。 */
+  private final int tileSize;
+
+  /** 縦方向に並んだタイルの個数です。 */
+  private final int tileRows;
+
+  /** 横方向に並んだタイルの個数です。 */
+  private final int tileColumns;
+
+  /** メモリ上に保持するタイルの個数の上限です。 */
+  private final int cacheTiles;
+
+  /** タイルの番号と，メモリ上に保持しているタイルの対応です(使用した順)。 */
+  private final LinkedHashMap<Integer, Tile> cache;
+
+  /** タイルを読み書きする作業領域です。 */
+  private final ByteBuffer buffer;
+
+  /**
+   * 行列を生成します。
+   *
+   * @param filename ファイル名
+   * @param channel 読み書きに使用するチャネル
+   * @param rows 行数
+   * @param columns 列数
+   * @param tileSize タイルの1辺の長さ
+   * @param cacheTiles メモリ上に保持するタイルの個数の上限
+   */
+  private TiledDoubleMatrix(
+      String filename, FileChannel channel, int rows, int columns, int tileSize, int cacheTiles) {
+    this.filename = filename;
+    this.channel = channel;
+    this.rows = rows;
+    this.columns = columns;
+    this.tileSize = tileSize;
+    this.tileRows = (rows + tileSize - 1) / tileSize;
+    this.tileColumns = (columns + tileSize - 1) / tileSize;
+    this.cacheTiles = cacheTiles;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    this.buffer = ByteBuffer.allocate(this.tileBytes());
+  }
+
+  /**
+   * 行列の行数を返します。
+   *
+   * @return 行数
+   */
+  public int rows() {
+    return this.rows;
+  }
+
+  /**
+   * 行列の列数を返します。
+   *
+   * @return 列数
+   */
+  public int columns() {
+    return this.columns;
+  }
+
+  /**
+   * タイルの1辺の長さを返します。
+   *
+   * @return タイルの1辺の長さ
+   */
+  public int tileSize() {
+    return this.tileSize;
+  }
+
+  /**
+   * (i, j)成分を返します。成分を含むタイルがメモリ上にない場合は，ファイルから読み込みます。
+   *
+   * @param i 行番号
+   * @param j 列番号
+   * @return (i, j)成分
+   * @throws IndexOutOfBoundsException iまたはjが範囲外の場合
+   * @throws UncheckedIOException 入出力エラーが発生した場合
+   */
+  public double get(int i, int j) {
+    this.checkIndex(i, j);
+    try {
+      return this.tile(i / this.tileSize, j / this.tileSize).data[this.offsetInTile(i, j)];
+    } catch (IOException ioe) {
+      throw (new UncheckedIOException(ioe));
+    }
+  }
+
+  /**
+   * (i, j)成分を指定された値に置き換えます。変更はflush()またはclose()を呼び出すまでファイルに書き戻されない場合があります。
+   *
+   * @param i 行番号
+   * @param j 列番号
+   * @param entry 値
+   * @return この行列
+   * @throws IndexOutOfBoundsException iまたはjが範囲外の場合
+   * @throws UncheckedIOException 入出力エラーが発生した場合
+   */
+  public TiledDoubleMatrix set(int i, int j, double entry) {
+    this.checkIndex(i, j);
+    try {
+      Tile tile = this.tile(i / this.tileSize, j / this.tileSize);
+      tile.data[this.offsetInTile(i, j)] = entry;
+      tile.dirty = true;
+    } catch (IOException ioe) {
+      throw (new UncheckedIOException(ioe));
+    }
+    return this;
+  }
+
+  /**
+   * this * thatを計算し，その結果を新しいファイルに保存した行列を返します。<br>
+   * 結果のタイルを行の順に1つずつ計算し，計算し終えたタイルをファイルに書き込みます。
+   * thisの同じタイルの行は結果のタイルの行を計算する間繰り返し使用されるため，
+   * cacheTilesはthisの横方向のタイルの個数より大きくしておくと，ファイルの読み込みが少なくなります。
+   *
+   * @param that 右側の行列
+   * @param filename 結果を保存するファイル名
+   * @return this * that
+   * @throws ArithmeticException thisの列数とthatの行数が異なる場合
+   * @throws IllegalArgumentException thisとthatのタイルの大きさが異なる場合
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public TiledDoubleMatrix times(TiledDoubleMatrix that, String filename) throws IOException {
+    if (this.columns != that.rows) {
+      throw (new ArithmeticException(
+          String.format("列数と行数が異なるため，計算できません: %d != %d", this.columns, that.rows)));
+    }
+    this.checkTileSize(that);
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("tiledTimes");
+    TiledDoubleMatrix result =
+        create(filename, this.rows, that.columns, this.tileSize, this.cacheTiles);
+    try {
+      final int t = this.tileSize;
+      final double[] acc = new double[t * t];
+      for (int ti = 0; ti < result.tileRows; ti++) {
+        for (int tj = 0; tj < result.tileColumns; tj++) {
+          Arrays.fill(acc, 0);
+          for (int tk = 0; tk < this.tileColumns; tk++) {
+            final double[] a = this.tile(ti, tk).data;
+            final double[] b = that.tile(tk, tj).data;
+            for (int i = 0; i < t; i++) {
+              final int ci = i * t;
+              for (int k = 0; k < t; k++) {
+                final double aik = a[ci + k];
+                if (aik == 0) {
+                  continue;
+                }
+                final int bk = k * t;
+                for (int j = 0; j < t; j++) {
+                  acc[ci + j] += aik * b[bk + j];
+                }
+              }
+            }
+          }
+          result.writeTile(ti * result.tileColumns + tj, acc);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    DoubleMatrixMetrics.end(
+        probe,
+        this.rows,
+        that.columns,
+        this.columns,
+        0,
+        2L * this.rows * that.columns * this.columns);
+    return result;
+  }
+
+  /**
+   * this + thatを計算し，その結果を新しいファイルに保存した行列を返します。
+   *
+   * @param that 右側の行列
+   * @param filename 結果を保存するファイル名
+   * @return this + that
+   * @throws ArithmeticException thisとthatの型が異なる場合
+   * @throws IllegalArgumentException thisとthatのタイルの大きさが異なる場合
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public TiledDoubleMatrix plus(TiledDoubleMatrix that, String filename) throws IOException {
+    if (this.rows != that.rows || this.columns != that.columns) {
+      throw (new ArithmeticException(
+          String.format(
+              "行列の型が異なるため，計算できません: (%d,%d) != (%d,%d)",
+              this.rows, this.columns, that.rows, that.columns)));
+    }
+    this.checkTileSize(that);
+
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("tiledPlus");
+    TiledDoubleMatrix result =
+        create(filename, this.rows, this.columns, this.tileSize, this.cacheTiles);
+    try {
+      final double[] sum = new double[this.tileSize * this.tileSize];
+      for (int index = 0; index < this.tileCount(); index++) {
+        final int ti = index / this.tileColumns;
+        final int tj = index % this.tileColumns;
+        final double[] a = this.tile(ti, tj).data;
+        final double[] b = that.tile(ti, tj).data;
+        for (int k = 0; k < sum.length; k++) {
+          sum[k] = a[k] + b[k];
+        }
+        result.writeTile(index, sum);
+      }
+    } catch (IOException | RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    DoubleMatrixMetrics.end(
+        probe, this.rows, this.columns, 0, 0, (long) this.rows * this.columns);
+    return result;
+  }
+
+  /**
+   * この行列の転置行列を計算し，その結果を新しいファイルに保存した行列を返します。
+   *
+   * @param filename 結果を保存するファイル名
+   * @return t^this
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public TiledDoubleMatrix trs(String filename) throws IOException {
+    DoubleMatrixMetrics.Probe probe = DoubleMatrixMetrics.begin("tiledTrs");
+    TiledDoubleMatrix result =
+        create(filename, this.columns, this.rows, this.tileSize, this.cacheTiles);
+    try {
+      final int t = this.tileSize;
+      final double[] transposed = new double[t * t];
+      for (int ti = 0; ti < result.tileRows; ti++) {
+        for (int tj = 0; tj < result.tileColumns; tj++) {
+          final double[] a = this.tile(tj, ti).data;
+          for (int i = 0; i < t; i++) {
+            for (int j = 0; j < t; j++) {
+              transposed[i * t + j] = a[j * t + i];
+            }
+          }
+          result.writeTile(ti * result.tileColumns + tj, transposed);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    DoubleMatrixMetrics.end(probe, this.columns, this.rows, 0, 0, 0);
+    return result;
+  }
+
+  /**
+   * 各行を先頭から順にconsumerに渡します。<br>
+   * 変更を書き戻した後，タイルの行(tileSize行分のタイル)ごとにファイルを先頭から順に読み込みます。
+   * キャッシュは使用せず，必要なメモリはtileSize * 列数個の成分です。
+   *
+   * @param consumer 各行を受け取る関数
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public void forEachRow(RowConsumer consumer) throws IOException {
+    this.flush();
+
+    final int t = this.tileSize;
+    final double[][] band = new double[t][this.columns];
+    final double[] tile = new double[t * t];
+    for (int ti = 0; ti < this.tileRows; ti++) {
+      for (int tj = 0; tj < this.tileColumns; tj++) {
+        this.readTile(ti * this.tileColumns + tj, tile);
+        final int width = Math.min(t, this.columns - tj * t);
+        for (int i = 0; i < t; i++) {
+          System.arraycopy(tile, i * t, band[i], tj * t, width);
+        }
+      }
+      for (int i = 0; i < Math.min(t, this.rows - ti * t); i++) {
+        consumer.accept(ti * t + i, band[i]);
+      }
+    }
+  }
+
+  /**
+   * 行列全体をメモリ上に読み込みます。行列がヒープに収まる場合にだけ使用してください。
+   *
+   * @return 行列
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public DoubleMatrix toDoubleMatrix() throws IOException {
+    final double[][] result = new double[this.rows][];
+    this.forEachRow((i, row) -> result[i] = row.clone());
+    return DoubleMatrix.wrapArray(result);
+  }
+
+  /**
+   * 変更されたタイルをすべてファイルに書き戻します。
+   *
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  public void flush() throws IOException {
+    for (Map.Entry<Integer, Tile> entry : this.cache.entrySet()) {
+      Tile tile = entry.getValue();
+      if (tile.dirty) {
+        this.writeTile(entry.getKey(), tile.data);
+        tile.dirty = false;
+      }
+    }
+  }
+
+  /**
+   * 変更されたタイルをファイルに書き戻し，ファイルを閉じます。
+   *
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  @Override
+  public void close() throws IOException {
+    if (!this.channel.isOpen()) {
+      return;
+    }
+    try {
+      this.flush();
+    } finally {
+      this.cache.clear();
+      this.channel.close();
+    }
+  }
+
+  /**
+   * (ti, tj)番目のタイルを返します。メモリ上にない場合はファイルから読み込み，
+   * キャッシュが上限に達している場合は最も長く使用されていないタイルを書き戻して破棄します。<br>
+   * 破棄したタイルの配列は再利用しません(呼び出し元が直前に取得したタイルを参照している場合があるため)。
+   *
+   * @param ti タイルの行番号
+   * @param tj タイルの列番号
+   * @return タイル
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  private Tile tile(int ti, int tj) throws IOException {
+    final Integer index = ti * this.tileColumns + tj;
+    Tile tile = this.cache.get(index);
+    if (tile != null) {
+      return tile;
+    }
+
+    if (this.cache.size() >= this.cacheTiles) {
+      Iterator<Map.Entry<Integer, Tile>> eldest = this.cache.entrySet().iterator();
+      Map.Entry<Integer, Tile> entry = eldest.next();
+      if (entry.getValue().dirty) {
+        this.writeTile(entry.getKey(), entry.getValue().data);
+      }
+      eldest.remove();
+    }
+    final double[] data = new double[this.tileSize * this.tileSize];
+    this.readTile(index, data);
+    tile = new Tile(data);
+    this.cache.put(index, tile);
+    return tile;
+  }
+
+  /**
+   * index番目のタイルをファイルから読み込みます。
+   *
+   * @param index タイルの番号
+   * @param data 読み込んだ成分を格納する配列
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  private void readTile(int index, double[] data) throws IOException {
+    this.buffer.clear();
+    final long offset = this.tileOffset(index);
+    while (this.buffer.hasRemaining()) {
+      if (this.channel.read(this.buffer, offset + this.buffer.position()) < 0) {
+        throw (new IOException(this.filename + ": ファイルが途中で終わっています"));
+      }
+    }
+    this.buffer.flip();
+    DoubleBuffer doubles = this.buffer.asDoubleBuffer();
+    doubles.get(data);
+  }
+
+  /**
+   * index番目のタイルをファイルに書き込みます。
+   *
+   * @param index タイルの番号
+   * @param data タイルの成分
+   * @throws IOException 入出力エラーが発生した場合
+   */
+  private void writeTile(int index, double[] data) throws IOException {
+    this.buffer.clear();
+    this.buffer.asDoubleBuffer().put(data);
+    final long offset = this.tileOffset(index);
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer, offset + this.buffer.position());
+    }
+  }
+
+  /**
+   * タイルの個数を返します。
+   *
+   * @return タイルの個数
+   */
+  private int tileCount() {
+    return this.tileRows * this.tileColumns;
+  }
+
+  /**
+   * 1タイルの大きさ(バイト)を返します。
+   *
+   * @return 1タイルの大きさ
+   */
+  private int tileBytes() {
+    // tileSizeはMAX_TILE_SIZE以下に制限しているため，桁あふれしない
+    return Math.toIntExact((long) this.tileSize * this.tileSize * Double.BYTES);
+  }
+
+  /**
+   * index番目のタイルのファイル内の位置を返します。
+   *
+   * @param index タイルの番号
+   * @return ファイル内の位置(バイト)
+   */
+  private long tileOffset(int index) {
+    return HEADER_BYTES + (long) index * this.tileBytes();
+  }
+
+  /**
+   * (i, j)成分のタイル内の位置を返します。
+   *
+   * @param i 行番号
+   * @param j 列番号
+   * @return タイル内の位置
+   */
+  private int offsetInTile(int i, int j) {
+    return (i % this.tileSize) * this.tileSize + (j % this.tileSize);
+  }
+
+  /**
+   * 成分の位置が範囲内かどうか検証します。
+   *
+   * @param i 行番号
+   * @param j 列番号
+   * @throws IndexOutOfBoundsException iまたはjが範囲外の場合
+   */
+  private void checkIndex(int i, int j) {
+    if (i < 0 || i >= this.rows || j < 0 || j >= this.columns) {
+      throw (new IndexOutOfBoundsException(
+          String.format("範囲外の成分です: (%d,%d) (型: (%d,%d))", i, j, this.rows, this.columns)));
+    }
+  }
+
+  /**
+   * タイルの大きさが等しいかどうか検証します。
+   *
+   * @param that 比較する行列
+   * @throws IllegalArgumentException タイルの大きさが異なる場合
+   */
+  private void checkTileSize(TiledDoubleMatrix that) {
+    if (this.tileSize != that.tileSize) {
+      throw (new IllegalArgumentException(
+          String.format("タイルの大きさが異なります: %d != %d", this.tileSize, that.tileSize)));
+    }
+  }
+}
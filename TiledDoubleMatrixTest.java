@@ -0,0 +1,132 @@
+// Usage: java -ea TiledDoubleMatrixTest
+public class TiledDoubleMatrixTest {
+
+  private static void checkEnableAssertions() {
+    boolean enableAssertions = false;
+    assert enableAssertions = true;
+    if (!enableAssertions) {
+      throw new AssertionError("Tests cannot be run because assertions are not enabled");
+    }
+  }
+
+  public static void main(String[] args) throws java.io.IOException {
+    checkEnableAssertions();
+
+    { // 生成と成分の取得，設定の動作確認
+      try (TiledDoubleMatrix z = TiledDoubleMatrix.create("tmp/tiled1.tiles", 10, 7, 4, 2)) {
+        assert z.rows() == 10;
+        assert z.columns() == 7;
+        assert z.tileSize() == 4;
+        assert z.toDoubleMatrix().isEqual(DoubleMatrix.createZeroMatrix(10, 7));
+
+        // キャッシュ(2個)より多くのタイルを変更する
+        for (int i = 0; i < 10; i++) {
+          for (int j = 0; j < 7; j++) {
+            assert z.set(i, j, i * 7 + j) == z;
+          }
+        }
+        assert z.get(9, 6) == 69;
+        assert z.get(0, 0) == 0;
+
+        DoubleMatrixTest.Test.assertThrows(
+            IndexOutOfBoundsException.class, "z.get(10, 0)", () -> z.get(10, 0));
+        DoubleMatrixTest.Test.assertThrows(
+            IndexOutOfBoundsException.class, "z.set(0, -1, 1)", () -> z.set(0, -1, 1));
+      }
+
+      try (TiledDoubleMatrix z = TiledDoubleMatrix.open("tmp/tiled1.tiles", 3)) {
+        assert z.tileSize() == 4;
+        for (int i = 0; i < 10; i++) {
+          for (int j = 0; j < 7; j++) {
+            assert z.get(i, j) == i * 7 + j;
+          }
+        }
+      }
+
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "TiledDoubleMatrix.create(\"tmp/tiled2.tiles\", 10, 7, 0, 2)",
+          () -> TiledDoubleMatrix.create("tmp/tiled2.tiles", 10, 7, 0, 2));
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "TiledDoubleMatrix.create(\"tmp/tiled2.tiles\", 10, 7, 4, 0)",
+          () -> TiledDoubleMatrix.create("tmp/tiled2.tiles", 10, 7, 4, 0));
+      // 1タイルの大きさがちょうど2GiBとなり，intの範囲を超える
+      DoubleMatrixTest.Test.assertThrows(
+          IllegalArgumentException.class,
+          "TiledDoubleMatrix.create(\"tmp/tiled2.tiles\", 10, 7, 1 << 14, 2)",
+          () -> TiledDoubleMatrix.create("tmp/tiled2.tiles", 10, 7, 1 << 14, 2));
+      DoubleMatrix.writeToFile(DoubleMatrix.createIdentityMatrix(3), "tmp/tiled3.tiles");
+      DoubleMatrixTest.Test.assertThrows(
+          java.io.IOException.class,
+          "TiledDoubleMatrix.open(\"tmp/tiled3.tiles\", 2)",
+          () -> TiledDoubleMatrix.open("tmp/tiled3.tiles", 2));
+    } // end of block
+
+    { // times()，plus()，trs()，forEachRow() の動作確認
+      java.util.Random random = new java.util.Random(36);
+      DoubleMatrix a = DoubleMatrixTest.Test.randomMatrix(random, 23, 17);
+      DoubleMatrix b = DoubleMatrixTest.Test.randomMatrix(random, 17, 11);
+      DoubleMatrix c = DoubleMatrixTest.Test.randomMatrix(random, 23, 17);
+
+      try (TiledDoubleMatrix ta = TiledDoubleMatrix.from(a, "tmp/tiled-a.tiles", 5, 3);
+          TiledDoubleMatrix tb = TiledDoubleMatrix.from(b, "tmp/tiled-b.tiles", 5, 3);
+          TiledDoubleMatrix tc = TiledDoubleMatrix.from(c, "tmp/tiled-c.tiles", 5, 1)) {
+        assert ta.toDoubleMatrix().isEqual(a);
+
+        try (TiledDoubleMatrix ab = ta.times(tb, "tmp/tiled-ab.tiles")) {
+          assert ab.rows() == 23;
+          assert ab.columns() == 11;
+          assert ab.toDoubleMatrix().isEqual(a.times(b));
+        }
+        try (TiledDoubleMatrix ac = ta.plus(tc, "tmp/tiled-ac.tiles")) {
+          assert ac.toDoubleMatrix().isEqual(a.plus(c));
+        }
+        try (TiledDoubleMatrix at = ta.trs("tmp/tiled-at.tiles")) {
+          assert at.toDoubleMatrix().isEqual(a.trs());
+          try (TiledDoubleMatrix cat = tc.times(at, "tmp/tiled-cat.tiles")) {
+            assert cat.toDoubleMatrix().isEqual(c.times(a.trs()));
+          }
+        }
+
+        // キャッシュが1個の場合でも自身との積を正しく計算する
+        DoubleMatrix s = DoubleMatrixTest.Test.randomMatrix(random, 13, 13);
+        try (TiledDoubleMatrix ts = TiledDoubleMatrix.from(s, "tmp/tiled-s.tiles", 5, 1);
+            TiledDoubleMatrix ss = ts.times(ts, "tmp/tiled-ss.tiles")) {
+          assert ss.toDoubleMatrix().isEqual(s.times(s));
+        }
+
+        // 書き戻していない変更も forEachRow() に反映される
+        ta.set(22, 16, 100);
+        int[] count = {0};
+        ta.forEachRow(
+            (i, row) -> {
+              assert row.length == 17;
+              assert i == count[0]++;
+              for (int j = 0; j < 17; j++) {
+                assert row[j] == ((i == 22 && j == 16) ? 100 : a.get(i, j));
+              }
+            });
+        assert count[0] == 23;
+
+        DoubleMatrixTest.Test.assertThrows(
+            ArithmeticException.class,
+            "ta.times(tc, \"tmp/tiled-x.tiles\")",
+            () -> ta.times(tc, "tmp/tiled-x.tiles"));
+        DoubleMatrixTest.Test.assertThrows(
+            ArithmeticException.class,
+            "ta.plus(tb, \"tmp/tiled-x.tiles\")",
+            () -> ta.plus(tb, "tmp/tiled-x.tiles"));
+        try (TiledDoubleMatrix other = TiledDoubleMatrix.from(b, "tmp/tiled-o.tiles", 4, 3)) {
+          DoubleMatrixTest.Test.assertThrows(
+              IllegalArgumentException.class,
+              "ta.times(other, \"tmp/tiled-x.tiles\")",
+              () -> ta.times(other, "tmp/tiled-x.tiles"));
+        }
+      }
+    } // end of block
+
+    System.err.println();
+    System.err.println("テスト完了");
+  } // end of main()
+} // end of class TiledDoubleMatrixTest
@@ -4,8 +4,8 @@ JFLAGS="-Dfile.encoding=UTF-8"
 CLASSES="classes"
 TMP="tmp"
 DOC="doc"
-DOCTGT="DoubleMatrix.java"
-TEST="DoubleMatrixTest"
+DOCTGT="DoubleMatrix.java DoubleMatrixBatch.java FloatMatrix.java LUDecomposition.java FloatLUDecomposition.java MixedPrecisionSolver.java DoubleMatrixWorkspace.java DoubleMatrixMetrics.java DoubleMatrixOperationEvent.java CholeskyDecomposition.java DoubleBlockMatrix.java DoubleFormatter.java ChunkedMatrixFile.java TiledDoubleMatrix.java BlockMultiplyCoordinator.java BlockMultiplyWorker.java DoubleMatrixAsync.java PackedSymmetricMatrix.java PackedTriangularMatrix.java BandMatrix.java BandLUDecomposition.java KroneckerProduct.java ShermanMorrisonInverse.java DoubleMatrixSnapshot.java ConcurrentDoubleMatrix.java"
+TESTS="DoubleMatrixTest DoubleMatrixBatchTest FloatMatrixTest MixedPrecisionSolverTest DoubleMatrixWorkspaceTest DoubleMatrixMetricsTest DoubleBlockMatrixTest DoubleFormatterTest ChunkedMatrixFileTest TiledDoubleMatrixTest BlockMultiplyCoordinatorTest DoubleMatrixAsyncTest PackedSymmetricMatrixTest PackedTriangularMatrixTest BandMatrixTest KroneckerProductTest ShermanMorrisonInverseTest DoubleMatrixSnapshotTest ConcurrentDoubleMatrixTest DoubleMatrixDifferentialTest"
 FORMATTER="../Lib/google-java-format-1.15.0-all-deps.jar"
 
 usage () {
@@ -19,6 +19,8 @@ usage () {
       -j      create jar
       -d      create doc
       -t      run test
+      -p      run performance regression test
+      -u      update performance baseline (perf-baseline.txt)
 EOF
   exit
 }
@@ -42,11 +44,25 @@ makejar () {
 }
 
 makedoc () {
-  javadoc "$CFLAGS" -d "$DOC" "$DOCTGT"
+  javadoc "$CFLAGS" -d "$DOC" $DOCTGT
 }
 
 test () {
-  java "$JFLAGS" -cp "$CLASSES" -ea "$TEST"
+  for t in $TESTS; do
+    java "$JFLAGS" -cp "$CLASSES" -ea "$t" || exit 1
+  done
+}
+
+# 基準の積は1スレッドで計算するため，比がコア数によらないように並列ストリームも1スレッドで実行する
+PERFFLAGS="-Djava.util.concurrent.ForkJoinPool.common.parallelism=0"
+
+perftest () {
+  java "$JFLAGS" "$PERFFLAGS" -cp "$CLASSES" DoubleMatrixPerformanceTest || exit 1
+}
+
+perfupdate () {
+  java "$JFLAGS" "$PERFFLAGS" -Dperf.update=true -cp "$CLASSES" DoubleMatrixPerformanceTest \
+    || exit 1
 }
 
 
@@ -54,7 +70,7 @@ if [ $# -eq 0 ]; then
   usage
 fi
 
-while getopts 'hfcmjdt' opt; do
+while getopts 'hfcmjdtpu' opt; do
   case "$opt" in
     h) usage ;;
     f) format ;;
@@ -63,5 +79,7 @@ while getopts 'hfcmjdt' opt; do
     j) clean && makejar ;;
     d) clean && makedoc ;;
     t) format && make && test ;;
+    p) make && perftest ;;
+    u) make && perfupdate ;;
   esac
 done